@@ -0,0 +1,69 @@
+package com.music.benchmark;
+
+import java.io.ByteArrayOutputStream;
+import java.io.File;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+
+/**
+ * 生成导入基准使用的最小MP3文件：ID3v2.3标签（标题、歌手）加固定格式的音频帧
+ */
+final class AudioFiles {
+
+    // MPEG-1 Layer III，128kbps，44.1kHz，立体声，无CRC、无填充；每帧417字节、1152个采样
+    private static final byte[] FRAME_HEADER = {(byte) 0xFF, (byte) 0xFB, (byte) 0x90, 0x00};
+
+    private static final int FRAME_LENGTH = 417;
+
+    private AudioFiles() {
+    }
+
+    /**
+     * 指定时长的音频帧，可重复用于多个文件
+     */
+    static byte[] audio(int seconds) {
+        int frames = seconds * 44100 / 1152;
+        byte[] audio = new byte[frames * FRAME_LENGTH];
+        for (int i = 0; i < frames; i++) {
+            System.arraycopy(FRAME_HEADER, 0, audio, i * FRAME_LENGTH, FRAME_HEADER.length);
+        }
+        return audio;
+    }
+
+    /**
+     * 写入带标签的音频文件
+     */
+    static void write(File file, String artist, String title, byte[] audio) throws IOException {
+        ByteArrayOutputStream content = new ByteArrayOutputStream();
+        content.write(id3(artist, title));
+        content.write(audio);
+        Files.write(file.toPath(), content.toByteArray());
+    }
+
+    /**
+     * ID3v2.3标签，只含标题和歌手两个ISO-8859-1文本帧
+     */
+    private static byte[] id3(String artist, String title) throws IOException {
+        ByteArrayOutputStream frames = new ByteArrayOutputStream();
+        textFrame(frames, "TIT2", title);
+        textFrame(frames, "TPE1", artist);
+
+        ByteArrayOutputStream tag = new ByteArrayOutputStream();
+        tag.write(new byte[]{'I', 'D', '3', 3, 0, 0});
+        int size = frames.size();
+        // 标签大小为同步安全整数，每字节只用低7位
+        tag.write(new byte[]{(byte) (size >> 21 & 0x7F), (byte) (size >> 14 & 0x7F),
+                (byte) (size >> 7 & 0x7F), (byte) (size & 0x7F)});
+        frames.writeTo(tag);
+        return tag.toByteArray();
+    }
+
+    private static void textFrame(ByteArrayOutputStream out, String id, String text) throws IOException {
+        byte[] value = text.getBytes(StandardCharsets.ISO_8859_1);
+        int size = value.length + 1;
+        out.write(id.getBytes(StandardCharsets.ISO_8859_1));
+        out.write(new byte[]{(byte) (size >> 24), (byte) (size >> 16), (byte) (size >> 8), (byte) size, 0, 0, 0});
+        out.write(value);
+    }
+}
@@ -0,0 +1,142 @@
+package com.music.benchmark;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Threads;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.support.GenericApplicationContext;
+import org.springframework.web.servlet.config.annotation.ResourceHandlerRegistry;
+import org.springframework.web.servlet.config.annotation.WebMvcConfigurer;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.net.HttpURLConnection;
+import java.net.URL;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.SplittableRandom;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * 音频流吞吐量：AudioStreamController（sendfile零拷贝或缓冲区分块）与原ResourceHttpRequestHandler对比
+ * 原处理方式以相同配置映射到 /legacy-song/**，两者读取同一个文件；
+ * 请求分为完整下载和拖动进度条时的单段Range（随机位置的256KB），每次请求都校验状态码和响应长度
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 5)
+@Measurement(iterations = 5, time = 5)
+@Fork(1)
+@Threads(4)
+public class AudioStreamBenchmark {
+
+    private static final String FILE_NAME = "benchmark.mp3";
+
+    private static final int RANGE_LENGTH = 256 * 1024;
+
+    @Param({"sendfile", "buffered", "resource"})
+    private String handler;
+
+    @Param({"full", "range"})
+    private String request;
+
+    @Param("8388608")
+    private int fileSize;
+
+    private BenchmarkApp app;
+
+    private URL url;
+
+    @State(Scope.Thread)
+    public static class ThreadState {
+
+        private final byte[] buffer = new byte[65536];
+
+        private SplittableRandom random;
+
+        @Setup
+        public void setup() {
+            random = new SplittableRandom(Thread.currentThread().getId());
+        }
+    }
+
+    @Setup
+    public void setup() throws Exception {
+        Map<String, Object> properties = new HashMap<>();
+        properties.put("audio.stream.sendfile", "sendfile".equals(handler));
+        app = BenchmarkApp.start(new CatalogGenerator(42L, 100, 10, 0, 0, 4), "benchmark,quiet", properties,
+                context -> ((GenericApplicationContext) context).registerBean(LegacySongResources.class));
+
+        Path songDir = Files.createDirectories(app.getWorkDir().resolve("song"));
+        byte[] content = new byte[fileSize];
+        new SplittableRandom(42L).nextBytes(content);
+        Files.write(songDir.resolve(FILE_NAME), content);
+
+        String prefix = "resource".equals(handler) ? "/legacy-song/" : "/song/";
+        url = new URL("http://localhost:" + app.getPort() + "/api" + prefix + FILE_NAME);
+    }
+
+    @TearDown
+    public void tearDown() throws Exception {
+        app.close();
+    }
+
+    @Benchmark
+    public long stream(ThreadState state) throws IOException {
+        HttpURLConnection connection = (HttpURLConnection) url.openConnection();
+        long expected = fileSize;
+        int expectedStatus = 200;
+        if ("range".equals(request)) {
+            long start = state.random.nextLong(fileSize - RANGE_LENGTH);
+            connection.setRequestProperty("Range", "bytes=" + start + "-" + (start + RANGE_LENGTH - 1));
+            expected = RANGE_LENGTH;
+            expectedStatus = 206;
+        }
+        if (connection.getResponseCode() != expectedStatus) {
+            throw new IllegalStateException(url + " 返回 " + connection.getResponseCode() + "，应为 " + expectedStatus);
+        }
+
+        // 读完响应体，使连接可以被HttpURLConnection复用
+        long length = 0;
+        try (InputStream in = connection.getInputStream()) {
+            int read;
+            while ((read = in.read(state.buffer)) >= 0) {
+                length += read;
+            }
+        }
+        if (length != expected) {
+            throw new IllegalStateException(url + " 响应 " + length + " 字节，应为 " + expected);
+        }
+        return length;
+    }
+
+    /**
+     * 改造前 /song/** 的静态资源映射，仅用于对比
+     */
+    public static class LegacySongResources implements WebMvcConfigurer {
+
+        @Value("${file.upload.path}")
+        private String uploadPath;
+
+        @Override
+        public void addResourceHandlers(ResourceHandlerRegistry registry) {
+            registry.addResourceHandler("/legacy-song/**")
+                    .addResourceLocations("file:" + uploadPath + "song/")
+                    .setCachePeriod(3600)
+                    .resourceChain(true);
+        }
+    }
+}
@@ -0,0 +1,93 @@
+package com.music.benchmark;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+
+import java.io.File;
+import java.io.IOException;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.TreeMap;
+
+/**
+ * 对比两次JMH结果（-rf json输出），按基准方法和参数组合逐项计算变化
+ * 吞吐量模式越高越好，其余模式（平均时间、采样时间、单次时间）越低越好；
+ * 任一项退化超过阈值时以状态码1退出，供CI判断
+ * <p>
+ * 用法：BaselineComparator &lt;基线结果&gt; &lt;本次结果&gt; [阈值，默认0.10]
+ */
+public class BaselineComparator {
+
+    public static void main(String[] args) throws IOException {
+        if (args.length < 2) {
+            System.err.println("用法: BaselineComparator <baseline.json> <current.json> [threshold]");
+            System.exit(2);
+        }
+        File baselineFile = new File(args[0]);
+        double threshold = args.length > 2 ? Double.parseDouble(args[2]) : 0.10;
+        if (!baselineFile.isFile()) {
+            System.out.println("基线结果不存在，跳过对比: " + baselineFile);
+            return;
+        }
+
+        ObjectMapper objectMapper = new ObjectMapper();
+        Map<String, JsonNode> baseline = index(objectMapper.readTree(baselineFile));
+        Map<String, JsonNode> current = index(objectMapper.readTree(new File(args[1])));
+
+        int regressions = 0;
+        System.out.printf("%-90s %14s %14s %9s%n", "benchmark", "baseline", "current", "change");
+        for (Map.Entry<String, JsonNode> entry : current.entrySet()) {
+            JsonNode now = entry.getValue();
+            JsonNode before = baseline.get(entry.getKey());
+            double score = now.path("primaryMetric").path("score").asDouble();
+            String unit = now.path("primaryMetric").path("scoreUnit").asText();
+            if (before == null) {
+                System.out.printf("%-90s %14s %14.3f %9s  %s%n", entry.getKey(), "-", score, "new", unit);
+                continue;
+            }
+            double previous = before.path("primaryMetric").path("score").asDouble();
+            if (previous == 0) {
+                continue;
+            }
+            double change = (score - previous) / previous;
+            // 统一为正数表示变差
+            double worse = "thrpt".equals(now.path("mode").asText()) ? -change : change;
+            boolean regressed = worse > threshold;
+            if (regressed) {
+                regressions++;
+            }
+            System.out.printf("%-90s %14.3f %14.3f %+8.1f%%  %s%s%n", entry.getKey(), previous, score, change * 100,
+                    unit, regressed ? "  REGRESSION" : "");
+        }
+        for (String key : baseline.keySet()) {
+            if (!current.containsKey(key)) {
+                System.out.printf("%-90s %14s%n", key, "missing");
+            }
+        }
+
+        if (regressions > 0) {
+            System.out.printf("%d 项退化超过 %.0f%%%n", regressions, threshold * 100);
+            System.exit(1);
+        }
+        System.out.printf("没有超过 %.0f%% 的退化%n", threshold * 100);
+    }
+
+    /**
+     * 以"方法名 模式 {参数}"为键，参数按名称排序
+     */
+    private static Map<String, JsonNode> index(JsonNode results) {
+        Map<String, JsonNode> index = new LinkedHashMap<>();
+        for (JsonNode result : results) {
+            Map<String, String> params = new TreeMap<>();
+            Iterator<Map.Entry<String, JsonNode>> fields = result.path("params").fields();
+            while (fields.hasNext()) {
+                Map.Entry<String, JsonNode> field = fields.next();
+                params.put(field.getKey(), field.getValue().asText());
+            }
+            String benchmark = result.path("benchmark").asText().replace("com.music.benchmark.", "");
+            index.put(benchmark + " " + result.path("mode").asText() + (params.isEmpty() ? "" : " " + params), result);
+        }
+        return index;
+    }
+}
@@ -0,0 +1,205 @@
+package com.music.benchmark;
+
+import com.music.MusicWebBackendApplication;
+import com.music.service.SongSearchIndex;
+import org.apache.ibatis.mapping.MappedStatement;
+import org.apache.ibatis.reflection.SystemMetaObject;
+import org.apache.ibatis.session.SqlSessionFactory;
+import org.springframework.beans.factory.config.BeanPostProcessor;
+import org.springframework.boot.SpringApplication;
+import org.springframework.boot.web.context.WebServerApplicationContext;
+import org.springframework.context.ApplicationContextInitializer;
+import org.springframework.context.ConfigurableApplicationContext;
+import org.springframework.util.FileSystemUtils;
+import org.springframework.util.StreamUtils;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.sql.Connection;
+import java.sql.DriverManager;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.UUID;
+
+/**
+ * 基准测试用的后端实例
+ * 先在H2内存库（MySQL兼容模式）中建表并写入生成的数据，再以 benchmark 等profile启动完整的Spring Boot应用（随机端口）；
+ * 每个JMH分叉进程各自启动一份，互不影响；需要模拟多节点时可由 startPeer 启动共享同一数据库的第二个实例
+ */
+public final class BenchmarkApp implements AutoCloseable {
+
+    private final ConfigurableApplicationContext context;
+
+    private final String jdbcUrl;
+
+    private final Path workDir;
+
+    private final String profiles;
+
+    private final Map<String, Object> properties;
+
+    // 由startPeer启动的实例不拥有数据库和工作目录，关闭时不清理
+    private final boolean peer;
+
+    private BenchmarkApp(ConfigurableApplicationContext context, String jdbcUrl, Path workDir, String profiles,
+                         Map<String, Object> properties, boolean peer) {
+        this.context = context;
+        this.jdbcUrl = jdbcUrl;
+        this.workDir = workDir;
+        this.profiles = profiles;
+        this.properties = properties;
+        this.peer = peer;
+    }
+
+    /**
+     * 以默认的 benchmark,quiet profile启动（关闭逐条SQL和调试日志）
+     */
+    public static BenchmarkApp start(CatalogGenerator generator) throws Exception {
+        return start(generator, "benchmark,quiet", new HashMap<>());
+    }
+
+    /**
+     * @param profiles   逗号分隔的profile
+     * @param properties 额外的配置项，优先于配置文件
+     */
+    public static BenchmarkApp start(CatalogGenerator generator, String profiles, Map<String, Object> properties)
+            throws Exception {
+        return start(generator, profiles, properties, new ApplicationContextInitializer[0]);
+    }
+
+    /**
+     * @param initializers 在应用上下文刷新前执行，例如注册只用于对比的额外Bean
+     */
+    @SafeVarargs
+    public static BenchmarkApp start(CatalogGenerator generator, String profiles, Map<String, Object> properties,
+                                     ApplicationContextInitializer<? super ConfigurableApplicationContext>... initializers)
+            throws Exception {
+        Path workDir = Files.createTempDirectory("music-benchmark");
+        String jdbcUrl = "jdbc:h2:mem:music_" + UUID.randomUUID().toString().replace("-", "")
+                + ";MODE=MySQL;DATABASE_TO_LOWER=TRUE;IGNORECASE=TRUE;DB_CLOSE_DELAY=-1";
+        try (Connection connection = DriverManager.getConnection(jdbcUrl, "sa", "")) {
+            executeScript(connection, "benchmark-schema.sql");
+            generator.populate(connection);
+        }
+
+        ConfigurableApplicationContext context = run(jdbcUrl, workDir, profiles, properties, initializers);
+        BenchmarkApp app = new BenchmarkApp(context, jdbcUrl, workDir, profiles, properties, false);
+        if (generator.getSongs() > 0 && !app.getBean(SongSearchIndex.class).isReady()) {
+            app.close();
+            throw new IllegalStateException("搜索索引未就绪，基准测试结果将不可比");
+        }
+        return app;
+    }
+
+    /**
+     * 以相同的profile和配置启动第二个实例，共享数据库和文件目录，模拟集群中的另一个节点
+     *
+     * @param overrides 只作用于新实例的配置项
+     */
+    public BenchmarkApp startPeer(Map<String, Object> overrides) {
+        Map<String, Object> peerProperties = new HashMap<>(properties);
+        peerProperties.putAll(overrides);
+        ConfigurableApplicationContext peerContext = run(jdbcUrl, workDir, profiles, peerProperties,
+                new ApplicationContextInitializer[0]);
+        return new BenchmarkApp(peerContext, jdbcUrl, workDir, profiles, peerProperties, true);
+    }
+
+    private static ConfigurableApplicationContext run(
+            String jdbcUrl, Path workDir, String profiles, Map<String, Object> properties,
+            ApplicationContextInitializer<? super ConfigurableApplicationContext>[] initializers) {
+        Map<String, Object> arguments = new HashMap<>();
+        arguments.put("spring.datasource.url", jdbcUrl);
+        arguments.put("file.upload.path", workDir.toAbsolutePath() + "/");
+        arguments.put("logging.file.path", workDir.resolve("logs").toAbsolutePath().toString());
+        arguments.putAll(properties);
+
+        SpringApplication application = new SpringApplication(MusicWebBackendApplication.class);
+        application.setAdditionalProfiles(profiles.split(","));
+        application.addInitializers(context -> context.getBeanFactory().addBeanPostProcessor(new H2FetchSizeAdapter()));
+        application.addInitializers(initializers);
+        return application.run(toArguments(arguments));
+    }
+
+    public <T> T getBean(Class<T> type) {
+        return context.getBean(type);
+    }
+
+    public Path getWorkDir() {
+        return workDir;
+    }
+
+    /**
+     * 内嵌Web服务器的实际端口
+     */
+    public int getPort() {
+        return ((WebServerApplicationContext) context).getWebServer().getPort();
+    }
+
+    @Override
+    public void close() throws Exception {
+        context.close();
+        if (peer) {
+            return;
+        }
+        try (Connection connection = DriverManager.getConnection(jdbcUrl, "sa", "");
+             Statement statement = connection.createStatement()) {
+            statement.execute("SHUTDOWN");
+        } catch (SQLException ignored) {
+            // 数据库已关闭
+        }
+        FileSystemUtils.deleteRecursively(workDir);
+    }
+
+    /**
+     * 以命令行参数传入：优先级高于application.yml和profile配置文件
+     */
+    private static String[] toArguments(Map<String, Object> properties) {
+        return properties.entrySet().stream()
+                .map(entry -> "--" + entry.getKey() + "=" + entry.getValue())
+                .toArray(String[]::new);
+    }
+
+    private static void executeScript(Connection connection, String resource) throws IOException, SQLException {
+        String script;
+        try (InputStream in = BenchmarkApp.class.getClassLoader().getResourceAsStream(resource)) {
+            if (in == null) {
+                throw new IOException("找不到脚本: " + resource);
+            }
+            script = StreamUtils.copyToString(in, StandardCharsets.UTF_8);
+        }
+        try (Statement statement = connection.createStatement()) {
+            for (String sql : script.replaceAll("(?m)^--.*$", "").split(";")) {
+                if (!sql.trim().isEmpty()) {
+                    statement.execute(sql);
+                }
+            }
+        }
+    }
+
+    /**
+     * 映射文件中为MySQL流式读取设置的 fetchSize=Integer.MIN_VALUE 在H2中非法，启动时改为驱动默认值
+     */
+    private static final class H2FetchSizeAdapter implements BeanPostProcessor {
+
+        @Override
+        public Object postProcessAfterInitialization(Object bean, String beanName) {
+            if (bean instanceof SqlSessionFactory) {
+                for (Object statement : ((SqlSessionFactory) bean).getConfiguration().getMappedStatements()) {
+                    // 映射集合中同时包含完整ID和简写ID的条目，以及歧义占位对象
+                    if (statement instanceof MappedStatement) {
+                        Integer fetchSize = ((MappedStatement) statement).getFetchSize();
+                        if (fetchSize != null && fetchSize < 0) {
+                            SystemMetaObject.forObject(statement).setValue("fetchSize", null);
+                        }
+                    }
+                }
+            }
+            return bean;
+        }
+    }
+}
@@ -0,0 +1,279 @@
+package com.music.benchmark;
+
+import org.springframework.security.crypto.bcrypt.BCrypt;
+
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.SQLException;
+import java.sql.Timestamp;
+import java.sql.Types;
+import java.time.LocalDateTime;
+import java.util.Random;
+
+/**
+ * 确定性测试数据生成器
+ * 相同的规模参数和种子总是生成相同的数据（密码哈希的盐除外），不同版本的结果因此可以直接对比；
+ * 歌曲 create_time 为 BASE_TIME + id 秒，按创建时间倒序的第k条（从0开始）即 id = songs - k，游标可直接计算
+ */
+public final class CatalogGenerator {
+
+    public static final LocalDateTime BASE_TIME = LocalDateTime.of(2024, 1, 1, 0, 0);
+
+    public static final String PASSWORD = "benchmark-password";
+
+    public static final String TARGET_TYPE = "song";
+
+    /**
+     * 搜索基准使用的关键词，覆盖中文、拉丁文和歌手名
+     */
+    public static final String[] SEARCH_KEYWORDS = {"晴天", "夜", "love", "summer", "周", "光年", "rain", "风"};
+
+    private static final String[] SONG_WORDS = {
+            "晴天", "夜曲", "稻香", "海阔天空", "光年之外", "起风了", "告白气球", "平凡之路", "后来", "小幸运",
+            "Love Story", "Yesterday", "Shape of You", "Hello", "Rolling in the Deep", "Summer", "Moonlight",
+            "Rainbow", "Blue", "Forever", "夏天", "月光", "远方", "故乡", "时间", "青春", "星空", "雨"
+    };
+
+    private static final String[] SURNAMES = {"周", "林", "陈", "王", "李", "张", "刘", "杨", "赵", "孙", "邓", "许"};
+
+    private static final String[] GIVEN_NAMES = {"杰", "伦", "俊", "紫", "棋", "学", "友", "菲", "宇", "晨", "然", "敏",
+            "华", "磊", "雪", "阳"};
+
+    private static final String[] GENRES = {"流行", "摇滚", "民谣", "电子", "古典", "说唱", "R&B"};
+
+    private static final String[] LANGUAGES = {"中文", "英文", "粤语"};
+
+    private static final int BATCH_SIZE = 1000;
+
+    private final long seed;
+
+    private final int songs;
+
+    private final int singers;
+
+    private final int albums;
+
+    private final int users;
+
+    private final int commentTargets;
+
+    private final int commentsPerTarget;
+
+    private final int bcryptCost;
+
+    public CatalogGenerator(long seed, int songs, int users, int commentTargets, int commentsPerTarget,
+                            int bcryptCost) {
+        this.seed = seed;
+        this.songs = songs;
+        this.singers = Math.max(1, songs / 20);
+        this.albums = Math.max(1, songs / 10);
+        this.users = Math.max(1, users);
+        this.commentTargets = Math.min(commentTargets, songs);
+        this.commentsPerTarget = commentsPerTarget;
+        this.bcryptCost = bcryptCost;
+    }
+
+    public int getSongs() {
+        return songs;
+    }
+
+    public int getUsers() {
+        return users;
+    }
+
+    public int getCommentTargets() {
+        return commentTargets;
+    }
+
+    public int getCommentsPerTarget() {
+        return commentsPerTarget;
+    }
+
+    public static String username(int index) {
+        return String.format("user%06d", index);
+    }
+
+    /**
+     * 按创建时间倒序分页时，第page页（从1开始）之前最后一条歌曲的ID；第1页没有游标
+     */
+    public long cursorSongIdBeforePage(int page, int pageSize) {
+        return songs - (long) (page - 1) * pageSize + 1;
+    }
+
+    public static LocalDateTime songCreateTime(long songId) {
+        return BASE_TIME.plusSeconds(songId);
+    }
+
+    /**
+     * 写入全部数据
+     */
+    public void populate(Connection connection) throws SQLException {
+        boolean autoCommit = connection.getAutoCommit();
+        connection.setAutoCommit(false);
+        try {
+            Random random = new Random(seed);
+            insertSingers(connection, random);
+            insertAlbums(connection, random);
+            insertSongs(connection, random);
+            insertUsers(connection);
+            insertComments(connection, random);
+            connection.commit();
+        } finally {
+            connection.setAutoCommit(autoCommit);
+        }
+    }
+
+    private void insertSingers(Connection connection, Random random) throws SQLException {
+        try (PreparedStatement statement = connection.prepareStatement(
+                "INSERT INTO singers (id, name, gender, nationality, status, play_count, fan_count, create_time) "
+                        + "VALUES (?, ?, ?, ?, 1, ?, ?, ?)")) {
+            for (int id = 1; id <= singers; id++) {
+                String name = SURNAMES[random.nextInt(SURNAMES.length)]
+                        + GIVEN_NAMES[random.nextInt(GIVEN_NAMES.length)]
+                        + GIVEN_NAMES[random.nextInt(GIVEN_NAMES.length)] + id;
+                statement.setLong(1, id);
+                statement.setString(2, name);
+                statement.setInt(3, random.nextInt(3));
+                statement.setString(4, "中国");
+                statement.setLong(5, zipf(id, 10_000_000L, random));
+                statement.setLong(6, random.nextInt(1_000_000));
+                statement.setTimestamp(7, Timestamp.valueOf(BASE_TIME));
+                addBatch(statement, id);
+            }
+            statement.executeBatch();
+        }
+    }
+
+    private void insertAlbums(Connection connection, Random random) throws SQLException {
+        try (PreparedStatement statement = connection.prepareStatement(
+                "INSERT INTO albums (id, name, singer_id, genre, language, status, create_time) "
+                        + "VALUES (?, ?, ?, ?, ?, 1, ?)")) {
+            for (int id = 1; id <= albums; id++) {
+                statement.setLong(1, id);
+                statement.setString(2, SONG_WORDS[random.nextInt(SONG_WORDS.length)] + " 专辑" + id);
+                statement.setLong(3, (id - 1) % singers + 1);
+                statement.setString(4, GENRES[random.nextInt(GENRES.length)]);
+                statement.setString(5, LANGUAGES[random.nextInt(LANGUAGES.length)]);
+                statement.setTimestamp(6, Timestamp.valueOf(BASE_TIME));
+                addBatch(statement, id);
+            }
+            statement.executeBatch();
+        }
+    }
+
+    private void insertSongs(Connection connection, Random random) throws SQLException {
+        try (PreparedStatement statement = connection.prepareStatement(
+                "INSERT INTO songs (id, name, singer_id, album_id, audio_url, lyric, duration, file_size, format, "
+                        + "bitrate, genre, language, play_count, download_count, like_count, status, create_time, "
+                        + "update_time) VALUES (?, ?, ?, ?, ?, ?, ?, ?, 'mp3', 320, ?, ?, ?, 0, ?, 1, ?, ?)")) {
+            for (int id = 1; id <= songs; id++) {
+                String name = SONG_WORDS[random.nextInt(SONG_WORDS.length)];
+                if (random.nextInt(3) == 0) {
+                    name = name + " " + SONG_WORDS[random.nextInt(SONG_WORDS.length)];
+                }
+                long albumId = random.nextInt(albums) + 1;
+                Timestamp createTime = Timestamp.valueOf(songCreateTime(id));
+                statement.setLong(1, id);
+                statement.setString(2, name);
+                statement.setLong(3, (albumId - 1) % singers + 1);
+                statement.setLong(4, albumId);
+                statement.setString(5, "http://localhost:8080/api/song/" + id + ".mp3");
+                statement.setString(6, "[00:00.00]" + name + "\n[00:05.00]基准测试歌词");
+                statement.setInt(7, 120 + random.nextInt(240));
+                statement.setLong(8, 3_000_000L + random.nextInt(7_000_000));
+                statement.setString(9, GENRES[random.nextInt(GENRES.length)]);
+                statement.setString(10, LANGUAGES[random.nextInt(LANGUAGES.length)]);
+                statement.setLong(11, zipf(id, 5_000_000L, random));
+                statement.setLong(12, random.nextInt(10_000));
+                statement.setTimestamp(13, createTime);
+                statement.setTimestamp(14, createTime);
+                addBatch(statement, id);
+            }
+            statement.executeBatch();
+        }
+    }
+
+    private void insertUsers(Connection connection) throws SQLException {
+        // 所有用户使用同一个哈希，避免生成数据时计算大量BCrypt
+        String hash = BCrypt.hashpw(PASSWORD, BCrypt.gensalt(bcryptCost));
+        try (PreparedStatement statement = connection.prepareStatement(
+                "INSERT INTO users (id, username, email, password, nickname, status, create_time) "
+                        + "VALUES (?, ?, ?, ?, ?, 1, ?)")) {
+            for (int id = 1; id <= users; id++) {
+                statement.setLong(1, id);
+                statement.setString(2, username(id));
+                statement.setString(3, username(id) + "@example.com");
+                statement.setString(4, hash);
+                statement.setString(5, "用户" + id);
+                statement.setTimestamp(6, Timestamp.valueOf(BASE_TIME));
+                addBatch(statement, id);
+            }
+            statement.executeBatch();
+        }
+    }
+
+    /**
+     * 前 commentTargets 首歌曲各有 commentsPerTarget 条评论，其中约四分之一是回复，每条评论有少量点赞
+     */
+    private void insertComments(Connection connection, Random random) throws SQLException {
+        try (PreparedStatement comments = connection.prepareStatement(
+                "INSERT INTO comments (id, user_id, target_type, target_id, content, parent_id, like_count, "
+                        + "status, create_time) VALUES (?, ?, ?, ?, ?, ?, ?, 1, ?)");
+             PreparedStatement likes = connection.prepareStatement(
+                     "INSERT INTO comment_likes (comment_id, user_id, create_time) VALUES (?, ?, ?)")) {
+            long id = 0;
+            long likeRows = 0;
+            for (int target = 1; target <= commentTargets; target++) {
+                long firstId = id + 1;
+                for (int i = 0; i < commentsPerTarget; i++) {
+                    id++;
+                    boolean reply = i > 0 && random.nextInt(4) == 0;
+                    int likeCount = random.nextInt(Math.min(users, 20) + 1);
+                    comments.setLong(1, id);
+                    comments.setLong(2, random.nextInt(users) + 1);
+                    comments.setString(3, TARGET_TYPE);
+                    comments.setLong(4, target);
+                    comments.setString(5, "基准测试评论 " + id);
+                    if (reply) {
+                        comments.setLong(6, firstId + random.nextInt((int) (id - firstId)));
+                    } else {
+                        comments.setNull(6, Types.BIGINT);
+                    }
+                    comments.setInt(7, likeCount);
+                    comments.setTimestamp(8, Timestamp.valueOf(BASE_TIME.plusSeconds(id)));
+                    addBatch(comments, id);
+
+                    // 点赞用户取连续区间，保证(comment_id, user_id)不重复
+                    int firstUser = random.nextInt(users);
+                    for (int like = 0; like < likeCount; like++) {
+                        likes.setLong(1, id);
+                        likes.setLong(2, (firstUser + like) % users + 1);
+                        likes.setTimestamp(3, Timestamp.valueOf(BASE_TIME));
+                        likes.addBatch();
+                        if (++likeRows % BATCH_SIZE == 0) {
+                            // 点赞引用评论，先写入已累积的评论
+                            comments.executeBatch();
+                            likes.executeBatch();
+                        }
+                    }
+                }
+            }
+            comments.executeBatch();
+            likes.executeBatch();
+        }
+    }
+
+    /**
+     * 近似Zipf分布的播放次数：越靠前的ID越热门，并叠加少量随机扰动
+     */
+    private static long zipf(long rank, long max, Random random) {
+        return max / rank + random.nextInt(1000);
+    }
+
+    private static void addBatch(PreparedStatement statement, long count) throws SQLException {
+        statement.addBatch();
+        if (count % BATCH_SIZE == 0) {
+            statement.executeBatch();
+        }
+    }
+}
@@ -0,0 +1,154 @@
+package com.music.benchmark;
+
+import com.music.entity.Song;
+import com.music.service.ChatCatalogRetriever;
+import com.music.service.ChatResponseCache;
+import com.music.service.DeepSeekClient;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * 聊天：回复缓存（精确命中、相似命中、扫描全部条目后未命中）、曲库检索，以及DeepSeek流式回复首个片段耗时
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class ChatBenchmark {
+
+    private static final String CACHED = "推荐一些适合下雨天晚上一个人安静听的钢琴曲";
+
+    private static final String SIMILAR = "推荐一些适合下雨天晚上一个人安静听的钢琴音乐";
+
+    private static final String MISSED = "推荐一些适合周末早上跑步时听的节奏感强的电子乐";
+
+    @Param("1000")
+    private int cachedEntries;
+
+    private DeepSeekStubServer stub;
+
+    private BenchmarkApp app;
+
+    private ChatResponseCache chatResponseCache;
+
+    private ChatCatalogRetriever chatCatalogRetriever;
+
+    private DeepSeekClient deepSeekClient;
+
+    private List<Map<String, String>> messages;
+
+    /**
+     * 桩服务在首个片段前的延迟，只用于流式基准；结果减去该延迟即为客户端开销
+     */
+    @State(Scope.Benchmark)
+    public static class StreamState {
+
+        @Param({"0", "200"})
+        private long firstTokenDelay;
+
+        @Setup
+        public void setup(ChatBenchmark benchmark) {
+            benchmark.stub.setFirstTokenDelayMillis(firstTokenDelay);
+        }
+    }
+
+    @Setup
+    public void setup() throws Exception {
+        stub = new DeepSeekStubServer(50);
+        Map<String, Object> properties = new HashMap<>();
+        properties.put("deepseek.api.url", stub.getUrl());
+        properties.put("deepseek.api.key", "bench");
+        properties.put("chat-cache.max-size", cachedEntries + 1);
+        app = BenchmarkApp.start(new CatalogGenerator(42L, 20000, 100, 0, 0, 4), "benchmark,quiet", properties);
+        chatResponseCache = app.getBean(ChatResponseCache.class);
+        chatCatalogRetriever = app.getBean(ChatCatalogRetriever.class);
+        deepSeekClient = app.getBean(DeepSeekClient.class);
+        chatCatalogRetriever.refreshHotSongs();
+
+        // 同一意图下的大量不相近条目，相似查找需要逐个比较
+        String[] words = {"晴天", "夜曲", "稻香", "光年之外", "起风了", "告白气球", "平凡之路", "小幸运", "Summer", "Moonlight"};
+        for (int i = 0; i < cachedEntries - 1; i++) {
+            chatResponseCache.put("推荐几首" + words[i % words.length] + "风格的歌 第" + i + "组", "回复" + i, 1500);
+        }
+        chatResponseCache.put(CACHED, "为你推荐以下钢琴曲……", 1500);
+
+        messages = new ArrayList<>();
+        Map<String, String> system = new HashMap<>();
+        system.put("role", "system");
+        system.put("content", "你是一个音乐推荐助手。");
+        messages.add(system);
+        Map<String, String> user = new HashMap<>();
+        user.put("role", "user");
+        user.put("content", CACHED);
+        messages.add(user);
+    }
+
+    @TearDown
+    public void tearDown() throws Exception {
+        app.close();
+        stub.close();
+    }
+
+    @Benchmark
+    public String cacheExact() {
+        return chatResponseCache.get(CACHED);
+    }
+
+    @Benchmark
+    public String cacheSimilar() {
+        return chatResponseCache.get(SIMILAR);
+    }
+
+    @Benchmark
+    public String cacheMiss() {
+        return chatResponseCache.get(MISSED);
+    }
+
+    /**
+     * 消息中提到曲库歌曲名，目标在2ms以内
+     */
+    @Benchmark
+    public List<Song> retrieveMentioned() {
+        return chatCatalogRetriever.retrieve("我想听晴天和光年之外，还有类似的吗");
+    }
+
+    @Benchmark
+    public List<Song> retrieveRecommend() {
+        return chatCatalogRetriever.retrieve(MISSED);
+    }
+
+    /**
+     * 发出流式请求到收到首个内容片段（随后取消订阅），报告延迟分布
+     */
+    @Benchmark
+    @BenchmarkMode(Mode.SampleTime)
+    @OutputTimeUnit(TimeUnit.MILLISECONDS)
+    public String streamFirstToken(StreamState state) {
+        return deepSeekClient.stream(messages).blockFirst();
+    }
+
+    @Benchmark
+    @BenchmarkMode(Mode.SampleTime)
+    @OutputTimeUnit(TimeUnit.MILLISECONDS)
+    public List<String> streamComplete(StreamState state) {
+        return deepSeekClient.stream(messages).collectList().block();
+    }
+}
@@ -0,0 +1,167 @@
+package com.music.benchmark;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.music.service.JwtTokenService;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Threads;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.IterationParams;
+import org.openjdk.jmh.runner.IterationType;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.net.HttpURLConnection;
+import java.net.URL;
+import java.nio.charset.StandardCharsets;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * 聊天舱壁饱和：桩服务每次回复都慢于客户端总超时，16个线程以不同用户持续调用 /chat/send，
+ * 舱壁（max-concurrent）始终被占满；每轮结束后校验：
+ * 超出舱壁的请求立即返回繁忙提示（测量轮次中99%的耗时小于总超时的一半），占到许可的请求在总超时后返回模拟回复，
+ * 没有请求等到桩服务回复，被拒绝的请求不会到达桩服务，不满足时基准失败
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.SampleTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 1, time = 5)
+@Measurement(iterations = 3, time = 10)
+@Fork(1)
+@Threads(16)
+public class ChatBulkheadBenchmark {
+
+    private static final String BUSY = "我现在有点忙";
+
+    @Param("4")
+    private int maxConcurrent;
+
+    @Param("1000")
+    private long totalTimeout;
+
+    @Param("5000")
+    private long upstreamDelay;
+
+    private DeepSeekStubServer stub;
+
+    private BenchmarkApp app;
+
+    private URL url;
+
+    private JwtTokenService jwtTokenService;
+
+    private final ObjectMapper objectMapper = new ObjectMapper();
+
+    // 每次请求使用新用户，避免单用户并发限制
+    private final AtomicLong users = new AtomicLong();
+
+    private final AtomicInteger answered = new AtomicInteger();
+
+    private final ConcurrentLinkedQueue<Long> rejections = new ConcurrentLinkedQueue<>();
+
+    private final ConcurrentLinkedQueue<Long> timeouts = new ConcurrentLinkedQueue<>();
+
+    @Setup
+    public void setup() throws Exception {
+        stub = new DeepSeekStubServer(1);
+        stub.setFirstTokenDelayMillis(upstreamDelay);
+        Map<String, Object> properties = new HashMap<>();
+        properties.put("deepseek.api.url", stub.getUrl());
+        properties.put("deepseek.api.key", "bench");
+        properties.put("deepseek.client.max-concurrent", maxConcurrent);
+        properties.put("deepseek.client.total-timeout", totalTimeout);
+        app = BenchmarkApp.start(new CatalogGenerator(42L, 1000, 100, 0, 0, 4), "benchmark,quiet", properties);
+        url = new URL("http://localhost:" + app.getPort() + "/api/chat/send");
+        jwtTokenService = app.getBean(JwtTokenService.class);
+    }
+
+    @TearDown
+    public void tearDown() throws Exception {
+        app.close();
+        stub.close();
+    }
+
+    @Benchmark
+    public String send() throws IOException {
+        long userId = users.incrementAndGet();
+        HttpURLConnection connection = (HttpURLConnection) url.openConnection();
+        connection.setRequestMethod("POST");
+        connection.setDoOutput(true);
+        connection.setRequestProperty("Content-Type", "application/json");
+        connection.setRequestProperty("Authorization", "Bearer " + jwtTokenService.issue(userId));
+
+        long start = System.nanoTime();
+        try (OutputStream out = connection.getOutputStream()) {
+            out.write(("{\"message\":\"推荐几首歌 " + userId + "\"}").getBytes(StandardCharsets.UTF_8));
+        }
+        JsonNode body;
+        try (InputStream in = connection.getInputStream()) {
+            body = objectMapper.readTree(in);
+        }
+        long elapsed = TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start);
+
+        String message = body.path("data").path("message").asText();
+        if (body.path("code").asInt() != 200 || message.isEmpty()) {
+            throw new IllegalStateException("/chat/send 返回 " + body);
+        }
+        if (message.contains(BUSY)) {
+            rejections.add(elapsed);
+        } else if (DeepSeekStubServer.REPLY.equals(message)) {
+            answered.incrementAndGet();
+        } else {
+            timeouts.add(elapsed);
+        }
+        return message;
+    }
+
+    @TearDown(Level.Iteration)
+    public void verify(IterationParams iterationParams) {
+        try {
+            if (rejections.isEmpty() || timeouts.isEmpty()) {
+                throw new IllegalStateException("舱壁未饱和：繁忙提示 " + rejections.size() + " 次，超时回退 " + timeouts.size() + " 次");
+            }
+            if (answered.get() > 0) {
+                throw new IllegalStateException(answered.get() + " 个请求等到了慢于总超时的桩服务回复");
+            }
+            // 预热轮次包含类加载和JIT编译，只在测量轮次检查拒绝耗时
+            if (iterationParams.getType() == IterationType.MEASUREMENT) {
+                long[] sorted = rejections.stream().mapToLong(Long::longValue).sorted().toArray();
+                long p99 = sorted[(int) Math.min(sorted.length - 1, (long) Math.ceil(sorted.length * 0.99) - 1)];
+                if (p99 >= totalTimeout / 2) {
+                    throw new IllegalStateException("繁忙提示的99分位耗时 " + p99 + "ms，未能快速拒绝");
+                }
+            }
+            for (long elapsed : timeouts) {
+                if (elapsed < totalTimeout || elapsed >= upstreamDelay) {
+                    throw new IllegalStateException("超时回退耗时 " + elapsed + "ms，应在总超时 " + totalTimeout + "ms 之后、桩服务回复之前");
+                }
+            }
+            // 单核机器上部分请求在桩服务读取之前就已超时，到达的请求数只会少于占到许可的请求数
+            int upstream = stub.resetRequests();
+            if (upstream > timeouts.size()) {
+                throw new IllegalStateException("桩服务收到 " + upstream + " 个请求，占到许可的请求为 " + timeouts.size());
+            }
+        } finally {
+            rejections.clear();
+            timeouts.clear();
+            answered.set(0);
+        }
+    }
+}
@@ -0,0 +1,157 @@
+package com.music.benchmark;
+
+import com.music.service.CommentLikeEngine;
+import com.music.service.CommentService;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Threads;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.ThreadParams;
+import org.springframework.data.redis.core.StringRedisTemplate;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.SplittableRandom;
+import java.util.TreeSet;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicIntegerArray;
+
+/**
+ * 单条热门评论的点赞压力：两个共享数据库和嵌入式Redis的节点，10000个用户并发点赞/取消同一条评论，
+ * 每个用户随机点击一到两次，两次点击分别落在不同节点上；
+ * 每轮结束后两个节点刷盘，校验 comment_likes、like_count 和Redis集合都等于按点击次数奇偶推算的最终状态，不满足时基准失败
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.SingleShotTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 2)
+@Measurement(iterations = 5)
+@Fork(1)
+@Threads(8)
+public class CommentLikeStressBenchmark {
+
+    private static final long COMMENT_ID = 1L;
+
+    @Param("10000")
+    private int users;
+
+    private EmbeddedRedis redisServer;
+
+    private BenchmarkApp[] nodes;
+
+    private CommentService[] commentServices;
+
+    // 每个用户累计的点击次数，奇数次为点赞
+    private AtomicIntegerArray clicks;
+
+    private Set<Long> initialLikers;
+
+    @State(Scope.Thread)
+    public static class ThreadState {
+
+        private SplittableRandom random;
+
+        @Setup
+        public void setup() {
+            random = new SplittableRandom(Thread.currentThread().getId());
+        }
+    }
+
+    @Setup
+    public void setup() throws Exception {
+        redisServer = EmbeddedRedis.start();
+        Map<String, Object> properties = new HashMap<>(redisServer.properties());
+        properties.put("comment-like.redis-enabled", true);
+        BenchmarkApp first = BenchmarkApp.start(new CatalogGenerator(42L, 100, users, 1, 1, 4),
+                "benchmark,quiet", properties);
+        nodes = new BenchmarkApp[]{first, first.startPeer(new HashMap<>())};
+        commentServices = new CommentService[nodes.length];
+        for (int i = 0; i < nodes.length; i++) {
+            commentServices[i] = nodes[i].getBean(CommentService.class);
+        }
+
+        clicks = new AtomicIntegerArray(users + 1);
+        initialLikers = new HashSet<>(likers());
+    }
+
+    @TearDown
+    public void tearDown() throws Exception {
+        for (int i = nodes.length - 1; i >= 0; i--) {
+            nodes[i].close();
+        }
+        redisServer.close();
+    }
+
+    /**
+     * 每个线程负责一部分用户，第二次点击换到另一个节点
+     */
+    @Benchmark
+    public int toggleOneComment(ThreadState state, ThreadParams threadParams) {
+        int toggled = 0;
+        for (int userId = threadParams.getThreadIndex() + 1; userId <= users; userId += threadParams.getThreadCount()) {
+            int times = 1 + state.random.nextInt(2);
+            int node = state.random.nextInt(nodes.length);
+            for (int i = 0; i < times; i++) {
+                commentServices[(node + i) % nodes.length].toggleLikeComment(COMMENT_ID, (long) userId);
+                clicks.incrementAndGet(userId);
+                toggled++;
+            }
+        }
+        return toggled;
+    }
+
+    @TearDown(Level.Iteration)
+    public void verify() {
+        for (BenchmarkApp node : nodes) {
+            node.getBean(CommentLikeEngine.class).flush();
+        }
+
+        Set<Long> expected = new TreeSet<>();
+        for (long userId = 1; userId <= users; userId++) {
+            if (initialLikers.contains(userId) != (clicks.get((int) userId) % 2 == 1)) {
+                expected.add(userId);
+            }
+        }
+
+        Set<Long> stored = new TreeSet<>(likers());
+        if (!stored.equals(expected)) {
+            Set<Long> missing = new TreeSet<>(expected);
+            missing.removeAll(stored);
+            Set<Long> extra = new TreeSet<>(stored);
+            extra.removeAll(expected);
+            throw new IllegalStateException("comment_likes 有 " + stored.size() + " 个用户，应为 " + expected.size()
+                    + "；缺少 " + missing.size() + " 个，多出 " + extra.size() + " 个");
+        }
+
+        Integer likeCount = nodes[0].getBean(JdbcTemplate.class).queryForObject(
+                "SELECT like_count FROM comments WHERE id = ?", Integer.class, COMMENT_ID);
+        if (likeCount == null || likeCount != expected.size()) {
+            throw new IllegalStateException("like_count 为 " + likeCount + "，应为 " + expected.size());
+        }
+
+        Long members = nodes[0].getBean(StringRedisTemplate.class).opsForSet().size("music:comment:likes:" + COMMENT_ID);
+        // 集合中含一个占位成员
+        if (members == null || members - 1 != expected.size()) {
+            throw new IllegalStateException("Redis点赞集合有 " + members + " 个成员，应为 " + (expected.size() + 1));
+        }
+    }
+
+    private List<Long> likers() {
+        return nodes[0].getBean(JdbcTemplate.class).queryForList(
+                "SELECT user_id FROM comment_likes WHERE comment_id = ?", Long.class, COMMENT_ID);
+    }
+}
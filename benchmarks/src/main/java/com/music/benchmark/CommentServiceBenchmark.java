@@ -0,0 +1,87 @@
+package com.music.benchmark;
+
+import com.music.entity.Comment;
+import com.music.service.CommentService;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Threads;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.List;
+import java.util.SplittableRandom;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * 评论服务：按目标读取评论列表，以及大量用户并发点赞/取消点赞
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 5)
+@Measurement(iterations = 5, time = 5)
+@Fork(1)
+public class CommentServiceBenchmark {
+
+    @Param("10000")
+    private int users;
+
+    @Param("100")
+    private int targets;
+
+    @Param("50")
+    private int commentsPerTarget;
+
+    private BenchmarkApp app;
+
+    private CommentService commentService;
+
+    /**
+     * 每个线程独立的随机序列，避免共享随机数生成器成为瓶颈
+     */
+    @State(Scope.Thread)
+    public static class ThreadState {
+
+        private SplittableRandom random;
+
+        @Setup
+        public void setup() {
+            random = new SplittableRandom(Thread.currentThread().getId());
+        }
+    }
+
+    @Setup
+    public void setup() throws Exception {
+        app = BenchmarkApp.start(new CatalogGenerator(42L, 1000, users, targets, commentsPerTarget, 4));
+        commentService = app.getBean(CommentService.class);
+    }
+
+    @TearDown
+    public void tearDown() throws Exception {
+        app.close();
+    }
+
+    @Benchmark
+    public List<Comment> getCommentsByTarget(ThreadState state) {
+        return commentService.getCommentsByTarget((long) state.random.nextInt(targets) + 1,
+                CatalogGenerator.TARGET_TYPE, (long) state.random.nextInt(users) + 1);
+    }
+
+    /**
+     * 8个线程在随机评论上以随机用户身份翻转点赞状态
+     */
+    @Benchmark
+    @Threads(8)
+    public boolean toggleLikeComment(ThreadState state) {
+        return commentService.toggleLikeComment((long) state.random.nextInt(targets * commentsPerTarget) + 1,
+                (long) state.random.nextInt(users) + 1);
+    }
+}
@@ -0,0 +1,97 @@
+package com.music.benchmark;
+
+import com.music.entity.Song;
+import com.music.service.DataInitService;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.io.File;
+import java.lang.reflect.Method;
+import java.nio.file.Files;
+import java.util.Collections;
+import java.util.Set;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * 歌曲导入：单个音频文件的解析耗时（文件名拆分、读取音频头和ID3标签、识别风格和语言）
+ * cache为cold时每次修改文件时间，使元数据缓存失效，测的是首次导入；warm测的是重新扫描未变化的目录
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class DataInitBenchmark {
+
+    @Param({"warm", "cold"})
+    private String cache;
+
+    @Param("100")
+    private int files;
+
+    @Param("30")
+    private int seconds;
+
+    private BenchmarkApp app;
+
+    private DataInitService dataInitService;
+
+    private Method parseSongFromFile;
+
+    private File[] songFiles;
+
+    private final Set<String> songPics = Collections.emptySet();
+
+    private int next;
+
+    private long modified;
+
+    @Setup
+    public void setup() throws Exception {
+        app = BenchmarkApp.start(new CatalogGenerator(42L, 100, 10, 0, 0, 4));
+        dataInitService = app.getBean(DataInitService.class);
+        parseSongFromFile = DataInitService.class.getDeclaredMethod("parseSongFromFile", File.class, Set.class);
+        parseSongFromFile.setAccessible(true);
+
+        File directory = app.getWorkDir().resolve("bench-songs").toFile();
+        Files.createDirectories(directory.toPath());
+        byte[] audio = AudioFiles.audio(seconds);
+        songFiles = new File[files];
+        for (int i = 0; i < files; i++) {
+            // 一半文件名为"歌手-歌名"，另一半需要从标签中取歌手和歌名
+            String artist = "Singer " + (i % 20);
+            String title = "Song " + i;
+            File file = new File(directory, i % 2 == 0 ? artist + "-" + title + ".mp3" : "track" + i + ".mp3");
+            AudioFiles.write(file, artist, title, audio);
+            songFiles[i] = file;
+        }
+        modified = songFiles[0].lastModified();
+    }
+
+    @TearDown
+    public void tearDown() throws Exception {
+        app.close();
+    }
+
+    @Benchmark
+    public Song parseSongFromFile() throws Exception {
+        File file = songFiles[next];
+        next = (next + 1) % files;
+        if ("cold".equals(cache)) {
+            modified += 1000;
+            file.setLastModified(modified);
+        }
+        return (Song) parseSongFromFile.invoke(dataInitService, file, songPics);
+    }
+}
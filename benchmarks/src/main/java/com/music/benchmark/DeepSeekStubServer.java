@@ -0,0 +1,136 @@
+package com.music.benchmark;
+
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpServer;
+import org.springframework.util.StreamUtils;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.net.InetAddress;
+import java.net.InetSocketAddress;
+import java.nio.charset.StandardCharsets;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * 本地DeepSeek桩服务：按OpenAI兼容格式返回SSE流式回复或完整JSON回复，首个片段（或完整回复）前可设置固定延迟，
+ * 用于测量客户端自身的首字节开销，而不受真实模型响应时间影响；同时统计收到的请求数
+ */
+public class DeepSeekStubServer implements AutoCloseable {
+
+    private static final String PATH = "/v1/chat/completions";
+
+    public static final String REPLY = "桩服务回复";
+
+    private final HttpServer server;
+
+    private final ExecutorService executor;
+
+    private final int chunks;
+
+    private volatile long firstTokenDelayMillis;
+
+    private final AtomicInteger requests = new AtomicInteger();
+
+    /**
+     * @param chunks 每次回复的内容片段数
+     */
+    public DeepSeekStubServer(int chunks) throws IOException {
+        this.chunks = chunks;
+        executor = Executors.newCachedThreadPool(r -> {
+            Thread thread = new Thread(r, "deepseek-stub");
+            thread.setDaemon(true);
+            return thread;
+        });
+        server = HttpServer.create(new InetSocketAddress(InetAddress.getLoopbackAddress(), 0), 128);
+        server.setExecutor(executor);
+        server.createContext(PATH, this::handle);
+        server.start();
+    }
+
+    public String getUrl() {
+        return "http://" + server.getAddress().getHostString() + ":" + server.getAddress().getPort() + PATH;
+    }
+
+    public void setFirstTokenDelayMillis(long firstTokenDelayMillis) {
+        this.firstTokenDelayMillis = firstTokenDelayMillis;
+    }
+
+    /**
+     * 收到的请求数，读取后清零
+     */
+    public int resetRequests() {
+        return requests.getAndSet(0);
+    }
+
+    private void handle(HttpExchange exchange) throws IOException {
+        requests.incrementAndGet();
+        // 读完请求体，保证连接可以复用
+        String body;
+        try (InputStream in = exchange.getRequestBody()) {
+            body = StreamUtils.copyToString(in, StandardCharsets.UTF_8);
+        }
+        if (body.contains("\"stream\":true")) {
+            stream(exchange);
+        } else {
+            reply(exchange);
+        }
+    }
+
+    private void reply(HttpExchange exchange) throws IOException {
+        try {
+            if (firstTokenDelayMillis > 0) {
+                TimeUnit.MILLISECONDS.sleep(firstTokenDelayMillis);
+            }
+            byte[] content = ("{\"choices\":[{\"index\":0,\"message\":{\"role\":\"assistant\",\"content\":\""
+                    + REPLY + "\"},\"finish_reason\":\"stop\"}]}").getBytes(StandardCharsets.UTF_8);
+            exchange.getResponseHeaders().set("Content-Type", "application/json");
+            exchange.sendResponseHeaders(200, content.length);
+            try (OutputStream out = exchange.getResponseBody()) {
+                out.write(content);
+            }
+        } catch (IOException e) {
+            // 客户端超时后关闭了连接
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        } finally {
+            exchange.close();
+        }
+    }
+
+    private void stream(HttpExchange exchange) throws IOException {
+        exchange.getResponseHeaders().set("Content-Type", "text/event-stream");
+        exchange.sendResponseHeaders(200, 0);
+        try (OutputStream out = exchange.getResponseBody()) {
+            if (firstTokenDelayMillis > 0) {
+                TimeUnit.MILLISECONDS.sleep(firstTokenDelayMillis);
+            }
+            write(out, "{\"choices\":[{\"index\":0,\"delta\":{\"role\":\"assistant\"}}]}");
+            for (int i = 0; i < chunks; i++) {
+                write(out, "{\"choices\":[{\"index\":0,\"delta\":{\"content\":\"片段" + i + "\"}}]}");
+            }
+            write(out, "{\"choices\":[{\"index\":0,\"delta\":{},\"finish_reason\":\"stop\"}]}");
+            write(out, "[DONE]");
+        } catch (IOException e) {
+            // 客户端取到首个片段后取消订阅会关闭连接
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        } finally {
+            exchange.close();
+        }
+    }
+
+    private static void write(OutputStream out, String data) throws IOException {
+        out.write(("data: " + data + "\n\n").getBytes(StandardCharsets.UTF_8));
+        out.flush();
+    }
+
+    @Override
+    public void close() {
+        server.stop(0);
+        executor.shutdownNow();
+    }
+}
@@ -0,0 +1,52 @@
+package com.music.benchmark;
+
+import redis.embedded.RedisServer;
+
+import java.io.IOException;
+import java.net.ServerSocket;
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * 基准测试用的嵌入式Redis，监听随机空闲端口
+ */
+public class EmbeddedRedis implements AutoCloseable {
+
+    private final RedisServer server;
+
+    private final int port;
+
+    private EmbeddedRedis(RedisServer server, int port) {
+        this.server = server;
+        this.port = port;
+    }
+
+    public static EmbeddedRedis start() throws IOException {
+        int port;
+        try (ServerSocket socket = new ServerSocket(0)) {
+            port = socket.getLocalPort();
+        }
+        RedisServer server = new RedisServer(port);
+        server.start();
+        return new EmbeddedRedis(server, port);
+    }
+
+    public int getPort() {
+        return port;
+    }
+
+    /**
+     * 指向本实例的连接配置，传给BenchmarkApp
+     */
+    public Map<String, Object> properties() {
+        Map<String, Object> properties = new HashMap<>();
+        properties.put("spring.redis.host", "localhost");
+        properties.put("spring.redis.port", port);
+        return properties;
+    }
+
+    @Override
+    public void close() throws IOException {
+        server.stop();
+    }
+}
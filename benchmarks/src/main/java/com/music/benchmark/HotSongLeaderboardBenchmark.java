@@ -0,0 +1,179 @@
+package com.music.benchmark;
+
+import com.baomidou.mybatisplus.core.conditions.update.LambdaUpdateWrapper;
+import com.music.entity.Song;
+import com.music.mapper.SongMapper;
+import com.music.service.DataInitService;
+import com.music.service.PlayCountAggregator;
+import com.music.service.SongMetadataCache;
+import com.music.service.SongSearchIndex;
+import com.music.service.SongService;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.data.redis.core.StringRedisTemplate;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.SplittableRandom;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * 热门歌曲：Redis有序集合排行榜与SQL排序的读取耗时，以及播放计数
+ * 启动后禁用当前最热的若干首歌曲，一半经由目录监听的禁用流程（同时移出排行榜），
+ * 另一半只改数据库（模拟其他节点禁用、排行榜中留有失效条目），读取时需跳过并补足数量；
+ * 结束时校验返回数量、禁用歌曲不出现、排行榜分数与数据库播放次数一致，不满足时基准失败
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class HotSongLeaderboardBenchmark {
+
+    private static final int DISABLED = 10;
+
+    @Param({"off", "embedded"})
+    private String redis;
+
+    @Param("20000")
+    private int songs;
+
+    @Param("50")
+    private int limit;
+
+    private EmbeddedRedis redisServer;
+
+    private BenchmarkApp app;
+
+    private SongService songService;
+
+    private final Set<Long> disabledIds = new HashSet<>();
+
+    @State(Scope.Thread)
+    public static class ThreadState {
+
+        private SplittableRandom random;
+
+        @Setup
+        public void setup() {
+            random = new SplittableRandom(Thread.currentThread().getId());
+        }
+    }
+
+    @Setup
+    public void setup() throws Exception {
+        Map<String, Object> properties = new HashMap<>();
+        if ("embedded".equals(redis)) {
+            redisServer = EmbeddedRedis.start();
+            properties.putAll(redisServer.properties());
+            properties.put("hot-songs.redis-enabled", true);
+        }
+        app = BenchmarkApp.start(new CatalogGenerator(42L, songs, 100, 0, 0, 4), "benchmark,quiet", properties);
+        songService = app.getBean(SongService.class);
+
+        List<String> fileNames = new ArrayList<>();
+        List<Long> directIds = new ArrayList<>();
+        for (Song song : songService.getHotSongs(DISABLED)) {
+            disabledIds.add(song.getId());
+            if (fileNames.size() < DISABLED / 2) {
+                fileNames.add(song.getId() + ".mp3");
+            } else {
+                directIds.add(song.getId());
+            }
+        }
+        app.getBean(DataInitService.class).disableSongFiles(fileNames);
+
+        LambdaUpdateWrapper<Song> wrapper = new LambdaUpdateWrapper<>();
+        wrapper.in(Song::getId, directIds).set(Song::getStatus, 0);
+        app.getBean(SongMapper.class).update(null, wrapper);
+        for (Long songId : directIds) {
+            app.getBean(SongSearchIndex.class).removeSong(songId);
+            app.getBean(SongMetadataCache.class).evict(songId);
+        }
+    }
+
+    @TearDown
+    public void tearDown() throws Exception {
+        try {
+            verify();
+        } finally {
+            app.close();
+            if (redisServer != null) {
+                redisServer.close();
+            }
+        }
+    }
+
+    @Benchmark
+    public List<Song> getHotSongs() {
+        return songService.getHotSongs(limit);
+    }
+
+    /**
+     * 按热门程度随机播放，计数在后台刷盘并累加到排行榜
+     */
+    @Benchmark
+    public boolean playSong(ThreadState state) {
+        long songId = (long) Math.min(songs, 1 + Math.abs(state.random.nextGaussian()) * songs / 20);
+        return songService.playSong(songId);
+    }
+
+    private void verify() {
+        if (songService.playSong((long) songs + 1_000_000)) {
+            throw new IllegalStateException("不存在的歌曲被计入播放次数");
+        }
+        app.getBean(PlayCountAggregator.class).flush();
+
+        Map<Long, Long> playCounts = new HashMap<>();
+        for (Song song : app.getBean(SongMapper.class).selectPlayCounts()) {
+            playCounts.put(song.getId(), song.getPlayCount());
+        }
+
+        List<Song> hot = songService.getHotSongs(limit);
+        if (hot.size() != limit) {
+            throw new IllegalStateException("热门歌曲数量 " + hot.size() + "，应为 " + limit);
+        }
+        long previous = Long.MAX_VALUE;
+        for (Song song : hot) {
+            if (disabledIds.contains(song.getId())) {
+                throw new IllegalStateException("已禁用的歌曲出现在热门列表中: " + song.getId());
+            }
+            if (!song.getPlayCount().equals(playCounts.get(song.getId()))) {
+                throw new IllegalStateException("歌曲 " + song.getId() + " 播放次数 " + song.getPlayCount()
+                        + "，数据库为 " + playCounts.get(song.getId()));
+            }
+            if (song.getPlayCount() > previous) {
+                throw new IllegalStateException("热门列表未按播放次数排序");
+            }
+            previous = song.getPlayCount();
+        }
+
+        if (redisServer != null) {
+            StringRedisTemplate redisTemplate = app.getBean(StringRedisTemplate.class);
+            Long size = redisTemplate.opsForZSet().zCard("music:songs:hot");
+            if (size == null || size != playCounts.size()) {
+                throw new IllegalStateException("排行榜条目数 " + size + "，正常歌曲数为 " + playCounts.size());
+            }
+            for (Long songId : disabledIds) {
+                if (redisTemplate.opsForZSet().score("music:songs:hot", songId.toString()) != null) {
+                    throw new IllegalStateException("已禁用的歌曲仍在排行榜中: " + songId);
+                }
+            }
+        }
+    }
+}
@@ -0,0 +1,74 @@
+package com.music.benchmark;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Threads;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.net.HttpURLConnection;
+import java.net.URL;
+import java.util.HashMap;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * 经过完整Web层（过滤器、拦截器、序列化、日志）的热门歌曲接口吞吐量
+ * profile为benchmark时使用开发环境的同步日志和逐条SQL输出，benchmark,prod时使用生产环境的异步日志，两者之差即日志开销
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 5)
+@Measurement(iterations = 5, time = 5)
+@Fork(1)
+@Threads(4)
+public class HotSongsHttpBenchmark {
+
+    @Param({"benchmark", "benchmark,prod"})
+    private String profile;
+
+    private BenchmarkApp app;
+
+    private URL url;
+
+    @Setup
+    public void setup() throws Exception {
+        app = BenchmarkApp.start(new CatalogGenerator(42L, 20000, 100, 0, 0, 4), profile, new HashMap<>());
+        url = new URL("http://localhost:" + app.getPort() + "/api/songs/hot?limit=20");
+    }
+
+    @TearDown
+    public void tearDown() throws Exception {
+        app.close();
+    }
+
+    /**
+     * 读完响应体，使连接可以被HttpURLConnection复用
+     */
+    @Benchmark
+    public long hotSongs() throws IOException {
+        HttpURLConnection connection = (HttpURLConnection) url.openConnection();
+        if (connection.getResponseCode() != 200) {
+            throw new IllegalStateException("热门歌曲接口返回 " + connection.getResponseCode());
+        }
+        long length = 0;
+        byte[] buffer = new byte[8192];
+        try (InputStream in = connection.getInputStream()) {
+            int read;
+            while ((read = in.read(buffer)) >= 0) {
+                length += read;
+            }
+        }
+        return length;
+    }
+}
@@ -0,0 +1,118 @@
+package com.music.benchmark;
+
+import com.baomidou.mybatisplus.core.conditions.query.LambdaQueryWrapper;
+import com.music.dto.IngestProgressDto;
+import com.music.entity.Singer;
+import com.music.entity.Song;
+import com.music.mapper.SingerMapper;
+import com.music.mapper.SongMapper;
+import com.music.service.DataInitService;
+import com.music.service.PageCountService;
+import com.music.service.SongSearchIndex;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.io.File;
+import java.nio.file.Files;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * 歌曲导入端到端耗时：对生成的歌曲目录执行一次完整的 initSongs（扫描、并行解析、歌手补全、分批入库、更新索引和检查点）
+ * 每次迭代前删除上次导入的歌曲和歌手；cache为cold时同时修改全部文件时间，使元数据缓存失效，
+ * warm为重新导入未变化的文件；每次导入后校验全部文件均已入库
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.SingleShotTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 1)
+@Measurement(iterations = 5)
+@Fork(1)
+public class IngestBenchmark {
+
+    private static final int CATALOG_SONGS = 100;
+
+    @Param({"cold", "warm"})
+    private String cache;
+
+    @Param("1000")
+    private int files;
+
+    @Param("10")
+    private int seconds;
+
+    private BenchmarkApp app;
+
+    private DataInitService dataInitService;
+
+    private File[] songFiles;
+
+    private long modified;
+
+    @Setup
+    public void setup() throws Exception {
+        app = BenchmarkApp.start(new CatalogGenerator(42L, CATALOG_SONGS, 10, 0, 0, 4));
+        dataInitService = app.getBean(DataInitService.class);
+
+        File directory = Files.createDirectories(app.getWorkDir().resolve("song")).toFile();
+        byte[] audio = AudioFiles.audio(seconds);
+        songFiles = new File[files];
+        for (int i = 0; i < files; i++) {
+            // 一半文件名为"歌手-歌名"，另一半需要从标签中取歌手和歌名
+            String artist = "Singer " + (i % 200);
+            String title = "Song " + i;
+            File file = new File(directory, i % 2 == 0 ? artist + "-" + title + ".mp3" : "track" + i + ".mp3");
+            AudioFiles.write(file, artist, title, audio);
+            songFiles[i] = file;
+        }
+        modified = songFiles[0].lastModified();
+    }
+
+    @Setup(Level.Iteration)
+    public void reset() {
+        LambdaQueryWrapper<Song> songWrapper = new LambdaQueryWrapper<>();
+        songWrapper.gt(Song::getId, CATALOG_SONGS);
+        app.getBean(SongMapper.class).delete(songWrapper);
+        LambdaQueryWrapper<Singer> singerWrapper = new LambdaQueryWrapper<>();
+        singerWrapper.gt(Singer::getId, CATALOG_SONGS / 20);
+        app.getBean(SingerMapper.class).delete(singerWrapper);
+        app.getBean(SongSearchIndex.class).rebuild();
+        app.getBean(PageCountService.class).invalidateSongs();
+
+        if ("cold".equals(cache)) {
+            modified += 1000;
+            for (File file : songFiles) {
+                file.setLastModified(modified);
+            }
+        }
+    }
+
+    @TearDown(Level.Iteration)
+    public void verify() {
+        IngestProgressDto progress = dataInitService.getIngestProgress();
+        if (progress.getInserted() != files || progress.getFailed() != 0) {
+            throw new IllegalStateException("导入 " + progress.getInserted() + " 首、失败 " + progress.getFailed()
+                    + " 个，应导入 " + files + " 首");
+        }
+    }
+
+    @TearDown
+    public void tearDown() throws Exception {
+        app.close();
+    }
+
+    @Benchmark
+    public void initSongs() {
+        dataInitService.initSongs();
+    }
+}
@@ -0,0 +1,149 @@
+package com.music.benchmark;
+
+import com.baomidou.mybatisplus.core.metadata.IPage;
+import com.baomidou.mybatisplus.extension.plugins.pagination.Page;
+import com.music.entity.Comment;
+import com.music.entity.Song;
+import com.music.entity.User;
+import com.music.mapper.CommentMapper;
+import com.music.mapper.SongMapper;
+import com.music.mapper.UserMapper;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.SplittableRandom;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Mapper热点查询：绕过服务层缓存和内存索引，直接测SQL与结果映射的开销
+ * 包括偏移分页（含深分页）、按ID和批量按ID查询歌曲、热门歌曲排序、评论树和点赞状态、登录时按用户名查询；
+ * 启动时校验分页查询只返回一页
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 5)
+@Measurement(iterations = 5, time = 5)
+@Fork(1)
+public class MapperBenchmark {
+
+    private static final int PAGE_SIZE = 20;
+
+    @Param("200000")
+    private int songs;
+
+    @Param("10000")
+    private int users;
+
+    @Param("100")
+    private int targets;
+
+    @Param("50")
+    private int commentsPerTarget;
+
+    private BenchmarkApp app;
+
+    private SongMapper songMapper;
+
+    private CommentMapper commentMapper;
+
+    private UserMapper userMapper;
+
+    @State(Scope.Thread)
+    public static class ThreadState {
+
+        private SplittableRandom random;
+
+        @Setup
+        public void setup() {
+            random = new SplittableRandom(Thread.currentThread().getId());
+        }
+    }
+
+    /**
+     * 分页位置，只用于分页基准；第10000页（每页20条）即跳过前199980条
+     */
+    @State(Scope.Benchmark)
+    public static class PageState {
+
+        @Param({"1", "10000"})
+        private int page;
+    }
+
+    @Setup
+    public void setup() throws Exception {
+        app = BenchmarkApp.start(new CatalogGenerator(42L, songs, users, targets, commentsPerTarget, 4));
+        songMapper = app.getBean(SongMapper.class);
+        commentMapper = app.getBean(CommentMapper.class);
+        userMapper = app.getBean(UserMapper.class);
+
+        int rows = getSongPageWithSinger(1).getRecords().size();
+        if (rows != PAGE_SIZE) {
+            throw new IllegalStateException("分页查询返回 " + rows + " 条，应为 " + PAGE_SIZE);
+        }
+    }
+
+    @TearDown
+    public void tearDown() throws Exception {
+        app.close();
+    }
+
+    @Benchmark
+    public IPage<Song> getSongPageWithSinger(PageState state) {
+        return getSongPageWithSinger(state.page);
+    }
+
+    private IPage<Song> getSongPageWithSinger(int current) {
+        // 与SongServiceImpl一致，总数另行缓存，不执行COUNT
+        Page<Song> page = new Page<>(current, PAGE_SIZE);
+        page.setSearchCount(false);
+        return songMapper.getSongPageWithSinger(page, null, null, null);
+    }
+
+    @Benchmark
+    public Song getSongWithSingerById(ThreadState state) {
+        return songMapper.getSongWithSingerById((long) state.random.nextInt(songs) + 1);
+    }
+
+    @Benchmark
+    public List<Song> getSongsWithSingerByIds(ThreadState state) {
+        List<Long> ids = new ArrayList<>(PAGE_SIZE);
+        for (int i = 0; i < PAGE_SIZE; i++) {
+            ids.add((long) state.random.nextInt(songs) + 1);
+        }
+        return songMapper.getSongsWithSingerByIds(ids);
+    }
+
+    @Benchmark
+    public List<Song> getHotSongsWithSinger() {
+        return songMapper.getHotSongsWithSinger(PAGE_SIZE);
+    }
+
+    @Benchmark
+    public List<Comment> getThreadComments(ThreadState state) {
+        return commentMapper.getThreadComments((long) state.random.nextInt(targets) + 1, CatalogGenerator.TARGET_TYPE);
+    }
+
+    @Benchmark
+    public List<Long> selectLikedCommentIds(ThreadState state) {
+        return commentMapper.selectLikedCommentIds((long) state.random.nextInt(users) + 1,
+                (long) state.random.nextInt(targets) + 1, CatalogGenerator.TARGET_TYPE);
+    }
+
+    @Benchmark
+    public User selectByUsernameOrEmail(ThreadState state) {
+        return userMapper.selectByUsernameOrEmail(CatalogGenerator.username(state.random.nextInt(users) + 1));
+    }
+}
@@ -0,0 +1,63 @@
+package com.music.benchmark;
+
+import com.music.service.PasswordHasher;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.security.crypto.bcrypt.BCrypt;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * BCrypt各cost下的哈希与校验耗时，以及PasswordHasher启动时自动选择cost的耗时
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 2, time = 5)
+@Measurement(iterations = 3, time = 5)
+@Fork(1)
+public class PasswordHashBenchmark {
+
+    @Param({"10", "11", "12"})
+    private int cost;
+
+    private String salt;
+
+    private String hash;
+
+    @Setup
+    public void setup() {
+        salt = BCrypt.gensalt(cost);
+        hash = BCrypt.hashpw(CatalogGenerator.PASSWORD, salt);
+    }
+
+    @Benchmark
+    public String hash() {
+        return BCrypt.hashpw(CatalogGenerator.PASSWORD, salt);
+    }
+
+    @Benchmark
+    public boolean verify() {
+        return BCrypt.checkpw(CatalogGenerator.PASSWORD, hash);
+    }
+
+    /**
+     * 以默认的200ms目标运行一次自动选择，输出结果不随cost参数变化
+     */
+    @Benchmark
+    @BenchmarkMode(Mode.SingleShotTime)
+    @Warmup(iterations = 1)
+    @Measurement(iterations = 3)
+    public int tuneStrength() {
+        return PasswordHasher.tuneStrength(200, 10, 16);
+    }
+}
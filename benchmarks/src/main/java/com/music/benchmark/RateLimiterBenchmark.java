@@ -0,0 +1,88 @@
+package com.music.benchmark;
+
+import com.music.common.ratelimit.TokenBucket;
+import com.music.config.RateLimitProperties;
+import com.music.service.RateLimiter;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Threads;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.util.Collections;
+import java.util.SplittableRandom;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * 限流：单个令牌桶在8线程竞争下的CAS开销，以及本地限流器按键取桶的整体开销
+ * keys为1时所有线程争用同一个桶，桶始终处于拒绝状态，测的是热点键被攻击时的开销
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+@Threads(8)
+public class RateLimiterBenchmark {
+
+    @Param({"1", "100000"})
+    private int keys;
+
+    private TokenBucket bucket;
+
+    private long interval;
+
+    private RateLimiter rateLimiter;
+
+    private RateLimitProperties.Rule rule;
+
+    @State(Scope.Thread)
+    public static class ThreadState {
+
+        private SplittableRandom random;
+
+        @Setup
+        public void setup() {
+            random = new SplittableRandom(Thread.currentThread().getId());
+        }
+    }
+
+    @Setup
+    public void setup() {
+        rule = new RateLimitProperties.Rule();
+        rule.setName("search");
+        rule.setPattern("/songs/search");
+        rule.setMethods(Collections.singletonList("GET"));
+        rule.setCapacity(20);
+        rule.setRefillPerSecond(10);
+        rule.setKey("ip");
+
+        RateLimitProperties properties = new RateLimitProperties();
+        properties.setRedisEnabled(false);
+        properties.setRules(Collections.singletonList(rule));
+        rateLimiter = new RateLimiter();
+        ReflectionTestUtils.setField(rateLimiter, "properties", properties);
+
+        interval = TimeUnit.SECONDS.toNanos(1) / 10;
+        bucket = new TokenBucket(System.nanoTime());
+    }
+
+    @Benchmark
+    public long tokenBucket() {
+        return bucket.tryAcquire(System.nanoTime(), interval, rule.getCapacity());
+    }
+
+    @Benchmark
+    public long tryAcquire(ThreadState state) {
+        return rateLimiter.tryAcquire(rule, keys == 1 ? "10.0.0.1" : "10.0." + state.random.nextInt(keys));
+    }
+}
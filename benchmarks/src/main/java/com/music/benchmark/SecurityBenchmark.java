@@ -0,0 +1,88 @@
+package com.music.benchmark;
+
+import com.music.config.JwtAuthenticationFilter;
+import com.music.service.JwtTokenService;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.mock.web.MockFilterChain;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.mock.web.MockHttpServletResponse;
+import org.springframework.security.core.context.SecurityContextHolder;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import javax.servlet.ServletException;
+import java.io.IOException;
+import java.util.Collections;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * JWT鉴权过滤器：每个请求的令牌校验开销，verifiedCacheSize为0时每次都做HMAC校验
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class SecurityBenchmark {
+
+    private static final int TOKENS = 1000;
+
+    @Param({"0", "10000"})
+    private long verifiedCacheSize;
+
+    private JwtTokenService jwtTokenService;
+
+    private JwtAuthenticationFilter filter;
+
+    private String[] tokens;
+
+    private int next;
+
+    @Setup
+    public void setup() {
+        jwtTokenService = new JwtTokenService();
+        ReflectionTestUtils.setField(jwtTokenService, "secret", "music-web-benchmark-secret-key-0123456789abcdef");
+        ReflectionTestUtils.setField(jwtTokenService, "expiration", TimeUnit.DAYS.toMillis(7));
+        ReflectionTestUtils.setField(jwtTokenService, "verifiedCacheSize", verifiedCacheSize);
+        ReflectionTestUtils.setField(jwtTokenService, "verifiedCacheTtl", TimeUnit.MINUTES.toMillis(5));
+        ReflectionTestUtils.setField(jwtTokenService, "meterRegistry", new SimpleMeterRegistry());
+        jwtTokenService.init();
+        filter = new JwtAuthenticationFilter(jwtTokenService, "Authorization", "Bearer ", Collections.singleton(1L));
+
+        tokens = new String[TOKENS];
+        for (int i = 0; i < TOKENS; i++) {
+            tokens[i] = jwtTokenService.issue((long) i + 1);
+        }
+    }
+
+    @Benchmark
+    public Long resolveUserId() {
+        return jwtTokenService.resolveUserId(nextToken());
+    }
+
+    @Benchmark
+    public Object doFilter() throws ServletException, IOException {
+        MockHttpServletRequest request = new MockHttpServletRequest("GET", "/api/songs/hot");
+        request.addHeader("Authorization", "Bearer " + nextToken());
+        filter.doFilter(request, new MockHttpServletResponse(), new MockFilterChain());
+        SecurityContextHolder.clearContext();
+        return request.getAttribute(JwtAuthenticationFilter.USER_ID_ATTRIBUTE);
+    }
+
+    private String nextToken() {
+        String token = tokens[next];
+        next = (next + 1) % TOKENS;
+        return token;
+    }
+}
@@ -0,0 +1,134 @@
+package com.music.benchmark;
+
+import com.fasterxml.jackson.annotation.JsonInclude;
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.SerializationFeature;
+import com.music.common.result.PageResult;
+import com.music.common.result.Result;
+import com.music.entity.Comment;
+import com.music.entity.Song;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.http.converter.json.Jackson2ObjectMapperBuilder;
+
+import java.text.SimpleDateFormat;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.TimeZone;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Result/PageResult的JSON序列化，ObjectMapper配置与application.yml中的spring.jackson一致
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class SerializationBenchmark {
+
+    private ObjectMapper objectMapper;
+
+    private Result<Song> song;
+
+    private Result<PageResult<Song>> songPage;
+
+    private Result<PageResult<Song>> songCursorPage;
+
+    private Result<List<Comment>> comments;
+
+    @Setup
+    public void setup() {
+        objectMapper = Jackson2ObjectMapperBuilder.json()
+                .dateFormat(new SimpleDateFormat("yyyy-MM-dd HH:mm:ss"))
+                .timeZone(TimeZone.getTimeZone("GMT+8"))
+                .serializationInclusion(JsonInclude.Include.NON_NULL)
+                .featuresToDisable(SerializationFeature.WRITE_DATES_AS_TIMESTAMPS)
+                .build();
+
+        List<Song> songs = new ArrayList<>();
+        for (long id = 1; id <= 20; id++) {
+            songs.add(song(id));
+        }
+        song = Result.success(songs.get(0));
+        songPage = Result.success(new PageResult<>(songs, 200000L, 1L, 20L));
+        songCursorPage = Result.success(PageResult.ofCursor(songs, 20L, "MjAyNC0wMS0wMVQwMDowMDoyMHwyMA", null));
+
+        List<Comment> commentList = new ArrayList<>();
+        for (long id = 1; id <= 50; id++) {
+            commentList.add(comment(id));
+        }
+        comments = Result.success(commentList);
+    }
+
+    @Benchmark
+    public byte[] song() throws JsonProcessingException {
+        return objectMapper.writeValueAsBytes(song);
+    }
+
+    @Benchmark
+    public byte[] songPage() throws JsonProcessingException {
+        return objectMapper.writeValueAsBytes(songPage);
+    }
+
+    @Benchmark
+    public byte[] songCursorPage() throws JsonProcessingException {
+        return objectMapper.writeValueAsBytes(songCursorPage);
+    }
+
+    @Benchmark
+    public byte[] comments() throws JsonProcessingException {
+        return objectMapper.writeValueAsBytes(comments);
+    }
+
+    private static Song song(long id) {
+        Song song = new Song();
+        song.setId(id);
+        song.setName("晴天 " + id);
+        song.setSingerId(id % 50 + 1);
+        song.setSingerName("周杰伦");
+        song.setAlbumId(id % 10 + 1);
+        song.setAlbumName("叶惠美");
+        song.setAudioUrl("http://localhost:8080/api/song/" + id + ".mp3");
+        song.setCoverUrl("http://localhost:8080/api/img/songPic/" + id + ".jpg");
+        song.setLyric("[00:00.00]晴天\n[00:05.00]故事的小黄花\n[00:09.00]从出生那年就飘着");
+        song.setDuration(269);
+        song.setFileSize(6_451_200L);
+        song.setFormat("mp3");
+        song.setBitrate(320);
+        song.setGenre("流行");
+        song.setLanguage("中文");
+        song.setPlayCount(1_000_000L / id);
+        song.setDownloadCount(1000L);
+        song.setLikeCount(500L);
+        song.setStatus(1);
+        song.setCreateTime(CatalogGenerator.songCreateTime(id));
+        song.setUpdateTime(CatalogGenerator.songCreateTime(id));
+        return song;
+    }
+
+    private static Comment comment(long id) {
+        Comment comment = new Comment();
+        comment.setId(id);
+        comment.setUserId(id % 100 + 1);
+        comment.setUsername(CatalogGenerator.username((int) (id % 100 + 1)));
+        comment.setTargetId(1L);
+        comment.setTargetType(CatalogGenerator.TARGET_TYPE);
+        comment.setContent("基准测试评论 " + id);
+        comment.setLikeCount((int) (id % 20));
+        comment.setIsLiked(id % 3 == 0);
+        comment.setStatus(1);
+        comment.setCreateTime(CatalogGenerator.BASE_TIME.plusSeconds(id));
+        return comment;
+    }
+}
@@ -0,0 +1,116 @@
+package com.music.benchmark;
+
+import com.baomidou.mybatisplus.core.conditions.update.LambdaUpdateWrapper;
+import com.music.entity.Song;
+import com.music.mapper.SongMapper;
+import com.music.service.SongSearchIndex;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * 百万级曲库的歌曲搜索：内存倒排索引与原 LIKE '%keyword%' 查询（searchSongsWithSinger）对比；
+ * 启动时校验两者命中数量一致，并在重建索引的同时禁用、加回歌曲，校验扫描期间的变更没有丢失
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 2, time = 5)
+@Measurement(iterations = 3, time = 5)
+@Fork(value = 1, jvmArgsAppend = "-Xmx3g")
+public class SongSearchBenchmark {
+
+    private static final int LIMIT = 20;
+
+    private static final long DISABLED = 2000;
+
+    @Param("1000000")
+    private int songs;
+
+    @Param({"晴天", "love", "周"})
+    private String keyword;
+
+    private BenchmarkApp app;
+
+    private SongSearchIndex songSearchIndex;
+
+    private SongMapper songMapper;
+
+    @Setup
+    public void setup() throws Exception {
+        app = BenchmarkApp.start(new CatalogGenerator(42L, songs, 100, 0, 0, 4));
+        songSearchIndex = app.getBean(SongSearchIndex.class);
+        songMapper = app.getBean(SongMapper.class);
+
+        verifyRebuildKeepsChanges();
+
+        int indexed = index().size();
+        int queried = mapper().size();
+        if (indexed != queried) {
+            throw new IllegalStateException("关键词 " + keyword + " 索引命中 " + indexed + " 首，数据库查询命中 " + queried + " 首");
+        }
+    }
+
+    @TearDown
+    public void tearDown() throws Exception {
+        app.close();
+    }
+
+    @Benchmark
+    public List<Song> index() {
+        return songSearchIndex.searchSongs(keyword, LIMIT);
+    }
+
+    @Benchmark
+    public List<Song> mapper() {
+        return songMapper.searchSongsWithSinger(keyword, LIMIT);
+    }
+
+    /**
+     * 重建的同时禁用一批歌曲（先改数据库再移出索引），并移除后加回一首；
+     * 无论变更发生在扫描之前、之中还是之后，重建完成后索引都应与数据库一致
+     */
+    private void verifyRebuildKeepsChanges() {
+        Song restored = songMapper.selectById(1L);
+        CompletableFuture<Void> rebuild = CompletableFuture.runAsync(songSearchIndex::rebuild);
+        for (long songId = 2; songId <= DISABLED; songId++) {
+            setStatus(songId, songId, 0);
+            songSearchIndex.removeSong(songId);
+        }
+        songSearchIndex.removeSong(1L);
+        songSearchIndex.addSong(restored);
+        rebuild.join();
+
+        if (!Boolean.TRUE.equals(songSearchIndex.containsSong(1L))) {
+            throw new IllegalStateException("重建期间加回的歌曲丢失");
+        }
+        for (long songId = 2; songId <= DISABLED; songId++) {
+            if (!Boolean.FALSE.equals(songSearchIndex.containsSong(songId))) {
+                throw new IllegalStateException("重建期间禁用的歌曲 " + songId + " 被扫描结果覆盖");
+            }
+        }
+
+        // 恢复完整曲库，保证两种查询的数据一致
+        setStatus(2, DISABLED, 1);
+        songSearchIndex.rebuild();
+    }
+
+    private void setStatus(long fromId, long toId, int status) {
+        LambdaUpdateWrapper<Song> wrapper = new LambdaUpdateWrapper<>();
+        wrapper.between(Song::getId, fromId, toId).set(Song::getStatus, status);
+        songMapper.update(null, wrapper);
+    }
+}
@@ -0,0 +1,123 @@
+package com.music.benchmark;
+
+import com.music.common.result.PageResult;
+import com.music.common.util.CursorUtils;
+import com.music.entity.Song;
+import com.music.service.SongService;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.stream.Collectors;
+
+/**
+ * 歌曲服务：搜索、偏移分页与游标分页（含深分页）、播放计数
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 5)
+@Measurement(iterations = 5, time = 5)
+@Fork(1)
+public class SongServiceBenchmark {
+
+    private static final long PAGE_SIZE = 20;
+
+    @Param("200000")
+    private int songs;
+
+    private CatalogGenerator generator;
+
+    private BenchmarkApp app;
+
+    private SongService songService;
+
+    private final AtomicInteger sequence = new AtomicInteger();
+
+    /**
+     * 分页位置，只用于分页基准；第10000页（每页20条）即跳过前199980条
+     */
+    @State(Scope.Benchmark)
+    public static class PageState {
+
+        @Param({"1", "10000"})
+        private int page;
+
+        private String cursor;
+
+        @Setup
+        public void setup(SongServiceBenchmark benchmark) {
+            if (page > 1) {
+                long songId = benchmark.generator.cursorSongIdBeforePage(page, (int) PAGE_SIZE);
+                cursor = CursorUtils.encode(CatalogGenerator.songCreateTime(songId), songId);
+            }
+            benchmark.verifyPage(page, cursor);
+        }
+    }
+
+    @Setup
+    public void setup() throws Exception {
+        generator = new CatalogGenerator(42L, songs, 1000, 0, 0, 4);
+        app = BenchmarkApp.start(generator);
+        songService = app.getBean(SongService.class);
+    }
+
+    @TearDown
+    public void tearDown() throws Exception {
+        app.close();
+    }
+
+    @Benchmark
+    public List<Song> searchSongs() {
+        String[] keywords = CatalogGenerator.SEARCH_KEYWORDS;
+        return songService.searchSongs(keywords[(sequence.getAndIncrement() & Integer.MAX_VALUE) % keywords.length], 20);
+    }
+
+    @Benchmark
+    public PageResult<Song> getSongPage(PageState state) {
+        return songService.getSongPage((long) state.page, PAGE_SIZE, null, null, null);
+    }
+
+    @Benchmark
+    public PageResult<Song> getSongPageByCursor(PageState state) {
+        return songService.getSongPageByCursor(state.cursor, PAGE_SIZE, null, null, null, false);
+    }
+
+    /**
+     * 偏移分页与游标分页应返回同一页；分页插件缺失时偏移分页会读出全表
+     */
+    private void verifyPage(int page, String cursor) {
+        List<Song> offset = songService.getSongPage((long) page, PAGE_SIZE, null, null, null).getRecords();
+        List<Song> keyset = songService.getSongPageByCursor(cursor, PAGE_SIZE, null, null, null, false).getRecords();
+        if (offset.size() != PAGE_SIZE || !ids(offset).equals(ids(keyset))) {
+            throw new IllegalStateException("第 " + page + " 页偏移分页 " + ids(offset) + " 与游标分页 " + ids(keyset) + " 不一致");
+        }
+
+        long lastPage = (songs + PAGE_SIZE - 1) / PAGE_SIZE;
+        PageResult<Song> last = songService.getSongPage(lastPage, PAGE_SIZE, null, null, null);
+        if (!Boolean.TRUE.equals(last.getTotalExact()) || last.getTotal() != songs) {
+            throw new IllegalStateException("最后一页总数 " + last.getTotal() + "，应为 " + songs);
+        }
+    }
+
+    private static List<Long> ids(List<Song> songs) {
+        return songs.stream().map(Song::getId).collect(Collectors.toList());
+    }
+
+    @Benchmark
+    public boolean playSong() {
+        return songService.playSong((long) (sequence.getAndIncrement() & Integer.MAX_VALUE) % songs + 1);
+    }
+}
@@ -0,0 +1,85 @@
+package com.music.benchmark;
+
+import com.music.common.result.Result;
+import com.music.entity.User;
+import com.music.service.UserService;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Threads;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.SplittableRandom;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * 用户登录：查询用户并在密码哈希线程池中校验BCrypt（cost与application-benchmark.yml一致）
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 5)
+@Measurement(iterations = 5, time = 5)
+@Fork(1)
+public class UserServiceBenchmark {
+
+    private static final int BCRYPT_COST = 10;
+
+    @Param("10000")
+    private int users;
+
+    private BenchmarkApp app;
+
+    private UserService userService;
+
+    @State(Scope.Thread)
+    public static class ThreadState {
+
+        private SplittableRandom random;
+
+        @Setup
+        public void setup() {
+            random = new SplittableRandom(Thread.currentThread().getId());
+        }
+    }
+
+    @Setup
+    public void setup() throws Exception {
+        app = BenchmarkApp.start(new CatalogGenerator(42L, 1000, users, 0, 0, BCRYPT_COST));
+        userService = app.getBean(UserService.class);
+    }
+
+    @TearDown
+    public void tearDown() throws Exception {
+        app.close();
+    }
+
+    @Benchmark
+    public Result<User> login(ThreadState state) {
+        return userService.login(CatalogGenerator.username(state.random.nextInt(users) + 1),
+                CatalogGenerator.PASSWORD).join();
+    }
+
+    /**
+     * 并发登录数超过哈希线程数时的排队延迟
+     */
+    @Benchmark
+    @Threads(16)
+    public Result<User> loginConcurrent(ThreadState state) {
+        return login(state);
+    }
+
+    @Benchmark
+    public Result<User> loginWrongPassword(ThreadState state) {
+        return userService.login(CatalogGenerator.username(state.random.nextInt(users) + 1), "wrong-password")
+                .join();
+    }
+}
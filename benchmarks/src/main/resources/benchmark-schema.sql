@@ -0,0 +1,118 @@
+-- 基准测试数据库结构（H2 MySQL兼容模式）
+-- 与 music-web-backend/sql/init.sql 中被测表一致；H2的索引名在库内唯一，因此加上表名前缀，并去掉MySQL专有的表选项
+
+CREATE TABLE users (
+    id BIGINT PRIMARY KEY AUTO_INCREMENT,
+    username VARCHAR(50) NOT NULL UNIQUE,
+    email VARCHAR(100) NOT NULL UNIQUE,
+    password VARCHAR(255) NOT NULL,
+    nickname VARCHAR(50),
+    avatar VARCHAR(255),
+    gender TINYINT DEFAULT 0,
+    birthday DATE,
+    phone VARCHAR(20),
+    bio TEXT,
+    is_vip BOOLEAN DEFAULT FALSE,
+    status TINYINT DEFAULT 1,
+    create_time TIMESTAMP DEFAULT CURRENT_TIMESTAMP,
+    update_time TIMESTAMP DEFAULT CURRENT_TIMESTAMP ON UPDATE CURRENT_TIMESTAMP
+);
+CREATE INDEX users_idx_create_time ON users (create_time);
+
+CREATE TABLE singers (
+    id BIGINT PRIMARY KEY AUTO_INCREMENT,
+    name VARCHAR(100) NOT NULL UNIQUE,
+    english_name VARCHAR(100),
+    avatar VARCHAR(255),
+    gender TINYINT DEFAULT 0,
+    birth_date DATE,
+    nationality VARCHAR(50),
+    description TEXT,
+    debut_date DATE,
+    company VARCHAR(100),
+    status TINYINT DEFAULT 1,
+    play_count BIGINT DEFAULT 0,
+    fan_count BIGINT DEFAULT 0,
+    create_time TIMESTAMP DEFAULT CURRENT_TIMESTAMP,
+    update_time TIMESTAMP DEFAULT CURRENT_TIMESTAMP ON UPDATE CURRENT_TIMESTAMP
+);
+CREATE INDEX singers_idx_play_count ON singers (play_count);
+
+CREATE TABLE albums (
+    id BIGINT PRIMARY KEY AUTO_INCREMENT,
+    name VARCHAR(200) NOT NULL,
+    singer_id BIGINT NOT NULL,
+    cover_url VARCHAR(255),
+    description TEXT,
+    release_date DATE,
+    company VARCHAR(100),
+    genre VARCHAR(50),
+    language VARCHAR(20),
+    play_count BIGINT DEFAULT 0,
+    collect_count BIGINT DEFAULT 0,
+    status TINYINT DEFAULT 1,
+    create_time TIMESTAMP DEFAULT CURRENT_TIMESTAMP,
+    update_time TIMESTAMP DEFAULT CURRENT_TIMESTAMP ON UPDATE CURRENT_TIMESTAMP,
+    FOREIGN KEY (singer_id) REFERENCES singers(id) ON DELETE CASCADE
+);
+CREATE INDEX albums_idx_singer_id ON albums (singer_id);
+CREATE INDEX albums_idx_name ON albums (name);
+
+CREATE TABLE songs (
+    id BIGINT PRIMARY KEY AUTO_INCREMENT,
+    name VARCHAR(200) NOT NULL,
+    singer_id BIGINT NOT NULL,
+    album_id BIGINT,
+    cover_url VARCHAR(255),
+    audio_url VARCHAR(255) NOT NULL,
+    lyric TEXT,
+    duration INTEGER DEFAULT 0,
+    file_size BIGINT DEFAULT 0,
+    format VARCHAR(10) DEFAULT 'mp3',
+    bitrate INTEGER DEFAULT 128,
+    release_date DATE,
+    genre VARCHAR(50),
+    language VARCHAR(20),
+    play_count BIGINT DEFAULT 0,
+    download_count BIGINT DEFAULT 0,
+    like_count BIGINT DEFAULT 0,
+    status TINYINT DEFAULT 1,
+    create_time TIMESTAMP DEFAULT CURRENT_TIMESTAMP,
+    update_time TIMESTAMP DEFAULT CURRENT_TIMESTAMP ON UPDATE CURRENT_TIMESTAMP,
+    FOREIGN KEY (singer_id) REFERENCES singers(id) ON DELETE CASCADE,
+    FOREIGN KEY (album_id) REFERENCES albums(id) ON DELETE SET NULL
+);
+CREATE INDEX songs_idx_singer_id ON songs (singer_id);
+CREATE INDEX songs_idx_album_id ON songs (album_id);
+CREATE INDEX songs_idx_name ON songs (name);
+CREATE INDEX songs_idx_play_count ON songs (play_count);
+CREATE INDEX songs_idx_like_count ON songs (like_count);
+CREATE INDEX songs_idx_create_time ON songs (create_time);
+
+CREATE TABLE comments (
+    id BIGINT PRIMARY KEY AUTO_INCREMENT,
+    user_id BIGINT NOT NULL,
+    target_type VARCHAR(20) NOT NULL,
+    target_id BIGINT NOT NULL,
+    content TEXT NOT NULL,
+    parent_id BIGINT,
+    like_count INTEGER DEFAULT 0,
+    status TINYINT DEFAULT 1,
+    create_time TIMESTAMP DEFAULT CURRENT_TIMESTAMP,
+    update_time TIMESTAMP DEFAULT CURRENT_TIMESTAMP ON UPDATE CURRENT_TIMESTAMP,
+    FOREIGN KEY (user_id) REFERENCES users(id) ON DELETE CASCADE
+);
+CREATE INDEX comments_idx_target ON comments (target_type, target_id);
+CREATE INDEX comments_idx_parent_id ON comments (parent_id);
+CREATE INDEX comments_idx_create_time ON comments (create_time);
+
+CREATE TABLE comment_likes (
+    id BIGINT PRIMARY KEY AUTO_INCREMENT,
+    comment_id BIGINT NOT NULL,
+    user_id BIGINT NOT NULL,
+    create_time TIMESTAMP DEFAULT CURRENT_TIMESTAMP,
+    UNIQUE (comment_id, user_id),
+    FOREIGN KEY (comment_id) REFERENCES comments(id) ON DELETE CASCADE,
+    FOREIGN KEY (user_id) REFERENCES users(id) ON DELETE CASCADE
+);
+CREATE INDEX comment_likes_idx_user_id ON comment_likes (user_id);
@@ -0,0 +1,30 @@
+package com.music.common.cache;
+
+import java.util.Collection;
+import java.util.Map;
+
+/**
+ * 二级（远程）缓存存储
+ * 实现方负责序列化、过期时间以及失效通知，不可用时读取返回空、写入静默失败；
+ * 删除不能静默丢弃，不可用期间的删除须在恢复后、再次读取之前补做
+ */
+public interface RemoteCacheStore {
+
+    <V> V get(String cacheName, Long key, Class<V> type);
+
+    <V> Map<Long, V> getAll(String cacheName, Collection<Long> keys, Class<V> type);
+
+    void put(String cacheName, Long key, Object value);
+
+    void putAll(String cacheName, Map<Long, ?> values);
+
+    /**
+     * 删除远程缓存并通知其他节点清除本地缓存
+     */
+    void evict(String cacheName, Long key);
+
+    /**
+     * 批量删除远程缓存并通知其他节点
+     */
+    void evictAll(String cacheName, Collection<Long> keys);
+}
@@ -0,0 +1,296 @@
+package com.music.common.cache;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import io.micrometer.core.instrument.FunctionCounter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.Function;
+import java.util.function.UnaryOperator;
+
+/**
+ * 两级读穿缓存：本地Caffeine（L1）+ 远程存储（L2）
+ * 同一节点上同一个键的加载只执行一次（单飞），不存在的键在本地缓存空值；
+ * 批量加载在Caffeine的计算之外进行，按键记录失效版本，加载期间发生过失效的键不写回缓存；
+ * 返回值均为副本，调用方可以自由修改
+ */
+public class TieredCache<V> {
+
+    private final String name;
+
+    private final Class<V> type;
+
+    private final Cache<Long, Optional<V>> local;
+
+    private final RemoteCacheStore remote;
+
+    private final UnaryOperator<V> copier;
+
+    private final LongAdder localHits = new LongAdder();
+
+    private final LongAdder remoteHits = new LongAdder();
+
+    private final LongAdder loads = new LongAdder();
+
+    private final LongAdder loadFailures = new LongAdder();
+
+    // 失效版本，按键的哈希分段；失效时先递增版本再清除缓存
+    private static final int VERSION_STRIPES = 1024;
+
+    private final AtomicLongArray versions = new AtomicLongArray(VERSION_STRIPES);
+
+    public TieredCache(String name, Class<V> type, Cache<Long, Optional<V>> local,
+                       RemoteCacheStore remote, UnaryOperator<V> copier) {
+        this.name = name;
+        this.type = type;
+        this.local = local;
+        this.remote = remote;
+        this.copier = copier;
+    }
+
+    public String getName() {
+        return name;
+    }
+
+    /**
+     * 读取单个值，两级均未命中时调用loader加载
+     */
+    public V get(Long key, Function<Long, V> loader) {
+        if (key == null) {
+            return null;
+        }
+        Optional<V> value = local.getIfPresent(key);
+        if (value != null) {
+            localHits.increment();
+            return copy(value);
+        }
+
+        // Caffeine对同一个键的计算加锁，并发请求等待同一次加载
+        value = local.get(key, k -> {
+            V cached = remote.get(name, k, type);
+            if (cached != null) {
+                remoteHits.increment();
+                return Optional.of(cached);
+            }
+            V loaded = load(k, loader);
+            if (loaded != null) {
+                remote.put(name, k, loaded);
+            }
+            return Optional.ofNullable(loaded);
+        });
+        return copy(value);
+    }
+
+    /**
+     * 批量读取，未命中的键一次性交给bulkLoader加载；结果中不包含不存在的键
+     */
+    public Map<Long, V> getAll(Collection<Long> keys, Function<List<Long>, Map<Long, V>> bulkLoader) {
+        Map<Long, V> result = new HashMap<>();
+        List<Long> missing = new ArrayList<>();
+        for (Long key : keys) {
+            Optional<V> value = local.getIfPresent(key);
+            if (value != null) {
+                localHits.increment();
+                value.ifPresent(v -> result.put(key, copier.apply(v)));
+            } else if (key != null) {
+                missing.add(key);
+            }
+        }
+        if (missing.isEmpty()) {
+            return result;
+        }
+
+        // 读取L2和数据库之前记下版本，写回时版本已变化说明期间发生过失效，读到的值可能已过期
+        Map<Long, Long> stamps = new HashMap<>();
+        for (Long key : missing) {
+            stamps.put(key, version(key));
+        }
+
+        Map<Long, V> cached = remote.getAll(name, missing, type);
+        List<Long> unloaded = new ArrayList<>();
+        for (Long key : missing) {
+            V value = cached.get(key);
+            if (value != null) {
+                remoteHits.increment();
+                putIfCurrent(key, Optional.of(value), stamps.get(key));
+                result.put(key, copier.apply(value));
+            } else {
+                unloaded.add(key);
+            }
+        }
+        if (unloaded.isEmpty()) {
+            return result;
+        }
+
+        loads.add(unloaded.size());
+        Map<Long, V> loaded;
+        try {
+            loaded = bulkLoader.apply(unloaded);
+        } catch (RuntimeException e) {
+            loadFailures.increment();
+            throw e;
+        }
+        Map<Long, V> found = new HashMap<>();
+        for (Long key : unloaded) {
+            V value = loaded.get(key);
+            boolean current = putIfCurrent(key, Optional.ofNullable(value), stamps.get(key));
+            if (value != null) {
+                if (current) {
+                    found.put(key, value);
+                }
+                result.put(key, copier.apply(value));
+            }
+        }
+        if (!found.isEmpty()) {
+            remote.putAll(name, found);
+            // 写入L2的同时发生的失效可能先于写入完成，再删一次
+            List<Long> stale = new ArrayList<>();
+            for (Long key : found.keySet()) {
+                if (version(key) != stamps.get(key)) {
+                    stale.add(key);
+                }
+            }
+            if (!stale.isEmpty()) {
+                remote.evictAll(name, stale);
+            }
+        }
+        return result;
+    }
+
+    /**
+     * 清除本节点和远程缓存，并通知其他节点
+     */
+    public void evict(Long key) {
+        // 先清本地：正在进行的同键加载会先完成，随后被清除
+        invalidateLocal(key);
+        remote.evict(name, key);
+        // 删除L2之前开始的批量读取可能读到L2中的旧值，再递增一次版本使其不能写回
+        invalidateLocal(key);
+    }
+
+    /**
+     * 批量清除本节点和远程缓存，并通知其他节点
+     */
+    public void evictAll(Collection<Long> keys) {
+        if (keys.isEmpty()) {
+            return;
+        }
+        invalidateAllLocal(keys);
+        remote.evictAll(name, keys);
+        invalidateAllLocal(keys);
+    }
+
+    /**
+     * 只清除本节点缓存（收到其他节点的失效通知时调用）
+     */
+    public void invalidateLocal(Long key) {
+        bumpVersion(key);
+        local.invalidate(key);
+    }
+
+    private void invalidateAllLocal(Collection<Long> keys) {
+        for (Long key : keys) {
+            bumpVersion(key);
+        }
+        local.invalidateAll(keys);
+    }
+
+    public void invalidateAllLocal() {
+        for (int i = 0; i < VERSION_STRIPES; i++) {
+            versions.incrementAndGet(i);
+        }
+        local.invalidateAll();
+    }
+
+    /**
+     * 注册缓存指标，标签cache为缓存名称；读取按本地命中、Redis命中和加载分别计数
+     */
+    public void registerMetrics(MeterRegistry registry) {
+        FunctionCounter.builder("tiered.cache.gets", localHits, LongAdder::sum)
+                .description("两级缓存的读取次数")
+                .tags("cache", name, "result", "local_hit")
+                .register(registry);
+        FunctionCounter.builder("tiered.cache.gets", remoteHits, LongAdder::sum)
+                .description("两级缓存的读取次数")
+                .tags("cache", name, "result", "remote_hit")
+                .register(registry);
+        FunctionCounter.builder("tiered.cache.gets", loads, LongAdder::sum)
+                .description("两级缓存的读取次数")
+                .tags("cache", name, "result", "miss")
+                .register(registry);
+        FunctionCounter.builder("tiered.cache.load.failures", loadFailures, LongAdder::sum)
+                .description("两级均未命中后加载失败的次数")
+                .tag("cache", name)
+                .register(registry);
+        FunctionCounter.builder("tiered.cache.evictions", local, cache -> cache.stats().evictionCount())
+                .description("本地缓存因容量或过期淘汰的条目数")
+                .tag("cache", name)
+                .register(registry);
+        Gauge.builder("tiered.cache.size", local, Cache::estimatedSize)
+                .description("本地缓存的条目数")
+                .tag("cache", name)
+                .register(registry);
+    }
+
+    public long getLocalHitCount() {
+        return localHits.sum();
+    }
+
+    public long getRemoteHitCount() {
+        return remoteHits.sum();
+    }
+
+    public long getLoadCount() {
+        return loads.sum();
+    }
+
+    private V load(Long key, Function<Long, V> loader) {
+        loads.increment();
+        try {
+            return loader.apply(key);
+        } catch (RuntimeException e) {
+            loadFailures.increment();
+            throw e;
+        }
+    }
+
+    /**
+     * 版本未变化时写入本地缓存，返回是否写入；检查与写入在同一个键的计算中完成，与失效互斥
+     */
+    private boolean putIfCurrent(Long key, Optional<V> value, long stamp) {
+        boolean[] written = new boolean[1];
+        local.asMap().compute(key, (k, existing) -> {
+            if (version(k) != stamp) {
+                return existing;
+            }
+            written[0] = true;
+            return value;
+        });
+        return written[0];
+    }
+
+    private long version(Long key) {
+        return versions.get(stripe(key));
+    }
+
+    private void bumpVersion(Long key) {
+        versions.incrementAndGet(stripe(key));
+    }
+
+    private static int stripe(Long key) {
+        int hash = key.hashCode();
+        return (hash ^ (hash >>> 16)) & (VERSION_STRIPES - 1);
+    }
+
+    private V copy(Optional<V> value) {
+        return value.map(copier).orElse(null);
+    }
+}
@@ -0,0 +1,55 @@
+package com.music.common.chat;
+
+/**
+ * 聊天意图（按关键词粗分类）
+ * 用于选择模拟回复，以及回复缓存按意图归并相近的提问
+ */
+public enum ChatIntent {
+
+    /**
+     * 推荐歌曲
+     */
+    RECOMMEND("推荐", "歌曲", "音乐"),
+
+    /**
+     * 按心情推荐
+     */
+    MOOD("心情", "情感"),
+
+    /**
+     * 网站功能咨询
+     */
+    FEATURE("功能", "怎么用"),
+
+    /**
+     * 其他
+     */
+    GENERAL;
+
+    private final String[] keywords;
+
+    ChatIntent(String... keywords) {
+        this.keywords = keywords;
+    }
+
+    public String[] getKeywords() {
+        return keywords;
+    }
+
+    /**
+     * 按声明顺序匹配第一个包含关键词的意图
+     */
+    public static ChatIntent classify(String message) {
+        if (message == null) {
+            return GENERAL;
+        }
+        for (ChatIntent intent : values()) {
+            for (String keyword : intent.keywords) {
+                if (message.contains(keyword)) {
+                    return intent;
+                }
+            }
+        }
+        return GENERAL;
+    }
+}
@@ -0,0 +1,27 @@
+package com.music.common.event;
+
+import lombok.Getter;
+import org.springframework.context.ApplicationEvent;
+
+/**
+ * 曲库变更事件（歌曲或歌手新增、更新、删除）
+ */
+@Getter
+public class CatalogChangedEvent extends ApplicationEvent {
+
+    /**
+     * 变更的歌曲ID，歌手变更或批量变更时为空
+     */
+    private final Long songId;
+
+    /**
+     * 变更的歌手ID，歌曲变更时为空
+     */
+    private final Long singerId;
+
+    public CatalogChangedEvent(Object source, Long songId, Long singerId) {
+        super(source);
+        this.songId = songId;
+        this.singerId = singerId;
+    }
+}
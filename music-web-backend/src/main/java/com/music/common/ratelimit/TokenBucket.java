@@ -0,0 +1,43 @@
+package com.music.common.ratelimit;
+
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * 无锁令牌桶（GCRA实现）
+ * 只保存一个"理论到达时间"，取令牌时通过CAS向后推进一个生成间隔；该时间不晚于当前时间即表示桶已满，
+ * 因此空闲超过 容量 × 生成间隔 的桶可以直接丢弃，重新创建时状态相同
+ */
+public final class TokenBucket {
+
+    private final AtomicLong theoreticalArrival;
+
+    /**
+     * @param now 当前时间(纳秒，System.nanoTime)，新建的桶是满的
+     */
+    public TokenBucket(long now) {
+        this.theoreticalArrival = new AtomicLong(now);
+    }
+
+    /**
+     * 尝试取一个令牌
+     *
+     * @param now      当前时间(纳秒)
+     * @param interval 生成一个令牌的间隔(纳秒)
+     * @param capacity 桶容量
+     * @return 0表示取到令牌，否则为还需等待的纳秒数
+     */
+    public long tryAcquire(long now, long interval, int capacity) {
+        long burst = interval * capacity;
+        for (;;) {
+            long current = theoreticalArrival.get();
+            long next = Math.max(current, now) + interval;
+            long wait = next - now - burst;
+            if (wait > 0) {
+                return wait;
+            }
+            if (theoreticalArrival.compareAndSet(current, next)) {
+                return 0;
+            }
+        }
+    }
+}
@@ -10,12 +10,32 @@ import java.util.ArrayList;
 @Data
 public class PageResult<T> {
     
+    /**
+     * 单页最大条数
+     */
+    public static final long MAX_SIZE = 100;
+    
     private List<T> records;
     private Long total;
     private Long current;
     private Long size;
     private Long pages;
     
+    /**
+     * 总数是否为精确值（false表示估计值，仅用于绘制分页器）
+     */
+    private Boolean totalExact;
+    
+    /**
+     * 下一页游标（仅游标分页模式返回，没有更多数据时为null）
+     */
+    private String nextCursor;
+    
+    /**
+     * 是否还有下一页（仅游标分页模式返回）
+     */
+    private Boolean hasMore;
+    
     public PageResult() {}
     
     public PageResult(List<T> records, Long total, Long current, Long size) {
@@ -26,10 +46,33 @@ public class PageResult<T> {
         this.pages = (total + size - 1) / size; // 计算总页数
     }
     
+    /**
+     * 将页大小限制在 1 ~ MAX_SIZE 之间
+     */
+    public static long clampSize(long size) {
+        return Math.max(1L, Math.min(size, MAX_SIZE));
+    }
+    
     /**
      * 空分页结果
      */
     public static <T> PageResult<T> empty(Long current, Long size) {
         return new PageResult<>(new ArrayList<>(), 0L, current, size);
     }
+    
+    /**
+     * 游标分页结果，total为null时不返回总数和总页数
+     */
+    public static <T> PageResult<T> ofCursor(List<T> records, Long size, String nextCursor, Long total) {
+        PageResult<T> result = new PageResult<>();
+        result.setRecords(records);
+        result.setSize(size);
+        result.setNextCursor(nextCursor);
+        result.setHasMore(nextCursor != null);
+        if (total != null) {
+            result.setTotal(total);
+            result.setPages((total + size - 1) / size);
+        }
+        return result;
+    }
 }
@@ -0,0 +1,243 @@
+package com.music.common.search;
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Deque;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+
+/**
+ * 紧凑前缀树
+ * 构建完成后只保留基本类型数组：子节点连续存放并按字符排序，每个节点预存子树内权重最高的K个条目，
+ * 前缀查询只需沿路径二分查找，无需遍历子树。单链节点与其子节点共享同一份Top-K列表。
+ */
+public final class PrefixTrie {
+
+    private static final int[] EMPTY = new int[0];
+
+    private final char[] labels;
+
+    private final int[] firstChild;
+
+    private final int[] childCount;
+
+    private final int[] topOffset;
+
+    private final byte[] topCount;
+
+    private final int[] topPool;
+
+    private PrefixTrie(char[] labels, int[] firstChild, int[] childCount,
+                       int[] topOffset, byte[] topCount, int[] topPool) {
+        this.labels = labels;
+        this.firstChild = firstChild;
+        this.childCount = childCount;
+        this.topOffset = topOffset;
+        this.topCount = topCount;
+        this.topPool = topPool;
+    }
+
+    /**
+     * 返回以prefix开头的键中权重最高的条目（按权重降序）
+     */
+    public int[] topK(String prefix, int limit) {
+        int node = 0;
+        for (int i = 0; i < prefix.length(); i++) {
+            node = findChild(node, prefix.charAt(i));
+            if (node < 0) {
+                return EMPTY;
+            }
+        }
+        int count = Math.min(topCount[node], limit);
+        return Arrays.copyOfRange(topPool, topOffset[node], topOffset[node] + count);
+    }
+
+    public int nodeCount() {
+        return labels.length;
+    }
+
+    /**
+     * 估算占用内存（字节）
+     */
+    public long memoryBytes() {
+        return labels.length * 2L + (firstChild.length + childCount.length + topOffset.length) * 4L
+                + topCount.length + topPool.length * 4L;
+    }
+
+    private int findChild(int node, char c) {
+        int low = firstChild[node];
+        int high = low + childCount[node] - 1;
+        while (low <= high) {
+            int mid = (low + high) >>> 1;
+            char label = labels[mid];
+            if (label < c) {
+                low = mid + 1;
+            } else if (label > c) {
+                high = mid - 1;
+            } else {
+                return mid;
+            }
+        }
+        return -1;
+    }
+
+    public static Builder builder() {
+        return new Builder();
+    }
+
+    /**
+     * 构建器（非线程安全）
+     */
+    public static final class Builder {
+
+        private final BuildNode root = new BuildNode('\0');
+
+        private Builder() {
+        }
+
+        /**
+         * 添加键与条目编号，同一条目可对应多个键
+         */
+        public Builder add(String key, int entry) {
+            if (key == null || key.isEmpty()) {
+                return this;
+            }
+            BuildNode node = root;
+            for (int i = 0; i < key.length(); i++) {
+                char c = key.charAt(i);
+                BuildNode child = node.children.get(c);
+                if (child == null) {
+                    child = new BuildNode(c);
+                    node.children.put(c, child);
+                }
+                node = child;
+            }
+            node.entries.add(entry);
+            return this;
+        }
+
+        /**
+         * 生成紧凑前缀树
+         *
+         * @param weights 条目权重，下标为条目编号
+         * @param k       每个节点保留的条目数（不超过127）
+         */
+        public PrefixTrie build(long[] weights, int k) {
+            int topK = Math.min(Math.max(k, 1), Byte.MAX_VALUE);
+            computeTop(root, weights, topK);
+
+            // 广度优先编号，保证同一节点的子节点连续存放
+            List<BuildNode> order = new ArrayList<>();
+            order.add(root);
+            for (int i = 0; i < order.size(); i++) {
+                order.addAll(order.get(i).children.values());
+            }
+
+            int size = order.size();
+            char[] labels = new char[size];
+            int[] firstChild = new int[size];
+            int[] childCount = new int[size];
+            int[] topOffset = new int[size];
+            byte[] topCount = new byte[size];
+
+            Map<int[], Integer> offsets = new IdentityHashMap<>();
+            int[] pool = new int[64];
+            int poolSize = 0;
+            int next = 1;
+            for (int i = 0; i < size; i++) {
+                BuildNode node = order.get(i);
+                labels[i] = node.label;
+                firstChild[i] = next;
+                childCount[i] = node.children.size();
+                next += node.children.size();
+
+                Integer offset = offsets.get(node.top);
+                if (offset == null) {
+                    if (poolSize + node.top.length > pool.length) {
+                        pool = Arrays.copyOf(pool, Math.max(pool.length * 2, poolSize + node.top.length));
+                    }
+                    System.arraycopy(node.top, 0, pool, poolSize, node.top.length);
+                    offset = poolSize;
+                    poolSize += node.top.length;
+                    offsets.put(node.top, offset);
+                }
+                topOffset[i] = offset;
+                topCount[i] = (byte) node.top.length;
+            }
+
+            return new PrefixTrie(labels, firstChild, childCount, topOffset, topCount,
+                    Arrays.copyOf(pool, poolSize));
+        }
+
+        /**
+         * 自底向上计算每个节点的Top-K（后序遍历，避免深递归）
+         */
+        private void computeTop(BuildNode start, long[] weights, int k) {
+            Deque<BuildNode> stack = new ArrayDeque<>();
+            Deque<BuildNode> postOrder = new ArrayDeque<>();
+            stack.push(start);
+            while (!stack.isEmpty()) {
+                BuildNode node = stack.pop();
+                postOrder.push(node);
+                for (BuildNode child : node.children.values()) {
+                    stack.push(child);
+                }
+            }
+
+            while (!postOrder.isEmpty()) {
+                BuildNode node = postOrder.pop();
+                if (node.entries.isEmpty() && node.children.size() == 1) {
+                    node.top = node.children.values().iterator().next().top;
+                    continue;
+                }
+
+                List<Integer> candidates = new ArrayList<>(node.entries);
+                for (BuildNode child : node.children.values()) {
+                    for (int entry : child.top) {
+                        candidates.add(entry);
+                    }
+                }
+                candidates.sort((a, b) -> {
+                    int byWeight = Long.compare(weights[b], weights[a]);
+                    return byWeight != 0 ? byWeight : Integer.compare(a, b);
+                });
+
+                int[] top = new int[Math.min(k, candidates.size())];
+                int count = 0;
+                Integer previous = null;
+                for (Integer entry : candidates) {
+                    if (count == top.length) {
+                        break;
+                    }
+                    // 同一条目可能经由多个键出现，排序后相邻
+                    if (!entry.equals(previous)) {
+                        top[count++] = entry;
+                    }
+                    previous = entry;
+                }
+                node.top = count == top.length ? top : Arrays.copyOf(top, count);
+            }
+        }
+    }
+
+    /**
+     * 构建期临时节点
+     */
+    private static final class BuildNode {
+
+        private final char label;
+
+        private final TreeMap<Character, BuildNode> children = new TreeMap<>();
+
+        private final List<Integer> entries = new ArrayList<>(1);
+
+        private int[] top = EMPTY;
+
+        private BuildNode(char label) {
+            this.label = label;
+        }
+    }
+}
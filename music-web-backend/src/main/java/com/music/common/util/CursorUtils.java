@@ -0,0 +1,52 @@
+package com.music.common.util;
+
+import java.nio.charset.StandardCharsets;
+import java.util.Base64;
+
+/**
+ * 游标分页工具类
+ * 游标对客户端不透明，内容为排序键各字段以"|"拼接后做URL安全的Base64编码，
+ * 例如歌曲的 (create_time, id)、歌手的 (play_count, id)
+ */
+public final class CursorUtils {
+
+    private static final String SEPARATOR = "|";
+
+    private CursorUtils() {
+    }
+
+    /**
+     * 编码游标
+     */
+    public static String encode(Object... values) {
+        StringBuilder builder = new StringBuilder();
+        for (int i = 0; i < values.length; i++) {
+            if (i > 0) {
+                builder.append(SEPARATOR);
+            }
+            builder.append(values[i]);
+        }
+        return Base64.getUrlEncoder().withoutPadding()
+                .encodeToString(builder.toString().getBytes(StandardCharsets.UTF_8));
+    }
+
+    /**
+     * 解码游标
+     *
+     * @param fieldCount 期望的字段数
+     * @throws IllegalArgumentException 游标格式不正确
+     */
+    public static String[] decode(String cursor, int fieldCount) {
+        String text;
+        try {
+            text = new String(Base64.getUrlDecoder().decode(cursor.trim()), StandardCharsets.UTF_8);
+        } catch (IllegalArgumentException e) {
+            throw new IllegalArgumentException("无效的分页游标");
+        }
+        String[] values = text.split("\\|", -1);
+        if (values.length != fieldCount) {
+            throw new IllegalArgumentException("无效的分页游标");
+        }
+        return values;
+    }
+}
@@ -0,0 +1,120 @@
+package com.music.common.util;
+
+import net.sourceforge.pinyin4j.PinyinHelper;
+import net.sourceforge.pinyin4j.format.HanyuPinyinCaseType;
+import net.sourceforge.pinyin4j.format.HanyuPinyinOutputFormat;
+import net.sourceforge.pinyin4j.format.HanyuPinyinToneType;
+import net.sourceforge.pinyin4j.format.HanyuPinyinVCharType;
+import net.sourceforge.pinyin4j.format.exception.BadHanyuPinyinOutputFormatCombination;
+
+import java.util.Locale;
+
+/**
+ * 拼音工具类
+ * 多音字取第一个读音，非汉字的字母数字原样保留（转小写），其余字符忽略
+ */
+public final class PinyinUtils {
+
+    private static final HanyuPinyinOutputFormat FORMAT = new HanyuPinyinOutputFormat();
+
+    static {
+        FORMAT.setCaseType(HanyuPinyinCaseType.LOWERCASE);
+        FORMAT.setToneType(HanyuPinyinToneType.WITHOUT_TONE);
+        FORMAT.setVCharType(HanyuPinyinVCharType.WITH_V);
+    }
+
+    private PinyinUtils() {
+    }
+
+    /**
+     * 全拼，例如：周杰伦 -> zhoujielun
+     */
+    public static String toPinyin(String text) {
+        StringBuilder builder = new StringBuilder();
+        if (text == null) {
+            return "";
+        }
+        for (int i = 0; i < text.length(); i++) {
+            char c = text.charAt(i);
+            String pinyin = pinyinOf(c);
+            if (pinyin != null) {
+                builder.append(pinyin);
+            } else if (Character.isLetterOrDigit(c)) {
+                builder.append(Character.toLowerCase(c));
+            }
+        }
+        return builder.toString();
+    }
+
+    /**
+     * 首字母，例如：周杰伦 -> zjl，Love The Way You Lie -> ltwyl
+     */
+    public static String toInitials(String text) {
+        StringBuilder builder = new StringBuilder();
+        if (text == null) {
+            return "";
+        }
+        boolean inWord = false;
+        for (int i = 0; i < text.length(); i++) {
+            char c = text.charAt(i);
+            String pinyin = pinyinOf(c);
+            if (pinyin != null) {
+                builder.append(pinyin.charAt(0));
+                inWord = false;
+            } else if (Character.isLetterOrDigit(c)) {
+                if (!inWord) {
+                    builder.append(Character.toLowerCase(c));
+                }
+                inWord = true;
+            } else {
+                inWord = false;
+            }
+        }
+        return builder.toString();
+    }
+
+    /**
+     * 归一化：转小写并去掉空白和标点，只保留字母、数字和汉字
+     */
+    public static String normalize(String text) {
+        StringBuilder builder = new StringBuilder();
+        if (text == null) {
+            return "";
+        }
+        String lower = text.toLowerCase(Locale.ROOT);
+        for (int i = 0; i < lower.length(); i++) {
+            char c = lower.charAt(i);
+            if (Character.isLetterOrDigit(c)) {
+                builder.append(c);
+            }
+        }
+        return builder.toString();
+    }
+
+    /**
+     * 是否包含汉字
+     */
+    public static boolean containsHan(String text) {
+        if (text == null) {
+            return false;
+        }
+        for (int i = 0; i < text.length(); i++) {
+            if (Character.UnicodeScript.of(text.charAt(i)) == Character.UnicodeScript.HAN) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    private static String pinyinOf(char c) {
+        if (Character.UnicodeScript.of(c) != Character.UnicodeScript.HAN) {
+            return null;
+        }
+        try {
+            String[] pinyins = PinyinHelper.toHanyuPinyinStringArray(c, FORMAT);
+            return pinyins != null && pinyins.length > 0 ? pinyins[0] : null;
+        } catch (BadHanyuPinyinOutputFormatCombination e) {
+            return null;
+        }
+    }
+}
@@ -0,0 +1,64 @@
+package com.music.config;
+
+import com.music.service.JwtTokenService;
+import org.springframework.security.authentication.UsernamePasswordAuthenticationToken;
+import org.springframework.security.core.GrantedAuthority;
+import org.springframework.security.core.authority.SimpleGrantedAuthority;
+import org.springframework.security.core.context.SecurityContextHolder;
+import org.springframework.web.filter.OncePerRequestFilter;
+
+import javax.servlet.FilterChain;
+import javax.servlet.ServletException;
+import javax.servlet.http.HttpServletRequest;
+import javax.servlet.http.HttpServletResponse;
+import java.io.IOException;
+import java.util.Collections;
+import java.util.List;
+import java.util.Set;
+
+/**
+ * JWT认证过滤器
+ * 从请求头解析令牌，有效时把用户ID放入请求属性 userId（控制器通过 @RequestAttribute 读取）和安全上下文，
+ * 配置为管理员的用户额外授予 ROLE_ADMIN；
+ * 没有令牌或令牌无效时按匿名请求继续处理，由各接口自行判断是否需要登录
+ */
+public class JwtAuthenticationFilter extends OncePerRequestFilter {
+
+    public static final String USER_ID_ATTRIBUTE = "userId";
+
+    public static final String ROLE_ADMIN = "ROLE_ADMIN";
+
+    private final JwtTokenService jwtTokenService;
+
+    private final String header;
+
+    private final String prefix;
+
+    private final Set<Long> adminUserIds;
+
+    public JwtAuthenticationFilter(JwtTokenService jwtTokenService, String header, String prefix,
+                                   Set<Long> adminUserIds) {
+        this.jwtTokenService = jwtTokenService;
+        this.header = header;
+        this.prefix = prefix;
+        this.adminUserIds = adminUserIds;
+    }
+
+    @Override
+    protected void doFilterInternal(HttpServletRequest request, HttpServletResponse response, FilterChain chain)
+            throws ServletException, IOException {
+        String value = request.getHeader(header);
+        if (value != null && value.startsWith(prefix)) {
+            Long userId = jwtTokenService.resolveUserId(value.substring(prefix.length()).trim());
+            if (userId != null) {
+                request.setAttribute(USER_ID_ATTRIBUTE, userId);
+                List<GrantedAuthority> authorities = adminUserIds.contains(userId)
+                        ? Collections.singletonList(new SimpleGrantedAuthority(ROLE_ADMIN))
+                        : Collections.emptyList();
+                SecurityContextHolder.getContext().setAuthentication(
+                        new UsernamePasswordAuthenticationToken(userId, null, authorities));
+            }
+        }
+        chain.doFilter(request, response);
+    }
+}
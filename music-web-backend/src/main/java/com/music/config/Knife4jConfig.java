@@ -1,7 +1,10 @@
 package com.music.config;
 
+import org.springframework.beans.factory.config.BeanPostProcessor;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
+import org.springframework.util.ReflectionUtils;
+import org.springframework.web.servlet.mvc.method.RequestMappingInfoHandlerMapping;
 import springfox.documentation.builders.ApiInfoBuilder;
 import springfox.documentation.builders.PathSelectors;
 import springfox.documentation.builders.RequestHandlerSelectors;
@@ -9,8 +12,12 @@ import springfox.documentation.service.ApiInfo;
 import springfox.documentation.service.Contact;
 import springfox.documentation.spi.DocumentationType;
 import springfox.documentation.spring.web.plugins.Docket;
+import springfox.documentation.spring.web.plugins.WebMvcRequestHandlerProvider;
 import springfox.documentation.swagger2.annotations.EnableSwagger2WebMvc;
 
+import java.lang.reflect.Field;
+import java.util.List;
+
 /**
  * Knife4j配置
  */
@@ -28,6 +35,28 @@ public class Knife4jConfig {
                 .build();
     }
     
+    /**
+     * Springfox只支持AntPathMatcher风格的映射，Actuator端点的映射使用PathPatternParser，
+     * 不排除时文档插件启动即抛出空指针异常
+     */
+    @Bean
+    public static BeanPostProcessor springfoxHandlerMappingFilter() {
+        return new BeanPostProcessor() {
+            @Override
+            @SuppressWarnings("unchecked")
+            public Object postProcessAfterInitialization(Object bean, String beanName) {
+                if (bean instanceof WebMvcRequestHandlerProvider) {
+                    Field field = ReflectionUtils.findField(bean.getClass(), "handlerMappings");
+                    ReflectionUtils.makeAccessible(field);
+                    List<RequestMappingInfoHandlerMapping> mappings =
+                            (List<RequestMappingInfoHandlerMapping>) ReflectionUtils.getField(field, bean);
+                    mappings.removeIf(mapping -> mapping.getPatternParser() != null);
+                }
+                return bean;
+            }
+        };
+    }
+    
     private ApiInfo apiInfo() {
         return new ApiInfoBuilder()
                 .title("音乐网站 API 文档")
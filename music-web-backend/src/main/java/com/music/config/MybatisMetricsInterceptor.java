@@ -0,0 +1,107 @@
+package com.music.config;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import lombok.extern.slf4j.Slf4j;
+import org.apache.ibatis.cache.CacheKey;
+import org.apache.ibatis.executor.Executor;
+import org.apache.ibatis.mapping.BoundSql;
+import org.apache.ibatis.mapping.MappedStatement;
+import org.apache.ibatis.plugin.Interceptor;
+import org.apache.ibatis.plugin.Intercepts;
+import org.apache.ibatis.plugin.Invocation;
+import org.apache.ibatis.plugin.Signature;
+import org.apache.ibatis.session.ResultHandler;
+import org.apache.ibatis.session.RowBounds;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * MyBatis语句耗时统计与慢查询日志
+ * 按语句ID（如 SongMapper.searchSongsWithSinger）记录到 mybatis.statement 计时器，由MyBatis-Plus自动注册为插件；
+ * 超过阈值的语句以WARN记录，其余按采样率以INFO记录，日志只含SQL文本不含参数值，日志器为 com.music.sql
+ */
+@Slf4j(topic = "com.music.sql")
+@Component
+@Intercepts({
+        @Signature(type = Executor.class, method = "query",
+                args = {MappedStatement.class, Object.class, RowBounds.class, ResultHandler.class}),
+        @Signature(type = Executor.class, method = "query",
+                args = {MappedStatement.class, Object.class, RowBounds.class, ResultHandler.class,
+                        CacheKey.class, BoundSql.class}),
+        @Signature(type = Executor.class, method = "update",
+                args = {MappedStatement.class, Object.class})
+})
+public class MybatisMetricsInterceptor implements Interceptor {
+
+    private static final String METRIC_NAME = "mybatis.statement";
+
+    @Autowired
+    private MeterRegistry meterRegistry;
+
+    @Value("${sql-log.slow-threshold:500}")
+    private long slowThreshold;
+
+    @Value("${sql-log.sample-rate:0}")
+    private double sampleRate;
+
+    // 语句ID+结果 -> 计时器，避免每次查询重新构建
+    private final Map<String, Timer> timers = new ConcurrentHashMap<>();
+
+    @Override
+    public Object intercept(Invocation invocation) throws Throwable {
+        MappedStatement statement = (MappedStatement) invocation.getArgs()[0];
+        long start = System.nanoTime();
+        boolean success = false;
+        try {
+            Object result = invocation.proceed();
+            success = true;
+            return result;
+        } finally {
+            long elapsed = System.nanoTime() - start;
+            timer(statement, success).record(elapsed, TimeUnit.NANOSECONDS);
+            logStatement(invocation, statement, TimeUnit.NANOSECONDS.toMillis(elapsed));
+        }
+    }
+
+    private void logStatement(Invocation invocation, MappedStatement statement, long millis) {
+        if (millis >= slowThreshold) {
+            if (log.isWarnEnabled()) {
+                log.warn("慢SQL {} 耗时 {} ms: {}", shortId(statement.getId()), millis, sql(invocation, statement));
+            }
+        } else if (sampleRate > 0 && log.isInfoEnabled() && ThreadLocalRandom.current().nextDouble() < sampleRate) {
+            log.info("SQL {} 耗时 {} ms: {}", shortId(statement.getId()), millis, sql(invocation, statement));
+        }
+    }
+
+    private static String sql(Invocation invocation, MappedStatement statement) {
+        Object[] args = invocation.getArgs();
+        BoundSql boundSql = args.length == 6 ? (BoundSql) args[5] : statement.getBoundSql(args[1]);
+        return boundSql.getSql().replaceAll("\\s+", " ").trim();
+    }
+
+    private Timer timer(MappedStatement statement, boolean success) {
+        String outcome = success ? "success" : "error";
+        return timers.computeIfAbsent(statement.getId() + ":" + outcome, key -> Timer.builder(METRIC_NAME)
+                .description("MyBatis语句执行耗时")
+                .tag("statement", shortId(statement.getId()))
+                .tag("type", statement.getSqlCommandType().name())
+                .tag("outcome", outcome)
+                .register(meterRegistry));
+    }
+
+    /**
+     * com.music.mapper.SongMapper.searchSongsWithSinger -> SongMapper.searchSongsWithSinger
+     */
+    private static String shortId(String id) {
+        int method = id.lastIndexOf('.');
+        int mapper = method > 0 ? id.lastIndexOf('.', method - 1) : -1;
+        return id.substring(mapper + 1);
+    }
+}
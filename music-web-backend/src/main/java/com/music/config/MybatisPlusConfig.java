@@ -0,0 +1,28 @@
+package com.music.config;
+
+import com.baomidou.mybatisplus.annotation.DbType;
+import com.baomidou.mybatisplus.extension.plugins.MybatisPlusInterceptor;
+import com.baomidou.mybatisplus.extension.plugins.inner.PaginationInnerInterceptor;
+import com.music.common.result.PageResult;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+/**
+ * MyBatis-Plus配置
+ */
+@Configuration
+public class MybatisPlusConfig {
+
+    /**
+     * 分页插件：未注册时传入的Page参数会被忽略，分页查询返回全部记录
+     * 单页条数上限与接口保持一致
+     */
+    @Bean
+    public MybatisPlusInterceptor mybatisPlusInterceptor() {
+        PaginationInnerInterceptor pagination = new PaginationInnerInterceptor(DbType.MYSQL);
+        pagination.setMaxLimit(PageResult.MAX_SIZE);
+        MybatisPlusInterceptor interceptor = new MybatisPlusInterceptor();
+        interceptor.addInnerInterceptor(pagination);
+        return interceptor;
+    }
+}
@@ -0,0 +1,95 @@
+package com.music.config;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.music.common.result.Result;
+import com.music.service.RateLimiter;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.stereotype.Component;
+import org.springframework.util.AntPathMatcher;
+import org.springframework.web.servlet.HandlerInterceptor;
+
+import javax.servlet.DispatcherType;
+import javax.servlet.http.HttpServletRequest;
+import javax.servlet.http.HttpServletResponse;
+import java.nio.charset.StandardCharsets;
+
+/**
+ * 限流拦截器
+ * 按配置顺序匹配第一条规则，超出限额时返回HTTP 429和Retry-After（秒）
+ */
+@Component
+public class RateLimitInterceptor implements HandlerInterceptor {
+
+    private final AntPathMatcher pathMatcher = new AntPathMatcher();
+
+    @Autowired
+    private RateLimitProperties properties;
+
+    @Autowired
+    private RateLimiter rateLimiter;
+
+    @Autowired
+    private ObjectMapper objectMapper;
+
+    @Override
+    public boolean preHandle(HttpServletRequest request, HttpServletResponse response, Object handler)
+            throws Exception {
+        // 异步请求的结果分派不重复计数
+        if (!properties.isEnabled() || request.getDispatcherType() == DispatcherType.ASYNC) {
+            return true;
+        }
+        RateLimitProperties.Rule rule = match(request);
+        if (rule == null) {
+            return true;
+        }
+
+        long waitMillis = rateLimiter.tryAcquire(rule, keyOf(rule, request));
+        if (waitMillis == 0) {
+            return true;
+        }
+
+        response.setStatus(HttpStatus.TOO_MANY_REQUESTS.value());
+        response.setHeader(HttpHeaders.RETRY_AFTER, String.valueOf((waitMillis + 999) / 1000));
+        response.setContentType(MediaType.APPLICATION_JSON_VALUE);
+        response.setCharacterEncoding(StandardCharsets.UTF_8.name());
+        response.getWriter().write(objectMapper.writeValueAsString(Result.error(429, "请求过于频繁，请稍后再试")));
+        return false;
+    }
+
+    private RateLimitProperties.Rule match(HttpServletRequest request) {
+        String path = request.getServletPath();
+        String method = request.getMethod();
+        for (RateLimitProperties.Rule rule : properties.getRules()) {
+            if ((rule.getMethods().isEmpty() || rule.getMethods().contains(method))
+                    && pathMatcher.match(rule.getPattern(), path)) {
+                return rule;
+            }
+        }
+        return null;
+    }
+
+    /**
+     * 限流键：按用户限流且已登录时为用户ID，否则为客户端IP
+     */
+    private String keyOf(RateLimitProperties.Rule rule, HttpServletRequest request) {
+        Object userId = request.getAttribute(JwtAuthenticationFilter.USER_ID_ATTRIBUTE);
+        if ("user".equals(rule.getKey()) && userId != null) {
+            return "u:" + userId;
+        }
+        return "ip:" + clientIp(request);
+    }
+
+    private String clientIp(HttpServletRequest request) {
+        if (properties.isTrustForwardedFor()) {
+            String forwarded = request.getHeader("X-Forwarded-For");
+            if (forwarded != null && !forwarded.isEmpty()) {
+                int comma = forwarded.indexOf(',');
+                return (comma >= 0 ? forwarded.substring(0, comma) : forwarded).trim();
+            }
+        }
+        return request.getRemoteAddr();
+    }
+}
@@ -0,0 +1,78 @@
+package com.music.config;
+
+import lombok.Data;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.stereotype.Component;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * 限流配置（rate-limit.*）
+ */
+@Data
+@Component
+@ConfigurationProperties(prefix = "rate-limit")
+public class RateLimitProperties {
+
+    private boolean enabled = true;
+
+    /**
+     * 是否使用Redis令牌桶（集群共享限额），Redis不可用时退回本地令牌桶
+     */
+    private boolean redisEnabled = false;
+
+    /**
+     * Redis不可用后的重试间隔(毫秒)
+     */
+    private long retryInterval = 30000;
+
+    /**
+     * 每条规则在内存中保留的令牌桶数上限
+     */
+    private long maxKeys = 1000000;
+
+    /**
+     * 是否信任X-Forwarded-For请求头（仅部署在反向代理之后时开启）
+     */
+    private boolean trustForwardedFor = false;
+
+    /**
+     * 限流规则，按顺序匹配第一条
+     */
+    private List<Rule> rules = new ArrayList<>();
+
+    @Data
+    public static class Rule {
+
+        /**
+         * 规则名称，用于统计和Redis键
+         */
+        private String name;
+
+        /**
+         * 路径模式（Ant风格，不含context-path）
+         */
+        private String pattern;
+
+        /**
+         * 限流的请求方法，为空时不区分
+         */
+        private List<String> methods = new ArrayList<>();
+
+        /**
+         * 桶容量（允许的突发请求数）
+         */
+        private int capacity = 10;
+
+        /**
+         * 每秒补充的令牌数
+         */
+        private double refillPerSecond = 1;
+
+        /**
+         * 限流维度：user（已登录按用户，未登录按IP）或 ip
+         */
+        private String key = "user";
+    }
+}
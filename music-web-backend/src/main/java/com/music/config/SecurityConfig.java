@@ -1,16 +1,24 @@
 package com.music.config;
 
+import com.music.service.JwtTokenService;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
+import org.springframework.http.HttpStatus;
 import org.springframework.security.config.annotation.web.builders.HttpSecurity;
 import org.springframework.security.config.annotation.web.configuration.EnableWebSecurity;
 import org.springframework.security.config.annotation.web.configuration.WebSecurityConfigurerAdapter;
 import org.springframework.security.config.http.SessionCreationPolicy;
+import org.springframework.security.web.authentication.HttpStatusEntryPoint;
+import org.springframework.security.web.authentication.UsernamePasswordAuthenticationFilter;
 import org.springframework.web.cors.CorsConfiguration;
 import org.springframework.web.cors.CorsConfigurationSource;
 import org.springframework.web.cors.UrlBasedCorsConfigurationSource;
 
 import java.util.Arrays;
+import java.util.List;
+import java.util.Set;
 
 /**
  * Spring Security配置
@@ -19,6 +27,23 @@ import java.util.Arrays;
 @EnableWebSecurity
 public class SecurityConfig extends WebSecurityConfigurerAdapter {
 
+    @Autowired
+    private JwtTokenService jwtTokenService;
+
+    @Value("${jwt.header:Authorization}")
+    private String jwtHeader;
+
+    @Value("${jwt.prefix:Bearer}")
+    private String jwtPrefix;
+
+    // 管理员用户ID，可访问 /admin/** 和监控端点
+    @Value("${security.admin.user-ids:}")
+    private Set<Long> adminUserIds;
+
+    // 无需令牌即可访问监控端点的来源地址（如本机的Prometheus）
+    @Value("${security.actuator.allowed-ips:127.0.0.1,::1}")
+    private List<String> actuatorAllowedIps;
+
     @Override
     protected void configure(HttpSecurity http) throws Exception {
         http
@@ -36,13 +61,38 @@ public class SecurityConfig extends WebSecurityConfigurerAdapter {
             
             // 配置权限
             .authorizeRequests()
-            // 允许所有请求匿名访问（开发环境）
+            .antMatchers("/actuator/health", "/actuator/health/**").permitAll()
+            .antMatchers("/actuator/**").access(actuatorAccess())
+            .antMatchers("/admin/**").hasAuthority(JwtAuthenticationFilter.ROLE_ADMIN)
+            // 其余接口允许匿名访问，需要登录的接口自行校验用户
             .anyRequest().permitAll()
             .and()
             
+            // 未登录返回401，已登录但无权限返回403
+            .exceptionHandling()
+            .authenticationEntryPoint(new HttpStatusEntryPoint(HttpStatus.UNAUTHORIZED))
+            .and()
+            
             // 禁用默认登录页面
             .formLogin().disable()
-            .httpBasic().disable();
+            .httpBasic().disable()
+            
+            // 从JWT令牌解析当前用户（不注册为Bean，避免被Servlet容器重复注册）
+            .addFilterBefore(new JwtAuthenticationFilter(jwtTokenService, jwtHeader, jwtPrefix, adminUserIds),
+                    UsernamePasswordAuthenticationFilter.class);
+    }
+    
+    /**
+     * 监控端点：管理员，或来自允许地址的请求
+     */
+    private String actuatorAccess() {
+        StringBuilder expression = new StringBuilder("hasAuthority('" + JwtAuthenticationFilter.ROLE_ADMIN + "')");
+        for (String ip : actuatorAllowedIps) {
+            if (!ip.trim().isEmpty()) {
+                expression.append(" or hasIpAddress('").append(ip.trim()).append("')");
+            }
+        }
+        return expression.toString();
     }
     
     /**
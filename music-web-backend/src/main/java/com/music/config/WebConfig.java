@@ -1,8 +1,10 @@
 package com.music.config;
 
+import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.beans.factory.annotation.Value;
 import org.springframework.context.annotation.Configuration;
 import org.springframework.web.servlet.config.annotation.CorsRegistry;
+import org.springframework.web.servlet.config.annotation.InterceptorRegistry;
 import org.springframework.web.servlet.config.annotation.ResourceHandlerRegistry;
 import org.springframework.web.servlet.config.annotation.WebMvcConfigurer;
 
@@ -15,6 +17,17 @@ public class WebConfig implements WebMvcConfigurer {
     @Value("${file.upload.path}")
     private String uploadPath;
     
+    @Autowired
+    private RateLimitInterceptor rateLimitInterceptor;
+    
+    /**
+     * 配置拦截器
+     */
+    @Override
+    public void addInterceptors(InterceptorRegistry registry) {
+        registry.addInterceptor(rateLimitInterceptor);
+    }
+    
     /**
      * 配置静态资源访问
      */
@@ -26,10 +39,7 @@ public class WebConfig implements WebMvcConfigurer {
                 .setCachePeriod(3600)
                 .resourceChain(true);
         
-        registry.addResourceHandler("/song/**")
-                .addResourceLocations("file:" + uploadPath + "song/")
-                .setCachePeriod(3600)
-                .resourceChain(true);
+        // 音频文件由AudioStreamController处理（支持Range分段请求）
         
         registry.addResourceHandler("/avatorImages/**")
                 .addResourceLocations("file:" + uploadPath + "avatorImages/")
@@ -0,0 +1,40 @@
+package com.music.controller;
+
+import com.music.service.AudioStreamService;
+import io.swagger.annotations.Api;
+import io.swagger.annotations.ApiOperation;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.web.bind.annotation.CrossOrigin;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RequestMethod;
+import org.springframework.web.bind.annotation.RestController;
+import org.springframework.web.servlet.HandlerMapping;
+
+import javax.servlet.http.HttpServletRequest;
+import javax.servlet.http.HttpServletResponse;
+import java.io.IOException;
+
+/**
+ * 音频流控制器
+ */
+@Api(tags = "音频播放")
+@RestController
+@CrossOrigin
+public class AudioStreamController {
+
+    private static final String SONG_PREFIX = "/song/";
+
+    @Autowired
+    private AudioStreamService audioStreamService;
+
+    /**
+     * 播放音频文件，支持Range分段请求
+     */
+    @ApiOperation("播放音频文件")
+    @RequestMapping(value = "/song/**", method = {RequestMethod.GET, RequestMethod.HEAD})
+    public void stream(HttpServletRequest request, HttpServletResponse response) throws IOException {
+        String path = (String) request.getAttribute(HandlerMapping.PATH_WITHIN_HANDLER_MAPPING_ATTRIBUTE);
+        String relativePath = path != null && path.startsWith(SONG_PREFIX) ? path.substring(SONG_PREFIX.length()) : null;
+        audioStreamService.stream(relativePath, request, response);
+    }
+}
@@ -1,6 +1,7 @@
 package com.music.controller;
 
 import com.music.common.result.Result;
+import com.music.dto.ChatHistoryDto;
 import com.music.dto.ChatRequestDto;
 import com.music.dto.ChatResponseDto;
 import com.music.service.ChatService;
@@ -8,9 +9,17 @@ import io.swagger.annotations.Api;
 import io.swagger.annotations.ApiOperation;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.http.MediaType;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
+import reactor.core.Disposable;
+import reactor.core.publisher.Flux;
 
-import javax.servlet.http.HttpSession;
+import java.io.IOException;
+import java.util.Collections;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.atomic.AtomicReference;
 
 /**
  * AI聊天控制器
@@ -25,37 +34,138 @@ public class ChatController {
     @Autowired
     private ChatService chatService;
     
+    @Value("${deepseek.client.stream-timeout:120000}")
+    private long streamTimeout;
+    
     /**
      * 发送聊天消息
      */
     @ApiOperation("发送聊天消息")
     @PostMapping("/send")
-    public Result<ChatResponseDto> sendMessage(
+    public CompletableFuture<Result<ChatResponseDto>> sendMessage(
             @RequestBody ChatRequestDto request,
-            HttpSession session) {
+            @RequestAttribute(value = "userId", required = false) Long userId) {
         
-        Long userId = (Long) session.getAttribute("userId");
         if (userId == null) {
-            return Result.error(401, "请先登录");
+            return CompletableFuture.completedFuture(Result.error(401, "请先登录"));
         }
         
         if (request.getMessage() == null || request.getMessage().trim().isEmpty()) {
-            return Result.error("消息内容不能为空");
+            return CompletableFuture.completedFuture(Result.error("消息内容不能为空"));
         }
         
         if (request.getMessage().length() > 1000) {
-            return Result.error("消息内容不能超过1000字符");
+            return CompletableFuture.completedFuture(Result.error("消息内容不能超过1000字符"));
         }
         
+        log.info("用户 {} 发送聊天消息，长度: {}", userId, request.getMessage().length());
         try {
-            log.info("用户 {} 发送聊天消息: {}", userId, request.getMessage());
-            
-            ChatResponseDto response = chatService.processMessage(userId, request.getMessage().trim());
-            return Result.success(response);
+            // 异步返回，等待模型回复期间释放Tomcat工作线程
+            String sessionId = chatService.openSession(userId, request.getSessionId());
+            return chatService.processMessage(userId, sessionId, request.getMessage().trim())
+                    .thenApply(response -> Result.success(response))
+                    .exceptionally(e -> {
+                        log.error("处理聊天消息失败", e);
+                        return Result.error("处理消息失败，请稍后再试");
+                    });
+        } catch (IllegalStateException e) {
+            return CompletableFuture.completedFuture(Result.error(429, e.getMessage()));
         } catch (Exception e) {
             log.error("处理聊天消息失败", e);
-            return Result.error("处理消息失败，请稍后再试");
+            return CompletableFuture.completedFuture(Result.error("处理消息失败，请稍后再试"));
+        }
+    }
+    
+    /**
+     * 流式发送聊天消息（SSE）
+     * 事件：session（data为{"sessionId": 会话ID}）、token（data为{"content": 片段}）、done、error（data为{"message": 错误信息}）
+     */
+    @ApiOperation("流式发送聊天消息")
+    @PostMapping(value = "/stream", produces = MediaType.TEXT_EVENT_STREAM_VALUE)
+    public SseEmitter streamMessage(
+            @RequestBody ChatRequestDto request,
+            @RequestAttribute(value = "userId", required = false) Long userId) {
+        
+        SseEmitter emitter = new SseEmitter(streamTimeout);
+        if (userId == null) {
+            return sendError(emitter, "请先登录");
+        }
+        
+        if (request.getMessage() == null || request.getMessage().trim().isEmpty()) {
+            return sendError(emitter, "消息内容不能为空");
+        }
+        
+        if (request.getMessage().length() > 1000) {
+            return sendError(emitter, "消息内容不能超过1000字符");
+        }
+        
+        String sessionId = chatService.openSession(userId, request.getSessionId());
+        Flux<String> tokens;
+        try {
+            log.info("用户 {} 流式发送聊天消息，长度: {}", userId, request.getMessage().length());
+            tokens = chatService.streamMessage(userId, sessionId, request.getMessage().trim());
+        } catch (IllegalStateException e) {
+            return sendError(emitter, e.getMessage());
         }
+        
+        try {
+            emitter.send(SseEmitter.event().name("session")
+                    .data(Collections.singletonMap("sessionId", sessionId), MediaType.APPLICATION_JSON));
+        } catch (IOException e) {
+            emitter.completeWithError(e);
+            return emitter;
+        }
+        
+        AtomicReference<Disposable> subscription = new AtomicReference<>();
+        subscription.set(tokens.subscribe(
+                token -> {
+                    try {
+                        emitter.send(SseEmitter.event().name("token")
+                                .data(Collections.singletonMap("content", token), MediaType.APPLICATION_JSON));
+                    } catch (IOException e) {
+                        // 客户端已断开，取消上游请求
+                        log.debug("聊天流客户端已断开，用户: {}", userId);
+                        Disposable current = subscription.get();
+                        if (current != null) {
+                            current.dispose();
+                        }
+                    }
+                },
+                error -> {
+                    log.warn("聊天流中断，用户: {}, 错误: {}", userId, error.getMessage());
+                    sendError(emitter, "回复中断，请稍后再试");
+                },
+                () -> {
+                    try {
+                        emitter.send(SseEmitter.event().name("done").data(""));
+                        emitter.complete();
+                    } catch (IOException e) {
+                        emitter.completeWithError(e);
+                    }
+                }));
+        
+        // 超时、出错或客户端断开时取消上游请求
+        Runnable cancel = () -> {
+            Disposable current = subscription.get();
+            if (current != null) {
+                current.dispose();
+            }
+        };
+        emitter.onTimeout(cancel);
+        emitter.onError(e -> cancel.run());
+        emitter.onCompletion(cancel);
+        return emitter;
+    }
+    
+    private SseEmitter sendError(SseEmitter emitter, String message) {
+        try {
+            emitter.send(SseEmitter.event().name("error")
+                    .data(Collections.singletonMap("message", message), MediaType.APPLICATION_JSON));
+            emitter.complete();
+        } catch (IOException e) {
+            emitter.completeWithError(e);
+        }
+        return emitter;
     }
     
     /**
@@ -63,16 +173,20 @@ public class ChatController {
      */
     @ApiOperation("获取聊天历史")
     @GetMapping("/history")
-    public Result<Object> getChatHistory(HttpSession session) {
+    public Result<ChatHistoryDto> getChatHistory(
+            @RequestParam String sessionId,
+            @RequestAttribute(value = "userId", required = false) Long userId) {
         
-        Long userId = (Long) session.getAttribute("userId");
         if (userId == null) {
             return Result.error(401, "请先登录");
         }
         
+        if (!sessionId.equals(chatService.openSession(userId, sessionId))) {
+            return Result.badRequest("无效的会话ID");
+        }
+        
         try {
-            // 暂时返回空历史，后续可以扩展
-            return Result.success("聊天历史功能待开发");
+            return Result.success(chatService.getChatHistory(userId, sessionId));
         } catch (Exception e) {
             log.error("获取聊天历史失败", e);
             return Result.error("获取聊天历史失败");
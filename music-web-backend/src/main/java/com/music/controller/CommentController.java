@@ -1,5 +1,6 @@
 package com.music.controller;
 
+import com.music.common.result.PageResult;
 import com.music.common.result.Result;
 import com.music.dto.CommentRequestDto;
 import com.music.entity.Comment;
@@ -11,7 +12,6 @@ import lombok.extern.slf4j.Slf4j;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.web.bind.annotation.*;
 
-import javax.servlet.http.HttpSession;
 import java.util.List;
 
 /**
@@ -35,9 +35,8 @@ public class CommentController {
     public Result<List<Comment>> getComments(
             @ApiParam("目标ID") @RequestParam Long targetId,
             @ApiParam("目标类型") @RequestParam String targetType,
-            HttpSession session) {
+            @RequestAttribute(value = "userId", required = false) Long userId) {
         
-        Long userId = (Long) session.getAttribute("userId");
         if (userId == null) {
             return Result.error(401, "请先登录");
         }
@@ -46,6 +45,56 @@ public class CommentController {
         return Result.success(comments);
     }
     
+    /**
+     * 分页获取评论楼层（每层附带前几条回复）
+     */
+    @ApiOperation("分页获取评论楼层")
+    @GetMapping("/threads")
+    public Result<PageResult<Comment>> getCommentThreads(
+            @ApiParam("目标ID") @RequestParam Long targetId,
+            @ApiParam("目标类型") @RequestParam String targetType,
+            @ApiParam("当前页（从1开始）") @RequestParam(defaultValue = "1") Long current,
+            @ApiParam("页大小（1~100）") @RequestParam(defaultValue = "20") Long size,
+            @ApiParam("每层返回的回复数") @RequestParam(defaultValue = "3") Integer replySize,
+            @RequestAttribute(value = "userId", required = false) Long userId) {
+        
+        if (userId == null) {
+            return Result.error(401, "请先登录");
+        }
+        
+        String invalid = checkPage(current, size);
+        if (invalid != null) {
+            return Result.badRequest(invalid);
+        }
+        
+        return Result.success(commentService.getCommentThreads(targetId, targetType, userId,
+                current, size, (int) Math.min(Math.max(0, replySize), PageResult.MAX_SIZE)));
+    }
+    
+    /**
+     * 分页获取楼层回复
+     */
+    @ApiOperation("分页获取楼层回复")
+    @GetMapping("/{commentId}/replies")
+    public Result<PageResult<Comment>> getReplies(
+            @ApiParam("评论ID") @PathVariable Long commentId,
+            @ApiParam("当前页（从1开始）") @RequestParam(defaultValue = "1") Long current,
+            @ApiParam("页大小（1~100）") @RequestParam(defaultValue = "20") Long size,
+            @RequestAttribute(value = "userId", required = false) Long userId) {
+        
+        if (userId == null) {
+            return Result.error(401, "请先登录");
+        }
+        
+        String invalid = checkPage(current, size);
+        if (invalid != null) {
+            return Result.badRequest(invalid);
+        }
+        
+        PageResult<Comment> replies = commentService.getReplies(commentId, userId, current, size);
+        return replies != null ? Result.success(replies) : Result.notFound("评论不存在");
+    }
+    
     /**
      * 添加评论
      */
@@ -53,9 +102,8 @@ public class CommentController {
     @PostMapping
     public Result<Comment> addComment(
             @RequestBody CommentRequestDto request,
-            HttpSession session) {
+            @RequestAttribute(value = "userId", required = false) Long userId) {
         
-        Long userId = (Long) session.getAttribute("userId");
         if (userId == null) {
             return Result.error(401, "请先登录");
         }
@@ -98,9 +146,8 @@ public class CommentController {
     @DeleteMapping("/{commentId}")
     public Result<Void> deleteComment(
             @ApiParam("评论ID") @PathVariable Long commentId,
-            HttpSession session) {
+            @RequestAttribute(value = "userId", required = false) Long userId) {
         
-        Long userId = (Long) session.getAttribute("userId");
         if (userId == null) {
             return Result.error(401, "请先登录");
         }
@@ -116,9 +163,8 @@ public class CommentController {
     @PostMapping("/{commentId}/like")
     public Result<Boolean> toggleLikeComment(
             @ApiParam("评论ID") @PathVariable Long commentId,
-            HttpSession session) {
+            @RequestAttribute(value = "userId", required = false) Long userId) {
         
-        Long userId = (Long) session.getAttribute("userId");
         if (userId == null) {
             return Result.error(401, "请先登录");
         }
@@ -139,9 +185,8 @@ public class CommentController {
     @GetMapping("/{commentId}")
     public Result<Comment> getCommentById(
             @ApiParam("评论ID") @PathVariable Long commentId,
-            HttpSession session) {
+            @RequestAttribute(value = "userId", required = false) Long userId) {
         
-        Long userId = (Long) session.getAttribute("userId");
         if (userId == null) {
             return Result.error(401, "请先登录");
         }
@@ -149,4 +194,18 @@ public class CommentController {
         Comment comment = commentService.getCommentById(commentId, userId);
         return comment != null ? Result.success(comment) : Result.notFound("评论不存在");
     }
+    
+    /**
+     * 校验分页参数，不合法时返回错误信息
+     * 评论分页在内存中按下标截取，页码或页大小越界会抛出异常
+     */
+    private String checkPage(Long current, Long size) {
+        if (current < 1) {
+            return "当前页不能小于1";
+        }
+        if (size < 1 || size > PageResult.MAX_SIZE) {
+            return "页大小必须在1到" + PageResult.MAX_SIZE + "之间";
+        }
+        return null;
+    }
 }
@@ -1,6 +1,7 @@
 package com.music.controller;
 
 import com.music.common.result.Result;
+import com.music.dto.IngestProgressDto;
 import com.music.service.DataInitService;
 import io.swagger.annotations.Api;
 import io.swagger.annotations.ApiOperation;
@@ -60,4 +61,13 @@ public class DataInitController {
             return Result.error("歌曲数据初始化失败: " + e.getMessage());
         }
     }
+    
+    /**
+     * 获取歌曲导入进度
+     */
+    @ApiOperation("获取歌曲导入进度")
+    @GetMapping("/init-songs/progress")
+    public Result<IngestProgressDto> getIngestProgress() {
+        return Result.success(dataInitService.getIngestProgress());
+    }
 }
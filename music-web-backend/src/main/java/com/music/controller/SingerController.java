@@ -31,9 +31,21 @@ public class SingerController {
     @GetMapping("/page")
     public Result<PageResult<Singer>> getSingerPage(
             @ApiParam("当前页") @RequestParam(defaultValue = "1") Long current,
-            @ApiParam("页大小") @RequestParam(defaultValue = "10") Long size,
-            @ApiParam("歌手名称") @RequestParam(required = false) String name) {
+            @ApiParam("页大小（1~100）") @RequestParam(defaultValue = "10") Long size,
+            @ApiParam("歌手名称") @RequestParam(required = false) String name,
+            @ApiParam("分页游标，传入时使用游标分页（首页传空字符串），忽略current") @RequestParam(required = false) String cursor,
+            @ApiParam("游标分页时是否返回总数") @RequestParam(defaultValue = "false") Boolean withTotal) {
         
+        // 页大小为0或负数时分页计算越界，过大时单次读取过多
+        size = PageResult.clampSize(size);
+        current = Math.max(1L, current);
+        if (cursor != null) {
+            try {
+                return Result.success(singerService.getSingerPageByCursor(cursor, size, name, withTotal));
+            } catch (IllegalArgumentException e) {
+                return Result.badRequest(e.getMessage());
+            }
+        }
         PageResult<Singer> pageResult = singerService.getSingerPage(current, size, name);
         return Result.success(pageResult);
     }
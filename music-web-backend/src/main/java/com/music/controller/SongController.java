@@ -2,6 +2,7 @@ package com.music.controller;
 
 import com.music.common.result.PageResult;
 import com.music.common.result.Result;
+import com.music.dto.SuggestionDto;
 import com.music.entity.Song;
 import com.music.service.SongService;
 import io.swagger.annotations.Api;
@@ -31,11 +32,23 @@ public class SongController {
     @GetMapping("/page")
     public Result<PageResult<Song>> getSongPage(
             @ApiParam("当前页") @RequestParam(defaultValue = "1") Long current,
-            @ApiParam("页大小") @RequestParam(defaultValue = "10") Long size,
+            @ApiParam("页大小（1~100）") @RequestParam(defaultValue = "10") Long size,
             @ApiParam("歌曲名称") @RequestParam(required = false) String name,
             @ApiParam("歌手ID") @RequestParam(required = false) Long singerId,
-            @ApiParam("专辑ID") @RequestParam(required = false) Long albumId) {
+            @ApiParam("专辑ID") @RequestParam(required = false) Long albumId,
+            @ApiParam("分页游标，传入时使用游标分页（首页传空字符串），忽略current") @RequestParam(required = false) String cursor,
+            @ApiParam("游标分页时是否返回总数") @RequestParam(defaultValue = "false") Boolean withTotal) {
         
+        // 页大小为0或负数时分页计算越界，过大时单次读取过多
+        size = PageResult.clampSize(size);
+        current = Math.max(1L, current);
+        if (cursor != null) {
+            try {
+                return Result.success(songService.getSongPageByCursor(cursor, size, name, singerId, albumId, withTotal));
+            } catch (IllegalArgumentException e) {
+                return Result.badRequest(e.getMessage());
+            }
+        }
         PageResult<Song> pageResult = songService.getSongPage(current, size, name, singerId, albumId);
         return Result.success(pageResult);
     }
@@ -63,6 +76,19 @@ public class SongController {
         return Result.success(songs);
     }
     
+    /**
+     * 搜索联想
+     */
+    @ApiOperation("搜索联想")
+    @GetMapping("/suggest")
+    public Result<List<SuggestionDto>> suggest(
+            @ApiParam("输入前缀（汉字、全拼或首字母）") @RequestParam String keyword,
+            @ApiParam("限制数量") @RequestParam(defaultValue = "10") Integer limit) {
+        
+        List<SuggestionDto> suggestions = songService.suggest(keyword, limit);
+        return Result.success(suggestions);
+    }
+    
     /**
      * 获取热门歌曲
      */
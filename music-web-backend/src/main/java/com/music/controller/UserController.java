@@ -2,14 +2,20 @@ package com.music.controller;
 
 import com.music.common.result.Result;
 import com.music.entity.User;
+import com.music.service.JwtTokenService;
 import com.music.service.UserService;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
 
-import javax.servlet.http.HttpSession;
 import java.util.HashMap;
 import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.RejectedExecutionException;
 
 /**
  * 用户控制器
@@ -22,68 +28,112 @@ public class UserController {
     @Autowired
     private UserService userService;
     
+    @Autowired
+    private JwtTokenService jwtTokenService;
+    
     /**
      * 用户注册
+     * 密码哈希异步执行，哈希线程池已满时返回HTTP 503
      */
     @PostMapping("/register")
-    public Result<String> register(@RequestBody Map<String, String> request) {
+    public CompletableFuture<ResponseEntity<Result<String>>> register(@RequestBody Map<String, String> request) {
         String username = request.get("username");
         String email = request.get("email");
         String password = request.get("password");
         
-        return userService.register(username, email, password);
+        CompletableFuture<Result<String>> register;
+        try {
+            register = userService.register(username, email, password);
+        } catch (Exception e) {
+            log.error("用户注册异常: {}", e.getMessage(), e);
+            return CompletableFuture.completedFuture(ResponseEntity.ok(Result.error("注册失败，系统异常")));
+        }
+        
+        return register.handle((registerResult, error) -> {
+            if (error != null) {
+                Throwable cause = error instanceof CompletionException && error.getCause() != null
+                        ? error.getCause() : error;
+                if (cause instanceof RejectedExecutionException) {
+                    log.warn("注册请求过多，密码哈希队列已满");
+                    return ResponseEntity.status(HttpStatus.SERVICE_UNAVAILABLE)
+                            .header(HttpHeaders.RETRY_AFTER, "1")
+                            .body(Result.<String>error(503, "注册人数过多，请稍后重试"));
+                }
+                log.error("用户注册异常: {}", cause.getMessage(), cause);
+                return ResponseEntity.ok(Result.<String>error("注册失败，系统异常"));
+            }
+            return ResponseEntity.ok(registerResult);
+        });
     }
     
     /**
-     * 用户登录
+     * 用户登录，成功时签发JWT令牌（后续请求放在Authorization请求头中）
+     * 密码校验异步执行，校验线程池已满时返回HTTP 503
      */
     @PostMapping("/login")
-    public Result<Map<String, Object>> login(@RequestBody Map<String, String> request, HttpSession session) {
+    public CompletableFuture<ResponseEntity<Result<Map<String, Object>>>> login(
+            @RequestBody Map<String, String> request) {
         String usernameOrEmail = request.get("usernameOrEmail");
         String password = request.get("password");
         
-        Result<User> loginResult = userService.login(usernameOrEmail, password);
-        if (loginResult.getCode() == 200 && loginResult.getData() != null) {
-            User user = loginResult.getData();
-            session.setAttribute("userId", user.getId()); // Store user ID in session
-            session.setMaxInactiveInterval(30 * 60); // Session expires in 30 minutes
-            
-            Map<String, Object> userData = new HashMap<>();
-            userData.put("id", user.getId());
-            userData.put("username", user.getUsername());
-            userData.put("email", user.getEmail());
-            userData.put("nickname", user.getNickname());
-            userData.put("avatar", user.getAvatar());
-            return Result.success("登录成功", userData);
-        } else {
-            return Result.error(loginResult.getMessage());
+        CompletableFuture<Result<User>> login;
+        try {
+            login = userService.login(usernameOrEmail, password);
+        } catch (Exception e) {
+            log.error("用户登录异常: {}", e.getMessage(), e);
+            return CompletableFuture.completedFuture(ResponseEntity.ok(Result.error("登录失败，系统异常")));
         }
+        
+        return login.handle((loginResult, error) -> {
+            if (error != null) {
+                Throwable cause = error instanceof CompletionException && error.getCause() != null
+                        ? error.getCause() : error;
+                if (cause instanceof RejectedExecutionException) {
+                    log.warn("登录请求过多，密码校验队列已满");
+                    return ResponseEntity.status(HttpStatus.SERVICE_UNAVAILABLE)
+                            .header(HttpHeaders.RETRY_AFTER, "1")
+                            .body(Result.<Map<String, Object>>error(503, "登录人数过多，请稍后重试"));
+                }
+                log.error("用户登录异常: {}", cause.getMessage(), cause);
+                return ResponseEntity.ok(Result.<Map<String, Object>>error("登录失败，系统异常"));
+            }
+            
+            if (loginResult.getCode() == 200 && loginResult.getData() != null) {
+                User user = loginResult.getData();
+                
+                Map<String, Object> userData = new HashMap<>();
+                userData.put("token", jwtTokenService.issue(user.getId()));
+                userData.put("expiresIn", jwtTokenService.getExpiration());
+                userData.put("id", user.getId());
+                userData.put("username", user.getUsername());
+                userData.put("email", user.getEmail());
+                userData.put("nickname", user.getNickname());
+                userData.put("avatar", user.getAvatar());
+                return ResponseEntity.ok(Result.success("登录成功", userData));
+            } else {
+                return ResponseEntity.ok(Result.<Map<String, Object>>error(loginResult.getMessage()));
+            }
+        });
     }
     
     /**
      * 用户退出登录
+     * 令牌无服务端状态，由客户端丢弃
      */
     @PostMapping("/logout")
-    public Result<String> logout(HttpSession session) {
-        try {
-            session.invalidate();
-            return Result.success("退出成功");
-        } catch (Exception e) {
-            log.error("用户退出异常: {}", e.getMessage(), e);
-            return Result.error("退出失败");
-        }
+    public Result<String> logout() {
+        return Result.success("退出成功");
     }
     
     /**
      * 获取当前登录用户信息
      */
     @GetMapping("/current")
-    public Result<User> getCurrentUser(HttpSession session) {
-        Long userId = (Long) session.getAttribute("userId");
+    public Result<User> getCurrentUser(@RequestAttribute(value = "userId", required = false) Long userId) {
         if (userId == null) {
             return Result.error(401, "未登录"); // Return 401 for unauthorized
         }
-        User user = userService.getById(userId);
+        User user = userService.getUserById(userId);
         if (user != null) {
             user.setPassword(null); // Do not expose password
             return Result.success(user);
@@ -114,8 +164,7 @@ public class UserController {
      * 更新用户信息
      */
     @PutMapping("/profile")
-    public Result<String> updateProfile(@RequestBody User user, HttpSession session) {
-        Long userId = (Long) session.getAttribute("userId");
+    public Result<String> updateProfile(@RequestBody User user, @RequestAttribute(value = "userId", required = false) Long userId) {
         if (userId == null) {
             return Result.error("未登录");
         }
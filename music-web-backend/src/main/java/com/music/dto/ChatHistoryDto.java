@@ -0,0 +1,28 @@
+package com.music.dto;
+
+import lombok.Data;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * 聊天会话历史DTO
+ */
+@Data
+public class ChatHistoryDto {
+
+    /**
+     * 会话ID
+     */
+    private String sessionId;
+
+    /**
+     * 较早对话的摘要
+     */
+    private String summary;
+
+    /**
+     * 最近的消息（按时间正序）
+     */
+    private List<ChatMessageDto> messages = new ArrayList<>();
+}
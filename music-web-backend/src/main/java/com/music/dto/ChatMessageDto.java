@@ -0,0 +1,29 @@
+package com.music.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+/**
+ * 聊天消息DTO（会话历史中的一条消息）
+ */
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class ChatMessageDto {
+
+    /**
+     * 角色（user, assistant）
+     */
+    private String role;
+
+    /**
+     * 消息内容
+     */
+    private String content;
+
+    /**
+     * 消息时间戳
+     */
+    private Long timestamp;
+}
@@ -0,0 +1,60 @@
+package com.music.dto;
+
+import lombok.Data;
+
+/**
+ * 歌曲导入进度DTO
+ */
+@Data
+public class IngestProgressDto {
+
+    /**
+     * 是否正在导入
+     */
+    private Boolean running;
+
+    /**
+     * 扫描到的音频文件数
+     */
+    private Long total;
+
+    /**
+     * 已存在或检查点之前而跳过的文件数
+     */
+    private Long skipped;
+
+    /**
+     * 已解析的文件数
+     */
+    private Long parsed;
+
+    /**
+     * 已入库的歌曲数
+     */
+    private Long inserted;
+
+    /**
+     * 解析失败的文件数
+     */
+    private Long failed;
+
+    /**
+     * 从检查点恢复时的起始文件
+     */
+    private String resumedFrom;
+
+    /**
+     * 开始时间戳
+     */
+    private Long startTime;
+
+    /**
+     * 已耗时（毫秒）
+     */
+    private Long elapsedMillis;
+
+    /**
+     * 处理速度（文件/秒）
+     */
+    private Double filesPerSecond;
+}
@@ -0,0 +1,35 @@
+package com.music.dto;
+
+import lombok.Data;
+
+/**
+ * 搜索联想DTO
+ */
+@Data
+public class SuggestionDto {
+
+    /**
+     * 类型（song, singer）
+     */
+    private String type;
+
+    /**
+     * 歌曲ID或歌手ID
+     */
+    private Long id;
+
+    /**
+     * 歌曲名或歌手名
+     */
+    private String name;
+
+    /**
+     * 歌手名（仅歌曲）
+     */
+    private String singerName;
+
+    /**
+     * 播放次数（歌手为其歌曲播放次数之和）
+     */
+    private Long playCount;
+}
@@ -5,6 +5,7 @@ import lombok.Data;
 import lombok.EqualsAndHashCode;
 
 import java.time.LocalDateTime;
+import java.util.List;
 
 /**
  * 评论实体
@@ -73,4 +74,16 @@ public class Comment {
     
     @TableField(exist = false)
     private Boolean isLiked;
+    
+    /**
+     * 楼内回复总数（楼层查询时返回）
+     */
+    @TableField(exist = false)
+    private Integer replyCount;
+    
+    /**
+     * 楼内前几条回复（楼层查询时返回）
+     */
+    @TableField(exist = false)
+    private List<Comment> replies;
 }
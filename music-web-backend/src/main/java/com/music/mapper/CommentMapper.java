@@ -20,6 +20,19 @@ public interface CommentMapper extends BaseMapper<Comment> {
                                     @Param("targetType") String targetType,
                                     @Param("userId") Long userId);
     
+    /**
+     * 获取目标下全部正常评论（带用户信息，不含点赞状态），按创建时间正序，用于构建评论树
+     */
+    List<Comment> getThreadComments(@Param("targetId") Long targetId,
+                                    @Param("targetType") String targetType);
+    
+    /**
+     * 获取用户在目标下点赞过的评论ID
+     */
+    List<Long> selectLikedCommentIds(@Param("userId") Long userId,
+                                     @Param("targetId") Long targetId,
+                                     @Param("targetType") String targetType);
+    
     /**
      * 根据评论ID获取评论详情（带用户信息）
      */
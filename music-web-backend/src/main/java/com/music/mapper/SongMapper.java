@@ -7,8 +7,11 @@ import com.music.entity.Song;
 import org.apache.ibatis.annotations.Mapper;
 import org.apache.ibatis.annotations.Param;
 import org.apache.ibatis.annotations.Select;
+import org.apache.ibatis.session.ResultHandler;
 
+import java.time.LocalDateTime;
 import java.util.List;
+import java.util.Map;
 
 /**
  * 歌曲Mapper接口
@@ -24,6 +27,17 @@ public interface SongMapper extends BaseMapper<Song> {
                                      @Param("singerId") Long singerId,
                                      @Param("albumId") Long albumId);
     
+    /**
+     * 游标分页查询歌曲（带歌手信息），按 (create_time, id) 倒序，从游标位置之后开始
+     * cursorTime为null时查询第一页
+     */
+    List<Song> getSongsAfterCursor(@Param("name") String name,
+                                   @Param("singerId") Long singerId,
+                                   @Param("albumId") Long albumId,
+                                   @Param("cursorTime") LocalDateTime cursorTime,
+                                   @Param("cursorId") Long cursorId,
+                                   @Param("limit") Integer limit);
+    
     /**
      * 根据ID查询歌曲（带歌手信息）
      */
@@ -40,6 +54,34 @@ public interface SongMapper extends BaseMapper<Song> {
     @Select("SELECT * FROM songs WHERE audio_url = #{audioUrl} LIMIT 1")
     Song selectByAudioUrl(@Param("audioUrl") String audioUrl);
     
+    /**
+     * 表行数估计（InnoDB统计信息，无需扫描表）
+     */
+    @Select("SELECT TABLE_ROWS FROM information_schema.TABLES WHERE TABLE_SCHEMA = DATABASE() AND TABLE_NAME = #{tableName}")
+    Long estimateRowCount(@Param("tableName") String tableName);
+    
+    /**
+     * 查询所有歌曲的音频URL（导入时去重）
+     */
+    @Select("SELECT audio_url FROM songs")
+    List<String> selectAllAudioUrls();
+    
+    /**
+     * 根据音频URL批量查询歌曲（含已禁用）
+     */
+    List<Song> selectByAudioUrls(@Param("audioUrls") List<String> audioUrls);
+    
+    /**
+     * 查询所有正常歌曲的播放次数
+     */
+    @Select("SELECT id, play_count FROM songs WHERE status = 1")
+    List<Song> selectPlayCounts();
+    
+    /**
+     * 根据ID批量查询歌曲（带歌手信息）
+     */
+    List<Song> getSongsWithSingerByIds(@Param("ids") List<Long> ids);
+    
     /**
      * 获取热门歌曲（带歌手信息）
      */
@@ -57,4 +99,19 @@ public interface SongMapper extends BaseMapper<Song> {
      */
     List<Song> searchSongsWithSinger(@Param("keyword") String keyword, 
                                    @Param("limit") Integer limit);
+    
+    /**
+     * 流式扫描搜索索引所需的歌曲字段（不含歌词等大字段）
+     */
+    void scanSearchCatalog(ResultHandler<Song> handler);
+    
+    /**
+     * 批量累加播放次数（key: 歌曲ID, value: 增量）
+     */
+    int batchIncrementPlayCount(@Param("deltas") Map<Long, Long> deltas);
+    
+    /**
+     * 批量插入歌曲（多行VALUES，回填自增ID）
+     */
+    int insertBatch(@Param("songs") List<Song> songs);
 }
@@ -0,0 +1,213 @@
+package com.music.service;
+
+import com.fasterxml.jackson.core.type.TypeReference;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import lombok.Data;
+import lombok.extern.slf4j.Slf4j;
+import org.jaudiotagger.audio.AudioFile;
+import org.jaudiotagger.audio.AudioFileIO;
+import org.jaudiotagger.audio.AudioHeader;
+import org.jaudiotagger.tag.FieldKey;
+import org.jaudiotagger.tag.Tag;
+import org.jaudiotagger.tag.datatype.Artwork;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+
+import javax.annotation.PostConstruct;
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardCopyOption;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
+/**
+ * 音频元数据服务
+ * 使用jaudiotagger读取ID3/FLAC/M4A标签、时长、比特率和内嵌封面；
+ * 结果按文件路径+修改时间+大小缓存并持久化，文件未变化时不再重复解析
+ */
+@Slf4j
+@Service
+public class AudioMetadataService {
+
+    static {
+        // jaudiotagger默认以INFO级别输出大量解析日志
+        Logger.getLogger("org.jaudiotagger").setLevel(Level.WARNING);
+    }
+
+    @Autowired
+    private ObjectMapper objectMapper;
+
+    @Value("${file.upload.path}")
+    private String uploadPath;
+
+    @Value("${audio-metadata.cache-file:}")
+    private String cacheFile;
+
+    private final Map<String, AudioMetadata> cache = new ConcurrentHashMap<>();
+
+    private volatile boolean dirty;
+
+    @PostConstruct
+    public void loadCache() {
+        Path path = cachePath();
+        if (!Files.exists(path)) {
+            return;
+        }
+        try {
+            Map<String, AudioMetadata> entries = objectMapper.readValue(path.toFile(),
+                    new TypeReference<Map<String, AudioMetadata>>() {});
+            cache.putAll(entries);
+            log.info("加载音频元数据缓存 {} 条", entries.size());
+        } catch (IOException e) {
+            log.warn("读取音频元数据缓存失败: {}", e.getMessage());
+        }
+    }
+
+    /**
+     * 读取音频元数据，文件未变化时直接返回缓存；无法解析的文件返回只含大小和时间的空元数据
+     *
+     * @param coverBaseName 内嵌封面保存到img/songPic/时使用的文件名（不含扩展名）
+     */
+    public AudioMetadata extract(File file, String coverBaseName) {
+        String key = file.getAbsolutePath();
+        long lastModified = file.lastModified();
+        long size = file.length();
+
+        AudioMetadata cached = cache.get(key);
+        if (cached != null && cached.getLastModified() == lastModified && cached.getSize() == size) {
+            return cached;
+        }
+
+        AudioMetadata metadata = new AudioMetadata();
+        metadata.setLastModified(lastModified);
+        metadata.setSize(size);
+        try {
+            AudioFile audioFile = AudioFileIO.read(file);
+            AudioHeader header = audioFile.getAudioHeader();
+            if (header != null) {
+                metadata.setDuration(header.getTrackLength());
+                metadata.setBitrate((int) header.getBitRateAsNumber());
+            }
+
+            Tag tag = audioFile.getTag();
+            if (tag != null) {
+                metadata.setTitle(firstValue(tag, FieldKey.TITLE));
+                metadata.setArtist(firstValue(tag, FieldKey.ARTIST));
+                metadata.setAlbum(firstValue(tag, FieldKey.ALBUM));
+                metadata.setYear(parseYear(firstValue(tag, FieldKey.YEAR)));
+                metadata.setLyric(firstValue(tag, FieldKey.LYRICS));
+                metadata.setCoverFile(saveArtwork(tag.getFirstArtwork(), coverBaseName));
+            }
+        } catch (Exception e) {
+            log.debug("读取音频标签失败: {}, {}", file.getName(), e.getMessage());
+        }
+
+        cache.put(key, metadata);
+        dirty = true;
+        return metadata;
+    }
+
+    /**
+     * 将缓存写回磁盘（导入结束后调用）
+     */
+    public void saveCache() {
+        if (!dirty) {
+            return;
+        }
+        dirty = false;
+        Path path = cachePath();
+        Path temp = path.resolveSibling(path.getFileName() + ".tmp");
+        try {
+            objectMapper.writeValue(temp.toFile(), cache);
+            Files.move(temp, path, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        } catch (IOException e) {
+            dirty = true;
+            log.warn("写入音频元数据缓存失败: {}", e.getMessage());
+        }
+    }
+
+    private String firstValue(Tag tag, FieldKey key) {
+        try {
+            String value = tag.getFirst(key);
+            return value != null && !value.trim().isEmpty() ? value.trim() : null;
+        } catch (Exception e) {
+            // 部分格式不支持某些字段
+            return null;
+        }
+    }
+
+    private Integer parseYear(String value) {
+        if (value == null || value.length() < 4) {
+            return null;
+        }
+        try {
+            int year = Integer.parseInt(value.substring(0, 4));
+            return year > 1000 ? year : null;
+        } catch (NumberFormatException e) {
+            return null;
+        }
+    }
+
+    /**
+     * 保存内嵌封面，已存在同名文件时直接复用
+     */
+    private String saveArtwork(Artwork artwork, String baseName) throws IOException {
+        if (artwork == null || artwork.getBinaryData() == null || baseName == null) {
+            return null;
+        }
+        String extension = "image/png".equalsIgnoreCase(artwork.getMimeType()) ? ".png" : ".jpg";
+        String fileName = baseName.replaceAll("[\\\\/:*?\"<>|]", "_") + extension;
+        Path cover = Paths.get(uploadPath, "img", "songPic", fileName);
+        if (!Files.exists(cover)) {
+            Files.createDirectories(cover.getParent());
+            Files.write(cover, artwork.getBinaryData());
+        }
+        return fileName;
+    }
+
+    private Path cachePath() {
+        return Paths.get(cacheFile.isEmpty() ? uploadPath + ".metadata-cache.json" : cacheFile);
+    }
+
+    /**
+     * 音频元数据
+     */
+    @Data
+    public static class AudioMetadata {
+
+        private long lastModified;
+
+        private long size;
+
+        private String title;
+
+        private String artist;
+
+        private String album;
+
+        private Integer year;
+
+        /**
+         * 时长（秒）
+         */
+        private Integer duration;
+
+        /**
+         * 比特率（kbps）
+         */
+        private Integer bitrate;
+
+        private String lyric;
+
+        /**
+         * 内嵌封面保存后的文件名（位于img/songPic/）
+         */
+        private String coverFile;
+    }
+}
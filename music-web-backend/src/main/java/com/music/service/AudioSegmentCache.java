@@ -0,0 +1,360 @@
+package com.music.service;
+
+import com.music.entity.Song;
+import com.music.mapper.SongMapper;
+import io.micrometer.core.instrument.FunctionCounter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.BaseUnits;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+
+import javax.annotation.PostConstruct;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardOpenOption;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * 热门音频分段缓存
+ * 播放量前N的歌曲按固定大小分段映射为堆外MappedByteBuffer，总量受内存预算限制，超出时按LRU或LFU淘汰；
+ * 非热门歌曲不进入缓存，由调用方直接读文件
+ */
+@Slf4j
+@Service
+public class AudioSegmentCache {
+
+    private static final String SONG_PATH = "/song/";
+
+    @Autowired
+    private HotSongLeaderboard hotSongLeaderboard;
+
+    @Autowired
+    private SongMapper songMapper;
+
+    @Value("${file.upload.path}")
+    private String uploadPath;
+
+    @Value("${audio-cache.enabled:true}")
+    private boolean enabled;
+
+    @Value("${audio-cache.top-n:50}")
+    private int topN;
+
+    @Value("${audio-cache.max-bytes:536870912}")
+    private long maxBytes;
+
+    @Value("${audio-cache.segment-size:4194304}")
+    private int segmentSize;
+
+    @Value("${audio-cache.eviction:lfu}")
+    private String eviction;
+
+    private volatile Set<Path> hotFiles = Collections.emptySet();
+
+    private final Map<SegmentKey, Segment> segments = new ConcurrentHashMap<>();
+
+    private final AtomicLong usedBytes = new AtomicLong();
+
+    // 淘汰与预算预留互斥，保证占用不超过预算；命中路径不加锁
+    private final ReentrantLock admissionLock = new ReentrantLock();
+
+    private final LongAdder hits = new LongAdder();
+
+    private final LongAdder misses = new LongAdder();
+
+    private final LongAdder evictions = new LongAdder();
+
+    @Autowired
+    private MeterRegistry meterRegistry;
+
+    /**
+     * 注册缓存指标：命中、未命中和淘汰为累计计数，文件数、分段数和内存占用为当前值
+     */
+    @PostConstruct
+    public void registerMetrics() {
+        Gauge.builder("audio.cache.files", this, cache -> cache.hotFiles.size())
+                .description("缓存的热门音频文件数")
+                .register(meterRegistry);
+        Gauge.builder("audio.cache.segments", segments, Map::size)
+                .description("已映射的音频分段数")
+                .register(meterRegistry);
+        Gauge.builder("audio.cache.size", usedBytes, AtomicLong::get)
+                .description("已映射分段占用的内存")
+                .baseUnit(BaseUnits.BYTES)
+                .register(meterRegistry);
+        Gauge.builder("audio.cache.max.size", this, cache -> cache.maxBytes)
+                .description("分段缓存的内存预算")
+                .baseUnit(BaseUnits.BYTES)
+                .register(meterRegistry);
+        FunctionCounter.builder("audio.cache.gets", hits, LongAdder::sum)
+                .description("音频分段缓存的读取次数")
+                .tag("result", "hit")
+                .register(meterRegistry);
+        FunctionCounter.builder("audio.cache.gets", misses, LongAdder::sum)
+                .description("音频分段缓存的读取次数")
+                .tag("result", "miss")
+                .register(meterRegistry);
+        FunctionCounter.builder("audio.cache.evictions", evictions, LongAdder::sum)
+                .description("因超出内存预算被淘汰的分段数")
+                .register(meterRegistry);
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void onApplicationReady() {
+        refreshHotFiles();
+    }
+
+    /**
+     * 定期刷新热门歌曲集合，移出热门的歌曲分段立即释放
+     */
+    @Scheduled(fixedDelayString = "${audio-cache.refresh-interval:60000}",
+            initialDelayString = "${audio-cache.refresh-interval:60000}")
+    public void refreshHotFiles() {
+        if (!enabled) {
+            return;
+        }
+        try {
+            List<Song> songs = hotSongLeaderboard.getHotSongs(topN);
+            if (songs == null) {
+                songs = songMapper.getHotSongsWithSinger(topN);
+            }
+
+            Path root = songRoot();
+            Set<Path> files = new HashSet<>();
+            for (Song song : songs) {
+                String audioUrl = song.getAudioUrl();
+                int index = audioUrl != null ? audioUrl.indexOf(SONG_PATH) : -1;
+                if (index >= 0) {
+                    Path file = root.resolve(audioUrl.substring(index + SONG_PATH.length())).normalize();
+                    if (file.startsWith(root)) {
+                        files.add(file);
+                    }
+                }
+            }
+            hotFiles = files;
+
+            admissionLock.lock();
+            try {
+                for (Map.Entry<SegmentKey, Segment> entry : segments.entrySet()) {
+                    if (!files.contains(entry.getKey().file)) {
+                        remove(entry.getKey(), entry.getValue());
+                    } else {
+                        // 频次衰减，避免历史热度长期占用缓存
+                        entry.getValue().frequency.set(entry.getValue().frequency.get() >> 1);
+                    }
+                }
+            } finally {
+                admissionLock.unlock();
+            }
+        } catch (Exception e) {
+            log.warn("刷新热门音频缓存失败: {}", e.getMessage());
+        }
+    }
+
+    /**
+     * 是否为热门歌曲文件（热门文件的读取应通过本缓存）
+     */
+    public boolean isHot(Path file) {
+        return enabled && hotFiles.contains(file);
+    }
+
+    public int getSegmentSize() {
+        return segmentSize;
+    }
+
+    /**
+     * 获取文件第index个分段，返回独立position的只读视图；非热门文件或超出预算时返回null
+     *
+     * @param length       文件当前大小
+     * @param lastModified 文件当前修改时间，与缓存不一致时重新映射
+     */
+    public ByteBuffer getSegment(Path file, long length, long lastModified, int index) {
+        if (!isHot(file)) {
+            return null;
+        }
+
+        SegmentKey key = new SegmentKey(file, index);
+        Segment segment = segments.get(key);
+        if (segment != null && segment.length == length && segment.lastModified == lastModified) {
+            hits.increment();
+            segment.touch();
+            return segment.buffer.duplicate();
+        }
+
+        misses.increment();
+        segment = load(key, length, lastModified);
+        return segment != null ? segment.buffer.duplicate() : null;
+    }
+
+    private Segment load(SegmentKey key, long length, long lastModified) {
+        long offset = (long) key.index * segmentSize;
+        long size = Math.min(segmentSize, length - offset);
+        if (size <= 0 || size > maxBytes) {
+            return null;
+        }
+
+        // 在锁内淘汰并预留预算，映射和预读在锁外进行，不阻塞其他分段的加载
+        admissionLock.lock();
+        try {
+            Segment existing = segments.get(key);
+            if (existing != null) {
+                if (existing.length == length && existing.lastModified == lastModified) {
+                    existing.touch();
+                    return existing;
+                }
+                // 文件已变化
+                remove(key, existing);
+            }
+
+            while (usedBytes.get() + size > maxBytes) {
+                Map.Entry<SegmentKey, Segment> victim = selectVictim();
+                if (victim == null) {
+                    return null;
+                }
+                remove(victim.getKey(), victim.getValue());
+                evictions.increment();
+            }
+            usedBytes.addAndGet(size);
+        } finally {
+            admissionLock.unlock();
+        }
+
+        MappedByteBuffer buffer;
+        try (FileChannel channel = FileChannel.open(key.file, StandardOpenOption.READ)) {
+            buffer = channel.map(FileChannel.MapMode.READ_ONLY, offset, size);
+            // 预先载入物理内存，后续读取不再触发缺页
+            buffer.load();
+        } catch (IOException e) {
+            usedBytes.addAndGet(-size);
+            log.warn("映射音频分段失败: {}#{}, {}", key.file.getFileName(), key.index, e.getMessage());
+            return null;
+        }
+
+        Segment segment = new Segment(buffer.asReadOnlyBuffer(), length, lastModified);
+        if (segments.putIfAbsent(key, segment) != null) {
+            // 并发加载了同一分段，本次映射只用于当前请求
+            usedBytes.addAndGet(-size);
+        }
+        return segment;
+    }
+
+    private Map.Entry<SegmentKey, Segment> selectVictim() {
+        boolean lru = "lru".equalsIgnoreCase(eviction);
+        Map.Entry<SegmentKey, Segment> victim = null;
+        for (Map.Entry<SegmentKey, Segment> entry : segments.entrySet()) {
+            if (victim == null) {
+                victim = entry;
+                continue;
+            }
+            Segment candidate = entry.getValue();
+            Segment current = victim.getValue();
+            boolean colder = lru
+                    ? candidate.lastAccess < current.lastAccess
+                    : candidate.frequency.get() < current.frequency.get()
+                    || (candidate.frequency.get() == current.frequency.get() && candidate.lastAccess < current.lastAccess);
+            if (colder) {
+                victim = entry;
+            }
+        }
+        return victim;
+    }
+
+    private void remove(SegmentKey key, Segment segment) {
+        // 映射内存在缓冲区被GC回收时释放
+        if (segments.remove(key, segment)) {
+            usedBytes.addAndGet(-segment.buffer.capacity());
+        }
+    }
+
+    public long getHitCount() {
+        return hits.sum();
+    }
+
+    public long getMissCount() {
+        return misses.sum();
+    }
+
+    public long getEvictionCount() {
+        return evictions.sum();
+    }
+
+    public long getUsedBytes() {
+        return usedBytes.get();
+    }
+
+    private Path songRoot() {
+        return Paths.get(uploadPath, "song").toAbsolutePath().normalize();
+    }
+
+    private static class SegmentKey {
+
+        private final Path file;
+
+        private final int index;
+
+        private SegmentKey(Path file, int index) {
+            this.file = file;
+            this.index = index;
+        }
+
+        @Override
+        public boolean equals(Object o) {
+            if (this == o) {
+                return true;
+            }
+            if (!(o instanceof SegmentKey)) {
+                return false;
+            }
+            SegmentKey that = (SegmentKey) o;
+            return index == that.index && file.equals(that.file);
+        }
+
+        @Override
+        public int hashCode() {
+            return Objects.hash(file, index);
+        }
+    }
+
+    private static class Segment {
+
+        private final ByteBuffer buffer;
+
+        private final long length;
+
+        private final long lastModified;
+
+        private final AtomicLong frequency = new AtomicLong(1);
+
+        private volatile long lastAccess = System.nanoTime();
+
+        private Segment(ByteBuffer buffer, long length, long lastModified) {
+            this.buffer = buffer;
+            this.length = length;
+            this.lastModified = lastModified;
+        }
+
+        private void touch() {
+            frequency.incrementAndGet();
+            lastAccess = System.nanoTime();
+        }
+    }
+}
@@ -0,0 +1,383 @@
+package com.music.service;
+
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.http.HttpHeaders;
+import org.springframework.stereotype.Service;
+
+import javax.servlet.ServletOutputStream;
+import javax.servlet.http.HttpServletRequest;
+import javax.servlet.http.HttpServletResponse;
+import java.io.Closeable;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.UUID;
+
+/**
+ * 音频流服务
+ * 支持HTTP Range/206分段传输（含多段）、If-Range/ETag校验；
+ * 热门歌曲从AudioSegmentCache的内存映射分段读取；其余单段请求优先交给Tomcat sendfile零拷贝发送，
+ * 否则使用固定大小的缓冲区分块写出
+ */
+@Slf4j
+@Service
+public class AudioStreamService {
+
+    private static final String SENDFILE_SUPPORT = "org.apache.tomcat.sendfile.support";
+    private static final String SENDFILE_FILENAME = "org.apache.tomcat.sendfile.filename";
+    private static final String SENDFILE_START = "org.apache.tomcat.sendfile.start";
+    private static final String SENDFILE_END = "org.apache.tomcat.sendfile.end";
+
+    private static final Map<String, String> CONTENT_TYPES = new HashMap<String, String>() {{
+        put("mp3", "audio/mpeg");
+        put("m4a", "audio/mp4");
+        put("wav", "audio/wav");
+        put("flac", "audio/flac");
+        put("ogg", "audio/ogg");
+        put("aac", "audio/aac");
+    }};
+
+    @Autowired
+    private AudioSegmentCache audioSegmentCache;
+
+    @Value("${file.upload.path}")
+    private String uploadPath;
+
+    @Value("${audio.stream.buffer-size:65536}")
+    private int bufferSize;
+
+    @Value("${audio.stream.max-ranges:16}")
+    private int maxRanges;
+
+    @Value("${audio.stream.sendfile:true}")
+    private boolean sendfileEnabled;
+
+    @Value("${audio.stream.cache-period:3600}")
+    private long cachePeriod;
+
+    /**
+     * 输出音频文件
+     *
+     * @param relativePath 相对于歌曲目录的路径
+     */
+    public void stream(String relativePath, HttpServletRequest request, HttpServletResponse response) throws IOException {
+        Path file = resolve(relativePath);
+        if (file == null) {
+            response.sendError(HttpServletResponse.SC_NOT_FOUND);
+            return;
+        }
+
+        long length = Files.size(file);
+        long lastModified = Files.getLastModifiedTime(file).toMillis();
+        String etag = "\"" + Long.toHexString(length) + "-" + Long.toHexString(lastModified) + "\"";
+        String contentType = contentTypeOf(file);
+
+        response.setHeader(HttpHeaders.ACCEPT_RANGES, "bytes");
+        response.setHeader(HttpHeaders.ETAG, etag);
+        response.setDateHeader(HttpHeaders.LAST_MODIFIED, lastModified);
+        response.setHeader(HttpHeaders.CACHE_CONTROL, "max-age=" + cachePeriod);
+
+        if (isNotModified(request, etag, lastModified)) {
+            response.setStatus(HttpServletResponse.SC_NOT_MODIFIED);
+            return;
+        }
+
+        List<ByteRange> ranges = null;
+        String rangeHeader = request.getHeader(HttpHeaders.RANGE);
+        if (rangeHeader != null && isIfRangeSatisfied(request, etag, lastModified)) {
+            ranges = parseRanges(rangeHeader, length);
+            if (ranges != null && ranges.isEmpty()) {
+                response.setHeader(HttpHeaders.CONTENT_RANGE, "bytes */" + length);
+                response.sendError(HttpServletResponse.SC_REQUESTED_RANGE_NOT_SATISFIABLE);
+                return;
+            }
+        }
+
+        boolean head = "HEAD".equalsIgnoreCase(request.getMethod());
+        if (ranges == null) {
+            response.setStatus(HttpServletResponse.SC_OK);
+            response.setContentType(contentType);
+            response.setHeader(HttpHeaders.CONTENT_LENGTH, String.valueOf(length));
+            if (!head) {
+                writeSingle(file, length, lastModified, 0, length - 1, request, response);
+            }
+        } else if (ranges.size() == 1) {
+            ByteRange range = ranges.get(0);
+            response.setStatus(HttpServletResponse.SC_PARTIAL_CONTENT);
+            response.setContentType(contentType);
+            response.setHeader(HttpHeaders.CONTENT_RANGE, "bytes " + range.start + "-" + range.end + "/" + length);
+            response.setHeader(HttpHeaders.CONTENT_LENGTH, String.valueOf(range.length()));
+            if (!head) {
+                writeSingle(file, length, lastModified, range.start, range.end, request, response);
+            }
+        } else {
+            writeMultipart(file, length, lastModified, ranges, contentType, head, response);
+        }
+    }
+
+    /**
+     * 解析并校验文件路径，防止越出歌曲目录
+     */
+    private Path resolve(String relativePath) {
+        if (relativePath == null || relativePath.isEmpty()) {
+            return null;
+        }
+        Path root = Paths.get(uploadPath, "song").toAbsolutePath().normalize();
+        Path file = root.resolve(relativePath).normalize();
+        if (!file.startsWith(root) || !Files.isRegularFile(file) || !Files.isReadable(file)) {
+            return null;
+        }
+        return file;
+    }
+
+    private boolean isNotModified(HttpServletRequest request, String etag, long lastModified) {
+        String ifNoneMatch = request.getHeader(HttpHeaders.IF_NONE_MATCH);
+        if (ifNoneMatch != null) {
+            for (String candidate : ifNoneMatch.split(",")) {
+                String tag = candidate.trim();
+                if ("*".equals(tag) || etag.equals(tag) || ("W/" + etag).equals(tag)) {
+                    return true;
+                }
+            }
+            return false;
+        }
+        try {
+            long ifModifiedSince = request.getDateHeader(HttpHeaders.IF_MODIFIED_SINCE);
+            return ifModifiedSince != -1 && lastModified / 1000 <= ifModifiedSince / 1000;
+        } catch (IllegalArgumentException e) {
+            return false;
+        }
+    }
+
+    /**
+     * If-Range不匹配时忽略Range，返回完整内容（弱ETag不参与比较）
+     */
+    private boolean isIfRangeSatisfied(HttpServletRequest request, String etag, long lastModified) {
+        String ifRange = request.getHeader(HttpHeaders.IF_RANGE);
+        if (ifRange == null) {
+            return true;
+        }
+        ifRange = ifRange.trim();
+        if (ifRange.startsWith("\"") || ifRange.startsWith("W/")) {
+            return etag.equals(ifRange);
+        }
+        try {
+            long date = request.getDateHeader(HttpHeaders.IF_RANGE);
+            return date != -1 && lastModified / 1000 == date / 1000;
+        } catch (IllegalArgumentException e) {
+            return false;
+        }
+    }
+
+    /**
+     * 解析Range头。语法错误或段数过多时返回null（按完整请求处理），全部段不可满足时返回空列表
+     */
+    private List<ByteRange> parseRanges(String header, long length) {
+        if (!header.startsWith("bytes=")) {
+            return null;
+        }
+        String[] specs = header.substring("bytes=".length()).split(",");
+        if (specs.length > maxRanges) {
+            return null;
+        }
+
+        List<ByteRange> ranges = new ArrayList<>();
+        for (String spec : specs) {
+            String part = spec.trim();
+            int dash = part.indexOf('-');
+            if (dash < 0) {
+                return null;
+            }
+            try {
+                String first = part.substring(0, dash).trim();
+                String last = part.substring(dash + 1).trim();
+                long start;
+                long end;
+                if (first.isEmpty()) {
+                    // 后缀范围：最后N个字节
+                    long suffix = Long.parseLong(last);
+                    if (suffix <= 0) {
+                        continue;
+                    }
+                    start = Math.max(0, length - suffix);
+                    end = length - 1;
+                } else {
+                    start = Long.parseLong(first);
+                    end = last.isEmpty() ? length - 1 : Math.min(Long.parseLong(last), length - 1);
+                    if (end < start) {
+                        if (!last.isEmpty() && Long.parseLong(last) < start) {
+                            return null;
+                        }
+                        continue;
+                    }
+                }
+                if (start < length) {
+                    ranges.add(new ByteRange(start, end));
+                }
+            } catch (NumberFormatException e) {
+                return null;
+            }
+        }
+        return ranges;
+    }
+
+    /**
+     * 输出单段内容
+     */
+    private void writeSingle(Path file, long length, long lastModified, long start, long end,
+                             HttpServletRequest request, HttpServletResponse response) throws IOException {
+        if (sendfileEnabled && !audioSegmentCache.isHot(file)
+                && Boolean.TRUE.equals(request.getAttribute(SENDFILE_SUPPORT))) {
+            // 由Tomcat在请求处理结束后通过sendfile发送，数据不经过JVM堆
+            request.setAttribute(SENDFILE_FILENAME, file.toString());
+            request.setAttribute(SENDFILE_START, start);
+            request.setAttribute(SENDFILE_END, end + 1);
+            return;
+        }
+
+        try (AudioSource source = new AudioSource(file, length, lastModified)) {
+            copy(source, start, end, response.getOutputStream(), new byte[bufferSize]);
+        } catch (IOException e) {
+            // 客户端拖动进度条时常会主动断开
+            log.debug("音频传输中断: {}, {}", file.getFileName(), e.getMessage());
+        }
+    }
+
+    /**
+     * 输出multipart/byteranges多段内容
+     */
+    private void writeMultipart(Path file, long length, long lastModified, List<ByteRange> ranges,
+                                String contentType, boolean head, HttpServletResponse response) throws IOException {
+        String boundary = UUID.randomUUID().toString().replace("-", "");
+        List<byte[]> partHeaders = new ArrayList<>(ranges.size());
+        long contentLength = 0;
+        for (ByteRange range : ranges) {
+            byte[] partHeader = ("\r\n--" + boundary + "\r\n"
+                    + "Content-Type: " + contentType + "\r\n"
+                    + "Content-Range: bytes " + range.start + "-" + range.end + "/" + length + "\r\n\r\n")
+                    .getBytes(StandardCharsets.US_ASCII);
+            partHeaders.add(partHeader);
+            contentLength += partHeader.length + range.length();
+        }
+        byte[] closing = ("\r\n--" + boundary + "--\r\n").getBytes(StandardCharsets.US_ASCII);
+        contentLength += closing.length;
+
+        response.setStatus(HttpServletResponse.SC_PARTIAL_CONTENT);
+        response.setContentType("multipart/byteranges; boundary=" + boundary);
+        response.setHeader(HttpHeaders.CONTENT_LENGTH, String.valueOf(contentLength));
+        if (head) {
+            return;
+        }
+
+        byte[] buffer = new byte[bufferSize];
+        try (AudioSource source = new AudioSource(file, length, lastModified)) {
+            ServletOutputStream out = response.getOutputStream();
+            for (int i = 0; i < ranges.size(); i++) {
+                out.write(partHeaders.get(i));
+                copy(source, ranges.get(i).start, ranges.get(i).end, out, buffer);
+            }
+            out.write(closing);
+        } catch (IOException e) {
+            log.debug("音频传输中断: {}, {}", file.getFileName(), e.getMessage());
+        }
+    }
+
+    /**
+     * 通过固定缓冲区将[start, end]区间写出
+     */
+    private void copy(AudioSource source, long start, long end, ServletOutputStream out,
+                      byte[] buffer) throws IOException {
+        long position = start;
+        while (position <= end) {
+            int read = source.read(position, buffer, (int) Math.min(buffer.length, end - position + 1));
+            if (read < 0) {
+                break;
+            }
+            out.write(buffer, 0, read);
+            position += read;
+        }
+    }
+
+    private String contentTypeOf(Path file) {
+        String name = file.getFileName().toString();
+        int dot = name.lastIndexOf('.');
+        String extension = dot >= 0 ? name.substring(dot + 1).toLowerCase(Locale.ROOT) : "";
+        return CONTENT_TYPES.getOrDefault(extension, "application/octet-stream");
+    }
+
+    /**
+     * 音频数据源：优先读取内存映射分段，未缓存的部分按需打开文件读取
+     */
+    private class AudioSource implements Closeable {
+
+        private final Path file;
+
+        private final long length;
+
+        private final long lastModified;
+
+        private FileChannel channel;
+
+        private AudioSource(Path file, long length, long lastModified) {
+            this.file = file;
+            this.length = length;
+            this.lastModified = lastModified;
+        }
+
+        private int read(long position, byte[] buffer, int maxLength) throws IOException {
+            int segmentSize = audioSegmentCache.getSegmentSize();
+            int index = (int) (position / segmentSize);
+            ByteBuffer segment = audioSegmentCache.getSegment(file, length, lastModified, index);
+            if (segment != null) {
+                int offset = (int) (position - (long) index * segmentSize);
+                int count = Math.min(maxLength, segment.limit() - offset);
+                segment.position(offset);
+                segment.get(buffer, 0, count);
+                return count;
+            }
+
+            if (channel == null) {
+                channel = FileChannel.open(file, StandardOpenOption.READ);
+            }
+            return channel.read(ByteBuffer.wrap(buffer, 0, maxLength), position);
+        }
+
+        @Override
+        public void close() throws IOException {
+            if (channel != null) {
+                channel.close();
+            }
+        }
+    }
+
+    /**
+     * 字节区间（闭区间）
+     */
+    private static class ByteRange {
+
+        private final long start;
+
+        private final long end;
+
+        private ByteRange(long start, long end) {
+            this.start = start;
+            this.end = end;
+        }
+
+        private long length() {
+            return end - start + 1;
+        }
+    }
+}
@@ -0,0 +1,125 @@
+package com.music.service;
+
+import com.music.common.chat.ChatIntent;
+import com.music.entity.Song;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+
+import javax.annotation.PostConstruct;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * AI聊天曲库检索
+ * 从内存中的搜索索引查找用户消息提到的歌曲和歌手，没有提到时对推荐类提问使用热门歌曲，
+ * 生成精简的候选列表注入提示词，使模型只推荐本站实际收录的歌曲；检索过程不访问数据库
+ */
+@Service
+public class ChatCatalogRetriever {
+
+    @Autowired
+    private SongSearchIndex songSearchIndex;
+
+    @Autowired
+    private MeterRegistry meterRegistry;
+
+    @Value("${chat.catalog.enabled:true}")
+    private boolean enabled;
+
+    @Value("${chat.catalog.candidate-size:8}")
+    private int candidateSize;
+
+    private volatile List<Song> hotSongs = Collections.emptyList();
+
+    private Timer mentionedTimer;
+
+    private Timer hotTimer;
+
+    private Timer noneTimer;
+
+    /**
+     * 注册检索耗时指标，按候选来源（消息提到的歌曲、热门歌曲、无候选）区分
+     */
+    @PostConstruct
+    public void registerMetrics() {
+        mentionedTimer = retrievalTimer("mentioned");
+        hotTimer = retrievalTimer("hot");
+        noneTimer = retrievalTimer("none");
+        Gauge.builder("chat.catalog.hot.songs", this, retriever -> retriever.hotSongs.size())
+                .description("缓存的热门歌曲候选数")
+                .register(meterRegistry);
+    }
+
+    private Timer retrievalTimer(String source) {
+        return Timer.builder("chat.catalog.retrieval")
+                .description("聊天曲库检索耗时")
+                .tag("source", source)
+                .register(meterRegistry);
+    }
+
+    /**
+     * 定期刷新热门歌曲候选（播放量变化较慢，无需每次请求排序）
+     */
+    @Scheduled(fixedDelayString = "${chat.catalog.hot-refresh-interval:60000}", initialDelay = 5000)
+    public void refreshHotSongs() {
+        if (!enabled) {
+            return;
+        }
+        List<Song> songs = songSearchIndex.topSongs(candidateSize);
+        if (songs != null) {
+            hotSongs = Collections.unmodifiableList(songs);
+        }
+    }
+
+    /**
+     * 检索与消息相关的曲库歌曲，未启用或索引未就绪时返回空列表
+     */
+    public List<Song> retrieve(String message) {
+        if (!enabled || message == null) {
+            return Collections.emptyList();
+        }
+        long start = System.nanoTime();
+        List<Song> songs = songSearchIndex.findMentionedSongs(message, candidateSize);
+        Timer timer = noneTimer;
+        if (songs == null) {
+            songs = Collections.emptyList();
+        } else if (!songs.isEmpty()) {
+            timer = mentionedTimer;
+        } else {
+            ChatIntent intent = ChatIntent.classify(message);
+            if (intent == ChatIntent.RECOMMEND || intent == ChatIntent.MOOD) {
+                songs = hotSongs;
+                timer = hotTimer;
+            }
+        }
+        timer.record(System.nanoTime() - start, TimeUnit.NANOSECONDS);
+        return songs;
+    }
+
+    /**
+     * 候选列表的提示词，候选为空时返回null
+     */
+    public String buildContext(List<Song> songs) {
+        if (songs.isEmpty()) {
+            return null;
+        }
+        StringBuilder context = new StringBuilder("本站曲库中的相关歌曲如下，推荐歌曲时只从中选择，不要推荐列表以外的歌曲：\n");
+        for (Song song : songs) {
+            context.append("- 《").append(song.getName()).append("》");
+            if (song.getSingerName() != null) {
+                context.append(" - ").append(song.getSingerName());
+            }
+            if (song.getAlbumName() != null && !song.getAlbumName().isEmpty()) {
+                context.append("，专辑《").append(song.getAlbumName()).append("》");
+            }
+            context.append('\n');
+        }
+        return context.toString();
+    }
+}
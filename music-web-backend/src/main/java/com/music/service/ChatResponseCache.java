@@ -0,0 +1,246 @@
+package com.music.service;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.music.common.chat.ChatIntent;
+import io.micrometer.core.instrument.FunctionCounter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+
+import javax.annotation.PostConstruct;
+import java.util.HashMap;
+import java.util.Locale;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.ToDoubleFunction;
+
+/**
+ * AI聊天回复缓存
+ * 提问按意图分类后去掉意图关键词和语气、量词等填充词，剩余部分作为缓存键（例如"推荐几首歌"和"推荐歌曲"归为同一键）；
+ * 精确未命中时在同一意图内按字符n-gram向量的余弦相似度查找相近提问；条目数和有效期有上限
+ */
+@Slf4j
+@Service
+public class ChatResponseCache {
+
+    // 按长度从长到短去除，避免短词破坏长词
+    private static final String[] FILLERS = {
+            "有没有", "有什么", "歌曲", "可不可以", "能不能", "帮我", "给我", "我想", "想听", "可以", "一下", "一些",
+            "几首", "几个", "一首", "请", "吧", "吗", "呢", "呀", "啊", "哦", "的", "歌", "首"
+    };
+
+    @Autowired
+    private MeterRegistry meterRegistry;
+
+    @Value("${chat-cache.enabled:true}")
+    private boolean enabled;
+
+    @Value("${chat-cache.max-size:1000}")
+    private long maxSize;
+
+    @Value("${chat-cache.ttl:3600000}")
+    private long ttl;
+
+    @Value("${chat-cache.similarity-enabled:true}")
+    private boolean similarityEnabled;
+
+    @Value("${chat-cache.similarity-threshold:0.85}")
+    private double similarityThreshold;
+
+    @Value("${chat-cache.ngram:2}")
+    private int ngram;
+
+    private Cache<String, Entry> entries;
+
+    private final LongAdder requests = new LongAdder();
+
+    private final LongAdder exactHits = new LongAdder();
+
+    private final LongAdder similarHits = new LongAdder();
+
+    private final LongAdder savedMillis = new LongAdder();
+
+    @PostConstruct
+    public void init() {
+        entries = Caffeine.newBuilder()
+                .maximumSize(maxSize)
+                .expireAfterWrite(ttl, TimeUnit.MILLISECONDS)
+                .build();
+
+        Gauge.builder("chat.cache.size", entries, Cache::estimatedSize)
+                .description("缓存的聊天回复条数")
+                .register(meterRegistry);
+        registerGets("exact_hit", cache -> cache.exactHits.sum());
+        registerGets("similar_hit", cache -> cache.similarHits.sum());
+        registerGets("miss", cache -> cache.requests.sum() - cache.exactHits.sum() - cache.similarHits.sum());
+        FunctionCounter.builder("chat.cache.saved", savedMillis, adder -> adder.sum() / 1000D)
+                .description("命中缓存节省的上游调用耗时")
+                .baseUnit("seconds")
+                .register(meterRegistry);
+    }
+
+    private void registerGets(String result, ToDoubleFunction<ChatResponseCache> count) {
+        FunctionCounter.builder("chat.cache.gets", this, count)
+                .description("聊天回复缓存的查找次数")
+                .tag("result", result)
+                .register(meterRegistry);
+    }
+
+    /**
+     * 查找缓存的回复，未命中时返回null
+     */
+    public String get(String message) {
+        if (!enabled) {
+            return null;
+        }
+        requests.increment();
+        ChatIntent intent = ChatIntent.classify(message);
+        String residual = residual(message, intent);
+        String key = intent.name() + ":" + residual;
+
+        Entry entry = entries.getIfPresent(key);
+        if (entry != null) {
+            exactHits.increment();
+            savedMillis.add(entry.latencyMillis);
+            return entry.response;
+        }
+
+        if (!similarityEnabled || residual.isEmpty()) {
+            return null;
+        }
+        Map<String, Integer> vector = vectorize(residual);
+        double norm = norm(vector);
+        Entry best = null;
+        double bestScore = similarityThreshold;
+        for (Entry candidate : entries.asMap().values()) {
+            if (candidate.intent != intent || candidate.vector.isEmpty()) {
+                continue;
+            }
+            double score = cosine(vector, norm, candidate);
+            if (score >= bestScore) {
+                best = candidate;
+                bestScore = score;
+            }
+        }
+        if (best != null) {
+            similarHits.increment();
+            savedMillis.add(best.latencyMillis);
+            log.debug("聊天回复相似命中: {} -> {}, 相似度 {}", message, best.residual, bestScore);
+            return best.response;
+        }
+        return null;
+    }
+
+    /**
+     * 缓存模型的回复（仅缓存上游成功返回的内容，不缓存模拟回复）
+     *
+     * @param latencyMillis 本次上游调用耗时，命中时计入节省的时间
+     */
+    public void put(String message, String response, long latencyMillis) {
+        if (!enabled || response == null || response.isEmpty()) {
+            return;
+        }
+        ChatIntent intent = ChatIntent.classify(message);
+        String residual = residual(message, intent);
+        entries.put(intent.name() + ":" + residual, new Entry(intent, residual, vectorize(residual), response, latencyMillis));
+    }
+
+    /**
+     * 规范化后去掉意图关键词和填充词
+     */
+    private String residual(String message, ChatIntent intent) {
+        String text = normalize(message);
+        for (String keyword : intent.getKeywords()) {
+            text = text.replace(keyword, "");
+        }
+        for (String filler : FILLERS) {
+            text = text.replace(filler, "");
+        }
+        return text;
+    }
+
+    /**
+     * 全角转半角、转小写，只保留文字和数字
+     */
+    private String normalize(String message) {
+        StringBuilder builder = new StringBuilder(message.length());
+        for (int i = 0; i < message.length(); i++) {
+            char c = message.charAt(i);
+            if (c == '　') {
+                continue;
+            }
+            if (c >= '！' && c <= '～') {
+                c = (char) (c - 0xFEE0);
+            }
+            if (Character.isLetterOrDigit(c)) {
+                builder.append(c);
+            }
+        }
+        return builder.toString().toLowerCase(Locale.ROOT);
+    }
+
+    /**
+     * 单字和n字片段的词频向量
+     */
+    private Map<String, Integer> vectorize(String text) {
+        Map<String, Integer> vector = new HashMap<>();
+        for (int i = 0; i < text.length(); i++) {
+            vector.merge(text.substring(i, i + 1), 1, Integer::sum);
+            if (ngram > 1 && i + ngram <= text.length()) {
+                vector.merge(text.substring(i, i + ngram), 1, Integer::sum);
+            }
+        }
+        return vector;
+    }
+
+    private static double norm(Map<String, Integer> vector) {
+        double sum = 0;
+        for (int count : vector.values()) {
+            sum += (double) count * count;
+        }
+        return Math.sqrt(sum);
+    }
+
+    private static double cosine(Map<String, Integer> vector, double norm, Entry entry) {
+        if (norm == 0 || entry.norm == 0) {
+            return 0;
+        }
+        double dot = 0;
+        for (Map.Entry<String, Integer> term : vector.entrySet()) {
+            Integer count = entry.vector.get(term.getKey());
+            if (count != null) {
+                dot += (double) term.getValue() * count;
+            }
+        }
+        return dot / (norm * entry.norm);
+    }
+
+    private static class Entry {
+
+        private final ChatIntent intent;
+
+        private final String residual;
+
+        private final Map<String, Integer> vector;
+
+        private final double norm;
+
+        private final String response;
+
+        private final long latencyMillis;
+
+        private Entry(ChatIntent intent, String residual, Map<String, Integer> vector, String response, long latencyMillis) {
+            this.intent = intent;
+            this.residual = residual;
+            this.vector = vector;
+            this.norm = norm(vector);
+            this.response = response;
+            this.latencyMillis = latencyMillis;
+        }
+    }
+}
@@ -1,24 +1,50 @@
 package com.music.service;
 
+import com.music.dto.ChatHistoryDto;
 import com.music.dto.ChatResponseDto;
 
+import reactor.core.publisher.Flux;
+
+import java.util.concurrent.CompletableFuture;
+
 /**
  * AI聊天服务接口
  */
 public interface ChatService {
     
     /**
-     * 处理用户消息
+     * 确定本次对话使用的会话ID
+     * @param userId 用户ID
+     * @param sessionId 客户端传入的会话ID（可为空）
+     * @return 传入的ID合法时原样返回，否则返回新的会话ID
+     */
+    String openSession(Long userId, String sessionId);
+    
+    /**
+     * 处理用户消息（异步，等待模型回复期间不占用请求线程）
      * @param userId 用户ID
+     * @param sessionId 会话ID
      * @param message 用户消息
      * @return AI回复
+     * @throws IllegalStateException 该用户进行中的请求数已达上限
+     */
+    CompletableFuture<ChatResponseDto> processMessage(Long userId, String sessionId, String message);
+    
+    /**
+     * 流式处理用户消息，按到达顺序返回回复片段；取消订阅时同时取消上游请求
+     * @param userId 用户ID
+     * @param sessionId 会话ID
+     * @param message 用户消息
+     * @return 回复片段
+     * @throws IllegalStateException 该用户进行中的请求数已达上限
      */
-    ChatResponseDto processMessage(Long userId, String message);
+    Flux<String> streamMessage(Long userId, String sessionId, String message);
     
     /**
-     * 获取用户聊天历史
+     * 获取会话的聊天历史
      * @param userId 用户ID
+     * @param sessionId 会话ID
      * @return 聊天历史
      */
-    Object getChatHistory(Long userId);
+    ChatHistoryDto getChatHistory(Long userId, String sessionId);
 }
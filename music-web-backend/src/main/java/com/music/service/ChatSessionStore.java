@@ -0,0 +1,396 @@
+package com.music.service;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.music.dto.ChatHistoryDto;
+import com.music.dto.ChatMessageDto;
+import io.micrometer.core.instrument.FunctionCounter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.redis.core.StringRedisTemplate;
+import org.springframework.stereotype.Service;
+
+import javax.annotation.PostConstruct;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.LinkedList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * AI聊天会话存储
+ * 每个会话在内存中保留最近若干条消息，超出上限时把较早的一半压缩进摘要（先摘录用户提问，配置了模型时再异步生成摘要替换），
+ * 单个会话最多占用 max-messages × max-message-chars + summary-max-chars 个字符；
+ * 每轮对话后写入Redis，内存中已淘汰或在其他节点创建的会话从Redis恢复；
+ * 发给模型的历史按估算的token预算从最近的一轮往前截取
+ */
+@Slf4j
+@Service
+public class ChatSessionStore {
+
+    private static final String KEY_PREFIX = "music:chat:session:";
+
+    private static final String ROLE_USER = "user";
+
+    private static final String ROLE_ASSISTANT = "assistant";
+
+    private static final String SUMMARY_PROMPT =
+            "请把下面的音乐助手对话压缩成一段不超过%d字的中文摘要，保留用户的音乐偏好、提到的歌曲和歌手以及尚未解决的问题，只输出摘要。";
+
+    @Autowired
+    private StringRedisTemplate stringRedisTemplate;
+
+    @Autowired
+    private ObjectMapper objectMapper;
+
+    @Autowired
+    private DeepSeekClient deepSeekClient;
+
+    @Autowired
+    private MeterRegistry meterRegistry;
+
+    @Value("${chat.session.max-sessions:10000}")
+    private long maxSessions;
+
+    @Value("${chat.session.idle-timeout:1800000}")
+    private long idleTimeout;
+
+    @Value("${chat.session.max-messages:20}")
+    private int maxMessages;
+
+    @Value("${chat.session.max-message-chars:2000}")
+    private int maxMessageChars;
+
+    @Value("${chat.session.summary-max-chars:300}")
+    private int summaryMaxChars;
+
+    @Value("${chat.session.history-token-budget:1500}")
+    private int historyTokenBudget;
+
+    @Value("${chat.session.redis-enabled:true}")
+    private boolean redisEnabled;
+
+    @Value("${chat.session.redis-ttl:86400000}")
+    private long redisTtl;
+
+    @Value("${chat.session.retry-interval:30000}")
+    private long retryInterval;
+
+    private Cache<String, ChatSession> sessions;
+
+    private volatile long lastFailureTime;
+
+    private final LongAdder compactions = new LongAdder();
+
+    private final LongAdder modelSummaries = new LongAdder();
+
+    private final LongAdder redisLoads = new LongAdder();
+
+    private final LongAdder redisFailures = new LongAdder();
+
+    @PostConstruct
+    public void init() {
+        sessions = Caffeine.newBuilder()
+                .maximumSize(maxSessions)
+                .expireAfterAccess(idleTimeout, TimeUnit.MILLISECONDS)
+                .build();
+
+        Gauge.builder("chat.sessions", sessions, Cache::estimatedSize)
+                .description("内存中的聊天会话数")
+                .register(meterRegistry);
+        Gauge.builder("chat.sessions.chars", this, store -> store.sessionChars(false))
+                .description("内存中全部会话的字符数")
+                .register(meterRegistry);
+        Gauge.builder("chat.sessions.chars.max", this, store -> store.sessionChars(true))
+                .description("单个会话的最大字符数")
+                .register(meterRegistry);
+        FunctionCounter.builder("chat.sessions.compactions", compactions, LongAdder::sum)
+                .description("会话超出条数上限后压缩进摘要的次数")
+                .register(meterRegistry);
+        FunctionCounter.builder("chat.sessions.summaries", modelSummaries, LongAdder::sum)
+                .description("由模型生成的会话摘要数")
+                .register(meterRegistry);
+        FunctionCounter.builder("chat.sessions.redis.loads", redisLoads, LongAdder::sum)
+                .description("从Redis恢复的会话数")
+                .register(meterRegistry);
+        FunctionCounter.builder("chat.sessions.redis.failures", redisFailures, LongAdder::sum)
+                .description("会话读写Redis失败的次数")
+                .register(meterRegistry);
+    }
+
+    /**
+     * 发给模型的历史消息（摘要 + 预算内最近的几轮），会话没有历史时返回空列表
+     */
+    public List<Map<String, String>> getPromptHistory(Long userId, String sessionId) {
+        ChatSession session = getSession(key(userId, sessionId));
+        LinkedList<Map<String, String>> history = new LinkedList<>();
+        synchronized (session) {
+            int budget = historyTokenBudget;
+            if (session.summary != null) {
+                budget -= estimateTokens(session.summary);
+            }
+            // 从最近的一轮往前按轮取，保证用户提问和回复成对出现
+            Iterator<ChatMessageDto> iterator = session.messages.descendingIterator();
+            while (iterator.hasNext()) {
+                ChatMessageDto reply = iterator.next();
+                if (!iterator.hasNext()) {
+                    break;
+                }
+                ChatMessageDto question = iterator.next();
+                budget -= estimateTokens(reply.getContent()) + estimateTokens(question.getContent());
+                if (budget < 0) {
+                    break;
+                }
+                history.addFirst(message(reply.getRole(), reply.getContent()));
+                history.addFirst(message(question.getRole(), question.getContent()));
+            }
+            if (session.summary != null) {
+                history.addFirst(message("system", "此前对话的摘要：" + session.summary));
+            }
+        }
+        return history;
+    }
+
+    /**
+     * 追加一轮对话，消息数超出上限时压缩较早的消息并写入Redis
+     */
+    public void append(Long userId, String sessionId, String userMessage, String reply) {
+        String key = key(userId, sessionId);
+        ChatSession session = getSession(key);
+        long now = System.currentTimeMillis();
+        List<ChatMessageDto> compacted = null;
+        String previousSummary = null;
+        int version = 0;
+        ChatHistoryDto snapshot;
+        synchronized (session) {
+            session.add(new ChatMessageDto(ROLE_USER, truncate(userMessage, maxMessageChars), now));
+            session.add(new ChatMessageDto(ROLE_ASSISTANT, truncate(reply, maxMessageChars), now));
+            if (session.messages.size() > maxMessages) {
+                // 保留最近的一半（按轮），其余移入摘要
+                int keep = (maxMessages / 2) & ~1;
+                compacted = new ArrayList<>();
+                while (session.messages.size() > keep) {
+                    compacted.add(session.poll());
+                }
+                previousSummary = session.summary;
+                session.setSummary(excerpt(previousSummary, compacted));
+                version = ++session.summaryVersion;
+            }
+            snapshot = session.snapshot(sessionId);
+        }
+        persist(key, snapshot);
+
+        if (compacted != null) {
+            compactions.increment();
+            summarize(key, session, sessionId, previousSummary, compacted, version);
+        }
+    }
+
+    /**
+     * 会话历史
+     */
+    public ChatHistoryDto getHistory(Long userId, String sessionId) {
+        ChatSession session = getSession(key(userId, sessionId));
+        synchronized (session) {
+            return session.snapshot(sessionId);
+        }
+    }
+
+    /**
+     * 内存中会话的字符数之和或最大值
+     */
+    private long sessionChars(boolean max) {
+        long result = 0;
+        for (ChatSession session : sessions.asMap().values()) {
+            int chars;
+            synchronized (session) {
+                chars = session.chars;
+            }
+            result = max ? Math.max(result, chars) : result + chars;
+        }
+        return result;
+    }
+
+    private ChatSession getSession(String key) {
+        return sessions.get(key, this::load);
+    }
+
+    /**
+     * 从Redis恢复会话，不存在或Redis不可用时返回空会话
+     */
+    private ChatSession load(String key) {
+        ChatSession session = new ChatSession();
+        if (!isRedisAvailable()) {
+            return session;
+        }
+        try {
+            String json = stringRedisTemplate.opsForValue().get(KEY_PREFIX + key);
+            if (json != null) {
+                ChatHistoryDto history = objectMapper.readValue(json, ChatHistoryDto.class);
+                session.setSummary(history.getSummary());
+                for (ChatMessageDto message : history.getMessages()) {
+                    session.add(message);
+                }
+                redisLoads.increment();
+            }
+        } catch (Exception e) {
+            markFailure(e);
+        }
+        return session;
+    }
+
+    private void persist(String key, ChatHistoryDto snapshot) {
+        if (!isRedisAvailable()) {
+            return;
+        }
+        try {
+            stringRedisTemplate.opsForValue().set(KEY_PREFIX + key, objectMapper.writeValueAsString(snapshot),
+                    redisTtl, TimeUnit.MILLISECONDS);
+        } catch (Exception e) {
+            markFailure(e);
+        }
+    }
+
+    /**
+     * 异步让模型生成摘要；期间又发生压缩、会话已被淘汰或调用失败时保留摘录摘要
+     */
+    private void summarize(String key, ChatSession session, String sessionId, String previousSummary,
+                           List<ChatMessageDto> compacted, int version) {
+        if (!deepSeekClient.isConfigured()) {
+            return;
+        }
+        StringBuilder transcript = new StringBuilder();
+        if (previousSummary != null) {
+            transcript.append("此前摘要：").append(previousSummary).append('\n');
+        }
+        for (ChatMessageDto message : compacted) {
+            transcript.append(ROLE_USER.equals(message.getRole()) ? "用户：" : "助手：")
+                    .append(message.getContent()).append('\n');
+        }
+        List<Map<String, String>> prompt = new ArrayList<>();
+        prompt.add(message("system", String.format(SUMMARY_PROMPT, summaryMaxChars)));
+        prompt.add(message(ROLE_USER, transcript.toString()));
+
+        deepSeekClient.chat(prompt).whenComplete((summary, error) -> {
+            if (error != null || summary == null || summary.trim().isEmpty()) {
+                log.debug("会话摘要生成失败，保留摘录摘要: {}", error != null ? error.getMessage() : "空摘要");
+                return;
+            }
+            ChatHistoryDto snapshot;
+            synchronized (session) {
+                if (session.summaryVersion != version || sessions.getIfPresent(key) != session) {
+                    return;
+                }
+                session.setSummary(truncate(summary.trim(), summaryMaxChars));
+                snapshot = session.snapshot(sessionId);
+            }
+            modelSummaries.increment();
+            persist(key, snapshot);
+        });
+    }
+
+    /**
+     * 摘录摘要：在原摘要后追加被移出的用户提问，超长时保留最近的部分
+     */
+    private String excerpt(String previousSummary, List<ChatMessageDto> compacted) {
+        StringBuilder summary = new StringBuilder(previousSummary != null ? previousSummary : "");
+        for (ChatMessageDto message : compacted) {
+            if (ROLE_USER.equals(message.getRole())) {
+                summary.append("用户问过：").append(truncate(message.getContent(), 50)).append('；');
+            }
+        }
+        if (summary.length() > summaryMaxChars) {
+            return summary.substring(summary.length() - summaryMaxChars);
+        }
+        return summary.length() > 0 ? summary.toString() : null;
+    }
+
+    /**
+     * 估算token数：中日韩字符按每字1个，其余按每4个字符1个
+     */
+    private static int estimateTokens(String text) {
+        int cjk = 0;
+        int other = 0;
+        for (int i = 0; i < text.length(); i++) {
+            if (text.charAt(i) >= 0x2E80) {
+                cjk++;
+            } else {
+                other++;
+            }
+        }
+        return cjk + (other + 3) / 4;
+    }
+
+    private static String truncate(String text, int maxChars) {
+        return text.length() > maxChars ? text.substring(0, maxChars) : text;
+    }
+
+    private static Map<String, String> message(String role, String content) {
+        Map<String, String> message = new HashMap<>();
+        message.put("role", role);
+        message.put("content", content);
+        return message;
+    }
+
+    private static String key(Long userId, String sessionId) {
+        return userId + ":" + sessionId;
+    }
+
+    private boolean isRedisAvailable() {
+        return redisEnabled && System.currentTimeMillis() - lastFailureTime >= retryInterval;
+    }
+
+    private void markFailure(Exception e) {
+        lastFailureTime = System.currentTimeMillis();
+        redisFailures.increment();
+        log.warn("聊天会话Redis不可用，{} 秒内只保存在内存: {}", retryInterval / 1000, e.getMessage());
+    }
+
+    /**
+     * 内存中的会话，仅在持有本对象锁时访问
+     */
+    private static class ChatSession {
+
+        private final ArrayDeque<ChatMessageDto> messages = new ArrayDeque<>();
+
+        private String summary;
+
+        // 消息和摘要的字符总数
+        private int chars;
+
+        // 每次压缩递增，异步摘要返回时据此判断是否已过期
+        private int summaryVersion;
+
+        private void add(ChatMessageDto message) {
+            messages.addLast(message);
+            chars += message.getContent().length();
+        }
+
+        private ChatMessageDto poll() {
+            ChatMessageDto message = messages.pollFirst();
+            chars -= message.getContent().length();
+            return message;
+        }
+
+        private void setSummary(String summary) {
+            chars += (summary != null ? summary.length() : 0) - (this.summary != null ? this.summary.length() : 0);
+            this.summary = summary;
+        }
+
+        private ChatHistoryDto snapshot(String sessionId) {
+            ChatHistoryDto history = new ChatHistoryDto();
+            history.setSessionId(sessionId);
+            history.setSummary(summary);
+            history.setMessages(new ArrayList<>(messages));
+            return history;
+        }
+    }
+}
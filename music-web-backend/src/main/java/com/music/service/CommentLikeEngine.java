@@ -0,0 +1,633 @@
+package com.music.service;
+
+import com.music.entity.Comment;
+import com.music.mapper.CommentMapper;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import lombok.extern.slf4j.Slf4j;
+import org.roaringbitmap.longlong.Roaring64Bitmap;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.redis.core.StringRedisTemplate;
+import org.springframework.data.redis.core.script.DefaultRedisScript;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import javax.annotation.PostConstruct;
+import javax.annotation.PreDestroy;
+import java.sql.Timestamp;
+import java.util.AbstractMap;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Set;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * 评论点赞引擎
+ * 活跃评论的点赞用户集合保存在Redis集合中，点赞/取消由Lua脚本原子翻转，所有节点共享同一份状态；
+ * Redis不可用或未启用时退回本节点内存中的压缩位图（Roaring），Redis恢复后释放这些位图，由数据库重新加载；
+ * comment_likes 记录和 like_count 增量由定时任务批量写回数据库，同一用户在刷盘前的多次点击只保留最终状态，
+ * 写库时以Redis中的当前状态为准，多个节点先后刷同一条变更时结果一致
+ */
+@Slf4j
+@Service
+public class CommentLikeEngine {
+
+    private static final String KEY_PREFIX = "music:comment:likes:";
+
+    // 空集合在Redis中不存在，以占位成员区分"已加载但无人点赞"和"未加载"
+    private static final String PLACEHOLDER = "-";
+
+    private static final int SEED_CHUNK_SIZE = 1000;
+
+    // KEYS[1] 点赞集合，ARGV[1] 用户ID，ARGV[2] 过期时间(毫秒)；返回1为点赞、0为取消，-1表示集合未加载
+    private static final DefaultRedisScript<Long> TOGGLE_SCRIPT = new DefaultRedisScript<>(
+            "if redis.call('EXISTS', KEYS[1]) == 0 then return -1 end " +
+            "redis.call('PEXPIRE', KEYS[1], ARGV[2]) " +
+            "if redis.call('SREM', KEYS[1], ARGV[1]) == 1 then return 0 end " +
+            "redis.call('SADD', KEYS[1], ARGV[1]) " +
+            "return 1",
+            Long.class);
+
+    // KEYS 各评论的点赞集合，ARGV 对应的用户ID，最后一个参数为过期时间(毫秒)；逐条返回1已点赞、0未点赞，-1表示集合未加载
+    @SuppressWarnings("rawtypes")
+    private static final DefaultRedisScript<List> MEMBERS_SCRIPT = new DefaultRedisScript<>(
+            "local result = {} " +
+            "for i = 1, #KEYS do " +
+            "  if redis.call('EXISTS', KEYS[i]) == 0 then result[i] = -1 " +
+            "  else " +
+            "    redis.call('PEXPIRE', KEYS[i], ARGV[#ARGV]) " +
+            "    result[i] = redis.call('SISMEMBER', KEYS[i], ARGV[i]) " +
+            "  end " +
+            "end " +
+            "return result",
+            List.class);
+
+    // KEYS[1] 点赞集合，ARGV[1] 用户ID；返回 {是否点赞, 点赞数}，集合未加载时返回空
+    @SuppressWarnings("rawtypes")
+    private static final DefaultRedisScript<List> STATE_SCRIPT = new DefaultRedisScript<>(
+            "if redis.call('EXISTS', KEYS[1]) == 0 then return false end " +
+            "return {redis.call('SISMEMBER', KEYS[1], ARGV[1]), redis.call('SCARD', KEYS[1]) - 1}",
+            List.class);
+
+    @Autowired
+    private CommentMapper commentMapper;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @Autowired
+    private TransactionTemplate transactionTemplate;
+
+    @Autowired
+    private CommentThreadCache commentThreadCache;
+
+    @Autowired
+    private StringRedisTemplate stringRedisTemplate;
+
+    @Autowired
+    private MeterRegistry meterRegistry;
+
+    @Value("${comment-like.redis-enabled:true}")
+    private boolean redisEnabled;
+
+    @Value("${comment-like.retry-interval:30000}")
+    private long retryInterval;
+
+    @Value("${comment-like.batch-size:500}")
+    private int batchSize;
+
+    @Value("${comment-like.idle-timeout:600000}")
+    private long idleTimeout;
+
+    // Redis不可用期间在本节点内存中维护的评论点赞位图
+    private final ConcurrentHashMap<Long, LikeState> states = new ConcurrentHashMap<>();
+
+    // 经本节点点赞过、状态在Redis中的评论，记录所属目标用于刷盘后清理评论缓存
+    private final ConcurrentHashMap<Long, CommentTarget> targets = new ConcurrentHashMap<>();
+
+    // 尚未写入数据库的最终点赞状态，true为点赞，false为取消
+    private final ConcurrentHashMap<LikeKey, Boolean> pending = new ConcurrentHashMap<>();
+
+    private final ReentrantLock flushLock = new ReentrantLock();
+
+    // Redis最近一次失败的时间，重试间隔内使用本地位图
+    private volatile long lastFailureTime;
+
+    /**
+     * 注册本地位图和Redis中的评论数量、待写入变更数指标
+     */
+    @PostConstruct
+    public void registerMetrics() {
+        Gauge.builder("comment.like.local.comments", states, Map::size)
+                .description("本节点内存位图中的评论数")
+                .register(meterRegistry);
+        Gauge.builder("comment.like.remote.comments", targets, Map::size)
+                .description("点赞状态在Redis中、待刷盘后清理缓存的评论数")
+                .register(meterRegistry);
+        Gauge.builder("comment.like.pending", pending, Map::size)
+                .description("尚未写入数据库的点赞变更数")
+                .register(meterRegistry);
+    }
+
+    /**
+     * 点赞/取消点赞
+     *
+     * @return true表示点赞，false表示取消点赞
+     * @throws IllegalArgumentException 评论不存在
+     */
+    public boolean toggle(Long commentId, Long userId) {
+        if (!states.containsKey(commentId) && isRedisAvailable()) {
+            CommentTarget target = targets.computeIfAbsent(commentId, this::loadTarget);
+            if (target == null) {
+                throw new IllegalArgumentException("评论不存在");
+            }
+            target.lastAccess = System.currentTimeMillis();
+            Boolean liked = toggleRemote(commentId, userId);
+            if (liked != null) {
+                // 只标记需要刷盘，写库时再从Redis读取最终状态
+                pending.put(new LikeKey(commentId, userId), liked);
+                return liked;
+            }
+        }
+
+        LikeState state = states.computeIfAbsent(commentId, this::load);
+        if (state == null) {
+            throw new IllegalArgumentException("评论不存在");
+        }
+        synchronized (state) {
+            boolean liked = !state.likers.contains(userId);
+            if (liked) {
+                state.likers.addLong(userId);
+            } else {
+                state.likers.removeLong(userId);
+            }
+            state.lastAccess = System.currentTimeMillis();
+            pending.put(new LikeKey(commentId, userId), liked);
+            return liked;
+        }
+    }
+
+    /**
+     * 用户是否点赞了评论；评论不在内存中且没有待写入的变更时返回null，由调用方使用数据库中的状态
+     */
+    public Boolean isLiked(Long commentId, Long userId) {
+        if (userId == null) {
+            return null;
+        }
+        LikeState state = states.get(commentId);
+        if (state != null) {
+            synchronized (state) {
+                return state.likers.contains(userId);
+            }
+        }
+        List<Long> remote = getRemoteState(commentId, userId);
+        if (remote != null) {
+            return remote.get(0) == 1;
+        }
+        return pending.get(new LikeKey(commentId, userId));
+    }
+
+    /**
+     * 评论的实时点赞数；评论不在内存或Redis中时返回null
+     */
+    public Integer getLikeCount(Long commentId) {
+        LikeState state = states.get(commentId);
+        if (state == null) {
+            List<Long> remote = getRemoteState(commentId, null);
+            return remote != null ? remote.get(1).intValue() : null;
+        }
+        synchronized (state) {
+            return (int) state.likers.getLongCardinality();
+        }
+    }
+
+    /**
+     * 在Redis中翻转点赞状态，集合未加载时先从数据库加载；Redis失败时返回null
+     */
+    private Boolean toggleRemote(Long commentId, Long userId) {
+        String key = KEY_PREFIX + commentId;
+        try {
+            for (int attempt = 0; attempt < 2; attempt++) {
+                Long result = stringRedisTemplate.execute(TOGGLE_SCRIPT, Collections.singletonList(key),
+                        userId.toString(), String.valueOf(idleTimeout));
+                if (result == null) {
+                    return null;
+                }
+                if (result >= 0) {
+                    return result == 1;
+                }
+                seed(commentId, key);
+            }
+            // 加载后立即被清除，本次使用本地位图
+            return null;
+        } catch (Exception e) {
+            markFailure(e);
+            return null;
+        }
+    }
+
+    /**
+     * 从数据库加载点赞用户到Redis，并叠加本节点尚未写入的变更
+     * 先写入临时键再以 RENAMENX 放到正式键上，多个节点同时加载时保留先完成的一份
+     */
+    private void seed(Long commentId, String key) {
+        flushLock.lock();
+        try {
+            Set<String> members = new LinkedHashSet<>();
+            members.add(PLACEHOLDER);
+            for (Long userId : jdbcTemplate.queryForList(
+                    "SELECT user_id FROM comment_likes WHERE comment_id = ?", Long.class, commentId)) {
+                members.add(userId.toString());
+            }
+            for (Map.Entry<LikeKey, Boolean> entry : pending.entrySet()) {
+                if (entry.getKey().commentId == commentId) {
+                    if (entry.getValue()) {
+                        members.add(String.valueOf(entry.getKey().userId));
+                    } else {
+                        members.remove(String.valueOf(entry.getKey().userId));
+                    }
+                }
+            }
+
+            String seedKey = key + ":seeding:" + UUID.randomUUID();
+            List<String> chunk = new ArrayList<>(SEED_CHUNK_SIZE);
+            for (String member : members) {
+                chunk.add(member);
+                if (chunk.size() >= SEED_CHUNK_SIZE) {
+                    stringRedisTemplate.opsForSet().add(seedKey, chunk.toArray(new String[0]));
+                    chunk.clear();
+                }
+            }
+            if (!chunk.isEmpty()) {
+                stringRedisTemplate.opsForSet().add(seedKey, chunk.toArray(new String[0]));
+            }
+            stringRedisTemplate.expire(seedKey, idleTimeout, TimeUnit.MILLISECONDS);
+            if (!Boolean.TRUE.equals(stringRedisTemplate.renameIfAbsent(seedKey, key))) {
+                stringRedisTemplate.delete(seedKey);
+            }
+        } finally {
+            flushLock.unlock();
+        }
+    }
+
+    /**
+     * Redis中的 {是否点赞, 点赞数}；只查询经本节点点赞过的评论，其余评论的变更在刷盘并清理评论缓存后可见
+     */
+    private List<Long> getRemoteState(Long commentId, Long userId) {
+        if (!targets.containsKey(commentId) || !isRedisAvailable()) {
+            return null;
+        }
+        try {
+            List<?> result = stringRedisTemplate.execute(STATE_SCRIPT,
+                    Collections.singletonList(KEY_PREFIX + commentId), userId != null ? userId.toString() : "");
+            if (result == null || result.size() < 2) {
+                return null;
+            }
+            List<Long> state = new ArrayList<>(2);
+            for (Object value : result) {
+                state.add(((Number) value).longValue());
+            }
+            return state;
+        } catch (Exception e) {
+            markFailure(e);
+            return null;
+        }
+    }
+
+    /**
+     * 批量读取Redis中的点赞状态；本地位图中的评论、集合未加载或Redis失败时使用本节点记录的状态
+     */
+    private Boolean[] currentStates(List<Map.Entry<LikeKey, Boolean>> batch) {
+        Boolean[] values = new Boolean[batch.size()];
+        List<String> keys = new ArrayList<>();
+        List<String> args = new ArrayList<>();
+        List<Integer> positions = new ArrayList<>();
+        for (int i = 0; i < batch.size(); i++) {
+            LikeKey key = batch.get(i).getKey();
+            values[i] = batch.get(i).getValue();
+            if (!states.containsKey(key.commentId)) {
+                keys.add(KEY_PREFIX + key.commentId);
+                args.add(String.valueOf(key.userId));
+                positions.add(i);
+            }
+        }
+        if (keys.isEmpty() || !isRedisAvailable()) {
+            return values;
+        }
+
+        args.add(String.valueOf(idleTimeout));
+        try {
+            List<?> result = stringRedisTemplate.execute(MEMBERS_SCRIPT, keys, args.toArray());
+            if (result != null && result.size() == keys.size()) {
+                for (int i = 0; i < result.size(); i++) {
+                    long member = ((Number) result.get(i)).longValue();
+                    if (member >= 0) {
+                        values[positions.get(i)] = member == 1;
+                    }
+                }
+            }
+        } catch (Exception e) {
+            markFailure(e);
+        }
+        return values;
+    }
+
+    private CommentTarget loadTarget(Long commentId) {
+        Comment comment = commentMapper.selectById(commentId);
+        if (comment == null || comment.getStatus() == null || comment.getStatus() != 1) {
+            return null;
+        }
+        return new CommentTarget(comment.getTargetType(), comment.getTargetId());
+    }
+
+    /**
+     * 从数据库加载点赞用户，并叠加尚未写入的变更
+     * 持有刷盘锁，避免刷盘在读库与读取待写入变更之间完成而丢失这部分变更
+     */
+    private LikeState load(Long commentId) {
+        flushLock.lock();
+        try {
+            return doLoad(commentId);
+        } finally {
+            flushLock.unlock();
+        }
+    }
+
+    private LikeState doLoad(Long commentId) {
+        Comment comment = commentMapper.selectById(commentId);
+        if (comment == null || comment.getStatus() == null || comment.getStatus() != 1) {
+            return null;
+        }
+        LikeState state = new LikeState(new CommentTarget(comment.getTargetType(), comment.getTargetId()));
+        List<Long> userIds = jdbcTemplate.queryForList(
+                "SELECT user_id FROM comment_likes WHERE comment_id = ?", Long.class, commentId);
+        for (Long userId : userIds) {
+            state.likers.addLong(userId);
+        }
+        for (Map.Entry<LikeKey, Boolean> entry : pending.entrySet()) {
+            if (entry.getKey().commentId == commentId) {
+                if (entry.getValue()) {
+                    state.likers.addLong(entry.getKey().userId);
+                } else {
+                    state.likers.removeLong(entry.getKey().userId);
+                }
+            }
+        }
+        state.likers.runOptimize();
+        return state;
+    }
+
+    /**
+     * 定时刷盘
+     */
+    @Scheduled(fixedDelayString = "${comment-like.flush-interval:1000}")
+    public void scheduledFlush() {
+        flush();
+        evictIdle();
+        releaseLocalStates();
+    }
+
+    /**
+     * 将待写入的点赞状态批量写回数据库；写库失败时保留变更，下次重试
+     */
+    public void flush() {
+        flushLock.lock();
+        try {
+            if (pending.isEmpty()) {
+                return;
+            }
+            List<Map.Entry<LikeKey, Boolean>> entries = new ArrayList<>();
+            for (Map.Entry<LikeKey, Boolean> entry : pending.entrySet()) {
+                entries.add(new AbstractMap.SimpleImmutableEntry<>(entry.getKey(), entry.getValue()));
+            }
+
+            int flushed = 0;
+            for (int from = 0; from < entries.size(); from += batchSize) {
+                List<Map.Entry<LikeKey, Boolean>> batch = entries.subList(from, Math.min(from + batchSize, entries.size()));
+                Boolean[] values = currentStates(batch);
+                Map<Long, Integer> deltas;
+                try {
+                    deltas = transactionTemplate.execute(status -> persist(batch, values));
+                } catch (Exception e) {
+                    log.error("评论点赞刷盘失败，{} 条变更将在下次重试", batch.size(), e);
+                    continue;
+                }
+
+                // 其他节点可能在读取状态与写库之间翻转并先完成刷盘，写库后再读一次，不一致的按最新状态重写
+                Boolean[] latest = currentStates(batch);
+                for (int i = 0; i < batch.size(); i++) {
+                    Map.Entry<LikeKey, Boolean> entry = batch.get(i);
+                    // 刷盘期间本节点又有新的点击时保留新的变更
+                    if (pending.remove(entry.getKey(), entry.getValue()) && !latest[i].equals(values[i])) {
+                        pending.putIfAbsent(entry.getKey(), latest[i]);
+                    }
+                    CommentTarget target = targetOf(entry.getKey().commentId);
+                    if (target != null) {
+                        commentThreadCache.invalidateLikedIds(entry.getKey().userId, target.targetType, target.targetId);
+                    }
+                }
+                if (deltas != null) {
+                    for (Map.Entry<Long, Integer> delta : deltas.entrySet()) {
+                        CommentTarget target = targetOf(delta.getKey());
+                        if (target != null) {
+                            commentThreadCache.adjustLikeCount(target.targetType, target.targetId,
+                                    delta.getKey(), delta.getValue());
+                        }
+                    }
+                }
+                flushed += batch.size();
+            }
+            log.debug("评论点赞刷盘完成，共 {} 条变更", flushed);
+        } finally {
+            flushLock.unlock();
+        }
+    }
+
+    /**
+     * 写入一批点赞变更，按实际影响的行数计算各评论的点赞数增量
+     */
+    private Map<Long, Integer> persist(List<Map.Entry<LikeKey, Boolean>> batch, Boolean[] values) {
+        List<Object[]> likes = new ArrayList<>();
+        List<Object[]> unlikes = new ArrayList<>();
+        List<Long> likeCommentIds = new ArrayList<>();
+        List<Long> unlikeCommentIds = new ArrayList<>();
+        Timestamp now = new Timestamp(System.currentTimeMillis());
+        for (int i = 0; i < batch.size(); i++) {
+            LikeKey key = batch.get(i).getKey();
+            if (values[i]) {
+                likes.add(new Object[]{key.commentId, key.userId, now});
+                likeCommentIds.add(key.commentId);
+            } else {
+                unlikes.add(new Object[]{key.commentId, key.userId});
+                unlikeCommentIds.add(key.commentId);
+            }
+        }
+
+        Map<Long, Integer> deltas = new HashMap<>();
+        if (!likes.isEmpty()) {
+            int[] rows = jdbcTemplate.batchUpdate(
+                    "INSERT IGNORE INTO comment_likes (comment_id, user_id, create_time) VALUES (?, ?, ?)", likes);
+            accumulate(deltas, likeCommentIds, rows, 1);
+        }
+        if (!unlikes.isEmpty()) {
+            int[] rows = jdbcTemplate.batchUpdate(
+                    "DELETE FROM comment_likes WHERE comment_id = ? AND user_id = ?", unlikes);
+            accumulate(deltas, unlikeCommentIds, rows, -1);
+        }
+
+        List<Object[]> updates = new ArrayList<>();
+        for (Map.Entry<Long, Integer> delta : deltas.entrySet()) {
+            if (delta.getValue() != 0) {
+                updates.add(new Object[]{delta.getValue(), delta.getKey()});
+            }
+        }
+        if (!updates.isEmpty()) {
+            jdbcTemplate.batchUpdate(
+                    "UPDATE comments SET like_count = GREATEST(like_count + ?, 0) WHERE id = ?", updates);
+        }
+        return deltas;
+    }
+
+    private void accumulate(Map<Long, Integer> deltas, List<Long> commentIds, int[] rows, int sign) {
+        for (int i = 0; i < rows.length; i++) {
+            if (rows[i] > 0) {
+                deltas.merge(commentIds.get(i), sign, Integer::sum);
+            }
+        }
+    }
+
+    /**
+     * 释放长时间未访问且没有待写入变更的评论位图
+     */
+    private void evictIdle() {
+        long now = System.currentTimeMillis();
+        Set<Long> dirty = dirtyComments();
+        states.entrySet().removeIf(entry -> now - entry.getValue().lastAccess > idleTimeout
+                && !dirty.contains(entry.getKey()));
+        targets.entrySet().removeIf(entry -> now - entry.getValue().lastAccess > idleTimeout
+                && !dirty.contains(entry.getKey()));
+    }
+
+    /**
+     * Redis恢复后释放已写回数据库的本地位图，并删除Redis中对应的集合（其中缺少Redis不可用期间的变更），
+     * 之后的点赞从数据库重新加载到Redis
+     */
+    private void releaseLocalStates() {
+        if (states.isEmpty() || !isRedisAvailable()) {
+            return;
+        }
+        Set<Long> dirty = dirtyComments();
+        for (Long commentId : new ArrayList<>(states.keySet())) {
+            if (dirty.contains(commentId)) {
+                continue;
+            }
+            try {
+                stringRedisTemplate.delete(KEY_PREFIX + commentId);
+            } catch (Exception e) {
+                markFailure(e);
+                return;
+            }
+            states.remove(commentId);
+        }
+    }
+
+    private Set<Long> dirtyComments() {
+        Set<Long> dirty = new HashSet<>();
+        for (LikeKey key : pending.keySet()) {
+            dirty.add(key.commentId);
+        }
+        return dirty;
+    }
+
+    private CommentTarget targetOf(long commentId) {
+        LikeState state = states.get(commentId);
+        return state != null ? state.target : targets.get(commentId);
+    }
+
+    private boolean isRedisAvailable() {
+        return redisEnabled && System.currentTimeMillis() - lastFailureTime >= retryInterval;
+    }
+
+    private void markFailure(Exception e) {
+        lastFailureTime = System.currentTimeMillis();
+        log.warn("Redis评论点赞不可用，{} 毫秒内使用本地位图: {}", retryInterval, e.getMessage());
+    }
+
+    /**
+     * 应用关闭时写回所有变更
+     */
+    @PreDestroy
+    public void shutdown() {
+        flush();
+        log.info("评论点赞变更已写回，剩余 {} 条", pending.size());
+    }
+
+    private static class LikeState {
+
+        private final CommentTarget target;
+
+        // 仅在持有本对象锁时访问
+        private final Roaring64Bitmap likers = new Roaring64Bitmap();
+
+        private volatile long lastAccess = System.currentTimeMillis();
+
+        private LikeState(CommentTarget target) {
+            this.target = target;
+        }
+    }
+
+    private static class CommentTarget {
+
+        private final String targetType;
+
+        private final Long targetId;
+
+        private volatile long lastAccess = System.currentTimeMillis();
+
+        private CommentTarget(String targetType, Long targetId) {
+            this.targetType = targetType;
+            this.targetId = targetId;
+        }
+    }
+
+    private static class LikeKey {
+
+        private final long commentId;
+
+        private final long userId;
+
+        private LikeKey(long commentId, long userId) {
+            this.commentId = commentId;
+            this.userId = userId;
+        }
+
+        @Override
+        public boolean equals(Object o) {
+            if (this == o) {
+                return true;
+            }
+            if (!(o instanceof LikeKey)) {
+                return false;
+            }
+            LikeKey that = (LikeKey) o;
+            return commentId == that.commentId && userId == that.userId;
+        }
+
+        @Override
+        public int hashCode() {
+            return Objects.hash(commentId, userId);
+        }
+    }
+}
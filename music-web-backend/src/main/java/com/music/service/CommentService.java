@@ -1,6 +1,7 @@
 package com.music.service;
 
 import com.baomidou.mybatisplus.extension.service.IService;
+import com.music.common.result.PageResult;
 import com.music.entity.Comment;
 
 import java.util.List;
@@ -15,6 +16,17 @@ public interface CommentService extends IService<Comment> {
      */
     List<Comment> getCommentsByTarget(Long targetId, String targetType, Long userId);
     
+    /**
+     * 分页获取评论楼层，每层附带前replySize条回复
+     */
+    PageResult<Comment> getCommentThreads(Long targetId, String targetType, Long userId,
+                                          Long current, Long size, Integer replySize);
+    
+    /**
+     * 分页获取评论所在楼层的回复，评论不存在时返回null
+     */
+    PageResult<Comment> getReplies(Long commentId, Long userId, Long current, Long size);
+    
     /**
      * 添加评论
      */
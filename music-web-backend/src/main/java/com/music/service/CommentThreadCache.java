@@ -0,0 +1,212 @@
+package com.music.service;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.music.entity.Comment;
+import com.music.mapper.CommentMapper;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+
+import javax.annotation.PostConstruct;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * 评论楼层缓存
+ * 按 (targetType, targetId) 缓存物化的两级评论树（楼层 + 楼内回复），与查看者无关；
+ * 查看者的点赞状态来自单独缓存的用户点赞集合（有序ID数组），读取时叠加，不再按用户关联comment_likes；
+ * 尚未刷盘的点赞由调用方再叠加CommentLikeEngine中的实时状态
+ */
+@Service
+public class CommentThreadCache {
+
+    @Autowired
+    private CommentMapper commentMapper;
+
+    @Value("${comment.thread-cache.max-comments:200000}")
+    private long maxComments;
+
+    @Value("${comment.thread-cache.ttl:300000}")
+    private long threadTtl;
+
+    @Value("${comment.liked-cache.size:20000}")
+    private long likedCacheSize;
+
+    @Value("${comment.liked-cache.ttl:300000}")
+    private long likedTtl;
+
+    private Cache<String, CommentThread> threads;
+
+    private Cache<String, long[]> likedSets;
+
+    @PostConstruct
+    public void init() {
+        // 按评论条数计算权重，热门歌曲的大楼层不会挤占过多内存
+        threads = Caffeine.newBuilder()
+                .maximumWeight(maxComments)
+                .weigher((String key, CommentThread thread) -> thread.size() + 1)
+                .expireAfterWrite(threadTtl, TimeUnit.MILLISECONDS)
+                .build();
+        likedSets = Caffeine.newBuilder()
+                .maximumSize(likedCacheSize)
+                .expireAfterWrite(likedTtl, TimeUnit.MILLISECONDS)
+                .build();
+    }
+
+    /**
+     * 获取目标的评论树，未缓存时一次查询全部正常评论并构建
+     */
+    public CommentThread getThread(String targetType, Long targetId) {
+        return threads.get(threadKey(targetType, targetId),
+                key -> CommentThread.build(commentMapper.getThreadComments(targetId, targetType)));
+    }
+
+    /**
+     * 用户在目标下点赞过的评论ID（升序）
+     */
+    public long[] getLikedIds(Long userId, String targetType, Long targetId) {
+        if (userId == null) {
+            return new long[0];
+        }
+        return likedSets.get(userId + ":" + threadKey(targetType, targetId), key -> {
+            List<Long> ids = commentMapper.selectLikedCommentIds(userId, targetId, targetType);
+            long[] sorted = new long[ids.size()];
+            for (int i = 0; i < sorted.length; i++) {
+                sorted[i] = ids.get(i);
+            }
+            Arrays.sort(sorted);
+            return sorted;
+        });
+    }
+
+    public static boolean isLiked(long[] likedIds, Long commentId) {
+        return Arrays.binarySearch(likedIds, commentId) >= 0;
+    }
+
+    /**
+     * 评论新增或删除后清除评论树
+     */
+    public void invalidateThread(String targetType, Long targetId) {
+        threads.invalidate(threadKey(targetType, targetId));
+    }
+
+    /**
+     * 点赞变更写入数据库后清除用户点赞集合
+     */
+    public void invalidateLikedIds(Long userId, String targetType, Long targetId) {
+        likedSets.invalidate(userId + ":" + threadKey(targetType, targetId));
+    }
+
+    /**
+     * 点赞数变更写入数据库后修正已缓存评论的点赞数
+     */
+    public void adjustLikeCount(String targetType, Long targetId, Long commentId, int delta) {
+        CommentThread thread = threads.getIfPresent(threadKey(targetType, targetId));
+        if (thread != null) {
+            thread.adjustLikeCount(commentId, delta);
+        }
+    }
+
+    private String threadKey(String targetType, Long targetId) {
+        return targetType + ":" + targetId;
+    }
+
+    /**
+     * 物化的评论树：楼层按时间倒序，楼内回复按时间正序；回复的回复归入所在楼层
+     * 缓存中的评论对象只读（点赞数除外），返回给调用方前需要复制
+     */
+    public static class CommentThread {
+
+        private final List<Comment> roots;
+
+        private final Map<Long, List<Comment>> replies;
+
+        private final Map<Long, Comment> comments;
+
+        private CommentThread(List<Comment> roots, Map<Long, List<Comment>> replies, Map<Long, Comment> comments) {
+            this.roots = roots;
+            this.replies = replies;
+            this.comments = comments;
+        }
+
+        /**
+         * @param ordered 按创建时间正序排列的正常状态评论
+         */
+        static CommentThread build(List<Comment> ordered) {
+            Map<Long, Comment> comments = new HashMap<>();
+            for (Comment comment : ordered) {
+                comments.put(comment.getId(), comment);
+            }
+
+            List<Comment> roots = new ArrayList<>();
+            Map<Long, List<Comment>> replies = new HashMap<>();
+            for (Comment comment : ordered) {
+                Comment root = findRoot(comment, comments);
+                if (root == comment) {
+                    roots.add(comment);
+                } else {
+                    replies.computeIfAbsent(root.getId(), id -> new ArrayList<>()).add(comment);
+                }
+            }
+            Collections.reverse(roots);
+            return new CommentThread(roots, replies, comments);
+        }
+
+        /**
+         * 沿parent_id找到楼层；父评论已删除时该评论自成一楼
+         */
+        private static Comment findRoot(Comment comment, Map<Long, Comment> comments) {
+            Comment current = comment;
+            // 限制深度，防止数据异常形成环
+            for (int depth = 0; depth < 64; depth++) {
+                Comment parent = current.getParentId() != null ? comments.get(current.getParentId()) : null;
+                if (parent == null || parent == current) {
+                    return current;
+                }
+                current = parent;
+            }
+            return current;
+        }
+
+        public List<Comment> getRoots() {
+            return roots;
+        }
+
+        public List<Comment> getReplies(Long rootId) {
+            List<Comment> list = replies.get(rootId);
+            return list != null ? list : Collections.emptyList();
+        }
+
+        public Comment getComment(Long commentId) {
+            return comments.get(commentId);
+        }
+
+        /**
+         * 评论所在楼层，评论不在树中时返回null
+         */
+        public Comment getRoot(Long commentId) {
+            Comment comment = comments.get(commentId);
+            return comment != null ? findRoot(comment, comments) : null;
+        }
+
+        public int size() {
+            return comments.size();
+        }
+
+        private void adjustLikeCount(Long commentId, int delta) {
+            Comment comment = comments.get(commentId);
+            if (comment != null) {
+                synchronized (comment) {
+                    int count = comment.getLikeCount() != null ? comment.getLikeCount() : 0;
+                    comment.setLikeCount(Math.max(0, count + delta));
+                }
+            }
+        }
+    }
+}
@@ -1,19 +1,48 @@
 package com.music.service;
 
+import com.baomidou.mybatisplus.core.conditions.update.LambdaUpdateWrapper;
+import com.music.dto.IngestProgressDto;
 import com.music.entity.Song;
 import com.music.entity.Singer;
 import com.music.mapper.SongMapper;
 import com.music.mapper.SingerMapper;
+import com.music.service.impl.SingerServiceImpl;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.beans.factory.annotation.Value;
 import org.springframework.stereotype.Service;
 
 import java.io.File;
+import java.io.IOException;
+import java.io.Reader;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardCopyOption;
+import java.time.LocalDate;
 import java.time.LocalDateTime;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
 import java.util.Arrays;
+import java.util.Comparator;
+import java.util.Deque;
 import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
 import java.util.Map;
+import java.util.Properties;
+import java.util.Set;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.stream.Collectors;
 
 /**
  * 数据初始化服务
@@ -23,18 +52,123 @@ import java.util.Map;
 @Service
 public class DataInitService {
     
+    private static final String[] IMAGE_EXTENSIONS = {".jpg", ".jpeg", ".png"};
+    
+    // 歌手名映射表（中文名 -> 头像文件名）
+    private static final Map<String, String> SINGER_AVATAR_FILES = new HashMap<String, String>() {{
+        put("周杰伦", "zhoujielun");
+        put("林俊杰", "linjunjie");
+        put("陈奕迅", "chenyixun");
+        put("王力宏", "wanglihong");
+        put("李荣浩", "lironghao");
+        put("毛不易", "maobuyi");
+        put("朴树", "pushu");
+        put("五月天", "wuyuetian");
+        put("IU", "IU");
+        put("金泰妍", "taiyan");
+        put("艺声", "yisheng");
+        put("张国荣", "zhangguorong");
+        put("李克勤", "likeqin");
+        put("王菲", "wangfei");
+        put("张杰", "zhangjie");
+        put("邓紫棋", "dengziqi");
+        put("田馥甄", "tianfuzhen");
+        put("张碧晨", "zhangbichen");
+        put("许嵩", "xusong");
+        put("杨宗纬", "yangzongwei");
+        put("林允儿", "linyuner");
+        put("梁耀燮", "liangyaoxie");
+        put("程世安", "chengshian");
+        put("Eminem", "Eminem");
+        put("Ennio Morricone", "Morricone");
+    }};
+    
+    // 歌曲名映射表（歌曲名 -> 封面文件名）
+    private static final Map<String, String> SONG_COVER_FILES = new HashMap<String, String>() {{
+        put("晴天", "qingtian");
+        put("七里香", "qilixiang");
+        put("稻香", "daoxiang");
+        put("菊花台", "juhuatai");
+        put("红玫瑰", "hongmeigui");
+        put("不要说话", "buyaoshuohua");
+        put("简信", "jianxin");
+        put("海阔天空", "haikuotiankong");
+        put("龙卷风", "longjuanfeng");
+        put("听妈妈的话", "tingmamadehua");
+        put("夜的第七章", "yedediqizhang");
+        put("开不了口", "kaibulkou");
+        put("烟花易冷", "yanhuayileng");
+        put("夜空中最亮的星", "yekongzhongzuiliangdexing");
+        put("因为爱情", "yinweiaiqing");
+        put("如果爱", "ruguoai1");
+        put("泡沫", "paomo");
+        put("踏步东", "tabudong1");
+        put("需要人陪", "xuyaorenpei");
+        put("告白气球", "gaobaiqiqui");
+        put("关键词", "guanjianci");
+        put("红尘客栈", "hongchengkezhan");
+        put("大城小爱", "dachengxiaoai");
+        put("黑暗骑士", "heianqishi");
+        put("魔鬼中的天使", "moguizhongdetianshi");
+        put("何必要在一起", "hebiyaozaiyiqi");
+        put("你站", "nizhan");
+        put("你在很忙", "nuizaihenmang");
+        put("Love The Way You Lie", "LoveTheWayYouLie");
+        put("Here I am", "HereIam");
+        put("Bye Bye Love", "ByeByeLove");
+        put("Blossom", "Blossom");
+        put("Shadow", "Shadow");
+        put("Ribbon", "Ribbon");
+        put("Umbrella", "Umbrella");
+        put("Confession", "Confession");
+    }};
+    
     @Autowired
     private SongMapper songMapper;
     
     @Autowired
     private SingerMapper singerMapper;
     
+    @Autowired
+    private SongSearchIndex songSearchIndex;
+    
+    @Autowired
+    private AudioMetadataService audioMetadataService;
+    
+    @Autowired
+    private SongMetadataCache songMetadataCache;
+    
+    @Autowired
+    private TieredCacheManager tieredCacheManager;
+    
+    @Autowired
+    private PageCountService pageCountService;
+    
+    @Autowired
+    private HotSongLeaderboard hotSongLeaderboard;
+    
+    @Autowired
+    private SongSuggestService songSuggestService;
+    
     @Value("${file.upload.path}")
     private String uploadPath;
     
     @Value("${file.upload.domain}")
     private String domain;
     
+    @Value("${ingest.parallelism:0}")
+    private int ingestParallelism;
+    
+    @Value("${ingest.batch-size:500}")
+    private int ingestBatchSize;
+    
+    @Value("${ingest.checkpoint-file:}")
+    private String ingestCheckpointFile;
+    
+    private final AtomicBoolean ingesting = new AtomicBoolean();
+    
+    private volatile IngestProgress progress = new IngestProgress();
+    
     // 歌手分类映射 - 根据实际data文件夹中的歌手
     private final Map<String, String> singerGenreMap = new HashMap<String, String>() {{
         // 华语流行天王
@@ -153,8 +287,17 @@ public class DataInitService {
             return;
         }
         
+        int insertCount = importSingerFiles(Arrays.asList(singerPicFiles));
+        
+        log.info("歌手数据初始化完成，共插入 {} 条记录", insertCount);
+    }
+    
+    /**
+     * 按歌手图片导入歌手（文件名即歌手名），已存在的歌手跳过，返回插入数量
+     */
+    public int importSingerFiles(List<File> files) {
         int insertCount = 0;
-        for (File file : singerPicFiles) {
+        for (File file : files) {
             String fileName = file.getName();
             String singerName = fileName.substring(0, fileName.lastIndexOf('.'));
             
@@ -174,18 +317,198 @@ public class DataInitService {
             singer.setUpdateTime(LocalDateTime.now());
             
             singerMapper.insert(singer);
+            tieredCacheManager.invalidate(SingerServiceImpl.CACHE_NAME, singer.getId());
+            pageCountService.onSingerInserted(singer);
+            songSearchIndex.addSinger(singer);
             insertCount++;
             log.info("插入歌手: {}", singerName);
         }
-        
-        log.info("歌手数据初始化完成，共插入 {} 条记录", insertCount);
+        return insertCount;
     }
     
     /**
      * 初始化歌曲数据
+     * 分阶段导入：扫描目录 -> 并行解析 -> 按文件顺序分批入库，每批提交后写入检查点
      */
     public void initSongs() {
+        if (!ingesting.compareAndSet(false, true)) {
+            throw new IllegalStateException("歌曲导入正在进行中");
+        }
+        // 导入期间每批入库都会触发曲库变更，联想索引在导入结束后统一重建
+        songSuggestService.suspendRebuilds();
+        try {
+            ingestSongs();
+        } finally {
+            progress.endTime = System.currentTimeMillis();
+            progress.running = false;
+            ingesting.set(false);
+            songSuggestService.resumeRebuilds();
+        }
+    }
+    
+    /**
+     * 是否正在全量导入歌曲
+     */
+    public boolean isIngesting() {
+        return ingesting.get();
+    }
+    
+    /**
+     * 增量导入或刷新歌曲文件（目录监听使用）
+     * 已入库的文件刷新大小、时长等信息并恢复为正常状态，新文件解析后批量插入
+     */
+    public void upsertSongFiles(List<File> files) {
+        if (files.isEmpty()) {
+            return;
+        }
+        Map<String, Song> existing = selectSongsByFileName(files.stream().map(File::getName).collect(Collectors.toList()));
+        Set<String> songPics = listFileNames(uploadPath + "img/songPic/");
+        Set<String> singerPics = null;
+        Map<String, Singer> singerMap = new HashMap<>();
+        List<Song> inserts = new ArrayList<>();
+        List<Long> refreshedIds = new ArrayList<>();
+        
+        for (File file : files) {
+            Song current = existing.get(file.getName());
+            if (current != null) {
+                AudioMetadataService.AudioMetadata metadata =
+                        audioMetadataService.extract(file, file.getName().substring(0, file.getName().lastIndexOf('.')));
+                Song update = new Song();
+                update.setId(current.getId());
+                update.setFileSize(file.length());
+                update.setStatus(1);
+                if (metadata.getDuration() != null && metadata.getDuration() > 0) {
+                    update.setDuration(metadata.getDuration());
+                }
+                if (metadata.getBitrate() != null && metadata.getBitrate() > 0) {
+                    update.setBitrate(metadata.getBitrate());
+                }
+                update.setUpdateTime(LocalDateTime.now());
+                songMapper.updateById(update);
+                refreshedIds.add(current.getId());
+                continue;
+            }
+            
+            Song song = parseSongFromFile(file, songPics);
+            if (song == null) {
+                continue;
+            }
+            Singer singer = singerMap.get(song.getSingerName());
+            if (singer == null) {
+                singer = singerMapper.selectByName(song.getSingerName());
+            }
+            if (singer == null) {
+                if (singerPics == null) {
+                    singerPics = listFileNames(uploadPath + "img/singerPic/");
+                }
+                singer = createSinger(song.getSingerName(), singerPics);
+            }
+            singerMap.put(song.getSingerName(), singer);
+            song.setSingerId(singer.getId());
+            inserts.add(song);
+        }
+        
+        if (!inserts.isEmpty()) {
+            songMapper.insertBatch(inserts);
+            for (Song song : inserts) {
+                songMetadataCache.evict(song.getId());
+                songSearchIndex.addSong(song);
+                log.info("插入歌曲: {} - {}", song.getSingerName(), song.getName());
+            }
+            pageCountService.onSongsInserted(inserts);
+        }
+        if (!refreshedIds.isEmpty()) {
+            for (Long songId : refreshedIds) {
+                songMetadataCache.evict(songId);
+            }
+            // 刷新的歌曲可能从禁用恢复为正常
+            pageCountService.invalidateSongs();
+            List<Song> refreshed = songMapper.getSongsWithSingerByIds(refreshedIds);
+            for (Song song : refreshed) {
+                songSearchIndex.addSong(song);
+            }
+            hotSongLeaderboard.restore(refreshed);
+            log.info("刷新歌曲 {} 首", refreshedIds.size());
+        }
+        audioMetadataService.saveCache();
+    }
+    
+    /**
+     * 将已删除文件对应的歌曲标记为禁用（目录监听使用）
+     */
+    public void disableSongFiles(List<String> fileNames) {
+        if (fileNames.isEmpty()) {
+            return;
+        }
+        List<Long> songIds = new ArrayList<>();
+        for (Song song : selectSongsByFileName(fileNames).values()) {
+            if (song.getStatus() == null || song.getStatus() == 1) {
+                songIds.add(song.getId());
+            }
+        }
+        if (songIds.isEmpty()) {
+            return;
+        }
+        
+        LambdaUpdateWrapper<Song> wrapper = new LambdaUpdateWrapper<>();
+        wrapper.in(Song::getId, songIds)
+               .set(Song::getStatus, 0)
+               .set(Song::getUpdateTime, LocalDateTime.now());
+        songMapper.update(null, wrapper);
+        for (Long songId : songIds) {
+            songSearchIndex.removeSong(songId);
+            songMetadataCache.evict(songId);
+        }
+        hotSongLeaderboard.remove(songIds);
+        pageCountService.invalidateSongs();
+        log.info("音频文件已删除，禁用歌曲 {} 首", songIds.size());
+    }
+    
+    /**
+     * 按文件名查询歌曲（audio_url可能带域名也可能不带）
+     */
+    private Map<String, Song> selectSongsByFileName(List<String> fileNames) {
+        List<String> audioUrls = new ArrayList<>(fileNames.size() * 2);
+        for (String fileName : fileNames) {
+            audioUrls.add("/song/" + fileName);
+            audioUrls.add(domain + "/song/" + fileName);
+        }
+        Map<String, Song> songs = new HashMap<>();
+        for (Song song : songMapper.selectByAudioUrls(audioUrls)) {
+            songs.put(songFileName(song.getAudioUrl()), song);
+        }
+        return songs;
+    }
+    
+    /**
+     * 获取歌曲导入进度
+     */
+    public IngestProgressDto getIngestProgress() {
+        IngestProgress current = progress;
+        long elapsed = current.startTime > 0
+                ? (current.running ? System.currentTimeMillis() : current.endTime) - current.startTime : 0;
+        long processed = current.parsed.get() + current.skipped.get();
+        
+        IngestProgressDto dto = new IngestProgressDto();
+        dto.setRunning(current.running);
+        dto.setTotal(current.total);
+        dto.setSkipped(current.skipped.get());
+        dto.setParsed(current.parsed.get());
+        dto.setInserted(current.inserted.get());
+        dto.setFailed(current.failed.get());
+        dto.setResumedFrom(current.resumedFrom);
+        dto.setStartTime(current.startTime > 0 ? current.startTime : null);
+        dto.setElapsedMillis(elapsed);
+        dto.setFilesPerSecond(elapsed > 0 ? processed * 1000D / elapsed : 0D);
+        return dto;
+    }
+    
+    private void ingestSongs() {
         log.info("开始初始化歌曲数据...");
+        IngestProgress current = new IngestProgress();
+        current.running = true;
+        current.startTime = System.currentTimeMillis();
+        progress = current;
         
         String songPath = uploadPath + "song/";
         File songDir = new File(songPath);
@@ -195,70 +518,174 @@ public class DataInitService {
             return;
         }
         
+        // 1. 扫描目录，按文件名排序以便检查点定位
         File[] songFiles = songDir.listFiles((dir, name) -> 
             name.toLowerCase().endsWith(".mp3") || 
             name.toLowerCase().endsWith(".m4a") || 
+            name.toLowerCase().endsWith(".flac") || 
             name.toLowerCase().endsWith(".wav"));
         
         if (songFiles == null) {
             return;
         }
+        Arrays.sort(songFiles, Comparator.comparing(File::getName));
+        current.total = songFiles.length;
+        
+        // 2. 一次性加载已有音频文件名和图片目录，替代逐首查询和逐个探测文件
+        Set<String> existingFiles = new HashSet<>();
+        for (String audioUrl : songMapper.selectAllAudioUrls()) {
+            String fileName = songFileName(audioUrl);
+            if (fileName != null) {
+                existingFiles.add(fileName);
+            }
+        }
+        Set<String> songPics = listFileNames(uploadPath + "img/songPic/");
+        Set<String> singerPics = listFileNames(uploadPath + "img/singerPic/");
         
-        // 预加载所有歌手数据
         Map<String, Singer> singerMap = new HashMap<>();
         singerMapper.selectList(null).forEach(singer -> 
             singerMap.put(singer.getName(), singer));
         
-        int insertCount = 0;
-        for (File file : songFiles) {
-            String fileName = file.getName();
+        String checkpoint = readCheckpoint();
+        current.resumedFrom = checkpoint;
+        if (checkpoint != null) {
+            log.info("从检查点恢复歌曲导入: {}", checkpoint);
+        }
+        
+        // 3. 并行解析，按提交顺序取回结果，保证检查点之前的文件均已入库
+        int threads = ingestParallelism > 0 ? ingestParallelism : Runtime.getRuntime().availableProcessors();
+        ExecutorService parser = Executors.newFixedThreadPool(threads, new ThreadFactory() {
+            private final AtomicInteger counter = new AtomicInteger();
             
-            // 检查歌曲是否已存在
-            Song existingSong = songMapper.selectByAudioUrl("/song/" + fileName);
-            if (existingSong != null) {
-                continue;
+            @Override
+            public Thread newThread(Runnable r) {
+                Thread thread = new Thread(r, "ingest-parser-" + counter.incrementAndGet());
+                thread.setDaemon(true);
+                return thread;
             }
-            
-            Song song = parseSongFromFile(file, singerMap);
-            if (song != null) {
-                songMapper.insert(song);
-                insertCount++;
-                log.info("插入歌曲: {} - {}", song.getSingerName(), song.getName());
+        });
+        
+        Deque<ParseTask> inFlight = new ArrayDeque<>();
+        List<Song> batch = new ArrayList<>(ingestBatchSize);
+        String lastFile = null;
+        try {
+            for (File file : songFiles) {
+                String fileName = file.getName();
+                if ((checkpoint != null && fileName.compareTo(checkpoint) <= 0) || existingFiles.contains(fileName)) {
+                    current.skipped.incrementAndGet();
+                    continue;
+                }
+                
+                inFlight.add(new ParseTask(file, parser.submit(() -> parseSongFromFile(file, songPics))));
+                // 限制在途解析任务数，控制内存占用
+                if (inFlight.size() >= ingestBatchSize) {
+                    lastFile = collect(inFlight.poll(), batch, singerMap, singerPics, current);
+                    if (batch.size() >= ingestBatchSize) {
+                        flushBatch(batch, lastFile, current);
+                    }
+                }
+            }
+            while (!inFlight.isEmpty()) {
+                lastFile = collect(inFlight.poll(), batch, singerMap, singerPics, current);
+                if (batch.size() >= ingestBatchSize) {
+                    flushBatch(batch, lastFile, current);
+                }
             }
+            flushBatch(batch, lastFile, current);
+            deleteCheckpoint();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException("歌曲导入被中断", e);
+        } finally {
+            parser.shutdownNow();
+            audioMetadataService.saveCache();
+        }
+        
+        long elapsed = Math.max(1, System.currentTimeMillis() - current.startTime);
+        log.info("歌曲数据初始化完成，共插入 {} 条记录，跳过 {} 个，失败 {} 个，耗时 {} ms，{} 文件/秒",
+                current.inserted.get(), current.skipped.get(), current.failed.get(), elapsed,
+                String.format("%.1f", (current.parsed.get() + current.skipped.get()) * 1000D / elapsed));
+    }
+    
+    /**
+     * 取回一个解析结果并补全歌手，返回对应的文件名
+     */
+    private String collect(ParseTask task, List<Song> batch, Map<String, Singer> singerMap,
+                           Set<String> singerPics, IngestProgress current) throws InterruptedException {
+        Song song;
+        try {
+            song = task.future.get();
+        } catch (ExecutionException e) {
+            log.warn("解析歌曲文件失败: {}, {}", task.file.getName(), e.getCause().getMessage());
+            current.failed.incrementAndGet();
+            return task.file.getName();
+        }
+        current.parsed.incrementAndGet();
+        if (song == null) {
+            current.failed.incrementAndGet();
+            return task.file.getName();
         }
         
-        log.info("歌曲数据初始化完成，共插入 {} 条记录", insertCount);
+        // 歌手在单线程中获取或创建，避免重复插入
+        Singer singer = singerMap.get(song.getSingerName());
+        if (singer == null) {
+            singer = createSinger(song.getSingerName(), singerPics);
+            singerMap.put(song.getSingerName(), singer);
+        }
+        song.setSingerId(singer.getId());
+        batch.add(song);
+        return task.file.getName();
+    }
+    
+    /**
+     * 批量入库并更新检查点
+     */
+    private void flushBatch(List<Song> batch, String lastFile, IngestProgress current) {
+        if (!batch.isEmpty()) {
+            songMapper.insertBatch(batch);
+            for (Song song : batch) {
+                songMetadataCache.evict(song.getId());
+                songSearchIndex.addSong(song);
+            }
+            pageCountService.onSongsInserted(batch);
+            current.inserted.addAndGet(batch.size());
+            log.info("已导入 {} 首歌曲，当前: {}", current.inserted.get(), lastFile);
+            batch.clear();
+        }
+        if (lastFile != null) {
+            writeCheckpoint(lastFile);
+        }
     }
     
     /**
-     * 从文件解析歌曲信息
+     * 从文件解析歌曲信息（不访问数据库，可并行执行）
      */
-    private Song parseSongFromFile(File file, Map<String, Singer> singerMap) {
+    private Song parseSongFromFile(File file, Set<String> songPics) {
         String fileName = file.getName();
         String nameWithoutExtension = fileName.substring(0, fileName.lastIndexOf('.'));
         String extension = fileName.substring(fileName.lastIndexOf('.') + 1);
         
-        // 解析歌手和歌曲名
+        AudioMetadataService.AudioMetadata metadata = audioMetadataService.extract(file, nameWithoutExtension);
+        
+        // 解析歌手和歌曲名，文件名不符合"歌手-歌名"格式时使用标签
         String[] parts = nameWithoutExtension.split("-", 2);
-        if (parts.length != 2) {
-            log.warn("文件名格式不正确，跳过: {}", fileName);
+        String singerName;
+        String songName;
+        if (parts.length == 2) {
+            singerName = parts[0].trim();
+            songName = parts[1].trim();
+        } else if (metadata.getArtist() != null && metadata.getTitle() != null) {
+            singerName = metadata.getArtist();
+            songName = metadata.getTitle();
+        } else {
+            log.warn("文件名格式不正确且缺少标签，跳过: {}", fileName);
             return null;
         }
         
-        String singerName = parts[0].trim();
-        String songName = parts[1].trim();
-        
-        // 获取或创建歌手
-        Singer singer = singerMap.get(singerName);
-        if (singer == null) {
-            singer = createSinger(singerName);
-            singerMap.put(singerName, singer);
-        }
-        
         // 创建歌曲
         Song song = new Song();
         song.setName(songName);
-        song.setSingerId(singer.getId());
+        song.setSingerName(singerName);
         song.setAudioUrl(domain + "/song/" + fileName);
         song.setFormat(extension.toLowerCase());
         song.setStatus(1);
@@ -273,18 +700,25 @@ public class DataInitService {
         String genre = detectSongGenre(songName, singerName);
         song.setGenre(genre);
         
-        // 设置一些默认值
-        song.setDuration(240); // 默认4分钟
+        // 时长和比特率取自音频头，读取失败时使用默认值
+        song.setDuration(metadata.getDuration() != null && metadata.getDuration() > 0 ? metadata.getDuration() : 240);
+        song.setBitrate(metadata.getBitrate() != null && metadata.getBitrate() > 0 ? metadata.getBitrate() : 128);
         song.setLanguage(detectLanguage(singerName));
+        if (metadata.getYear() != null) {
+            song.setReleaseDate(LocalDate.of(metadata.getYear(), 1, 1));
+        }
         
-        // 尝试匹配歌曲封面
-        String coverUrl = findSongCover(songName, singerName);
+        // 尝试匹配歌曲封面，没有时使用内嵌封面
+        String coverUrl = findSongCover(songName, singerName, songPics);
+        if (coverUrl == null && metadata.getCoverFile() != null) {
+            coverUrl = domain + "/img/songPic/" + metadata.getCoverFile();
+        }
         if (coverUrl != null) {
             song.setCoverUrl(coverUrl);
         }
         
-        // 设置示例歌词
-        String lyrics = generateSampleLyrics(songName, singerName);
+        // 优先使用标签中的歌词，没有时生成示例歌词
+        String lyrics = metadata.getLyric() != null ? metadata.getLyric() : generateSampleLyrics(songName, singerName);
         song.setLyric(lyrics);
         
         return song;
@@ -293,7 +727,7 @@ public class DataInitService {
     /**
      * 创建新歌手
      */
-    private Singer createSinger(String singerName) {
+    private Singer createSinger(String singerName, Set<String> singerPics) {
         Singer singer = new Singer();
         singer.setName(singerName);
         singer.setStatus(1);
@@ -303,12 +737,15 @@ public class DataInitService {
         singer.setUpdateTime(LocalDateTime.now());
         
         // 尝试匹配歌手头像
-        String avatarUrl = findSingerAvatar(singerName);
+        String avatarUrl = findSingerAvatar(singerName, singerPics);
         if (avatarUrl != null) {
             singer.setAvatar(avatarUrl);
         }
         
         singerMapper.insert(singer);
+        tieredCacheManager.invalidate(SingerServiceImpl.CACHE_NAME, singer.getId());
+        pageCountService.onSingerInserted(singer);
+        songSearchIndex.addSinger(singer);
         log.info("创建新歌手: {}", singerName);
         return singer;
     }
@@ -316,54 +753,18 @@ public class DataInitService {
     /**
      * 查找歌手头像
      */
-    private String findSingerAvatar(String singerName) {
-        String[] extensions = {".jpg", ".jpeg", ".png"};
-        String singerPicPath = uploadPath + "img/singerPic/";
+    private String findSingerAvatar(String singerName, Set<String> singerPics) {
+        // 首先尝试映射表，然后尝试直接用歌手名
+        String[] possibleNames = {SINGER_AVATAR_FILES.get(singerName), singerName};
         
-        // 歌手名映射表（中文名 -> 文件名）
-        Map<String, String> singerFileMap = new HashMap<>();
-        singerFileMap.put("周杰伦", "zhoujielun");
-        singerFileMap.put("林俊杰", "linjunjie");
-        singerFileMap.put("陈奕迅", "chenyixun");
-        singerFileMap.put("王力宏", "wanglihong");
-        singerFileMap.put("李荣浩", "lironghao");
-        singerFileMap.put("毛不易", "maobuyi");
-        singerFileMap.put("朴树", "pushu");
-        singerFileMap.put("五月天", "wuyuetian");
-        singerFileMap.put("IU", "IU");
-        singerFileMap.put("金泰妍", "taiyan");
-        singerFileMap.put("艺声", "yisheng");
-        singerFileMap.put("张国荣", "zhangguorong");
-        singerFileMap.put("李克勤", "likeqin");
-        singerFileMap.put("王菲", "wangfei");
-        singerFileMap.put("张杰", "zhangjie");
-        singerFileMap.put("邓紫棋", "dengziqi");
-        singerFileMap.put("田馥甄", "tianfuzhen");
-        singerFileMap.put("张碧晨", "zhangbichen");
-        singerFileMap.put("许嵩", "xusong");
-        singerFileMap.put("杨宗纬", "yangzongwei");
-        singerFileMap.put("林允儿", "linyuner");
-        singerFileMap.put("梁耀燮", "liangyaoxie");
-        singerFileMap.put("程世安", "chengshian");
-        singerFileMap.put("Eminem", "Eminem");
-        singerFileMap.put("Ennio Morricone", "Morricone");
-        
-        // 首先尝试映射表
-        String fileName = singerFileMap.get(singerName);
-        if (fileName != null) {
-            for (String ext : extensions) {
-                File avatarFile = new File(singerPicPath + fileName + ext);
-                if (avatarFile.exists()) {
-                    return domain + "/img/singerPic/" + fileName + ext;
-                }
+        for (String name : possibleNames) {
+            if (name == null) {
+                continue;
             }
-        }
-        
-        // 然后尝试直接用歌手名
-        for (String ext : extensions) {
-            File avatarFile = new File(singerPicPath + singerName + ext);
-            if (avatarFile.exists()) {
-                return domain + "/img/singerPic/" + singerName + ext;
+            for (String ext : IMAGE_EXTENSIONS) {
+                if (singerPics.contains(name + ext)) {
+                    return domain + "/img/singerPic/" + name + ext;
+                }
             }
         }
         return null;
@@ -372,62 +773,10 @@ public class DataInitService {
     /**
      * 查找歌曲封面
      */
-    private String findSongCover(String songName, String singerName) {
-        String[] extensions = {".jpg", ".jpeg", ".png"};
-        String songPicPath = uploadPath + "img/songPic/";
-        
-        // 歌曲名映射表（歌曲名 -> 文件名）
-        Map<String, String> songFileMap = new HashMap<>();
-        songFileMap.put("晴天", "qingtian");
-        songFileMap.put("七里香", "qilixiang");
-        songFileMap.put("稻香", "daoxiang");
-        songFileMap.put("菊花台", "juhuatai");
-        songFileMap.put("红玫瑰", "hongmeigui");
-        songFileMap.put("不要说话", "buyaoshuohua");
-        songFileMap.put("简信", "jianxin");
-        songFileMap.put("海阔天空", "haikuotiankong");
-        songFileMap.put("龙卷风", "longjuanfeng");
-        songFileMap.put("听妈妈的话", "tingmamadehua");
-        songFileMap.put("夜的第七章", "yedediqizhang");
-        songFileMap.put("开不了口", "kaibulkou");
-        songFileMap.put("烟花易冷", "yanhuayileng");
-        songFileMap.put("夜空中最亮的星", "yekongzhongzuiliangdexing");
-        songFileMap.put("因为爱情", "yinweiaiqing");
-        songFileMap.put("如果爱", "ruguoai1");
-        songFileMap.put("泡沫", "paomo");
-        songFileMap.put("踏步东", "tabudong1");
-        songFileMap.put("需要人陪", "xuyaorenpei");
-        songFileMap.put("告白气球", "gaobaiqiqui");
-        songFileMap.put("关键词", "guanjianci");
-        songFileMap.put("红尘客栈", "hongchengkezhan");
-        songFileMap.put("大城小爱", "dachengxiaoai");
-        songFileMap.put("黑暗骑士", "heianqishi");
-        songFileMap.put("魔鬼中的天使", "moguizhongdetianshi");
-        songFileMap.put("何必要在一起", "hebiyaozaiyiqi");
-        songFileMap.put("你站", "nizhan");
-        songFileMap.put("你在很忙", "nuizaihenmang");
-        songFileMap.put("Love The Way You Lie", "LoveTheWayYouLie");
-        songFileMap.put("Here I am", "HereIam");
-        songFileMap.put("Bye Bye Love", "ByeByeLove");
-        songFileMap.put("Blossom", "Blossom");
-        songFileMap.put("Shadow", "Shadow");
-        songFileMap.put("Ribbon", "Ribbon");
-        songFileMap.put("Umbrella", "Umbrella");
-        songFileMap.put("Confession", "Confession");
-        
-        // 首先尝试映射表
-        String fileName = songFileMap.get(songName);
-        if (fileName != null) {
-            for (String ext : extensions) {
-                File coverFile = new File(songPicPath + fileName + ext);
-                if (coverFile.exists()) {
-                    return domain + "/img/songPic/" + fileName + ext;
-                }
-            }
-        }
-        
-        // 尝试不同的文件名格式
+    private String findSongCover(String songName, String singerName, Set<String> songPics) {
+        // 首先尝试映射表，然后尝试不同的文件名格式
         String[] possibleNames = {
+            SONG_COVER_FILES.get(songName),
             songName,
             singerName + "-" + songName,
             songName.toLowerCase(),
@@ -436,9 +785,11 @@ public class DataInitService {
         };
         
         for (String name : possibleNames) {
-            for (String ext : extensions) {
-                File coverFile = new File(songPicPath + name + ext);
-                if (coverFile.exists()) {
+            if (name == null) {
+                continue;
+            }
+            for (String ext : IMAGE_EXTENSIONS) {
+                if (songPics.contains(name + ext)) {
                     return domain + "/img/songPic/" + name + ext;
                 }
             }
@@ -447,6 +798,71 @@ public class DataInitService {
         return null;
     }
     
+    /**
+     * 列出目录下的文件名
+     */
+    private Set<String> listFileNames(String path) {
+        Set<String> names = new HashSet<>();
+        String[] files = new File(path).list();
+        if (files != null) {
+            names.addAll(Arrays.asList(files));
+        }
+        return names;
+    }
+    
+    /**
+     * 从音频URL中取出文件名（兼容带域名和不带域名两种格式）
+     */
+    private String songFileName(String audioUrl) {
+        if (audioUrl == null) {
+            return null;
+        }
+        int index = audioUrl.lastIndexOf("/song/");
+        return index >= 0 ? audioUrl.substring(index + "/song/".length()) : null;
+    }
+    
+    private Path checkpointPath() {
+        return Paths.get(ingestCheckpointFile.isEmpty() ? uploadPath + ".ingest-checkpoint" : ingestCheckpointFile);
+    }
+    
+    private String readCheckpoint() {
+        Path path = checkpointPath();
+        if (!Files.exists(path)) {
+            return null;
+        }
+        try (Reader reader = Files.newBufferedReader(path, StandardCharsets.UTF_8)) {
+            Properties properties = new Properties();
+            properties.load(reader);
+            return properties.getProperty("lastFile");
+        } catch (IOException e) {
+            log.warn("读取导入检查点失败: {}", e.getMessage());
+            return null;
+        }
+    }
+    
+    private void writeCheckpoint(String lastFile) {
+        Path path = checkpointPath();
+        Path temp = path.resolveSibling(path.getFileName() + ".tmp");
+        Properties properties = new Properties();
+        properties.setProperty("lastFile", lastFile);
+        try {
+            try (Writer writer = Files.newBufferedWriter(temp, StandardCharsets.UTF_8)) {
+                properties.store(writer, "song ingest checkpoint");
+            }
+            Files.move(temp, path, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        } catch (IOException e) {
+            log.warn("写入导入检查点失败: {}", e.getMessage());
+        }
+    }
+    
+    private void deleteCheckpoint() {
+        try {
+            Files.deleteIfExists(checkpointPath());
+        } catch (IOException e) {
+            log.warn("删除导入检查点失败: {}", e.getMessage());
+        }
+    }
+    
     /**
      * 检测歌曲语言
      */
@@ -546,4 +962,43 @@ public class DataInitService {
                 "[01:10.00] (참고: 데모용 샘플 가사입니다)",
                 songName);
     }
+    
+    /**
+     * 导入中的解析任务
+     */
+    private static class ParseTask {
+        
+        private final File file;
+        
+        private final Future<Song> future;
+        
+        private ParseTask(File file, Future<Song> future) {
+            this.file = file;
+            this.future = future;
+        }
+    }
+    
+    /**
+     * 导入进度（计数器由导入线程更新，查询线程读取）
+     */
+    private static class IngestProgress {
+        
+        private volatile boolean running;
+        
+        private volatile long total;
+        
+        private volatile long startTime;
+        
+        private volatile long endTime;
+        
+        private volatile String resumedFrom;
+        
+        private final AtomicLong skipped = new AtomicLong();
+        
+        private final AtomicLong parsed = new AtomicLong();
+        
+        private final AtomicLong inserted = new AtomicLong();
+        
+        private final AtomicLong failed = new AtomicLong();
+    }
 }
@@ -0,0 +1,254 @@
+package com.music.service;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import io.micrometer.core.instrument.FunctionCounter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import io.netty.channel.ChannelOption;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.core.ParameterizedTypeReference;
+import org.springframework.http.MediaType;
+import org.springframework.http.codec.ServerSentEvent;
+import org.springframework.http.client.reactive.ReactorClientHttpConnector;
+import org.springframework.stereotype.Service;
+import org.springframework.web.reactive.function.client.WebClient;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.SignalType;
+import reactor.netty.http.client.HttpClient;
+import reactor.netty.resources.ConnectionProvider;
+
+import javax.annotation.PostConstruct;
+import javax.annotation.PreDestroy;
+import java.io.IOException;
+import java.time.Duration;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * DeepSeek API客户端
+ * 基于非阻塞WebClient，等待模型响应期间不占用Tomcat工作线程；
+ * 连接池大小、连接/读取超时可配置，并用信号量作为独立舱壁限制同时进行的请求数（含流式请求），超出时立即拒绝
+ */
+@Slf4j
+@Service
+public class DeepSeekClient {
+
+    private static final ParameterizedTypeReference<ServerSentEvent<String>> SSE_TYPE =
+            new ParameterizedTypeReference<ServerSentEvent<String>>() {};
+
+    private static final String STREAM_DONE = "[DONE]";
+
+    @Autowired
+    private WebClient.Builder webClientBuilder;
+
+    @Autowired
+    private ObjectMapper objectMapper;
+
+    @Autowired
+    private MeterRegistry meterRegistry;
+
+    @Value("${deepseek.api.url:https://api.deepseek.com/v1/chat/completions}")
+    private String apiUrl;
+
+    @Value("${deepseek.api.key:}")
+    private String apiKey;
+
+    @Value("${deepseek.model:deepseek-chat}")
+    private String model;
+
+    @Value("${deepseek.client.connect-timeout:3000}")
+    private int connectTimeout;
+
+    @Value("${deepseek.client.read-timeout:30000}")
+    private long readTimeout;
+
+    @Value("${deepseek.client.total-timeout:60000}")
+    private long totalTimeout;
+
+    @Value("${deepseek.client.max-connections:50}")
+    private int maxConnections;
+
+    @Value("${deepseek.client.pending-acquire-max:100}")
+    private int pendingAcquireMax;
+
+    @Value("${deepseek.client.max-concurrent:32}")
+    private int maxConcurrent;
+
+    private ConnectionProvider connectionProvider;
+
+    private WebClient webClient;
+
+    private Semaphore bulkhead;
+
+    private final LongAdder rejected = new LongAdder();
+
+    @PostConstruct
+    public void init() {
+        connectionProvider = ConnectionProvider.builder("deepseek")
+                .maxConnections(maxConnections)
+                .pendingAcquireMaxCount(pendingAcquireMax)
+                .pendingAcquireTimeout(Duration.ofMillis(connectTimeout))
+                .maxIdleTime(Duration.ofSeconds(30))
+                .build();
+        HttpClient httpClient = HttpClient.create(connectionProvider)
+                .option(ChannelOption.CONNECT_TIMEOUT_MILLIS, connectTimeout)
+                // 两次读取之间的最长间隔
+                .responseTimeout(Duration.ofMillis(readTimeout));
+        webClient = webClientBuilder.clone()
+                .clientConnector(new ReactorClientHttpConnector(httpClient))
+                .build();
+        bulkhead = new Semaphore(maxConcurrent);
+
+        Gauge.builder("deepseek.in.flight", bulkhead, b -> maxConcurrent - b.availablePermits())
+                .description("进行中的DeepSeek请求数")
+                .register(meterRegistry);
+        FunctionCounter.builder("deepseek.rejected", rejected, LongAdder::sum)
+                .description("舱壁已满被拒绝的DeepSeek请求数")
+                .register(meterRegistry);
+    }
+
+    /**
+     * 是否已配置API密钥
+     */
+    public boolean isConfigured() {
+        return apiKey != null && !apiKey.trim().isEmpty();
+    }
+
+    /**
+     * 发送对话请求，返回模型回复内容
+     * 舱壁已满时返回以RejectedExecutionException结束的Future
+     *
+     * @param messages role/content 消息列表（含系统提示词）
+     */
+    public CompletableFuture<String> chat(List<Map<String, String>> messages) {
+        if (!bulkhead.tryAcquire()) {
+            rejected.increment();
+            CompletableFuture<String> future = new CompletableFuture<>();
+            future.completeExceptionally(new RejectedExecutionException("DeepSeek并发请求数已达上限"));
+            return future;
+        }
+        long start = System.nanoTime();
+
+        return webClient.post()
+                .uri(apiUrl)
+                .contentType(MediaType.APPLICATION_JSON)
+                .headers(headers -> headers.setBearerAuth(apiKey))
+                .bodyValue(requestBody(messages, false))
+                .retrieve()
+                .bodyToMono(JsonNode.class)
+                .map(this::extractContent)
+                .timeout(Duration.ofMillis(totalTimeout))
+                // 完成、失败或调用方取消时都归还许可
+                .doFinally(signal -> {
+                    bulkhead.release();
+                    record("chat", signal, start);
+                })
+                .toFuture();
+    }
+
+    /**
+     * 以流式方式发送对话请求，按到达顺序返回回复片段
+     * 上游SSE响应逐条解码，不缓冲完整响应体；取消订阅时关闭上游连接并归还舱壁许可
+     */
+    public Flux<String> stream(List<Map<String, String>> messages) {
+        return Flux.defer(() -> {
+            if (!bulkhead.tryAcquire()) {
+                rejected.increment();
+                return Flux.<String>error(new RejectedExecutionException("DeepSeek并发请求数已达上限"));
+            }
+                long start = System.nanoTime();
+            AtomicBoolean first = new AtomicBoolean(true);
+
+            return webClient.post()
+                    .uri(apiUrl)
+                    .contentType(MediaType.APPLICATION_JSON)
+                    .accept(MediaType.TEXT_EVENT_STREAM)
+                    .headers(headers -> headers.setBearerAuth(apiKey))
+                    .bodyValue(requestBody(messages, true))
+                    .retrieve()
+                    .bodyToFlux(SSE_TYPE)
+                    .map(event -> event.data() != null ? event.data().trim() : "")
+                    .takeWhile(data -> !STREAM_DONE.equals(data))
+                    .map(this::extractDelta)
+                    .filter(delta -> !delta.isEmpty())
+                    .doOnNext(delta -> {
+                        if (first.compareAndSet(true, false)) {
+                            long elapsed = System.nanoTime() - start;
+                            Timer.builder("deepseek.first.token")
+                                    .description("DeepSeek流式回复首个片段耗时")
+                                    .publishPercentileHistogram()
+                                    .register(meterRegistry)
+                                    .record(elapsed, TimeUnit.NANOSECONDS);
+                        }
+                    })
+                        .doFinally(signal -> {
+                        bulkhead.release();
+                        record("stream", signal, start);
+                    });
+        });
+    }
+
+    /**
+     * 记录请求耗时，按调用方式和结束信号（成功、失败、取消）区分
+     */
+    private void record(String mode, SignalType signal, long start) {
+        String outcome = signal == SignalType.ON_ERROR ? "error"
+                : signal == SignalType.CANCEL ? "cancelled" : "success";
+        Timer.builder("deepseek.request")
+                .description("DeepSeek请求耗时")
+                .tag("mode", mode)
+                .tag("outcome", outcome)
+                .publishPercentileHistogram()
+                .register(meterRegistry)
+                .record(System.nanoTime() - start, TimeUnit.NANOSECONDS);
+    }
+
+    private Map<String, Object> requestBody(List<Map<String, String>> messages, boolean stream) {
+        Map<String, Object> requestBody = new HashMap<>();
+        requestBody.put("model", model);
+        requestBody.put("max_tokens", 500);
+        requestBody.put("temperature", 0.7);
+        requestBody.put("stream", stream);
+        requestBody.put("messages", messages);
+        return requestBody;
+    }
+
+    private String extractContent(JsonNode response) {
+        JsonNode content = response.path("choices").path(0).path("message").path("content");
+        if (!content.isTextual()) {
+            throw new IllegalStateException("DeepSeek API返回格式异常");
+        }
+        return content.asText();
+    }
+
+    /**
+     * 解析流式片段中的增量内容，非内容片段（如角色、结束原因）返回空串
+     */
+    private String extractDelta(String data) {
+        if (data.isEmpty()) {
+            return "";
+        }
+        try {
+            JsonNode content = objectMapper.readTree(data).path("choices").path(0).path("delta").path("content");
+            return content.isTextual() ? content.asText() : "";
+        } catch (IOException e) {
+            throw new IllegalStateException("DeepSeek API流式数据格式异常", e);
+        }
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        connectionProvider.dispose();
+    }
+}
@@ -0,0 +1,244 @@
+package com.music.service;
+
+import com.music.entity.Song;
+import com.music.mapper.SongMapper;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.redis.core.DefaultTypedTuple;
+import org.springframework.data.redis.core.RedisOperations;
+import org.springframework.data.redis.core.SessionCallback;
+import org.springframework.data.redis.core.StringRedisTemplate;
+import org.springframework.data.redis.core.ZSetOperations;
+import org.springframework.stereotype.Service;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.locks.Lock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+
+/**
+ * 热门歌曲排行榜
+ * 播放次数维护在Redis有序集合中，歌曲元数据来自SongMetadataCache，Redis不可用时由调用方回退到SQL查询；
+ * 读取时发现已删除或已禁用的歌曲会从有序集合中移除，并继续向后补足数量
+ */
+@Slf4j
+@Service
+public class HotSongLeaderboard {
+
+    private static final String LEADERBOARD_KEY = "music:songs:hot";
+
+    private static final String SEEDING_KEY = LEADERBOARD_KEY + ":seeding";
+
+    private static final int SEED_CHUNK_SIZE = 1000;
+
+    // 补足数量时最多额外读取的轮数，避免大量失效条目时请求耗时失控
+    private static final int MAX_REFILL_ROUNDS = 3;
+
+    @Autowired
+    private SongMapper songMapper;
+
+    @Autowired
+    private StringRedisTemplate stringRedisTemplate;
+
+    @Autowired
+    private SongMetadataCache songMetadataCache;
+
+    @Value("${hot-songs.redis-enabled:true}")
+    private boolean redisEnabled;
+
+    @Value("${hot-songs.retry-interval:30000}")
+    private long retryInterval;
+
+    // Redis最近一次失败的时间，重试间隔内直接走SQL
+    private volatile long lastFailureTime;
+
+    // Redis中的计数可能与数据库不一致（例如期间Redis宕机），下次访问时重新同步
+    private volatile boolean stale = true;
+
+    // 写库并累加增量的过程持有读锁，全量同步持有写锁：每个增量要么已包含在同步读到的数据中，要么在同步完成后累加
+    private final ReentrantReadWriteLock seedLock = new ReentrantReadWriteLock();
+
+    /**
+     * 获取热门歌曲，Redis不可用时返回null
+     */
+    public List<Song> getHotSongs(int limit) {
+        if (!isRedisAvailable()) {
+            return null;
+        }
+        if (limit <= 0) {
+            return new ArrayList<>();
+        }
+
+        try {
+            if (stale || !Boolean.TRUE.equals(stringRedisTemplate.hasKey(LEADERBOARD_KEY))) {
+                seed();
+            }
+
+            List<Song> result = new ArrayList<>(limit);
+            long start = 0;
+            for (int round = 0; round <= MAX_REFILL_ROUNDS && result.size() < limit; round++) {
+                // 缺多少读多少，多读一半以吸收失效条目
+                long count = (limit - result.size()) * 3L / 2 + 1;
+                Set<ZSetOperations.TypedTuple<String>> ranking =
+                        stringRedisTemplate.opsForZSet().reverseRangeWithScores(LEADERBOARD_KEY, start, start + count - 1);
+                if (ranking == null) {
+                    return null;
+                }
+                start += count;
+
+                List<Long> songIds = new ArrayList<>(ranking.size());
+                for (ZSetOperations.TypedTuple<String> tuple : ranking) {
+                    songIds.add(Long.valueOf(tuple.getValue()));
+                }
+                Map<Long, Song> songs = songMetadataCache.getSongs(songIds);
+
+                List<Long> invalid = new ArrayList<>();
+                for (ZSetOperations.TypedTuple<String> tuple : ranking) {
+                    Long songId = Long.valueOf(tuple.getValue());
+                    Song song = songs.get(songId);
+                    if (song == null) {
+                        // 已删除或已禁用的歌曲
+                        invalid.add(songId);
+                        continue;
+                    }
+                    if (result.size() < limit) {
+                        song.setPlayCount(tuple.getScore() != null ? tuple.getScore().longValue() : 0L);
+                        result.add(song);
+                    }
+                }
+                if (!invalid.isEmpty()) {
+                    remove(invalid);
+                    // 移除后后面的条目前移
+                    start -= invalid.size();
+                }
+                if (ranking.size() < count) {
+                    break;
+                }
+            }
+            return result;
+        } catch (Exception e) {
+            markFailure(e);
+            return null;
+        }
+    }
+
+    /**
+     * 从排行榜移除歌曲（删除或禁用时调用）
+     */
+    public void remove(Collection<Long> songIds) {
+        if (songIds.isEmpty() || !isRedisAvailable()) {
+            return;
+        }
+        try {
+            stringRedisTemplate.opsForZSet().remove(LEADERBOARD_KEY, songIds.stream().map(String::valueOf).toArray());
+        } catch (Exception e) {
+            markFailure(e);
+        }
+    }
+
+    /**
+     * 恢复歌曲到排行榜，使用数据库中的播放次数（禁用后重新启用时调用）
+     */
+    public void restore(Collection<Song> songs) {
+        if (songs.isEmpty() || !isRedisAvailable() || stale) {
+            return;
+        }
+        Set<ZSetOperations.TypedTuple<String>> tuples = new HashSet<>();
+        for (Song song : songs) {
+            tuples.add(new DefaultTypedTuple<>(song.getId().toString(),
+                    (double) (song.getPlayCount() != null ? song.getPlayCount() : 0L)));
+        }
+        try {
+            stringRedisTemplate.opsForZSet().add(LEADERBOARD_KEY, tuples);
+        } catch (Exception e) {
+            markFailure(e);
+        }
+    }
+
+    /**
+     * 增量锁：调用方在写库前加锁、累加增量后释放，与全量同步互斥
+     */
+    public Lock deltaLock() {
+        return seedLock.readLock();
+    }
+
+    /**
+     * 累加已写入数据库的播放次数增量，调用方需持有deltaLock
+     */
+    public void applyDeltas(Map<Long, Long> deltas) {
+        if (!isRedisAvailable() || stale) {
+            // 尚未同步过的排行榜会在下次读取时从数据库全量加载
+            return;
+        }
+
+        try {
+            stringRedisTemplate.executePipelined(new SessionCallback<Object>() {
+                @Override
+                @SuppressWarnings("unchecked")
+                public <K, V> Object execute(RedisOperations<K, V> operations) {
+                    ZSetOperations<String, String> zSetOps = (ZSetOperations<String, String>) operations.opsForZSet();
+                    for (Map.Entry<Long, Long> entry : deltas.entrySet()) {
+                        zSetOps.incrementScore(LEADERBOARD_KEY, entry.getKey().toString(), entry.getValue());
+                    }
+                    return null;
+                }
+            });
+        } catch (Exception e) {
+            markFailure(e);
+        }
+    }
+
+    /**
+     * 从数据库全量同步播放次数
+     */
+    private synchronized void seed() {
+        if (!stale && Boolean.TRUE.equals(stringRedisTemplate.hasKey(LEADERBOARD_KEY))) {
+            return;
+        }
+
+        // 同步期间暂停刷盘，读到的播放次数与之后累加的增量不重不漏
+        seedLock.writeLock().lock();
+        try {
+            // 写入临时键后整体替换，旧集合中已删除的歌曲一并清除
+            stringRedisTemplate.delete(SEEDING_KEY);
+            List<Song> playCounts = songMapper.selectPlayCounts();
+            Set<ZSetOperations.TypedTuple<String>> chunk = new HashSet<>();
+            for (Song song : playCounts) {
+                long playCount = song.getPlayCount() != null ? song.getPlayCount() : 0L;
+                chunk.add(new DefaultTypedTuple<>(song.getId().toString(), (double) playCount));
+                if (chunk.size() >= SEED_CHUNK_SIZE) {
+                    stringRedisTemplate.opsForZSet().add(SEEDING_KEY, chunk);
+                    chunk = new HashSet<>();
+                }
+            }
+            if (!chunk.isEmpty()) {
+                stringRedisTemplate.opsForZSet().add(SEEDING_KEY, chunk);
+            }
+            if (playCounts.isEmpty()) {
+                stringRedisTemplate.delete(LEADERBOARD_KEY);
+            } else {
+                stringRedisTemplate.rename(SEEDING_KEY, LEADERBOARD_KEY);
+            }
+
+            stale = false;
+            log.info("热门歌曲排行榜已同步，共 {} 首歌曲", playCounts.size());
+        } finally {
+            seedLock.writeLock().unlock();
+        }
+    }
+
+    private boolean isRedisAvailable() {
+        return redisEnabled && System.currentTimeMillis() - lastFailureTime >= retryInterval;
+    }
+
+    private void markFailure(Exception e) {
+        lastFailureTime = System.currentTimeMillis();
+        stale = true;
+        log.warn("Redis排行榜不可用，{} 毫秒内回退到数据库查询: {}", retryInterval, e.getMessage());
+    }
+}
@@ -0,0 +1,146 @@
+package com.music.service;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import io.jsonwebtoken.Claims;
+import io.jsonwebtoken.JwtException;
+import io.jsonwebtoken.JwtParser;
+import io.jsonwebtoken.Jwts;
+import io.jsonwebtoken.security.Keys;
+import io.micrometer.core.instrument.FunctionCounter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+
+import javax.annotation.PostConstruct;
+import javax.crypto.SecretKey;
+import java.nio.charset.StandardCharsets;
+import java.util.Date;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * JWT令牌服务
+ * 签发HS256令牌（subject为用户ID），校验时不查询数据库；
+ * 已校验通过的令牌在有界缓存中保留一段时间，重复请求直接取出用户ID，跳过HMAC计算和JSON解析
+ */
+@Slf4j
+@Service
+public class JwtTokenService {
+
+    @Autowired
+    private MeterRegistry meterRegistry;
+
+    @Value("${jwt.secret}")
+    private String secret;
+
+    @Value("${jwt.expiration:604800000}")
+    private long expiration;
+
+    @Value("${jwt.verified-cache.size:10000}")
+    private long verifiedCacheSize;
+
+    @Value("${jwt.verified-cache.ttl:300000}")
+    private long verifiedCacheTtl;
+
+    private SecretKey key;
+
+    private JwtParser parser;
+
+    // 以完整令牌为键（不能只用签名段，否则可替换载荷复用签名）
+    private Cache<String, VerifiedToken> verified;
+
+    private final LongAdder cacheHits = new LongAdder();
+
+    private final LongAdder verifications = new LongAdder();
+
+    private final LongAdder invalid = new LongAdder();
+
+    @PostConstruct
+    public void init() {
+        key = Keys.hmacShaKeyFor(secret.getBytes(StandardCharsets.UTF_8));
+        parser = Jwts.parserBuilder().setSigningKey(key).build();
+        verified = Caffeine.newBuilder()
+                .maximumSize(verifiedCacheSize)
+                .expireAfterWrite(verifiedCacheTtl, TimeUnit.MILLISECONDS)
+                .build();
+
+        // 缓存命中时跳过签名校验，未命中时完整校验，校验失败计入invalid
+        Gauge.builder("jwt.cache.size", verified, Cache::estimatedSize)
+                .description("已校验令牌缓存的条目数")
+                .register(meterRegistry);
+        FunctionCounter.builder("jwt.cache.hits", cacheHits, LongAdder::sum)
+                .description("命中已校验令牌缓存的次数")
+                .register(meterRegistry);
+        FunctionCounter.builder("jwt.verifications", verifications, LongAdder::sum)
+                .description("完整校验签名的次数")
+                .register(meterRegistry);
+        FunctionCounter.builder("jwt.invalid", invalid, LongAdder::sum)
+                .description("无效或已过期的令牌数")
+                .register(meterRegistry);
+    }
+
+    /**
+     * 签发令牌
+     */
+    public String issue(Long userId) {
+        long now = System.currentTimeMillis();
+        return Jwts.builder()
+                .setSubject(String.valueOf(userId))
+                .setIssuedAt(new Date(now))
+                .setExpiration(new Date(now + expiration))
+                .signWith(key)
+                .compact();
+    }
+
+    /**
+     * 令牌有效期(毫秒)
+     */
+    public long getExpiration() {
+        return expiration;
+    }
+
+    /**
+     * 校验令牌并返回用户ID，令牌无效或已过期时返回null
+     */
+    public Long resolveUserId(String token) {
+        long now = System.currentTimeMillis();
+        VerifiedToken cached = verified.getIfPresent(token);
+        if (cached != null) {
+            if (cached.expiresAt > now) {
+                cacheHits.increment();
+                return cached.userId;
+            }
+            verified.invalidate(token);
+            return null;
+        }
+
+        verifications.increment();
+        try {
+            Claims claims = parser.parseClaimsJws(token).getBody();
+            Long userId = Long.valueOf(claims.getSubject());
+            Date expiresAt = claims.getExpiration();
+            verified.put(token, new VerifiedToken(userId, expiresAt != null ? expiresAt.getTime() : Long.MAX_VALUE));
+            return userId;
+        } catch (JwtException | IllegalArgumentException e) {
+            invalid.increment();
+            log.debug("无效的令牌: {}", e.getMessage());
+            return null;
+        }
+    }
+
+    private static class VerifiedToken {
+
+        private final Long userId;
+
+        private final long expiresAt;
+
+        private VerifiedToken(Long userId, long expiresAt) {
+            this.userId = userId;
+            this.expiresAt = expiresAt;
+        }
+    }
+}
@@ -0,0 +1,396 @@
+package com.music.service;
+
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Service;
+
+import javax.annotation.PreDestroy;
+import java.io.BufferedReader;
+import java.io.BufferedWriter;
+import java.io.File;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.ClosedWatchServiceException;
+import java.nio.file.DirectoryStream;
+import java.nio.file.FileSystems;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardWatchEventKinds;
+import java.nio.file.WatchEvent;
+import java.nio.file.WatchKey;
+import java.nio.file.WatchService;
+import java.nio.file.attribute.BasicFileAttributes;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+/**
+ * 曲库目录监听
+ * 监听歌曲目录和歌手图片目录的增删改，合并短时间内的事件后小批量同步到数据库和索引；
+ * 启动时对比持久化的文件清单（路径、大小、修改时间），只处理停机期间变化的文件
+ */
+@Slf4j
+@Service
+public class LibraryWatcher {
+
+    private static final String SONG_DIR = "song";
+
+    private static final String SINGER_PIC_DIR = "img/singerPic";
+
+    @Autowired
+    private DataInitService dataInitService;
+
+    @Value("${file.upload.path}")
+    private String uploadPath;
+
+    @Value("${library-watch.enabled:true}")
+    private boolean enabled;
+
+    @Value("${library-watch.debounce:2000}")
+    private long debounce;
+
+    @Value("${library-watch.retry-interval:30000}")
+    private long retryInterval;
+
+    @Value("${library-watch.batch-size:100}")
+    private int batchSize;
+
+    @Value("${library-watch.manifest-file:}")
+    private String manifestFile;
+
+    // 相对路径 -> 已同步的文件状态
+    private final Map<String, FileState> manifest = new ConcurrentHashMap<>();
+
+    private final Set<Path> pending = ConcurrentHashMap.newKeySet();
+
+    private final AtomicBoolean drainScheduled = new AtomicBoolean();
+
+    private final ScheduledExecutorService deltaExecutor = Executors.newSingleThreadScheduledExecutor(r -> {
+        Thread thread = new Thread(r, "library-delta");
+        thread.setDaemon(true);
+        return thread;
+    });
+
+    private WatchService watchService;
+
+    private Path root;
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void start() {
+        if (!enabled) {
+            return;
+        }
+        root = Paths.get(uploadPath).toAbsolutePath().normalize();
+        try {
+            // 先注册监听再对比清单，避免遗漏两者之间发生的变化
+            watchService = FileSystems.getDefault().newWatchService();
+            for (String dir : new String[]{SONG_DIR, SINGER_PIC_DIR}) {
+                Path path = root.resolve(dir);
+                if (Files.isDirectory(path)) {
+                    path.register(watchService, StandardWatchEventKinds.ENTRY_CREATE,
+                            StandardWatchEventKinds.ENTRY_MODIFY, StandardWatchEventKinds.ENTRY_DELETE);
+                }
+            }
+            Thread watcher = new Thread(this::watchLoop, "library-watcher");
+            watcher.setDaemon(true);
+            watcher.start();
+        } catch (IOException e) {
+            log.warn("曲库目录监听启动失败: {}", e.getMessage());
+            return;
+        }
+        deltaExecutor.execute(this::reconcile);
+    }
+
+    private void watchLoop() {
+        while (true) {
+            WatchKey key;
+            try {
+                key = watchService.take();
+            } catch (InterruptedException | ClosedWatchServiceException e) {
+                return;
+            }
+
+            Path dir = (Path) key.watchable();
+            for (WatchEvent<?> event : key.pollEvents()) {
+                if (event.kind() == StandardWatchEventKinds.OVERFLOW) {
+                    // 事件丢失，重新对比整个目录
+                    deltaExecutor.execute(this::reconcile);
+                    continue;
+                }
+                pending.add(dir.resolve((Path) event.context()));
+            }
+            key.reset();
+            scheduleDrain(debounce);
+        }
+    }
+
+    /**
+     * 对比目录与文件清单，将差异加入待处理队列；首次运行时只建立清单
+     */
+    private void reconcile() {
+        boolean firstRun = manifest.isEmpty() && !loadManifest();
+        Map<String, FileState> current = new HashMap<>();
+        for (String dir : new String[]{SONG_DIR, SINGER_PIC_DIR}) {
+            Path path = root.resolve(dir);
+            if (!Files.isDirectory(path)) {
+                continue;
+            }
+            try (DirectoryStream<Path> stream = Files.newDirectoryStream(path)) {
+                for (Path file : stream) {
+                    BasicFileAttributes attributes = Files.readAttributes(file, BasicFileAttributes.class);
+                    if (attributes.isRegularFile() && isTracked(file)) {
+                        current.put(relative(file), new FileState(attributes.size(),
+                                attributes.lastModifiedTime().toMillis()));
+                    }
+                }
+            } catch (IOException e) {
+                log.warn("扫描曲库目录失败: {}, {}", path, e.getMessage());
+            }
+        }
+
+        if (firstRun) {
+            manifest.putAll(current);
+            saveManifest();
+            log.info("已建立曲库文件清单，共 {} 个文件", current.size());
+            return;
+        }
+
+        int changed = 0;
+        for (Map.Entry<String, FileState> entry : current.entrySet()) {
+            if (!entry.getValue().equals(manifest.get(entry.getKey()))) {
+                pending.add(root.resolve(entry.getKey()));
+                changed++;
+            }
+        }
+        for (String path : manifest.keySet()) {
+            if (!current.containsKey(path)) {
+                pending.add(root.resolve(path));
+                changed++;
+            }
+        }
+        if (changed > 0) {
+            log.info("曲库对比发现 {} 个文件变化", changed);
+            scheduleDrain(0);
+        }
+    }
+
+    private void scheduleDrain(long delay) {
+        if (drainScheduled.compareAndSet(false, true)) {
+            deltaExecutor.schedule(() -> {
+                drainScheduled.set(false);
+                try {
+                    drain();
+                } catch (Exception e) {
+                    log.error("曲库增量同步失败", e);
+                }
+            }, delay, TimeUnit.MILLISECONDS);
+        }
+    }
+
+    /**
+     * 处理待同步的文件，仍在写入中的文件留到下一轮
+     */
+    private void drain() {
+        if (dataInitService.isIngesting()) {
+            // 全量导入期间暂停，导入结束后再处理
+            scheduleDrain(debounce);
+            return;
+        }
+
+        List<File> songUpserts = new ArrayList<>();
+        List<String> songDeletes = new ArrayList<>();
+        List<File> singerImports = new ArrayList<>();
+        Map<String, FileState> states = new HashMap<>();
+        long now = System.currentTimeMillis();
+        boolean deferred = false;
+
+        for (Path path : new ArrayList<>(pending)) {
+            pending.remove(path);
+            if (!isTracked(path)) {
+                continue;
+            }
+            String relativePath = relative(path);
+            File file = path.toFile();
+            if (!file.isFile()) {
+                if (manifest.containsKey(relativePath)) {
+                    states.put(relativePath, null);
+                    if (isSongFile(path)) {
+                        songDeletes.add(file.getName());
+                    }
+                }
+                continue;
+            }
+
+            FileState state = new FileState(file.length(), file.lastModified());
+            if (now - state.lastModified < debounce) {
+                pending.add(path);
+                deferred = true;
+                continue;
+            }
+            if (state.equals(manifest.get(relativePath))) {
+                continue;
+            }
+            states.put(relativePath, state);
+            if (isSongFile(path)) {
+                songUpserts.add(file);
+            } else {
+                singerImports.add(file);
+            }
+        }
+
+        try {
+            // 歌手先于歌曲导入，新歌曲可以关联到刚创建的歌手
+            for (int i = 0; i < singerImports.size(); i += batchSize) {
+                dataInitService.importSingerFiles(singerImports.subList(i, Math.min(i + batchSize, singerImports.size())));
+            }
+            for (int i = 0; i < songUpserts.size(); i += batchSize) {
+                dataInitService.upsertSongFiles(songUpserts.subList(i, Math.min(i + batchSize, songUpserts.size())));
+            }
+            for (int i = 0; i < songDeletes.size(); i += batchSize) {
+                dataInitService.disableSongFiles(songDeletes.subList(i, Math.min(i + batchSize, songDeletes.size())));
+            }
+        } catch (RuntimeException e) {
+            // 清单保持不变，稍后整体重试（导入和禁用都是幂等的）
+            log.error("曲库增量同步失败，稍后重试", e);
+            for (String relativePath : states.keySet()) {
+                pending.add(root.resolve(relativePath));
+            }
+            deltaExecutor.schedule(() -> scheduleDrain(0), retryInterval, TimeUnit.MILLISECONDS);
+            return;
+        }
+
+        if (!states.isEmpty()) {
+            for (Map.Entry<String, FileState> entry : states.entrySet()) {
+                if (entry.getValue() == null) {
+                    manifest.remove(entry.getKey());
+                } else {
+                    manifest.put(entry.getKey(), entry.getValue());
+                }
+            }
+            saveManifest();
+            log.info("曲库增量同步完成：新增/更新歌曲 {}，删除歌曲 {}，歌手图片 {}",
+                    songUpserts.size(), songDeletes.size(), singerImports.size());
+        }
+        if (deferred) {
+            scheduleDrain(debounce);
+        }
+    }
+
+    private boolean isTracked(Path path) {
+        String name = path.getFileName().toString().toLowerCase(Locale.ROOT);
+        if (isSongFile(path)) {
+            return name.endsWith(".mp3") || name.endsWith(".m4a") || name.endsWith(".flac") || name.endsWith(".wav");
+        }
+        return path.getParent() != null && path.getParent().endsWith(Paths.get(SINGER_PIC_DIR))
+                && (name.endsWith(".jpg") || name.endsWith(".jpeg") || name.endsWith(".png"));
+    }
+
+    private boolean isSongFile(Path path) {
+        return path.getParent() != null && path.getParent().equals(root.resolve(SONG_DIR));
+    }
+
+    private String relative(Path path) {
+        return root.relativize(path).toString().replace(File.separatorChar, '/');
+    }
+
+    private Path manifestPath() {
+        return Paths.get(manifestFile.isEmpty() ? uploadPath + ".library-manifest" : manifestFile);
+    }
+
+    /**
+     * 加载文件清单，每行格式：相对路径\t大小\t修改时间
+     */
+    private boolean loadManifest() {
+        Path path = manifestPath();
+        if (!Files.exists(path)) {
+            return false;
+        }
+        try (BufferedReader reader = Files.newBufferedReader(path, StandardCharsets.UTF_8)) {
+            String line;
+            while ((line = reader.readLine()) != null) {
+                int second = line.lastIndexOf('\t');
+                int first = second > 0 ? line.lastIndexOf('\t', second - 1) : -1;
+                if (first <= 0) {
+                    continue;
+                }
+                manifest.put(line.substring(0, first), new FileState(
+                        Long.parseLong(line.substring(first + 1, second)), Long.parseLong(line.substring(second + 1))));
+            }
+            return true;
+        } catch (IOException | NumberFormatException e) {
+            log.warn("读取曲库文件清单失败，将重新建立: {}", e.getMessage());
+            manifest.clear();
+            return false;
+        }
+    }
+
+    private void saveManifest() {
+        Path path = manifestPath();
+        Path temp = path.resolveSibling(path.getFileName() + ".tmp");
+        try {
+            try (BufferedWriter writer = Files.newBufferedWriter(temp, StandardCharsets.UTF_8)) {
+                for (Map.Entry<String, FileState> entry : manifest.entrySet()) {
+                    writer.write(entry.getKey() + "\t" + entry.getValue().size + "\t" + entry.getValue().lastModified);
+                    writer.newLine();
+                }
+            }
+            Files.move(temp, path, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        } catch (IOException e) {
+            log.warn("写入曲库文件清单失败: {}", e.getMessage());
+        }
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        deltaExecutor.shutdownNow();
+        if (watchService != null) {
+            try {
+                watchService.close();
+            } catch (IOException e) {
+                log.debug("关闭目录监听失败: {}", e.getMessage());
+            }
+        }
+    }
+
+    private static class FileState {
+
+        private final long size;
+
+        private final long lastModified;
+
+        private FileState(long size, long lastModified) {
+            this.size = size;
+            this.lastModified = lastModified;
+        }
+
+        @Override
+        public boolean equals(Object o) {
+            if (this == o) {
+                return true;
+            }
+            if (!(o instanceof FileState)) {
+                return false;
+            }
+            FileState that = (FileState) o;
+            return size == that.size && lastModified == that.lastModified;
+        }
+
+        @Override
+        public int hashCode() {
+            return Long.hashCode(size) * 31 + Long.hashCode(lastModified);
+        }
+    }
+}
@@ -0,0 +1,240 @@
+package com.music.service;
+
+import com.baomidou.mybatisplus.core.conditions.query.LambdaQueryWrapper;
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.music.entity.Singer;
+import com.music.entity.Song;
+import com.music.mapper.SingerMapper;
+import com.music.mapper.SongMapper;
+import lombok.extern.slf4j.Slf4j;
+import org.apache.commons.lang3.StringUtils;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+
+import javax.annotation.PostConstruct;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.Map;
+import java.util.Objects;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * 分页总数服务
+ * 按过滤条件（名称/歌手/专辑）缓存列表总数，有效期较短；无过滤条件且表较大时使用information_schema的行数估计；
+ * 通过saveSong和数据导入插入歌曲时增量更新已缓存的总数，禁用或恢复歌曲时清除歌曲总数
+ */
+@Slf4j
+@Service
+public class PageCountService {
+
+    private static final String SONGS = "songs";
+
+    private static final String SINGERS = "singers";
+
+    @Autowired
+    private SongMapper songMapper;
+
+    @Autowired
+    private SingerMapper singerMapper;
+
+    @Value("${page-count.ttl:60000}")
+    private long ttl;
+
+    @Value("${page-count.max-size:1000}")
+    private long maxSize;
+
+    @Value("${page-count.estimate-threshold:100000}")
+    private long estimateThreshold;
+
+    private Cache<CountKey, PageCount> counts;
+
+    @PostConstruct
+    public void init() {
+        counts = Caffeine.newBuilder()
+                .maximumSize(maxSize)
+                .expireAfterWrite(ttl, TimeUnit.MILLISECONDS)
+                .build();
+    }
+
+    /**
+     * 正常状态歌曲的总数
+     */
+    public PageCount countSongs(String name, Long singerId, Long albumId) {
+        return counts.get(new CountKey(SONGS, normalize(name), singerId, albumId), this::load);
+    }
+
+    /**
+     * 正常状态歌手的总数
+     */
+    public PageCount countSingers(String name) {
+        return counts.get(new CountKey(SINGERS, normalize(name), null, null), this::load);
+    }
+
+    public void onSongInserted(Song song) {
+        onSongsInserted(Collections.singletonList(song));
+    }
+
+    /**
+     * 歌曲插入后累加匹配的已缓存总数
+     */
+    public void onSongsInserted(Collection<Song> songs) {
+        Map<CountKey, PageCount> entries = counts.asMap();
+        for (CountKey key : entries.keySet()) {
+            if (!SONGS.equals(key.table)) {
+                continue;
+            }
+            long delta = 0;
+            for (Song song : songs) {
+                if (matches(key, song)) {
+                    delta++;
+                }
+            }
+            if (delta > 0) {
+                long added = delta;
+                entries.computeIfPresent(key, (k, count) -> count.plus(added));
+            }
+        }
+    }
+
+    /**
+     * 歌手插入后累加匹配的已缓存总数
+     */
+    public void onSingerInserted(Singer singer) {
+        if (singer.getStatus() != null && singer.getStatus() != 1) {
+            return;
+        }
+        Map<CountKey, PageCount> entries = counts.asMap();
+        for (CountKey key : entries.keySet()) {
+            if (SINGERS.equals(key.table) && containsName(singer.getName(), key.name)) {
+                entries.computeIfPresent(key, (k, count) -> count.plus(1));
+            }
+        }
+    }
+
+    /**
+     * 清除所有歌曲总数（歌曲被禁用或恢复时无法判断影响哪些过滤条件）
+     */
+    public void invalidateSongs() {
+        counts.asMap().keySet().removeIf(key -> SONGS.equals(key.table));
+    }
+
+    private PageCount load(CountKey key) {
+        if (key.isUnfiltered()) {
+            Long estimate = null;
+            try {
+                estimate = songMapper.estimateRowCount(key.table);
+            } catch (Exception e) {
+                log.debug("读取表行数估计失败: {}", e.getMessage());
+            }
+            // 估计值包含已禁用的记录且InnoDB统计本身有误差，只在表较大、精确计数代价高时使用
+            if (estimate != null && estimate >= estimateThreshold) {
+                return new PageCount(estimate, false);
+            }
+        }
+        return new PageCount(countExact(key), true);
+    }
+
+    private long countExact(CountKey key) {
+        if (SINGERS.equals(key.table)) {
+            LambdaQueryWrapper<Singer> wrapper = new LambdaQueryWrapper<>();
+            wrapper.like(key.name != null, Singer::getName, key.name)
+                    .eq(Singer::getStatus, 1);
+            return singerMapper.selectCount(wrapper);
+        }
+        // 过滤条件都在songs表上，计数不需要关联歌手和专辑
+        LambdaQueryWrapper<Song> wrapper = new LambdaQueryWrapper<>();
+        wrapper.eq(Song::getStatus, 1)
+                .like(key.name != null, Song::getName, key.name)
+                .eq(key.singerId != null, Song::getSingerId, key.singerId)
+                .eq(key.albumId != null, Song::getAlbumId, key.albumId);
+        return songMapper.selectCount(wrapper);
+    }
+
+    private boolean matches(CountKey key, Song song) {
+        return (song.getStatus() == null || song.getStatus() == 1)
+                && (key.singerId == null || key.singerId.equals(song.getSingerId()))
+                && (key.albumId == null || key.albumId.equals(song.getAlbumId()))
+                && containsName(song.getName(), key.name);
+    }
+
+    private boolean containsName(String value, String filter) {
+        // 与数据库默认排序规则一致，不区分大小写
+        return filter == null || StringUtils.containsIgnoreCase(value, filter);
+    }
+
+    private String normalize(String name) {
+        return StringUtils.isNotBlank(name) ? name : null;
+    }
+
+    /**
+     * 列表总数
+     */
+    public static final class PageCount {
+
+        private final long total;
+
+        /**
+         * 是否为精确值（false表示行数估计）
+         */
+        private final boolean exact;
+
+        public PageCount(long total, boolean exact) {
+            this.total = total;
+            this.exact = exact;
+        }
+
+        public long getTotal() {
+            return total;
+        }
+
+        public boolean isExact() {
+            return exact;
+        }
+
+        private PageCount plus(long delta) {
+            return new PageCount(total + delta, exact);
+        }
+    }
+
+    private static final class CountKey {
+
+        private final String table;
+
+        private final String name;
+
+        private final Long singerId;
+
+        private final Long albumId;
+
+        private CountKey(String table, String name, Long singerId, Long albumId) {
+            this.table = table;
+            this.name = name;
+            this.singerId = singerId;
+            this.albumId = albumId;
+        }
+
+        private boolean isUnfiltered() {
+            return name == null && singerId == null && albumId == null;
+        }
+
+        @Override
+        public boolean equals(Object o) {
+            if (this == o) {
+                return true;
+            }
+            if (!(o instanceof CountKey)) {
+                return false;
+            }
+            CountKey that = (CountKey) o;
+            return table.equals(that.table) && Objects.equals(name, that.name)
+                    && Objects.equals(singerId, that.singerId) && Objects.equals(albumId, that.albumId);
+        }
+
+        @Override
+        public int hashCode() {
+            return Objects.hash(table, name, singerId, albumId);
+        }
+    }
+}
@@ -0,0 +1,200 @@
+package com.music.service;
+
+import io.micrometer.core.instrument.FunctionCounter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Tags;
+import io.micrometer.core.instrument.Timer;
+import io.micrometer.core.instrument.binder.jvm.ExecutorServiceMetrics;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.security.crypto.bcrypt.BCrypt;
+import org.springframework.security.crypto.bcrypt.BCryptPasswordEncoder;
+import org.springframework.stereotype.Service;
+import org.springframework.util.DigestUtils;
+
+import javax.annotation.PostConstruct;
+import javax.annotation.PreDestroy;
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.Supplier;
+import java.util.regex.Pattern;
+
+/**
+ * 密码哈希服务
+ * 使用BCrypt，cost可配置或在启动时按目标校验耗时自动选择；兼容旧的加盐MD5哈希，登录成功后由调用方重新哈希；
+ * 哈希和校验在独立的有界线程池中执行，不占用Tomcat工作线程，队列已满时立即以RejectedExecutionException拒绝
+ */
+@Slf4j
+@Service
+public class PasswordHasher {
+
+    private static final String LEGACY_SALT = "music_salt";
+
+    private static final Pattern LEGACY_HASH = Pattern.compile("[0-9a-f]{32}");
+
+    @Autowired
+    private MeterRegistry meterRegistry;
+
+    @Value("${password.bcrypt.strength:0}")
+    private int strength;
+
+    @Value("${password.bcrypt.target-millis:200}")
+    private long targetMillis;
+
+    @Value("${password.bcrypt.min-strength:10}")
+    private int minStrength;
+
+    @Value("${password.bcrypt.max-strength:16}")
+    private int maxStrength;
+
+    @Value("${password.verify.threads:0}")
+    private int threads;
+
+    @Value("${password.verify.queue-capacity:64}")
+    private int queueCapacity;
+
+    private BCryptPasswordEncoder encoder;
+
+    private ThreadPoolExecutor executor;
+
+    private Timer verifyTimer;
+
+    private final LongAdder rejected = new LongAdder();
+
+    private final LongAdder rehashed = new LongAdder();
+
+    @PostConstruct
+    public void init() {
+        if (strength <= 0) {
+            strength = tuneStrength(targetMillis, minStrength, maxStrength);
+        }
+        encoder = new BCryptPasswordEncoder(strength);
+
+        int poolSize = threads > 0 ? threads : Runtime.getRuntime().availableProcessors();
+        AtomicInteger counter = new AtomicInteger();
+        executor = new ThreadPoolExecutor(poolSize, poolSize, 0L, TimeUnit.MILLISECONDS,
+                new ArrayBlockingQueue<>(queueCapacity),
+                r -> {
+                    Thread thread = new Thread(r, "password-hash-" + counter.incrementAndGet());
+                    thread.setDaemon(true);
+                    return thread;
+                },
+                new ThreadPoolExecutor.AbortPolicy());
+        log.info("密码哈希使用BCrypt，cost {}，校验线程 {} 个，队列容量 {}", strength, poolSize, queueCapacity);
+
+        // 线程池的活动线程、排队任务和已完成任务数，指标名为 executor.*，标签name=password-hash
+        new ExecutorServiceMetrics(executor, "password-hash", Tags.empty()).bindTo(meterRegistry);
+        Gauge.builder("password.bcrypt.strength", this, hasher -> hasher.strength)
+                .description("当前使用的BCrypt cost")
+                .register(meterRegistry);
+        verifyTimer = Timer.builder("password.verify")
+                .description("密码校验耗时（不含排队）")
+                .register(meterRegistry);
+        FunctionCounter.builder("password.rejected", rejected, LongAdder::sum)
+                .description("哈希线程池队列已满被拒绝的任务数")
+                .register(meterRegistry);
+        FunctionCounter.builder("password.rehashed", rehashed, LongAdder::sum)
+                .description("登录后升级为当前cost的密码哈希数")
+                .register(meterRegistry);
+    }
+
+    /**
+     * 选择不超过目标耗时的最大cost（不低于最小值）
+     * cost每加1耗时翻倍，预计下一级会超出目标时停止测量
+     */
+    public static int tuneStrength(long targetMillis, int minStrength, int maxStrength) {
+        // 预热
+        BCrypt.hashpw("warmup", BCrypt.gensalt(minStrength));
+
+        int chosen = minStrength;
+        for (int cost = minStrength; cost <= maxStrength; cost++) {
+            long start = System.nanoTime();
+            BCrypt.hashpw("password-cost-probe", BCrypt.gensalt(cost));
+            long millis = TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start);
+            if (millis > targetMillis && cost > minStrength) {
+                break;
+            }
+            chosen = cost;
+            log.info("BCrypt cost {} 耗时 {} ms", cost, millis);
+            if (millis * 2 > targetMillis) {
+                break;
+            }
+        }
+        return chosen;
+    }
+
+    /**
+     * 异步计算密码哈希
+     */
+    public CompletableFuture<String> hash(String rawPassword) {
+        return submit(() -> encoder.encode(rawPassword));
+    }
+
+    /**
+     * 异步校验密码，支持BCrypt和旧的MD5哈希
+     */
+    public CompletableFuture<Boolean> verify(String rawPassword, String storedHash) {
+        return submit(() -> {
+            long start = System.nanoTime();
+            try {
+                if (storedHash == null) {
+                    return false;
+                }
+                if (isLegacy(storedHash)) {
+                    return MessageDigest.isEqual(legacyHash(rawPassword).getBytes(StandardCharsets.US_ASCII),
+                            storedHash.getBytes(StandardCharsets.US_ASCII));
+                }
+                return encoder.matches(rawPassword, storedHash);
+            } finally {
+                verifyTimer.record(System.nanoTime() - start, TimeUnit.NANOSECONDS);
+            }
+        });
+    }
+
+    /**
+     * 哈希是否需要升级（旧的MD5哈希，或cost低于当前配置）
+     */
+    public boolean needsRehash(String storedHash) {
+        return storedHash != null && (isLegacy(storedHash) || encoder.upgradeEncoding(storedHash));
+    }
+
+    /**
+     * 记录一次重新哈希
+     */
+    public void onRehashed() {
+        rehashed.increment();
+    }
+
+    private <T> CompletableFuture<T> submit(Supplier<T> task) {
+        try {
+            return CompletableFuture.supplyAsync(task, executor);
+        } catch (RejectedExecutionException e) {
+            rejected.increment();
+            CompletableFuture<T> future = new CompletableFuture<>();
+            future.completeExceptionally(e);
+            return future;
+        }
+    }
+
+    private static boolean isLegacy(String storedHash) {
+        return LEGACY_HASH.matcher(storedHash).matches();
+    }
+
+    private static String legacyHash(String rawPassword) {
+        return DigestUtils.md5DigestAsHex((rawPassword + LEGACY_SALT).getBytes());
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        executor.shutdown();
+    }
+}
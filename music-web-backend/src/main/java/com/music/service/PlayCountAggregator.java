@@ -0,0 +1,253 @@
+package com.music.service;
+
+import com.baomidou.mybatisplus.core.conditions.query.LambdaQueryWrapper;
+import com.music.entity.Song;
+import com.music.mapper.SongMapper;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+
+import javax.annotation.PreDestroy;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.Lock;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * 播放次数异步汇总服务
+ * 播放请求只在内存中累加计数，由定时任务批量写回数据库，避免每次播放都读改写整行；
+ * 刷盘后没有新播放的计数器随即移除，计数表只保留最近一个刷盘周期内被播放的歌曲
+ */
+@Slf4j
+@Service
+public class PlayCountAggregator {
+
+    @Autowired
+    private SongMapper songMapper;
+
+    @Autowired
+    private HotSongLeaderboard hotSongLeaderboard;
+
+    @Autowired
+    private SongSearchIndex songSearchIndex;
+
+    @Autowired
+    private SongMetadataCache songMetadataCache;
+
+    @Value("${play-count.flush-threshold:1000}")
+    private long flushThreshold;
+
+    @Value("${play-count.batch-size:500}")
+    private int batchSize;
+
+    // 每首歌曲一个计数器，调用方需保证歌曲存在
+    private final ConcurrentHashMap<Long, Counter> counters = new ConcurrentHashMap<>();
+
+    // 自上次刷盘以来的播放事件数
+    private final AtomicLong pendingEvents = new AtomicLong();
+
+    private final AtomicBoolean flushScheduled = new AtomicBoolean();
+
+    private final ReentrantLock flushLock = new ReentrantLock();
+
+    private final ExecutorService flushExecutor = Executors.newSingleThreadExecutor(r -> {
+        Thread thread = new Thread(r, "play-count-flusher");
+        thread.setDaemon(true);
+        return thread;
+    });
+
+    /**
+     * 记录一次播放
+     */
+    public void increment(Long songId) {
+        for (;;) {
+            Counter counter = counters.computeIfAbsent(songId, id -> new Counter());
+            if (counter.plays.getAndIncrement() >= 0) {
+                break;
+            }
+            // 计数器在刷盘后已退役，本次累加无效，换新计数器重试
+            counters.remove(songId, counter);
+        }
+
+        if (pendingEvents.incrementAndGet() >= flushThreshold && flushScheduled.compareAndSet(false, true)) {
+            flushExecutor.execute(() -> {
+                flushScheduled.set(false);
+                flush();
+            });
+        }
+    }
+
+    /**
+     * 获取尚未写入数据库的播放次数
+     */
+    public long getPendingCount(Long songId) {
+        Counter counter = counters.get(songId);
+        if (counter == null) {
+            return 0L;
+        }
+        long plays = counter.plays.get();
+        return plays >= 0 ? plays - counter.flushed : 0L;
+    }
+
+    /**
+     * 定时刷盘
+     */
+    @Scheduled(fixedDelayString = "${play-count.flush-interval:5000}")
+    public void scheduledFlush() {
+        flush();
+    }
+
+    /**
+     * 将累计的播放次数增量批量写回数据库
+     */
+    public void flush() {
+        flushLock.lock();
+        try {
+            pendingEvents.set(0);
+
+            // 计数器只增不减，当前值与已刷盘值之差即为本次增量；写库失败时不推进已刷盘值，下次重试
+            Map<Long, Long> deltas = new LinkedHashMap<>();
+            Map<Long, Counter> snapshotCounters = new LinkedHashMap<>();
+            Map<Long, Long> snapshots = new LinkedHashMap<>();
+            for (Map.Entry<Long, Counter> entry : counters.entrySet()) {
+                Counter counter = entry.getValue();
+                long total = counter.plays.get();
+                long delta = total - counter.flushed;
+                if (delta > 0) {
+                    deltas.put(entry.getKey(), delta);
+                    snapshotCounters.put(entry.getKey(), counter);
+                    snapshots.put(entry.getKey(), total);
+                }
+            }
+
+            if (deltas.isEmpty()) {
+                return;
+            }
+
+            List<Long> songIds = new ArrayList<>(deltas.keySet());
+            int flushedSongs = 0;
+            for (int from = 0; from < songIds.size(); from += batchSize) {
+                List<Long> batchIds = songIds.subList(from, Math.min(from + batchSize, songIds.size()));
+                Map<Long, Long> batch = new LinkedHashMap<>();
+                for (Long songId : batchIds) {
+                    batch.put(songId, deltas.get(songId));
+                }
+
+                // 写库到同步排行榜之间不能穿插排行榜的全量同步
+                Lock deltaLock = hotSongLeaderboard.deltaLock();
+                deltaLock.lock();
+                try {
+                    if (flushBatch(batch, snapshotCounters, snapshots)) {
+                        flushedSongs += batch.size();
+                    }
+                } finally {
+                    deltaLock.unlock();
+                }
+            }
+
+            log.debug("播放次数刷盘完成，共 {} 首歌曲", flushedSongs);
+        } finally {
+            flushLock.unlock();
+        }
+    }
+
+    /**
+     * 写回一批增量并同步到排行榜和搜索索引，写库失败时返回false
+     */
+    private boolean flushBatch(Map<Long, Long> batch, Map<Long, Counter> snapshotCounters, Map<Long, Long> snapshots) {
+        int updated;
+        try {
+            updated = songMapper.batchIncrementPlayCount(batch);
+        } catch (Exception e) {
+            log.error("播放次数刷盘失败，{} 首歌曲的增量将在下次重试", batch.size(), e);
+            return false;
+        }
+
+        // 有歌曲在计数期间被删除：丢弃其计数，不同步到排行榜和索引
+        if (updated < batch.size()) {
+            Set<Long> missing = missingSongIds(batch.keySet());
+            for (Long songId : missing) {
+                Counter counter = snapshotCounters.get(songId);
+                counter.plays.set(Counter.RETIRED);
+                counters.remove(songId, counter);
+                batch.remove(songId);
+            }
+            if (!missing.isEmpty()) {
+                log.warn("{} 首歌曲已不存在，丢弃其播放次数: {}", missing.size(), missing);
+            }
+        }
+
+        // 缓存的歌曲详情带有刷盘前的播放次数，先于更新已刷盘值清除，
+        // 否则详情接口在两者之间会少算这批增量（缓存为旧值，待刷盘数已扣除）
+        songMetadataCache.evictAll(batch.keySet());
+
+        for (Long songId : batch.keySet()) {
+            Counter counter = snapshotCounters.get(songId);
+            long snapshot = snapshots.get(songId);
+            counter.flushed = snapshot;
+            // 刷盘后没有新播放则退役并移除；之后的播放会创建新计数器
+            if (counter.plays.compareAndSet(snapshot, Counter.RETIRED)) {
+                counters.remove(songId, counter);
+            }
+        }
+
+        // 数据库写入成功后同步到热门排行榜和搜索索引
+        hotSongLeaderboard.applyDeltas(batch);
+        songSearchIndex.applyPlayDeltas(batch);
+        return true;
+    }
+
+    /**
+     * 查询已不在数据库中的歌曲ID
+     */
+    private Set<Long> missingSongIds(Set<Long> songIds) {
+        LambdaQueryWrapper<Song> wrapper = new LambdaQueryWrapper<>();
+        wrapper.select(Song::getId).in(Song::getId, songIds);
+        Set<Long> missing = new HashSet<>(songIds);
+        for (Song song : songMapper.selectList(wrapper)) {
+            missing.remove(song.getId());
+        }
+        return missing;
+    }
+
+    /**
+     * 应用关闭时排空计数器，保证播放次数不丢失
+     */
+    @PreDestroy
+    public void shutdown() {
+        flushExecutor.shutdown();
+        try {
+            flushExecutor.awaitTermination(10, TimeUnit.SECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+        flush();
+        log.info("播放次数计数器已排空");
+    }
+
+    /**
+     * 单曲计数器
+     */
+    private static class Counter {
+
+        // 退役标记：足够小，之后的累加仍为负数，累加方据此换新计数器
+        private static final long RETIRED = Long.MIN_VALUE / 2;
+
+        private final AtomicLong plays = new AtomicLong();
+
+        // 已写入数据库的累计值，仅在持有刷盘锁时修改
+        private volatile long flushed;
+    }
+}
@@ -0,0 +1,157 @@
+package com.music.service;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.music.common.ratelimit.TokenBucket;
+import com.music.config.RateLimitProperties;
+import io.micrometer.core.instrument.FunctionCounter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.data.redis.core.StringRedisTemplate;
+import org.springframework.data.redis.core.script.DefaultRedisScript;
+import org.springframework.stereotype.Service;
+
+import javax.annotation.PostConstruct;
+import java.util.Collections;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * 限流服务
+ * 每条规则按限流维度（用户或IP）维护令牌桶：默认在本地内存中无锁计数；开启Redis模式时由Lua脚本在Redis中
+ * 以同样的算法原子计数，集群内共享限额，Redis不可用时在重试间隔内退回本地令牌桶；
+ * 本地令牌桶空闲到补满所需的时间后即被淘汰，内存只与活跃的键数有关，并受 max-keys 限制
+ */
+@Slf4j
+@Service
+public class RateLimiter {
+
+    private static final String KEY_PREFIX = "music:ratelimit:";
+
+    // GCRA：KEYS[1] 理论到达时间(微秒)，ARGV[1] 生成间隔(微秒)，ARGV[2] 容量；返回需等待的微秒数，0表示放行
+    private static final DefaultRedisScript<Long> SCRIPT = new DefaultRedisScript<>(
+            "local t = redis.call('TIME') " +
+            "local now = tonumber(t[1]) * 1000000 + tonumber(t[2]) " +
+            "local interval = tonumber(ARGV[1]) " +
+            "local tat = tonumber(redis.call('GET', KEYS[1]) or now) " +
+            "local nextTat = math.max(tat, now) + interval " +
+            "local wait = nextTat - now - interval * tonumber(ARGV[2]) " +
+            "if wait > 0 then return wait end " +
+            "redis.call('SET', KEYS[1], string.format('%.0f', nextTat), 'PX', math.ceil((nextTat - now) / 1000)) " +
+            "return 0",
+            Long.class);
+
+    @Autowired
+    private RateLimitProperties properties;
+
+    @Autowired
+    private StringRedisTemplate stringRedisTemplate;
+
+    @Autowired
+    private MeterRegistry meterRegistry;
+
+    private final Map<String, Cache<String, TokenBucket>> buckets = new ConcurrentHashMap<>();
+
+    private final Map<String, LongAdder> allowed = new ConcurrentHashMap<>();
+
+    private final Map<String, LongAdder> rejected = new ConcurrentHashMap<>();
+
+    private final LongAdder redisFailures = new LongAdder();
+
+    private volatile long lastFailureTime;
+
+    /**
+     * 按规则注册放行/拒绝次数和本地令牌桶数指标，标签rule为规则名称
+     */
+    @PostConstruct
+    public void registerMetrics() {
+        for (RateLimitProperties.Rule rule : properties.getRules()) {
+            FunctionCounter.builder("rate.limit.requests", counter(allowed, rule), LongAdder::sum)
+                    .description("限流规则匹配的请求数")
+                    .tags("rule", rule.getName(), "result", "allowed")
+                    .register(meterRegistry);
+            FunctionCounter.builder("rate.limit.requests", counter(rejected, rule), LongAdder::sum)
+                    .description("限流规则匹配的请求数")
+                    .tags("rule", rule.getName(), "result", "rejected")
+                    .register(meterRegistry);
+            Gauge.builder("rate.limit.buckets", buckets, map -> {
+                        Cache<String, TokenBucket> cache = map.get(rule.getName());
+                        return cache != null ? cache.estimatedSize() : 0;
+                    })
+                    .description("本地令牌桶数")
+                    .tag("rule", rule.getName())
+                    .register(meterRegistry);
+        }
+        FunctionCounter.builder("rate.limit.redis.failures", redisFailures, LongAdder::sum)
+                .description("Redis限流失败后退回本地令牌桶的次数")
+                .register(meterRegistry);
+    }
+
+    /**
+     * 按规则为指定键取一个令牌
+     *
+     * @return 0表示放行，否则为建议的重试等待时间(毫秒)
+     */
+    public long tryAcquire(RateLimitProperties.Rule rule, String key) {
+        long interval = intervalNanos(rule);
+        long waitNanos = -1;
+        if (isRedisAvailable()) {
+            waitNanos = acquireRemote(rule, key, interval);
+        }
+        if (waitNanos < 0) {
+            TokenBucket bucket = bucketsOf(rule, interval).get(key, k -> new TokenBucket(System.nanoTime()));
+            waitNanos = bucket.tryAcquire(System.nanoTime(), interval, rule.getCapacity());
+        }
+
+        if (waitNanos == 0) {
+            counter(allowed, rule).increment();
+            return 0;
+        }
+        counter(rejected, rule).increment();
+        return Math.max(1, TimeUnit.NANOSECONDS.toMillis(waitNanos));
+    }
+
+    /**
+     * Redis令牌桶，失败时返回-1
+     */
+    private long acquireRemote(RateLimitProperties.Rule rule, String key, long interval) {
+        try {
+            Long waitMicros = stringRedisTemplate.execute(SCRIPT,
+                    Collections.singletonList(KEY_PREFIX + rule.getName() + ":" + key),
+                    String.valueOf(Math.max(1, TimeUnit.NANOSECONDS.toMicros(interval))),
+                    String.valueOf(rule.getCapacity()));
+            return waitMicros != null ? TimeUnit.MICROSECONDS.toNanos(waitMicros) : -1;
+        } catch (Exception e) {
+            lastFailureTime = System.currentTimeMillis();
+            redisFailures.increment();
+            log.warn("Redis限流不可用，{} 秒内使用本地令牌桶: {}", properties.getRetryInterval() / 1000, e.getMessage());
+            return -1;
+        }
+    }
+
+    private Cache<String, TokenBucket> bucketsOf(RateLimitProperties.Rule rule, long interval) {
+        return buckets.computeIfAbsent(rule.getName(), name -> Caffeine.newBuilder()
+                .maximumSize(properties.getMaxKeys())
+                // 空闲到桶补满后，丢弃与保留等价
+                .expireAfterAccess(Math.max(interval * rule.getCapacity(), TimeUnit.SECONDS.toNanos(1)),
+                        TimeUnit.NANOSECONDS)
+                .build());
+    }
+
+    private static long intervalNanos(RateLimitProperties.Rule rule) {
+        return Math.max(1, (long) (TimeUnit.SECONDS.toNanos(1) / rule.getRefillPerSecond()));
+    }
+
+    private static LongAdder counter(Map<String, LongAdder> counters, RateLimitProperties.Rule rule) {
+        return counters.computeIfAbsent(rule.getName(), name -> new LongAdder());
+    }
+
+    private boolean isRedisAvailable() {
+        return properties.isRedisEnabled()
+                && System.currentTimeMillis() - lastFailureTime >= properties.getRetryInterval();
+    }
+}
@@ -15,6 +15,14 @@ public interface SingerService {
      */
     PageResult<Singer> getSingerPage(Long current, Long size, String name);
     
+    /**
+     * 游标分页查询歌手，按播放次数倒序
+     *
+     * @param cursor    上一页返回的nextCursor，为空时查询第一页
+     * @param withTotal 是否返回总数
+     */
+    PageResult<Singer> getSingerPageByCursor(String cursor, Long size, String name, boolean withTotal);
+    
     /**
      * 根据ID获取歌手详情
      */
@@ -0,0 +1,77 @@
+package com.music.service;
+
+import com.music.common.cache.TieredCache;
+import com.music.entity.Song;
+import com.music.mapper.SongMapper;
+import org.springframework.beans.BeanUtils;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Service;
+
+import javax.annotation.PostConstruct;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * 歌曲元数据缓存
+ * 缓存带歌手名、专辑名的完整歌曲信息，供详情、排行榜、搜索等按ID读取；底层为两级缓存"song"
+ */
+@Service
+public class SongMetadataCache {
+
+    public static final String CACHE_NAME = "song";
+
+    @Autowired
+    private SongMapper songMapper;
+
+    @Autowired
+    private TieredCacheManager tieredCacheManager;
+
+    private TieredCache<Song> cache;
+
+    @PostConstruct
+    public void init() {
+        cache = tieredCacheManager.getCache(CACHE_NAME, Song.class, SongMetadataCache::copyOf);
+    }
+
+    /**
+     * 获取单首歌曲（返回副本），已删除或禁用时返回null
+     */
+    public Song getSong(Long songId) {
+        return cache.get(songId, songMapper::getSongWithSingerById);
+    }
+
+    /**
+     * 按ID批量获取歌曲（返回副本），未命中的一次性从数据库加载，已删除或禁用的歌曲不在结果中
+     */
+    public Map<Long, Song> getSongs(List<Long> songIds) {
+        return cache.getAll(songIds, missingIds -> {
+            Map<Long, Song> loaded = new HashMap<>();
+            for (Song song : songMapper.getSongsWithSingerByIds(missingIds)) {
+                loaded.put(song.getId(), song);
+            }
+            return loaded;
+        });
+    }
+
+    /**
+     * 移除单首歌曲缓存（所有节点）
+     */
+    public void evict(Long songId) {
+        cache.evict(songId);
+    }
+
+    /**
+     * 批量移除歌曲缓存（所有节点）
+     */
+    public void evictAll(Collection<Long> songIds) {
+        cache.evictAll(songIds);
+    }
+
+    private static Song copyOf(Song song) {
+        Song copy = new Song();
+        BeanUtils.copyProperties(song, copy);
+        return copy;
+    }
+}
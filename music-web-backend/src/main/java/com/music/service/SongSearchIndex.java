@@ -0,0 +1,829 @@
+package com.music.service;
+
+import com.baomidou.mybatisplus.core.conditions.query.LambdaQueryWrapper;
+import com.music.common.event.CatalogChangedEvent;
+import com.music.entity.Singer;
+import com.music.entity.Song;
+import com.music.mapper.SingerMapper;
+import com.music.mapper.SongMapper;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.BeanUtils;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Service;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.BitSet;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.PriorityQueue;
+import java.util.Set;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+
+/**
+ * 歌曲/歌手搜索倒排索引
+ * 启动时全量构建，中文按字符n-gram、拉丁文按词前缀建立倒排表，替代LIKE '%keyword%'全表扫描；
+ * 排序规则与原SQL一致：歌名前缀 > 歌手名前缀 > 歌名包含 > 歌手名包含 > 专辑名包含，同级按播放量降序
+ */
+@Slf4j
+@Service
+public class SongSearchIndex {
+
+    @Autowired
+    private SongMapper songMapper;
+
+    @Autowired
+    private SingerMapper singerMapper;
+
+    @Autowired
+    private SongMetadataCache songMetadataCache;
+
+    @Autowired
+    private ApplicationEventPublisher eventPublisher;
+
+    // 拉丁词前缀的最大索引长度，更长的查询词截断后匹配，再由包含判断精确过滤
+    @Value("${search.index.max-prefix-length:8}")
+    private int maxPrefixLength;
+
+    // 失效文档（已删除或已被新版本替代）超过该比例时压缩序号、重建倒排表
+    @Value("${search.index.compact-ratio:0.25}")
+    private double compactRatio;
+
+    // 参与聊天文本匹配的名称键最大长度，更长的名称不会在对话中被完整提及
+    private static final int MAX_NAME_KEY_LENGTH = 20;
+
+    // 失效文档少于该数量时不压缩，避免小曲库频繁整理
+    private static final int MIN_COMPACT_TOMBSTONES = 1024;
+
+    // 搜索结果排序：层级升序，同级播放量降序，再按ID升序
+    private static final Comparator<ScoredSong> SCORE_ORDER = Comparator.comparingInt((ScoredSong song) -> song.tier)
+            .thenComparing(Comparator.comparingLong((ScoredSong song) -> song.playCount).reversed())
+            .thenComparing(song -> song.songId);
+
+    private final ReentrantReadWriteLock lock = new ReentrantReadWriteLock();
+
+    // 文档按序号存储，更新时旧序号置空，倒排表只追加
+    private final List<SongDoc> songDocs = new ArrayList<>();
+    private final Map<Long, Integer> songOrdinals = new HashMap<>();
+    private final Map<String, IntList> songPostings = new HashMap<>();
+
+    private final List<SingerDoc> singerDocs = new ArrayList<>();
+    private final Map<Long, Integer> singerOrdinals = new HashMap<>();
+    private final Map<String, IntList> singerPostings = new HashMap<>();
+    private final Map<Long, IntList> songsBySinger = new HashMap<>();
+
+    // 名称键（小写、仅保留文字和数字）到序号，用于在聊天文本中识别提到的歌曲和歌手
+    private final Map<String, IntList> songsByName = new HashMap<>();
+    private final Map<String, IntList> singersByName = new HashMap<>();
+    private int maxNameKeyLength;
+
+    private int songTombstones;
+    private int singerTombstones;
+
+    // 重建扫描期间的增量变更，扫描结果装载后按原顺序重放；不在重建时为null
+    private List<Runnable> pendingChanges;
+
+    private volatile boolean ready;
+
+    /**
+     * 启动时构建索引
+     */
+    @EventListener(ApplicationReadyEvent.class)
+    public void onApplicationReady() {
+        try {
+            rebuild();
+        } catch (Exception e) {
+            log.error("搜索索引构建失败，搜索将回退到数据库查询", e);
+        }
+    }
+
+    /**
+     * 全量重建索引
+     * 扫描数据库期间索引照常提供查询和增量更新，这期间的变更先记录下来，
+     * 装载扫描结果后再按顺序重放，扫描读到旧数据或漏掉新数据都不会覆盖这些变更
+     */
+    public synchronized void rebuild() {
+        long start = System.currentTimeMillis();
+
+        lock.writeLock().lock();
+        try {
+            pendingChanges = new ArrayList<>();
+        } finally {
+            lock.writeLock().unlock();
+        }
+
+        int termCount;
+        int replayed;
+        List<Singer> singers;
+        List<Song> songs = new ArrayList<>();
+        try {
+            LambdaQueryWrapper<Singer> singerWrapper = new LambdaQueryWrapper<>();
+            singerWrapper.eq(Singer::getStatus, 1);
+            singers = singerMapper.selectList(singerWrapper);
+            songMapper.scanSearchCatalog(context -> songs.add(context.getResultObject()));
+        } catch (RuntimeException e) {
+            lock.writeLock().lock();
+            try {
+                pendingChanges = null;
+            } finally {
+                lock.writeLock().unlock();
+            }
+            throw e;
+        }
+
+        lock.writeLock().lock();
+        try {
+            clearSongs();
+            clearSingers();
+            maxNameKeyLength = 0;
+
+            for (Singer singer : singers) {
+                doAddSinger(singer);
+            }
+            for (Song song : songs) {
+                doAddSong(song);
+            }
+            replayed = pendingChanges.size();
+            for (Runnable change : pendingChanges) {
+                change.run();
+            }
+            pendingChanges = null;
+            compactIfNeeded();
+            termCount = songPostings.size() + singerPostings.size();
+            ready = true;
+        } finally {
+            lock.writeLock().unlock();
+        }
+
+        log.info("搜索索引构建完成，歌曲 {} 首，歌手 {} 位，词项 {} 个，重放增量变更 {} 条，耗时 {} ms",
+                songs.size(), singers.size(), termCount, replayed, System.currentTimeMillis() - start);
+    }
+
+    public boolean isReady() {
+        return ready;
+    }
+
+    /**
+     * 歌曲是否在曲库中（已启用），索引未就绪时返回null
+     */
+    public Boolean containsSong(Long songId) {
+        if (!ready) {
+            return null;
+        }
+        lock.readLock().lock();
+        try {
+            return songOrdinals.containsKey(songId);
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    /**
+     * 新增或更新歌曲（需已设置ID；albumName为空时按无专辑处理）
+     */
+    public void addSong(Song song) {
+        if (song == null || song.getId() == null) {
+            return;
+        }
+        lock.writeLock().lock();
+        try {
+            apply(() -> doAddSong(song));
+        } finally {
+            lock.writeLock().unlock();
+        }
+        eventPublisher.publishEvent(new CatalogChangedEvent(this, song.getId(), null));
+    }
+
+    /**
+     * 移除歌曲
+     */
+    public void removeSong(Long songId) {
+        lock.writeLock().lock();
+        try {
+            apply(() -> doRemoveSong(songId));
+        } finally {
+            lock.writeLock().unlock();
+        }
+        eventPublisher.publishEvent(new CatalogChangedEvent(this, songId, null));
+    }
+
+    /**
+     * 新增或更新歌手
+     */
+    public void addSinger(Singer singer) {
+        if (singer == null || singer.getId() == null) {
+            return;
+        }
+        lock.writeLock().lock();
+        try {
+            apply(() -> doAddSinger(singer));
+        } finally {
+            lock.writeLock().unlock();
+        }
+        eventPublisher.publishEvent(new CatalogChangedEvent(this, null, singer.getId()));
+    }
+
+    /**
+     * 执行增量变更（需持有写锁），重建期间同时记录以便重放
+     */
+    private void apply(Runnable change) {
+        change.run();
+        if (pendingChanges != null) {
+            pendingChanges.add(change);
+        }
+        compactIfNeeded();
+    }
+
+    /**
+     * 失效文档占比超过阈值时，按存活文档重新分配序号并重建倒排表（需持有写锁）
+     */
+    private void compactIfNeeded() {
+        if (songTombstones >= MIN_COMPACT_TOMBSTONES && songTombstones > songDocs.size() * compactRatio) {
+            List<SongDoc> live = new ArrayList<>(songDocs.size() - songTombstones);
+            for (SongDoc doc : songDocs) {
+                if (doc != null) {
+                    live.add(doc);
+                }
+            }
+            int removed = songTombstones;
+            clearSongs();
+            for (SongDoc doc : live) {
+                indexSong(doc);
+            }
+            log.debug("搜索索引压缩歌曲文档，清理失效文档 {} 个", removed);
+        }
+        if (singerTombstones >= MIN_COMPACT_TOMBSTONES && singerTombstones > singerDocs.size() * compactRatio) {
+            List<SingerDoc> live = new ArrayList<>(singerDocs.size() - singerTombstones);
+            for (SingerDoc doc : singerDocs) {
+                if (doc != null) {
+                    live.add(doc);
+                }
+            }
+            int removed = singerTombstones;
+            clearSingers();
+            for (SingerDoc doc : live) {
+                indexSinger(doc);
+            }
+            log.debug("搜索索引压缩歌手文档，清理失效文档 {} 个", removed);
+        }
+    }
+
+    private void clearSongs() {
+        songDocs.clear();
+        songOrdinals.clear();
+        songPostings.clear();
+        songsBySinger.clear();
+        songsByName.clear();
+        songTombstones = 0;
+    }
+
+    private void clearSingers() {
+        singerDocs.clear();
+        singerOrdinals.clear();
+        singerPostings.clear();
+        singersByName.clear();
+        singerTombstones = 0;
+    }
+
+    /**
+     * 累加已持久化的播放次数，保持排序与数据库一致
+     */
+    public void applyPlayDeltas(Map<Long, Long> deltas) {
+        lock.readLock().lock();
+        try {
+            for (Map.Entry<Long, Long> entry : deltas.entrySet()) {
+                Integer ordinal = songOrdinals.get(entry.getKey());
+                if (ordinal != null) {
+                    SongDoc doc = songDocs.get(ordinal);
+                    synchronized (doc) {
+                        doc.playCount += entry.getValue();
+                    }
+                }
+            }
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    /**
+     * 搜索歌曲，索引未就绪或关键词无法分词时返回null
+     */
+    public List<Song> searchSongs(String keyword, int limit) {
+        if (!ready) {
+            return null;
+        }
+        String query = keyword.toLowerCase(Locale.ROOT);
+        List<String> grams = queryGrams(query);
+        if (grams.isEmpty()) {
+            return null;
+        }
+
+        // 只保留排序最靠前的limit条，堆顶为当前最差的一条
+        PriorityQueue<ScoredSong> top = new PriorityQueue<>(limit + 1, SCORE_ORDER.reversed());
+        lock.readLock().lock();
+        try {
+            BitSet candidates = new BitSet(songDocs.size());
+            for (int ordinal : intersect(songPostings, grams)) {
+                candidates.set(ordinal);
+            }
+            for (int singerOrdinal : intersect(singerPostings, grams)) {
+                SingerDoc singer = singerDocs.get(singerOrdinal);
+                IntList singerSongs = singer != null ? songsBySinger.get(singer.id) : null;
+                if (singerSongs != null) {
+                    for (int i = 0; i < singerSongs.size; i++) {
+                        candidates.set(singerSongs.values[i]);
+                    }
+                }
+            }
+
+            for (int ordinal = candidates.nextSetBit(0); ordinal >= 0; ordinal = candidates.nextSetBit(ordinal + 1)) {
+                SongDoc doc = songDocs.get(ordinal);
+                if (doc == null) {
+                    continue;
+                }
+                SingerDoc singer = findSinger(doc.singerId);
+                String singerName = singer != null ? singer.nameLower : "";
+                int tier = rankTier(query, doc, singerName);
+                if (tier > 0) {
+                    ScoredSong scored = new ScoredSong(doc.id, tier, doc.playCount);
+                    if (top.size() < limit) {
+                        top.add(scored);
+                    } else if (limit > 0 && SCORE_ORDER.compare(scored, top.peek()) < 0) {
+                        top.poll();
+                        top.add(scored);
+                    }
+                }
+            }
+        } finally {
+            lock.readLock().unlock();
+        }
+
+        List<ScoredSong> matches = new ArrayList<>(top);
+        matches.sort(SCORE_ORDER);
+
+        List<Long> songIds = new ArrayList<>();
+        for (int i = 0; i < matches.size() && i < limit; i++) {
+            songIds.add(matches.get(i).songId);
+        }
+        if (songIds.isEmpty()) {
+            return new ArrayList<>();
+        }
+
+        // 歌词等大字段不驻留索引，按ID从元数据缓存回填
+        Map<Long, Song> songs = songMetadataCache.getSongs(songIds);
+        List<Song> result = new ArrayList<>(songIds.size());
+        for (int i = 0; i < songIds.size(); i++) {
+            Song song = songs.get(songIds.get(i));
+            if (song != null) {
+                song.setPlayCount(matches.get(i).playCount);
+                result.add(song);
+            }
+        }
+        return result;
+    }
+
+    /**
+     * 搜索歌手（匹配名称或英文名，按播放量降序），索引未就绪或关键词无法分词时返回null
+     */
+    public List<Singer> searchSingers(String keyword, int limit) {
+        if (!ready) {
+            return null;
+        }
+
+        List<SingerDoc> matches = new ArrayList<>();
+        lock.readLock().lock();
+        try {
+            if (keyword == null || keyword.trim().isEmpty()) {
+                for (SingerDoc doc : singerDocs) {
+                    if (doc != null) {
+                        matches.add(doc);
+                    }
+                }
+            } else {
+                String query = keyword.trim().toLowerCase(Locale.ROOT);
+                List<String> grams = queryGrams(query);
+                if (grams.isEmpty()) {
+                    return null;
+                }
+                for (int ordinal : intersect(singerPostings, grams)) {
+                    SingerDoc doc = singerDocs.get(ordinal);
+                    if (doc != null && (doc.nameLower.contains(query) || doc.englishNameLower.contains(query))) {
+                        matches.add(doc);
+                    }
+                }
+            }
+        } finally {
+            lock.readLock().unlock();
+        }
+
+        matches.sort(Comparator.comparingLong((SingerDoc doc) -> doc.playCount).reversed()
+                .thenComparingLong(doc -> doc.id));
+
+        List<Singer> result = new ArrayList<>();
+        for (int i = 0; i < matches.size() && i < limit; i++) {
+            Singer singer = new Singer();
+            BeanUtils.copyProperties(matches.get(i).singer, singer);
+            result.add(singer);
+        }
+        return result;
+    }
+
+    /**
+     * 查找文本中提到的歌曲（歌名完整出现）及提到的歌手的歌曲，索引未就绪时返回null
+     * 只对文本的各个子串做哈希查找，不扫描全部文档；匹配的名称越长越靠前，同级按播放量降序
+     */
+    public List<Song> findMentionedSongs(String text, int limit) {
+        if (!ready) {
+            return null;
+        }
+        String key = nameKey(lower(text));
+
+        // 序号 -> 匹配到的最长名称长度
+        Map<Integer, Integer> matched = new HashMap<>();
+        List<Song> result = new ArrayList<>();
+        lock.readLock().lock();
+        try {
+            for (int i = 0; i < key.length(); i++) {
+                for (int len = 2; len <= maxNameKeyLength && i + len <= key.length(); len++) {
+                    String name = key.substring(i, i + len);
+                    IntList songs = songsByName.get(name);
+                    if (songs != null) {
+                        for (int j = 0; j < songs.size; j++) {
+                            matched.merge(songs.values[j], len, Math::max);
+                        }
+                    }
+                    IntList singers = singersByName.get(name);
+                    if (singers != null) {
+                        for (int j = 0; j < singers.size; j++) {
+                            SingerDoc singer = singerDocs.get(singers.values[j]);
+                            IntList singerSongs = singer != null ? songsBySinger.get(singer.id) : null;
+                            if (singerSongs != null) {
+                                for (int k = 0; k < singerSongs.size; k++) {
+                                    matched.merge(singerSongs.values[k], len, Math::max);
+                                }
+                            }
+                        }
+                    }
+                }
+            }
+
+            List<Integer> ordinals = new ArrayList<>();
+            for (Integer ordinal : matched.keySet()) {
+                if (songDocs.get(ordinal) != null) {
+                    ordinals.add(ordinal);
+                }
+            }
+            ordinals.sort((a, b) -> {
+                int byLength = Integer.compare(matched.get(b), matched.get(a));
+                return byLength != 0 ? byLength : Long.compare(songDocs.get(b).playCount, songDocs.get(a).playCount);
+            });
+            for (int i = 0; i < ordinals.size() && i < limit; i++) {
+                result.add(toSong(songDocs.get(ordinals.get(i))));
+            }
+        } finally {
+            lock.readLock().unlock();
+        }
+        return result;
+    }
+
+    /**
+     * 播放量最高的歌曲，索引未就绪时返回null
+     */
+    public List<Song> topSongs(int limit) {
+        if (!ready || limit <= 0) {
+            return null;
+        }
+        PriorityQueue<SongDoc> top = new PriorityQueue<>(limit, Comparator.comparingLong(doc -> doc.playCount));
+        List<Song> result = new ArrayList<>(limit);
+        lock.readLock().lock();
+        try {
+            for (SongDoc doc : songDocs) {
+                if (doc == null) {
+                    continue;
+                }
+                if (top.size() < limit) {
+                    top.add(doc);
+                } else if (doc.playCount > top.peek().playCount) {
+                    top.poll();
+                    top.add(doc);
+                }
+            }
+            List<SongDoc> sorted = new ArrayList<>(top);
+            sorted.sort(Comparator.comparingLong((SongDoc doc) -> doc.playCount).reversed());
+            for (SongDoc doc : sorted) {
+                result.add(toSong(doc));
+            }
+        } finally {
+            lock.readLock().unlock();
+        }
+        return result;
+    }
+
+    /**
+     * 由索引文档构造精简的歌曲对象（需持有读锁）
+     */
+    private Song toSong(SongDoc doc) {
+        Song song = new Song();
+        song.setId(doc.id);
+        song.setName(doc.name);
+        song.setSingerId(doc.singerId);
+        song.setAlbumName(doc.albumName);
+        song.setPlayCount(doc.playCount);
+        SingerDoc singer = findSinger(doc.singerId);
+        if (singer != null) {
+            song.setSingerName(singer.singer.getName());
+        }
+        return song;
+    }
+
+    private void doRemoveSong(Long songId) {
+        Integer ordinal = songOrdinals.remove(songId);
+        if (ordinal != null) {
+            songDocs.set(ordinal, null);
+            songTombstones++;
+        }
+    }
+
+    private void doAddSong(Song song) {
+        doRemoveSong(song.getId());
+        if (song.getStatus() != null && song.getStatus() != 1) {
+            return;
+        }
+
+        SongDoc doc = new SongDoc();
+        doc.id = song.getId();
+        doc.singerId = song.getSingerId();
+        doc.name = song.getName();
+        doc.albumName = song.getAlbumName();
+        doc.nameLower = lower(song.getName());
+        doc.albumNameLower = lower(song.getAlbumName());
+        doc.playCount = song.getPlayCount() != null ? song.getPlayCount() : 0L;
+        indexSong(doc);
+    }
+
+    private void indexSong(SongDoc doc) {
+        int ordinal = songDocs.size();
+        songDocs.add(doc);
+        songOrdinals.put(doc.id, ordinal);
+
+        Set<String> grams = new LinkedHashSet<>();
+        indexGrams(doc.nameLower, grams);
+        indexGrams(doc.albumNameLower, grams);
+        for (String gram : grams) {
+            songPostings.computeIfAbsent(gram, k -> new IntList()).add(ordinal);
+        }
+        if (doc.singerId != null) {
+            songsBySinger.computeIfAbsent(doc.singerId, k -> new IntList()).add(ordinal);
+        }
+        indexName(songsByName, doc.nameLower, ordinal);
+    }
+
+    private void doAddSinger(Singer singer) {
+        Integer oldOrdinal = singerOrdinals.remove(singer.getId());
+        if (oldOrdinal != null) {
+            singerDocs.set(oldOrdinal, null);
+            singerTombstones++;
+        }
+        if (singer.getStatus() != null && singer.getStatus() != 1) {
+            return;
+        }
+
+        SingerDoc doc = new SingerDoc();
+        doc.id = singer.getId();
+        doc.nameLower = lower(singer.getName());
+        doc.englishNameLower = lower(singer.getEnglishName());
+        doc.playCount = singer.getPlayCount() != null ? singer.getPlayCount() : 0L;
+        doc.singer = singer;
+        indexSinger(doc);
+    }
+
+    private void indexSinger(SingerDoc doc) {
+        int ordinal = singerDocs.size();
+        singerDocs.add(doc);
+        singerOrdinals.put(doc.id, ordinal);
+
+        Set<String> grams = new LinkedHashSet<>();
+        indexGrams(doc.nameLower, grams);
+        indexGrams(doc.englishNameLower, grams);
+        for (String gram : grams) {
+            singerPostings.computeIfAbsent(gram, k -> new IntList()).add(ordinal);
+        }
+        indexName(singersByName, doc.nameLower, ordinal);
+        indexName(singersByName, doc.englishNameLower, ordinal);
+    }
+
+    /**
+     * 登记名称键；单字名称在聊天文本中误匹配太多，不登记
+     */
+    private void indexName(Map<String, IntList> names, String nameLower, int ordinal) {
+        String key = nameKey(nameLower);
+        if (key.length() < 2 || key.length() > MAX_NAME_KEY_LENGTH) {
+            return;
+        }
+        IntList list = names.computeIfAbsent(key, k -> new IntList());
+        if (list.size == 0 || list.values[list.size - 1] != ordinal) {
+            list.add(ordinal);
+        }
+        maxNameKeyLength = Math.max(maxNameKeyLength, key.length());
+    }
+
+    private SingerDoc findSinger(Long singerId) {
+        Integer ordinal = singerId != null ? singerOrdinals.get(singerId) : null;
+        return ordinal != null ? singerDocs.get(ordinal) : null;
+    }
+
+    /**
+     * 排序层级，0表示不匹配
+     */
+    private int rankTier(String query, SongDoc doc, String singerName) {
+        if (doc.nameLower.startsWith(query)) {
+            return 1;
+        } else if (singerName.startsWith(query)) {
+            return 2;
+        } else if (doc.nameLower.contains(query)) {
+            return 3;
+        } else if (singerName.contains(query)) {
+            return 4;
+        } else if (doc.albumNameLower.contains(query)) {
+            return 5;
+        }
+        return 0;
+    }
+
+    /**
+     * 求多个倒排表的交集（从最短的开始）
+     */
+    private int[] intersect(Map<String, IntList> postings, List<String> grams) {
+        List<IntList> lists = new ArrayList<>(grams.size());
+        for (String gram : grams) {
+            IntList list = postings.get(gram);
+            if (list == null) {
+                return new int[0];
+            }
+            lists.add(list);
+        }
+        lists.sort(Comparator.comparingInt(list -> list.size));
+
+        int[] result = Arrays.copyOf(lists.get(0).values, lists.get(0).size);
+        int resultSize = result.length;
+        for (int i = 1; i < lists.size() && resultSize > 0; i++) {
+            IntList other = lists.get(i);
+            int kept = 0;
+            for (int j = 0; j < resultSize; j++) {
+                if (Arrays.binarySearch(other.values, 0, other.size, result[j]) >= 0) {
+                    result[kept++] = result[j];
+                }
+            }
+            resultSize = kept;
+        }
+        return Arrays.copyOf(result, resultSize);
+    }
+
+    /**
+     * 索引词项：中日韩字符的单字与相邻双字，拉丁/数字词的各级前缀
+     */
+    private void indexGrams(String text, Set<String> grams) {
+        int i = 0;
+        while (i < text.length()) {
+            char c = text.charAt(i);
+            if (isCjk(c)) {
+                grams.add(String.valueOf(c));
+                if (i + 1 < text.length() && isCjk(text.charAt(i + 1))) {
+                    grams.add(text.substring(i, i + 2));
+                }
+                i++;
+            } else if (Character.isLetterOrDigit(c)) {
+                int end = i;
+                while (end < text.length() && Character.isLetterOrDigit(text.charAt(end)) && !isCjk(text.charAt(end))) {
+                    end++;
+                }
+                for (int len = 1; len <= Math.min(end - i, maxPrefixLength); len++) {
+                    grams.add(text.substring(i, i + len));
+                }
+                i = end;
+            } else {
+                i++;
+            }
+        }
+    }
+
+    /**
+     * 查询词项：中日韩连续片段取双字（单字片段取单字），拉丁/数字词取截断后的前缀
+     */
+    private List<String> queryGrams(String query) {
+        Set<String> grams = new LinkedHashSet<>();
+        int i = 0;
+        while (i < query.length()) {
+            char c = query.charAt(i);
+            if (isCjk(c)) {
+                int end = i;
+                while (end < query.length() && isCjk(query.charAt(end))) {
+                    end++;
+                }
+                if (end - i == 1) {
+                    grams.add(String.valueOf(c));
+                } else {
+                    for (int j = i; j + 1 < end; j++) {
+                        grams.add(query.substring(j, j + 2));
+                    }
+                }
+                i = end;
+            } else if (Character.isLetterOrDigit(c)) {
+                int end = i;
+                while (end < query.length() && Character.isLetterOrDigit(query.charAt(end)) && !isCjk(query.charAt(end))) {
+                    end++;
+                }
+                grams.add(query.substring(i, Math.min(end, i + maxPrefixLength)));
+                i = end;
+            } else {
+                i++;
+            }
+        }
+        return new ArrayList<>(grams);
+    }
+
+    private static boolean isCjk(char c) {
+        Character.UnicodeScript script = Character.UnicodeScript.of(c);
+        return script == Character.UnicodeScript.HAN
+                || script == Character.UnicodeScript.HIRAGANA
+                || script == Character.UnicodeScript.KATAKANA
+                || script == Character.UnicodeScript.HANGUL;
+    }
+
+    private static String nameKey(String text) {
+        StringBuilder key = new StringBuilder(text.length());
+        for (int i = 0; i < text.length(); i++) {
+            char c = text.charAt(i);
+            if (Character.isLetterOrDigit(c)) {
+                key.append(c);
+            }
+        }
+        return key.toString();
+    }
+
+    private static String lower(String text) {
+        return text != null ? text.toLowerCase(Locale.ROOT) : "";
+    }
+
+    /**
+     * 歌曲索引文档（不含歌词等大字段）
+     */
+    private static class SongDoc {
+        private Long id;
+        private Long singerId;
+        private String name;
+        private String albumName;
+        private String nameLower;
+        private String albumNameLower;
+        private volatile long playCount;
+    }
+
+    /**
+     * 歌手索引文档
+     */
+    private static class SingerDoc {
+        private Long id;
+        private String nameLower;
+        private String englishNameLower;
+        private long playCount;
+        private Singer singer;
+    }
+
+    /**
+     * 搜索命中的歌曲
+     */
+    private static class ScoredSong {
+        private final Long songId;
+        private final int tier;
+        private final long playCount;
+
+        private ScoredSong(Long songId, int tier, long playCount) {
+            this.songId = songId;
+            this.tier = tier;
+            this.playCount = playCount;
+        }
+    }
+
+    /**
+     * 有序整型倒排表（序号单调递增，追加即有序）
+     */
+    private static class IntList {
+        private int[] values = new int[4];
+        private int size;
+
+        private void add(int value) {
+            if (size == values.length) {
+                values = Arrays.copyOf(values, size * 2);
+            }
+            values[size++] = value;
+        }
+    }
+}
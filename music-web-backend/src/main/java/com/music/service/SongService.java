@@ -1,6 +1,7 @@
 package com.music.service;
 
 import com.music.common.result.PageResult;
+import com.music.dto.SuggestionDto;
 import com.music.entity.Song;
 
 import java.util.List;
@@ -15,6 +16,15 @@ public interface SongService {
      */
     PageResult<Song> getSongPage(Long current, Long size, String name, Long singerId, Long albumId);
     
+    /**
+     * 游标分页查询歌曲，按创建时间倒序
+     *
+     * @param cursor    上一页返回的nextCursor，为空时查询第一页
+     * @param withTotal 是否返回总数
+     */
+    PageResult<Song> getSongPageByCursor(String cursor, Long size, String name, Long singerId, Long albumId,
+                                         boolean withTotal);
+    
     /**
      * 根据ID获取歌曲详情
      */
@@ -25,6 +35,11 @@ public interface SongService {
      */
     List<Song> searchSongs(String keyword, Integer limit);
     
+    /**
+     * 搜索联想（支持汉字、全拼、首字母前缀）
+     */
+    List<SuggestionDto> suggest(String keyword, Integer limit);
+    
     /**
      * 获取热门歌曲
      */
@@ -0,0 +1,255 @@
+package com.music.service;
+
+import com.baomidou.mybatisplus.core.conditions.query.LambdaQueryWrapper;
+import com.music.common.event.CatalogChangedEvent;
+import com.music.common.search.PrefixTrie;
+import com.music.common.util.PinyinUtils;
+import com.music.dto.SuggestionDto;
+import com.music.entity.Singer;
+import com.music.entity.Song;
+import com.music.mapper.SingerMapper;
+import com.music.mapper.SongMapper;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+
+import javax.annotation.PreDestroy;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * 搜索联想服务
+ * 对歌曲名、歌手名及其全拼、首字母建立紧凑前缀树，按播放量返回Top-K；
+ * 曲库变更后在后台重建，构建完成后原子替换，查询期间不加锁；批量导入期间暂停，导入结束后只重建一次
+ */
+@Slf4j
+@Service
+public class SongSuggestService {
+
+    private static final byte TYPE_SONG = 0;
+
+    private static final byte TYPE_SINGER = 1;
+
+    @Autowired
+    private SongMapper songMapper;
+
+    @Autowired
+    private SingerMapper singerMapper;
+
+    @Value("${suggest.top-k:10}")
+    private int topK;
+
+    @Value("${suggest.rebuild-delay:2000}")
+    private long rebuildDelay;
+
+    private volatile Snapshot snapshot;
+
+    private final AtomicBoolean rebuildScheduled = new AtomicBoolean();
+
+    // 批量导入期间暂停重建（可嵌套），期间到期的重建推迟到导入结束后统一执行一次
+    private final AtomicInteger suspended = new AtomicInteger();
+
+    private final AtomicBoolean rebuildDeferred = new AtomicBoolean();
+
+    private final ScheduledExecutorService rebuildExecutor = Executors.newSingleThreadScheduledExecutor(r -> {
+        Thread thread = new Thread(r, "suggest-rebuild");
+        thread.setDaemon(true);
+        return thread;
+    });
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void onApplicationReady() {
+        scheduleRebuild(0);
+    }
+
+    /**
+     * 曲库变更后延迟重建，合并短时间内的多次变更
+     */
+    @EventListener
+    public void onCatalogChanged(CatalogChangedEvent event) {
+        scheduleRebuild(rebuildDelay);
+    }
+
+    /**
+     * 定期重建以刷新播放量权重
+     */
+    @Scheduled(fixedDelayString = "${suggest.refresh-interval:600000}",
+            initialDelayString = "${suggest.refresh-interval:600000}")
+    public void refreshWeights() {
+        scheduleRebuild(0);
+    }
+
+    /**
+     * 暂停重建，批量导入开始前调用，须与resumeRebuilds成对使用
+     */
+    public void suspendRebuilds() {
+        suspended.incrementAndGet();
+    }
+
+    /**
+     * 恢复重建，暂停期间有变更时立即重建一次
+     */
+    public void resumeRebuilds() {
+        if (suspended.decrementAndGet() == 0 && rebuildDeferred.getAndSet(false)) {
+            scheduleRebuild(0);
+        }
+    }
+
+    /**
+     * 获取联想结果
+     */
+    public List<SuggestionDto> suggest(String keyword, int limit) {
+        List<SuggestionDto> result = new ArrayList<>();
+        Snapshot current = snapshot;
+        String prefix = PinyinUtils.normalize(keyword);
+        if (current == null || prefix.isEmpty() || limit <= 0) {
+            return result;
+        }
+
+        for (int entry : current.trie.topK(prefix, Math.min(limit, topK))) {
+            SuggestionDto suggestion = new SuggestionDto();
+            suggestion.setType(current.types[entry] == TYPE_SONG ? "song" : "singer");
+            suggestion.setId(current.ids[entry]);
+            suggestion.setName(current.names[entry]);
+            suggestion.setSingerName(current.singerNames[entry]);
+            suggestion.setPlayCount(current.weights[entry]);
+            result.add(suggestion);
+        }
+        return result;
+    }
+
+    private void scheduleRebuild(long delay) {
+        if (rebuildScheduled.compareAndSet(false, true)) {
+            rebuildExecutor.schedule(() -> {
+                // 先清除标记，重建期间到达的变更会再触发一次重建
+                rebuildScheduled.set(false);
+                // 先记下推迟再检查暂停状态，与resumeRebuilds交错时至少有一方会执行重建
+                rebuildDeferred.set(true);
+                if (suspended.get() > 0) {
+                    return;
+                }
+                rebuildDeferred.set(false);
+                try {
+                    rebuild();
+                } catch (Exception e) {
+                    log.error("搜索联想索引重建失败", e);
+                }
+            }, delay, TimeUnit.MILLISECONDS);
+        }
+    }
+
+    /**
+     * 全量重建联想索引
+     */
+    public void rebuild() {
+        long start = System.currentTimeMillis();
+
+        LambdaQueryWrapper<Singer> singerWrapper = new LambdaQueryWrapper<>();
+        singerWrapper.eq(Singer::getStatus, 1);
+        List<Singer> singers = singerMapper.selectList(singerWrapper);
+
+        List<Song> songs = new ArrayList<>();
+        songMapper.scanSearchCatalog(context -> songs.add(context.getResultObject()));
+
+        int size = songs.size() + singers.size();
+        byte[] types = new byte[size];
+        long[] ids = new long[size];
+        String[] names = new String[size];
+        String[] singerNames = new String[size];
+        long[] weights = new long[size];
+
+        Map<Long, Integer> singerEntries = new HashMap<>();
+        int entry = 0;
+        for (Singer singer : singers) {
+            types[entry] = TYPE_SINGER;
+            ids[entry] = singer.getId();
+            names[entry] = singer.getName();
+            weights[entry] = singer.getPlayCount() != null ? singer.getPlayCount() : 0L;
+            singerEntries.put(singer.getId(), entry);
+            entry++;
+        }
+        for (Song song : songs) {
+            long playCount = song.getPlayCount() != null ? song.getPlayCount() : 0L;
+            Integer singerEntry = song.getSingerId() != null ? singerEntries.get(song.getSingerId()) : null;
+            types[entry] = TYPE_SONG;
+            ids[entry] = song.getId();
+            names[entry] = song.getName();
+            weights[entry] = playCount;
+            if (singerEntry != null) {
+                singerNames[entry] = names[singerEntry];
+                // 歌手按其歌曲总播放量排序
+                weights[singerEntry] += playCount;
+            }
+            entry++;
+        }
+
+        PrefixTrie.Builder builder = PrefixTrie.builder();
+        for (int i = 0; i < size; i++) {
+            for (String key : keysOf(names[i])) {
+                builder.add(key, i);
+            }
+        }
+        PrefixTrie trie = builder.build(weights, topK);
+
+        snapshot = new Snapshot(trie, types, ids, names, singerNames, weights);
+        log.info("搜索联想索引重建完成，条目 {} 个，节点 {} 个，约 {} KB，耗时 {} ms",
+                size, trie.nodeCount(), trie.memoryBytes() / 1024, System.currentTimeMillis() - start);
+    }
+
+    /**
+     * 名称对应的索引键：原文、全拼、首字母
+     */
+    private Set<String> keysOf(String name) {
+        Set<String> keys = new LinkedHashSet<>();
+        keys.add(PinyinUtils.normalize(name));
+        if (PinyinUtils.containsHan(name)) {
+            keys.add(PinyinUtils.toPinyin(name));
+        }
+        String initials = PinyinUtils.toInitials(name);
+        if (initials.length() > 1) {
+            keys.add(initials);
+        }
+        return keys;
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        rebuildExecutor.shutdownNow();
+    }
+
+    /**
+     * 不可变的索引快照
+     */
+    private static class Snapshot {
+
+        private final PrefixTrie trie;
+        private final byte[] types;
+        private final long[] ids;
+        private final String[] names;
+        private final String[] singerNames;
+        private final long[] weights;
+
+        private Snapshot(PrefixTrie trie, byte[] types, long[] ids, String[] names,
+                         String[] singerNames, long[] weights) {
+            this.trie = trie;
+            this.types = types;
+            this.ids = ids;
+            this.names = names;
+            this.singerNames = singerNames;
+            this.weights = weights;
+        }
+    }
+}
@@ -0,0 +1,424 @@
+package com.music.service;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.music.common.cache.RemoteCacheStore;
+import com.music.common.cache.TieredCache;
+import io.micrometer.core.instrument.MeterRegistry;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.core.env.Environment;
+import org.springframework.dao.DataAccessException;
+import org.springframework.data.redis.connection.Message;
+import org.springframework.data.redis.connection.MessageListener;
+import org.springframework.data.redis.core.Cursor;
+import org.springframework.data.redis.core.RedisCallback;
+import org.springframework.data.redis.core.RedisOperations;
+import org.springframework.data.redis.core.ScanOptions;
+import org.springframework.data.redis.core.SessionCallback;
+import org.springframework.data.redis.core.StringRedisTemplate;
+import org.springframework.data.redis.listener.ChannelTopic;
+import org.springframework.data.redis.listener.RedisMessageListenerContainer;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.function.UnaryOperator;
+
+/**
+ * 两级缓存管理
+ * 创建并登记各业务缓存，以Redis作为二级缓存，并通过Redis发布订阅在节点间广播失效通知；
+ * Redis不可用时在重试间隔内只使用本地缓存，期间的失效先记录下来，恢复后在读取Redis之前重放
+ */
+@Slf4j
+@Service
+public class TieredCacheManager implements RemoteCacheStore, MessageListener {
+
+    private static final String KEY_PREFIX = "music:cache:";
+
+    private static final String INVALIDATION_CHANNEL = "music:cache:invalidate";
+
+    @Autowired
+    private StringRedisTemplate stringRedisTemplate;
+
+    @Autowired
+    private RedisMessageListenerContainer redisMessageListenerContainer;
+
+    @Autowired
+    private ObjectMapper objectMapper;
+
+    @Autowired
+    private Environment environment;
+
+    @Autowired
+    private MeterRegistry meterRegistry;
+
+    @Value("${cache.redis-enabled:true}")
+    private boolean redisEnabled;
+
+    @Value("${cache.retry-interval:30000}")
+    private long retryInterval;
+
+    @Value("${cache.max-pending-evictions:100000}")
+    private int maxPendingEvictions;
+
+    // 单条失效通知最多携带的键数
+    private static final int KEYS_PER_MESSAGE = 500;
+
+    // 通知中表示清除整个缓存的键
+    private static final String ALL_KEYS = "*";
+
+    // 用于忽略本节点发出的失效通知
+    private final String nodeId = UUID.randomUUID().toString();
+
+    private final Map<String, TieredCache<?>> caches = new ConcurrentHashMap<>();
+
+    private final Map<String, Long> remoteTtls = new ConcurrentHashMap<>();
+
+    private volatile long lastFailureTime;
+
+    private volatile boolean subscribed;
+
+    // Redis不可用期间未能删除和广播的失效：缓存名 -> 键；积压超过上限的缓存改为整体清除
+    private final Map<String, Set<Long>> pendingEvictions = new ConcurrentHashMap<>();
+
+    private final Set<String> pendingFlushes = ConcurrentHashMap.newKeySet();
+
+    private volatile boolean replayPending;
+
+    /**
+     * 订阅失效通知：在监听容器启动后进行，Redis不可用时不影响应用启动，由定时任务重试
+     */
+    @EventListener(ApplicationReadyEvent.class)
+    public synchronized void subscribe() {
+        if (!redisEnabled || subscribed) {
+            return;
+        }
+        try {
+            redisMessageListenerContainer.addMessageListener(this, new ChannelTopic(INVALIDATION_CHANNEL));
+            subscribed = true;
+        } catch (Exception e) {
+            markFailure(e);
+        }
+    }
+
+    /**
+     * 重试订阅失效通知，并重放Redis不可用期间积压的失效
+     */
+    @Scheduled(fixedDelayString = "${cache.retry-interval:30000}", initialDelayString = "${cache.retry-interval:30000}")
+    public void resubscribe() {
+        if (isRedisAvailable() && !subscribed) {
+            subscribe();
+        }
+    }
+
+    /**
+     * 获取（首次调用时创建）指定名称的缓存
+     * 容量和过期时间读取 cache.&lt;name&gt;.*，未配置时使用 cache.default.*
+     *
+     * @param copier 复制缓存值，避免调用方修改缓存中的对象
+     */
+    @SuppressWarnings("unchecked")
+    public <V> TieredCache<V> getCache(String name, Class<V> type, UnaryOperator<V> copier) {
+        return (TieredCache<V>) caches.computeIfAbsent(name, n -> {
+            long localSize = property(n, "local-size", 10000L);
+            long localTtl = property(n, "local-ttl", 300000L);
+            remoteTtls.put(n, property(n, "remote-ttl", 1800000L));
+            TieredCache<V> cache = new TieredCache<>(n, type,
+                    Caffeine.newBuilder()
+                            .maximumSize(localSize)
+                            .expireAfterWrite(localTtl, TimeUnit.MILLISECONDS)
+                            .recordStats()
+                            .build(),
+                    this, copier);
+            cache.registerMetrics(meterRegistry);
+            return cache;
+        });
+    }
+
+    /**
+     * 按名称清除缓存（本节点未创建该缓存时也会删除Redis中的值并通知其他节点）
+     */
+    public void invalidate(String cacheName, Long key) {
+        TieredCache<?> cache = caches.get(cacheName);
+        if (cache != null) {
+            cache.evict(key);
+        } else {
+            evict(cacheName, key);
+        }
+    }
+
+    public Collection<TieredCache<?>> getCaches() {
+        return caches.values();
+    }
+
+    @Override
+    public <V> V get(String cacheName, Long key, Class<V> type) {
+        if (!isRedisAvailable()) {
+            return null;
+        }
+        try {
+            String json = stringRedisTemplate.opsForValue().get(redisKey(cacheName, key));
+            return json != null ? deserialize(json, type) : null;
+        } catch (Exception e) {
+            markFailure(e);
+            return null;
+        }
+    }
+
+    @Override
+    public <V> Map<Long, V> getAll(String cacheName, Collection<Long> keys, Class<V> type) {
+        Map<Long, V> result = new HashMap<>();
+        if (!isRedisAvailable() || keys.isEmpty()) {
+            return result;
+        }
+        try {
+            List<Long> keyList = new ArrayList<>(keys);
+            List<String> redisKeys = new ArrayList<>(keyList.size());
+            for (Long key : keyList) {
+                redisKeys.add(redisKey(cacheName, key));
+            }
+            List<String> values = stringRedisTemplate.opsForValue().multiGet(redisKeys);
+            if (values != null) {
+                for (int i = 0; i < keyList.size() && i < values.size(); i++) {
+                    V value = values.get(i) != null ? deserialize(values.get(i), type) : null;
+                    if (value != null) {
+                        result.put(keyList.get(i), value);
+                    }
+                }
+            }
+        } catch (Exception e) {
+            markFailure(e);
+        }
+        return result;
+    }
+
+    @Override
+    public void put(String cacheName, Long key, Object value) {
+        if (!isRedisAvailable()) {
+            return;
+        }
+        try {
+            stringRedisTemplate.opsForValue().set(redisKey(cacheName, key), objectMapper.writeValueAsString(value),
+                    remoteTtl(cacheName), TimeUnit.MILLISECONDS);
+        } catch (Exception e) {
+            markFailure(e);
+        }
+    }
+
+    @Override
+    public void putAll(String cacheName, Map<Long, ?> values) {
+        if (!isRedisAvailable() || values.isEmpty()) {
+            return;
+        }
+        try {
+            Map<String, String> serialized = new HashMap<>();
+            for (Map.Entry<Long, ?> entry : values.entrySet()) {
+                serialized.put(redisKey(cacheName, entry.getKey()), objectMapper.writeValueAsString(entry.getValue()));
+            }
+            long ttl = remoteTtl(cacheName);
+            stringRedisTemplate.executePipelined(new SessionCallback<Object>() {
+                @Override
+                @SuppressWarnings("unchecked")
+                public Object execute(RedisOperations operations) throws DataAccessException {
+                    for (Map.Entry<String, String> entry : serialized.entrySet()) {
+                        operations.opsForValue().set(entry.getKey(), entry.getValue(), ttl, TimeUnit.MILLISECONDS);
+                    }
+                    return null;
+                }
+            });
+        } catch (Exception e) {
+            markFailure(e);
+        }
+    }
+
+    @Override
+    public void evict(String cacheName, Long key) {
+        evictAll(cacheName, Collections.singletonList(key));
+    }
+
+    @Override
+    public void evictAll(String cacheName, Collection<Long> keys) {
+        if (!redisEnabled || keys.isEmpty()) {
+            return;
+        }
+        if (!isRedisAvailable()) {
+            queueEvictions(cacheName, keys);
+            return;
+        }
+        try {
+            deleteAndPublish(cacheName, keys);
+        } catch (Exception e) {
+            markFailure(e);
+            queueEvictions(cacheName, keys);
+        }
+    }
+
+    private void deleteAndPublish(String cacheName, Collection<Long> keys) {
+        List<String> redisKeys = new ArrayList<>(keys.size());
+        for (Long key : keys) {
+            redisKeys.add(redisKey(cacheName, key));
+        }
+        stringRedisTemplate.delete(redisKeys);
+
+        List<Long> keyList = new ArrayList<>(keys);
+        for (int i = 0; i < keyList.size(); i += KEYS_PER_MESSAGE) {
+            StringBuilder message = new StringBuilder(nodeId).append('|').append(cacheName).append('|');
+            for (int j = i; j < Math.min(i + KEYS_PER_MESSAGE, keyList.size()); j++) {
+                message.append(j > i ? "," : "").append(keyList.get(j));
+            }
+            stringRedisTemplate.convertAndSend(INVALIDATION_CHANNEL, message.toString());
+        }
+    }
+
+    /**
+     * 删除某个缓存在Redis中的全部值，并通知其他节点清空本地缓存
+     */
+    private void flushRemote(String cacheName) {
+        byte[] pattern = (KEY_PREFIX + cacheName + ":*").getBytes(StandardCharsets.UTF_8);
+        stringRedisTemplate.execute((RedisCallback<Void>) connection -> {
+            List<byte[]> batch = new ArrayList<>();
+            try (Cursor<byte[]> cursor = connection.keyCommands().scan(
+                    ScanOptions.scanOptions().match(pattern).count(1000).build())) {
+                while (cursor.hasNext()) {
+                    batch.add(cursor.next());
+                    if (batch.size() >= 1000) {
+                        connection.keyCommands().del(batch.toArray(new byte[0][]));
+                        batch.clear();
+                    }
+                }
+            }
+            if (!batch.isEmpty()) {
+                connection.keyCommands().del(batch.toArray(new byte[0][]));
+            }
+            return null;
+        });
+        stringRedisTemplate.convertAndSend(INVALIDATION_CHANNEL, nodeId + "|" + cacheName + "|" + ALL_KEYS);
+    }
+
+    private void queueEvictions(String cacheName, Collection<Long> keys) {
+        if (!pendingFlushes.contains(cacheName)) {
+            Set<Long> pending = pendingEvictions.computeIfAbsent(cacheName, n -> ConcurrentHashMap.newKeySet());
+            pending.addAll(keys);
+            if (pending.size() > maxPendingEvictions) {
+                pendingFlushes.add(cacheName);
+                pendingEvictions.remove(cacheName);
+                log.warn("缓存 {} 积压的失效超过 {} 条，Redis恢复后整体清除", cacheName, maxPendingEvictions);
+            }
+        }
+        replayPending = true;
+    }
+
+    /**
+     * 重放积压的失效，全部成功时返回true
+     */
+    private synchronized boolean replayPendingEvictions() {
+        if (!replayPending) {
+            return true;
+        }
+        // 先清除标记，重放期间新积压的失效会再次设置
+        replayPending = false;
+        try {
+            long replayed = 0;
+            for (String cacheName : new ArrayList<>(pendingFlushes)) {
+                flushRemote(cacheName);
+                pendingFlushes.remove(cacheName);
+            }
+            for (Map.Entry<String, Set<Long>> entry : pendingEvictions.entrySet()) {
+                List<Long> keys = new ArrayList<>(entry.getValue());
+                if (!keys.isEmpty()) {
+                    deleteAndPublish(entry.getKey(), keys);
+                    entry.getValue().removeAll(keys);
+                    replayed += keys.size();
+                }
+            }
+            log.info("Redis已恢复，重放积压的缓存失效 {} 条", replayed);
+            return true;
+        } catch (Exception e) {
+            replayPending = true;
+            markFailure(e);
+            return false;
+        }
+    }
+
+    /**
+     * 收到其他节点的失效通知，格式：节点ID|缓存名|逗号分隔的键（* 表示整个缓存）
+     */
+    @Override
+    public void onMessage(Message message, byte[] pattern) {
+        String body = new String(message.getBody(), StandardCharsets.UTF_8);
+        String[] parts = body.split("\\|", 3);
+        if (parts.length != 3 || nodeId.equals(parts[0])) {
+            return;
+        }
+        TieredCache<?> cache = caches.get(parts[1]);
+        if (cache == null) {
+            return;
+        }
+        if (ALL_KEYS.equals(parts[2])) {
+            cache.invalidateAllLocal();
+            return;
+        }
+        try {
+            for (String key : parts[2].split(",")) {
+                cache.invalidateLocal(Long.valueOf(key));
+            }
+        } catch (NumberFormatException e) {
+            log.warn("无效的缓存失效通知: {}", body);
+        }
+    }
+
+    /**
+     * 反序列化失败（例如实体字段变更后的旧数据）按未命中处理，不视为Redis故障
+     */
+    private <V> V deserialize(String json, Class<V> type) {
+        try {
+            return objectMapper.readValue(json, type);
+        } catch (IOException e) {
+            log.debug("缓存数据反序列化失败: {}", e.getMessage());
+            return null;
+        }
+    }
+
+    /**
+     * 不在失败后的重试间隔内；恢复后先重放积压的失效，避免读到Redis中的旧值
+     */
+    private boolean isRedisAvailable() {
+        if (!redisEnabled || System.currentTimeMillis() - lastFailureTime < retryInterval) {
+            return false;
+        }
+        return !replayPending || replayPendingEvictions();
+    }
+
+    private void markFailure(Exception e) {
+        lastFailureTime = System.currentTimeMillis();
+        log.warn("Redis缓存不可用，{} 秒内只使用本地缓存: {}", retryInterval / 1000, e.getMessage());
+    }
+
+    private long property(String cacheName, String key, long defaultValue) {
+        Long value = environment.getProperty("cache." + cacheName + "." + key, Long.class);
+        return value != null ? value : environment.getProperty("cache.default." + key, Long.class, defaultValue);
+    }
+
+    private long remoteTtl(String cacheName) {
+        return remoteTtls.getOrDefault(cacheName, 1800000L);
+    }
+
+    private String redisKey(String cacheName, Long key) {
+        return KEY_PREFIX + cacheName + ":" + key;
+    }
+}
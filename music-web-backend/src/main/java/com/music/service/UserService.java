@@ -4,20 +4,24 @@ import com.baomidou.mybatisplus.extension.service.IService;
 import com.music.common.result.Result;
 import com.music.entity.User;
 
+import java.util.concurrent.CompletableFuture;
+
 /**
  * 用户服务接口
  */
 public interface UserService extends IService<User> {
     
     /**
-     * 用户注册
+     * 用户注册（密码哈希在独立线程池中执行）
+     * 线程池已满时返回以RejectedExecutionException结束的Future
      */
-    Result<String> register(String username, String email, String password);
+    CompletableFuture<Result<String>> register(String username, String email, String password);
     
     /**
-     * 用户登录
+     * 用户登录（密码校验在独立线程池中执行）
+     * 线程池已满时返回以RejectedExecutionException结束的Future
      */
-    Result<User> login(String usernameOrEmail, String password);
+    CompletableFuture<Result<User>> login(String usernameOrEmail, String password);
     
     /**
      * 根据用户名查询用户
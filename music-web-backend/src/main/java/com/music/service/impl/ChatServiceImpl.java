@@ -1,14 +1,27 @@
 package com.music.service.impl;
 
+import com.music.common.chat.ChatIntent;
+import com.music.dto.ChatHistoryDto;
 import com.music.dto.ChatResponseDto;
+import com.music.entity.Song;
+import com.music.service.ChatCatalogRetriever;
+import com.music.service.ChatResponseCache;
 import com.music.service.ChatService;
+import com.music.service.ChatSessionStore;
+import com.music.service.DeepSeekClient;
 import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.beans.factory.annotation.Value;
-import org.springframework.http.*;
 import org.springframework.stereotype.Service;
-import org.springframework.web.client.RestTemplate;
+import reactor.core.publisher.Flux;
 
 import java.util.*;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.regex.Pattern;
 
 /**
  * AI聊天服务实现类
@@ -17,24 +30,25 @@ import java.util.*;
 @Service
 public class ChatServiceImpl implements ChatService {
     
-    @Value("${deepseek.api.url:https://api.deepseek.com/v1/chat/completions}")
-    private String deepseekApiUrl;
+    @Autowired
+    private DeepSeekClient deepSeekClient;
     
-    @Value("${deepseek.api.key:}")
-    private String deepseekApiKey;
+    @Autowired
+    private ChatResponseCache chatResponseCache;
     
-    @Value("${deepseek.model:deepseek-chat}")
-    private String deepseekModel;
+    @Autowired
+    private ChatCatalogRetriever chatCatalogRetriever;
     
-    private final RestTemplate restTemplate;
+    @Autowired
+    private ChatSessionStore chatSessionStore;
     
-    public ChatServiceImpl() {
-        // 配置RestTemplate的超时设置
-        this.restTemplate = new RestTemplate();
-        
-        // 由于DeepSeek API可能需要较长时间响应，这里使用默认配置
-        // 如果需要自定义超时，可以通过HttpComponentsClientHttpRequestFactory配置
-    }
+    @Value("${deepseek.client.per-user-concurrent:1}")
+    private int perUserConcurrent;
+    
+    private static final Pattern SESSION_ID_PATTERN = Pattern.compile("[A-Za-z0-9_-]{1,64}");
+    
+    // 每个用户进行中的请求数，归零时移除
+    private final ConcurrentHashMap<Long, Integer> userInFlight = new ConcurrentHashMap<>();
     
     // 音乐专题系统提示词
     private static final String MUSIC_SYSTEM_PROMPT = 
@@ -60,140 +74,244 @@ public class ChatServiceImpl implements ChatService {
         "如果用户问的不是音乐相关问题，要礼貌地引导回音乐话题。";
     
     @Override
-    public ChatResponseDto processMessage(Long userId, String message) {
-        log.info("处理用户 {} 的消息: {}", userId, message);
+    public String openSession(Long userId, String sessionId) {
+        if (sessionId != null && SESSION_ID_PATTERN.matcher(sessionId).matches()) {
+            return sessionId;
+        }
+        return generateSessionId(userId);
+    }
+    
+    @Override
+    public CompletableFuture<ChatResponseDto> processMessage(Long userId, String sessionId, String message) {
+        log.info("处理用户 {} 的消息，会话: {}, 消息长度: {}", userId, sessionId, message.length());
+        log.debug("用户 {} 的消息内容: {}", userId, message);
         
+        // 检查DeepSeek API配置
+        if (!deepSeekClient.isConfigured()) {
+            log.info("DeepSeek API密钥未配置，使用智能模拟回复，用户: {}", userId);
+            ChatResponseDto response = createMockResponse(message, chatCatalogRetriever.retrieve(message));
+            response.setSessionId(sessionId);
+            chatSessionStore.append(userId, sessionId, message, response.getMessage());
+            return CompletableFuture.completedFuture(response);
+        }
+        
+        // 回复缓存只用于会话的第一轮，后续提问依赖上下文
+        List<Map<String, String>> history = chatSessionStore.getPromptHistory(userId, sessionId);
+        String cached = history.isEmpty() ? chatResponseCache.get(message) : null;
+        if (cached != null) {
+            log.info("命中聊天回复缓存，用户: {}", userId);
+            chatSessionStore.append(userId, sessionId, message, cached);
+            return CompletableFuture.completedFuture(new ChatResponseDto(cached, sessionId));
+        }
+        
+        if (!acquireUserSlot(userId)) {
+            throw new IllegalStateException("上一条消息还在处理中，请稍候");
+        }
+        
+        log.info("调用DeepSeek API，用户: {}, 消息长度: {}", userId, message.length());
+        long start = System.currentTimeMillis();
+        List<Song> candidates = chatCatalogRetriever.retrieve(message);
+        CompletableFuture<String> call;
         try {
-            // 检查DeepSeek API配置
-            if (deepseekApiKey == null || deepseekApiKey.trim().isEmpty()) {
-                log.info("DeepSeek API密钥未配置，使用智能模拟回复，用户: {}", userId);
-                return createMockResponse(message);
+            call = deepSeekClient.chat(buildMessages(message, candidates, history));
+        } catch (RuntimeException e) {
+            releaseUserSlot(userId);
+            throw e;
+        }
+        
+        return call.handle((aiResponse, error) -> {
+            releaseUserSlot(userId);
+            if (error != null) {
+                Throwable cause = error instanceof CompletionException && error.getCause() != null
+                        ? error.getCause() : error;
+                if (cause instanceof RejectedExecutionException) {
+                    log.warn("DeepSeek API并发已满，返回繁忙提示，用户: {}", userId);
+                    return createFallbackResponse();
+                }
+                log.warn("DeepSeek API调用失败，使用智能模拟回复，用户: {}, 错误: {}", userId, cause.getMessage());
+                return createMockResponse(message, candidates);
             }
             
-            log.info("调用DeepSeek API，用户: {}, 消息长度: {}", userId, message.length());
-            
-            // 调用DeepSeek API
-            String aiResponse = callDeepSeekApi(message);
-            
-            ChatResponseDto response = new ChatResponseDto(aiResponse);
-            response.setSessionId(generateSessionId(userId));
-            
+            if (history.isEmpty()) {
+                chatResponseCache.put(message, aiResponse, System.currentTimeMillis() - start);
+            }
+            chatSessionStore.append(userId, sessionId, message, aiResponse);
+            ChatResponseDto response = new ChatResponseDto(aiResponse, sessionId);
             log.info("DeepSeek API调用成功，用户: {}, 回复长度: {}", userId, aiResponse.length());
             return response;
-            
-        } catch (Exception e) {
-            log.warn("DeepSeek API调用失败，使用智能模拟回复，用户: {}, 错误: {}", userId, e.getMessage());
-            return createMockResponse(message);
+        });
+    }
+    
+    @Override
+    public Flux<String> streamMessage(Long userId, String sessionId, String message) {
+        if (!deepSeekClient.isConfigured()) {
+            log.info("DeepSeek API密钥未配置，使用智能模拟回复，用户: {}", userId);
+            String response = createMockResponse(message, chatCatalogRetriever.retrieve(message)).getMessage();
+            chatSessionStore.append(userId, sessionId, message, response);
+            return Flux.just(response);
+        }
+        
+        List<Map<String, String>> history = chatSessionStore.getPromptHistory(userId, sessionId);
+        String cached = history.isEmpty() ? chatResponseCache.get(message) : null;
+        if (cached != null) {
+            log.info("命中聊天回复缓存，用户: {}", userId);
+            chatSessionStore.append(userId, sessionId, message, cached);
+            return Flux.just(cached);
+        }
+        
+        if (!acquireUserSlot(userId)) {
+            throw new IllegalStateException("上一条消息还在处理中，请稍候");
         }
+        
+        log.info("流式调用DeepSeek API，用户: {}, 消息长度: {}", userId, message.length());
+        long start = System.currentTimeMillis();
+        List<Song> candidates = chatCatalogRetriever.retrieve(message);
+        AtomicBoolean emitted = new AtomicBoolean();
+        StringBuilder content = new StringBuilder();
+        return deepSeekClient.stream(buildMessages(message, candidates, history))
+                .doOnNext(delta -> {
+                    emitted.set(true);
+                    content.append(delta);
+                })
+                // 只缓存和记录完整输出的回复，中断或出错的不缓存
+                .doOnComplete(() -> {
+                    if (history.isEmpty()) {
+                        chatResponseCache.put(message, content.toString(), System.currentTimeMillis() - start);
+                    }
+                    chatSessionStore.append(userId, sessionId, message, content.toString());
+                })
+                .onErrorResume(e -> {
+                    // 已经输出部分内容时不再拼接模拟回复，由调用方提示中断
+                    if (emitted.get()) {
+                        return Flux.error(e);
+                    }
+                    if (e instanceof RejectedExecutionException) {
+                        log.warn("DeepSeek API并发已满，返回繁忙提示，用户: {}", userId);
+                        return Flux.just(createFallbackResponse().getMessage());
+                    }
+                    log.warn("DeepSeek API流式调用失败，使用智能模拟回复，用户: {}, 错误: {}", userId, e.getMessage());
+                    return Flux.just(createMockResponse(message, candidates).getMessage());
+                })
+                .doFinally(signal -> releaseUserSlot(userId));
     }
     
     /**
-     * 调用DeepSeek API
+     * 构建消息列表（系统提示词 + 曲库候选 + 会话历史 + 用户消息）
      */
-    private String callDeepSeekApi(String userMessage) {
-        try {
-            // 构建请求体
-            Map<String, Object> requestBody = new HashMap<>();
-            requestBody.put("model", deepseekModel);
-            requestBody.put("max_tokens", 500);
-            requestBody.put("temperature", 0.7);
-            requestBody.put("stream", false);
-            
-            // 构建消息列表
-            List<Map<String, String>> messages = new ArrayList<>();
-            
-            // 系统提示词
-            Map<String, String> systemMessage = new HashMap<>();
-            systemMessage.put("role", "system");
-            systemMessage.put("content", MUSIC_SYSTEM_PROMPT);
-            messages.add(systemMessage);
-            
-            // 用户消息
-            Map<String, String> userMsg = new HashMap<>();
-            userMsg.put("role", "user");
-            userMsg.put("content", userMessage);
-            messages.add(userMsg);
-            
-            requestBody.put("messages", messages);
-            
-            // 设置请求头
-            HttpHeaders headers = new HttpHeaders();
-            headers.setContentType(MediaType.APPLICATION_JSON);
-            headers.setBearerAuth(deepseekApiKey);
-            
-            HttpEntity<Map<String, Object>> request = new HttpEntity<>(requestBody, headers);
-            
-            // 发送请求
-            @SuppressWarnings("unchecked")
-            ResponseEntity<Map<String, Object>> response = restTemplate.exchange(
-                deepseekApiUrl, 
-                HttpMethod.POST, 
-                request, 
-                (Class<Map<String, Object>>) (Class<?>) Map.class
-            );
-            
-            // 解析响应
-            if (response.getStatusCode() == HttpStatus.OK && response.getBody() != null) {
-                Map<String, Object> responseBody = response.getBody();
-                if (responseBody != null) {
-                    @SuppressWarnings("unchecked")
-                    List<Map<String, Object>> choices = (List<Map<String, Object>>) responseBody.get("choices");
-                
-                    if (choices != null && !choices.isEmpty()) {
-                        Map<String, Object> firstChoice = choices.get(0);
-                        @SuppressWarnings("unchecked")
-                        Map<String, Object> message = (Map<String, Object>) firstChoice.get("message");
-                        return (String) message.get("content");
-                    }
-                }
-            }
-            
-            throw new RuntimeException("DeepSeek API返回格式异常");
-            
-        } catch (Exception e) {
-            log.error("调用DeepSeek API异常", e);
-            throw e;
+    private List<Map<String, String>> buildMessages(String userMessage, List<Song> candidates,
+                                                    List<Map<String, String>> history) {
+        List<Map<String, String>> messages = new ArrayList<>();
+        
+        // 系统提示词
+        Map<String, String> systemMessage = new HashMap<>();
+        systemMessage.put("role", "system");
+        systemMessage.put("content", MUSIC_SYSTEM_PROMPT);
+        messages.add(systemMessage);
+        
+        // 曲库候选
+        String catalogContext = chatCatalogRetriever.buildContext(candidates);
+        if (catalogContext != null) {
+            Map<String, String> catalogMessage = new HashMap<>();
+            catalogMessage.put("role", "system");
+            catalogMessage.put("content", catalogContext);
+            messages.add(catalogMessage);
         }
+        
+        // 会话历史（已按token预算截取）
+        messages.addAll(history);
+        
+        // 用户消息
+        Map<String, String> userMsg = new HashMap<>();
+        userMsg.put("role", "user");
+        userMsg.put("content", userMessage);
+        messages.add(userMsg);
+        
+        return messages;
+    }
+    
+    private boolean acquireUserSlot(Long userId) {
+        boolean[] acquired = new boolean[1];
+        userInFlight.compute(userId, (id, count) -> {
+            int current = count != null ? count : 0;
+            if (current >= perUserConcurrent) {
+                return count;
+            }
+            acquired[0] = true;
+            return current + 1;
+        });
+        return acquired[0];
+    }
+    
+    private void releaseUserSlot(Long userId) {
+        userInFlight.computeIfPresent(userId, (id, count) -> count > 1 ? count - 1 : null);
     }
     
     /**
      * 创建模拟回复（当API未配置时）
+     *
+     * @param candidates 曲库候选歌曲，推荐类回复优先使用
      */
-    private ChatResponseDto createMockResponse(String message) {
+    private ChatResponseDto createMockResponse(String message, List<Song> candidates) {
         String response;
         
-        if (message.contains("推荐") || message.contains("歌曲") || message.contains("音乐")) {
-            response = "🎵 根据你的喜好，我推荐几首经典歌曲：\n\n" +
-                     "• 《夜曲》- 周杰伦 🎹\n" +
-                     "• 《告白气球》- 周杰伦 🎈\n" +
-                     "• 《稻香》- 周杰伦 🌾\n\n" +
-                     "这些都是华语流行音乐的经典之作，你可以在网站上搜索试听！";
-        } else if (message.contains("心情") || message.contains("情感")) {
-            response = "🎶 音乐确实能治愈心灵！告诉我你现在的心情，我来为你推荐合适的音乐：\n\n" +
-                     "😊 开心 → 推荐轻快的流行歌曲\n" +
-                     "😢 难过 → 推荐温暖的治愈系音乐\n" +
-                     "😌 放松 → 推荐轻柔的民谣或古典\n" +
-                     "💪 励志 → 推荐节奏感强的摇滚或电子音乐";
-        } else if (message.contains("功能") || message.contains("怎么用")) {
-            response = "🎤 让我来介绍网站的主要功能：\n\n" +
-                     "• 🔍 搜索：在顶部搜索框输入歌名或歌手\n" +
-                     "• ❤️ 收藏：点击心形图标收藏喜欢的歌曲\n" +
-                     "• 📋 歌单：创建和管理你的个人歌单\n" +
-                     "• 💬 评论：在歌曲页面分享你的想法\n\n" +
-                     "有什么具体操作不明白的，随时问我！";
-        } else {
-            response = "🎵 你好！我是你的AI音乐助手小音~\n\n" +
-                     "我可以帮你：\n" +
-                     "• 推荐歌曲和歌手 🎤\n" +
-                     "• 解答音乐相关问题 🎼\n" +
-                     "• 指导网站功能使用 💻\n" +
-                     "• 根据心情推荐音乐 💕\n\n" +
-                     "有什么音乐问题想问我吗？";
+        switch (ChatIntent.classify(message)) {
+            case RECOMMEND:
+                if (!candidates.isEmpty()) {
+                    response = createCatalogRecommendation(candidates);
+                    break;
+                }
+                response = "🎵 根据你的喜好，我推荐几首经典歌曲：\n\n" +
+                         "• 《夜曲》- 周杰伦 🎹\n" +
+                         "• 《告白气球》- 周杰伦 🎈\n" +
+                         "• 《稻香》- 周杰伦 🌾\n\n" +
+                         "这些都是华语流行音乐的经典之作，你可以在网站上搜索试听！";
+                break;
+            case MOOD:
+                response = "🎶 音乐确实能治愈心灵！告诉我你现在的心情，我来为你推荐合适的音乐：\n\n" +
+                         "😊 开心 → 推荐轻快的流行歌曲\n" +
+                         "😢 难过 → 推荐温暖的治愈系音乐\n" +
+                         "😌 放松 → 推荐轻柔的民谣或古典\n" +
+                         "💪 励志 → 推荐节奏感强的摇滚或电子音乐";
+                break;
+            case FEATURE:
+                response = "🎤 让我来介绍网站的主要功能：\n\n" +
+                         "• 🔍 搜索：在顶部搜索框输入歌名或歌手\n" +
+                         "• ❤️ 收藏：点击心形图标收藏喜欢的歌曲\n" +
+                         "• 📋 歌单：创建和管理你的个人歌单\n" +
+                         "• 💬 评论：在歌曲页面分享你的想法\n\n" +
+                         "有什么具体操作不明白的，随时问我！";
+                break;
+            default:
+                response = "🎵 你好！我是你的AI音乐助手小音~\n\n" +
+                         "我可以帮你：\n" +
+                         "• 推荐歌曲和歌手 🎤\n" +
+                         "• 解答音乐相关问题 🎼\n" +
+                         "• 指导网站功能使用 💻\n" +
+                         "• 根据心情推荐音乐 💕\n\n" +
+                         "有什么音乐问题想问我吗？";
+                break;
         }
         
         return new ChatResponseDto(response);
     }
     
+    /**
+     * 从曲库候选中推荐歌曲
+     */
+    private String createCatalogRecommendation(List<Song> candidates) {
+        StringBuilder response = new StringBuilder("🎵 根据你的喜好，我从曲库里挑了几首歌：\n\n");
+        for (int i = 0; i < candidates.size() && i < 3; i++) {
+            Song song = candidates.get(i);
+            response.append("• 《").append(song.getName()).append("》");
+            if (song.getSingerName() != null) {
+                response.append("- ").append(song.getSingerName());
+            }
+            response.append(" 🎶\n");
+        }
+        response.append("\n这些歌曲都可以在网站上直接搜索试听！");
+        return response.toString();
+    }
+    
     /**
      * 创建失败回复
      */
@@ -215,8 +333,7 @@ public class ChatServiceImpl implements ChatService {
     }
     
     @Override
-    public Object getChatHistory(Long userId) {
-        // 暂时返回空，后续可以实现聊天历史功能
-        return new ArrayList<>();
+    public ChatHistoryDto getChatHistory(Long userId, String sessionId) {
+        return chatSessionStore.getHistory(userId, sessionId);
     }
 }
@@ -1,16 +1,22 @@
 package com.music.service.impl;
 
 import com.baomidou.mybatisplus.extension.service.impl.ServiceImpl;
+import com.music.common.result.PageResult;
 import com.music.entity.Comment;
 import com.music.mapper.CommentMapper;
+import com.music.service.CommentLikeEngine;
 import com.music.service.CommentService;
+import com.music.service.CommentThreadCache;
 import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.BeanUtils;
 import org.springframework.beans.factory.annotation.Autowired;
-import org.springframework.jdbc.core.JdbcTemplate;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
 
 import java.time.LocalDateTime;
+import java.util.ArrayList;
 import java.util.List;
 
 /**
@@ -24,11 +30,62 @@ public class CommentServiceImpl extends ServiceImpl<CommentMapper, Comment> impl
     private CommentMapper commentMapper;
     
     @Autowired
-    private JdbcTemplate jdbcTemplate;
+    private CommentThreadCache commentThreadCache;
+    
+    @Autowired
+    private CommentLikeEngine commentLikeEngine;
     
     @Override
     public List<Comment> getCommentsByTarget(Long targetId, String targetType, Long userId) {
-        return commentMapper.getCommentsByTarget(targetId, targetType, userId);
+        List<Comment> comments = commentMapper.getCommentsByTarget(targetId, targetType, userId);
+        for (Comment comment : comments) {
+            applyLikeState(comment, userId);
+        }
+        return comments;
+    }
+    
+    @Override
+    public PageResult<Comment> getCommentThreads(Long targetId, String targetType, Long userId,
+                                                 Long current, Long size, Integer replySize) {
+        CommentThreadCache.CommentThread thread = commentThreadCache.getThread(targetType, targetId);
+        long[] likedIds = commentThreadCache.getLikedIds(userId, targetType, targetId);
+        
+        List<Comment> roots = thread.getRoots();
+        List<Comment> records = new ArrayList<>();
+        for (Comment root : page(roots, current, size)) {
+            Comment copy = copyOf(root, likedIds, userId);
+            List<Comment> replies = thread.getReplies(root.getId());
+            List<Comment> firstReplies = new ArrayList<>();
+            for (Comment reply : replies.subList(0, Math.min(replySize, replies.size()))) {
+                firstReplies.add(copyOf(reply, likedIds, userId));
+            }
+            copy.setReplies(firstReplies);
+            copy.setReplyCount(replies.size());
+            records.add(copy);
+        }
+        return new PageResult<>(records, (long) roots.size(), current, size);
+    }
+    
+    @Override
+    public PageResult<Comment> getReplies(Long commentId, Long userId, Long current, Long size) {
+        Comment comment = commentMapper.selectById(commentId);
+        if (comment == null || comment.getStatus() == null || comment.getStatus() != 1) {
+            return null;
+        }
+        CommentThreadCache.CommentThread thread =
+                commentThreadCache.getThread(comment.getTargetType(), comment.getTargetId());
+        Comment root = thread.getRoot(commentId);
+        if (root == null) {
+            return null;
+        }
+        long[] likedIds = commentThreadCache.getLikedIds(userId, comment.getTargetType(), comment.getTargetId());
+        
+        List<Comment> replies = thread.getReplies(root.getId());
+        List<Comment> records = new ArrayList<>();
+        for (Comment reply : page(replies, current, size)) {
+            records.add(copyOf(reply, likedIds, userId));
+        }
+        return new PageResult<>(records, (long) replies.size(), current, size);
     }
     
     @Override
@@ -46,6 +103,7 @@ public class CommentServiceImpl extends ServiceImpl<CommentMapper, Comment> impl
         comment.setUpdateTime(LocalDateTime.now());
         
         commentMapper.insert(comment);
+        afterCommit(() -> commentThreadCache.invalidateThread(targetType, targetId));
         
         // 返回带用户信息的评论
         return commentMapper.getCommentById(comment.getId(), userId);
@@ -63,33 +121,18 @@ public class CommentServiceImpl extends ServiceImpl<CommentMapper, Comment> impl
         // 软删除：更新状态为0
         comment.setStatus(0);
         comment.setUpdateTime(LocalDateTime.now());
-        return commentMapper.updateById(comment) > 0;
+        boolean deleted = commentMapper.updateById(comment) > 0;
+        if (deleted) {
+            afterCommit(() -> commentThreadCache.invalidateThread(comment.getTargetType(), comment.getTargetId()));
+        }
+        return deleted;
     }
     
     @Override
-    @Transactional
     public boolean toggleLikeComment(Long commentId, Long userId) {
         try {
-            // 检查用户是否已经点赞
-            Boolean isLiked = commentMapper.getUserLikeStatus(commentId, userId);
-            
-            if (isLiked != null && isLiked) {
-                // 已点赞，取消点赞
-                jdbcTemplate.update(
-                    "DELETE FROM comment_likes WHERE comment_id = ? AND user_id = ?",
-                    commentId, userId
-                );
-                commentMapper.decrementLikeCount(commentId);
-                return false; // 返回false表示取消点赞
-            } else {
-                // 未点赞，添加点赞
-                jdbcTemplate.update(
-                    "INSERT INTO comment_likes (comment_id, user_id, create_time) VALUES (?, ?, ?)",
-                    commentId, userId, LocalDateTime.now()
-                );
-                commentMapper.incrementLikeCount(commentId);
-                return true; // 返回true表示点赞成功
-            }
+            // 内存位图中原子翻转，数据库由点赞引擎批量写回
+            return commentLikeEngine.toggle(commentId, userId);
         } catch (Exception e) {
             log.error("点赞操作失败: commentId={}, userId={}", commentId, userId, e);
             throw new RuntimeException("点赞操作失败");
@@ -98,6 +141,65 @@ public class CommentServiceImpl extends ServiceImpl<CommentMapper, Comment> impl
     
     @Override
     public Comment getCommentById(Long commentId, Long userId) {
-        return commentMapper.getCommentById(commentId, userId);
+        Comment comment = commentMapper.getCommentById(commentId, userId);
+        if (comment != null) {
+            applyLikeState(comment, userId);
+        }
+        return comment;
+    }
+    
+    private List<Comment> page(List<Comment> comments, Long current, Long size) {
+        // 先比较页码，避免页码过大时乘法溢出
+        if (current - 1 > comments.size() / size) {
+            return new ArrayList<>();
+        }
+        long from = (current - 1) * size;
+        if (from < 0 || from >= comments.size()) {
+            return new ArrayList<>();
+        }
+        return comments.subList((int) from, (int) Math.min(from + size, comments.size()));
+    }
+    
+    /**
+     * 复制缓存中的评论并叠加当前用户的点赞状态
+     */
+    private Comment copyOf(Comment comment, long[] likedIds, Long userId) {
+        Comment copy = new Comment();
+        synchronized (comment) {
+            BeanUtils.copyProperties(comment, copy);
+        }
+        copy.setIsLiked(CommentThreadCache.isLiked(likedIds, comment.getId()));
+        applyLikeState(copy, userId);
+        return copy;
+    }
+    
+    /**
+     * 叠加点赞引擎中尚未写入数据库的点赞状态和点赞数
+     */
+    private void applyLikeState(Comment comment, Long userId) {
+        Boolean liked = commentLikeEngine.isLiked(comment.getId(), userId);
+        if (liked != null) {
+            comment.setIsLiked(liked);
+        }
+        Integer likeCount = commentLikeEngine.getLikeCount(comment.getId());
+        if (likeCount != null) {
+            comment.setLikeCount(likeCount);
+        }
+    }
+    
+    /**
+     * 事务提交后再清理缓存，避免并发读取在提交前重建出旧数据
+     */
+    private void afterCommit(Runnable action) {
+        if (!TransactionSynchronizationManager.isSynchronizationActive()) {
+            action.run();
+            return;
+        }
+        TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+            @Override
+            public void afterCommit() {
+                action.run();
+            }
+        });
     }
 }
@@ -3,14 +3,21 @@ package com.music.service.impl;
 import com.baomidou.mybatisplus.core.conditions.query.LambdaQueryWrapper;
 import com.baomidou.mybatisplus.core.metadata.IPage;
 import com.baomidou.mybatisplus.extension.plugins.pagination.Page;
+import com.music.common.cache.TieredCache;
 import com.music.common.result.PageResult;
+import com.music.common.util.CursorUtils;
 import com.music.entity.Singer;
 import com.music.mapper.SingerMapper;
+import com.music.service.PageCountService;
 import com.music.service.SingerService;
+import com.music.service.SongSearchIndex;
+import com.music.service.TieredCacheManager;
 import org.apache.commons.lang3.StringUtils;
+import org.springframework.beans.BeanUtils;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.stereotype.Service;
 
+import javax.annotation.PostConstruct;
 import java.util.List;
 
 /**
@@ -19,28 +26,112 @@ import java.util.List;
 @Service
 public class SingerServiceImpl implements SingerService {
     
+    public static final String CACHE_NAME = "singer";
+    
     @Autowired
     private SingerMapper singerMapper;
     
+    @Autowired
+    private SongSearchIndex songSearchIndex;
+    
+    @Autowired
+    private TieredCacheManager tieredCacheManager;
+    
+    @Autowired
+    private PageCountService pageCountService;
+    
+    private TieredCache<Singer> singerCache;
+    
+    @PostConstruct
+    public void initCache() {
+        singerCache = tieredCacheManager.getCache(CACHE_NAME, Singer.class, singer -> {
+            Singer copy = new Singer();
+            BeanUtils.copyProperties(singer, copy);
+            return copy;
+        });
+    }
+    
     @Override
     public PageResult<Singer> getSingerPage(Long current, Long size, String name) {
         Page<Singer> page = new Page<>(current, size);
+        // 总数由PageCountService缓存提供
+        page.setSearchCount(false);
         LambdaQueryWrapper<Singer> wrapper = new LambdaQueryWrapper<>();
         wrapper.like(StringUtils.isNotBlank(name), Singer::getName, name)
                 .eq(Singer::getStatus, 1)
-                .orderByDesc(Singer::getPlayCount);
+                .orderByDesc(Singer::getPlayCount)
+                .orderByDesc(Singer::getId);
         
         IPage<Singer> result = singerMapper.selectPage(page, wrapper);
-        return new PageResult<>(result.getRecords(), result.getTotal(), current, size);
+        List<Singer> records = result.getRecords();
+        
+        PageResult<Singer> pageResult;
+        if (records.size() < size && (!records.isEmpty() || current == 1)) {
+            // 分页插件按 LIMIT offset,size 查询，不满一页说明是最后一页，可以直接得到精确总数
+            pageResult = new PageResult<>(records, page.offset() + records.size(), current, size);
+            pageResult.setTotalExact(true);
+        } else {
+            PageCountService.PageCount count = pageCountService.countSingers(name);
+            pageResult = new PageResult<>(records, count.getTotal(), current, size);
+            pageResult.setTotalExact(count.isExact());
+        }
+        return pageResult;
+    }
+    
+    @Override
+    public PageResult<Singer> getSingerPageByCursor(String cursor, Long size, String name, boolean withTotal) {
+        LambdaQueryWrapper<Singer> wrapper = new LambdaQueryWrapper<>();
+        wrapper.like(StringUtils.isNotBlank(name), Singer::getName, name)
+                .eq(Singer::getStatus, 1);
+        if (StringUtils.isNotBlank(cursor)) {
+            String[] values = CursorUtils.decode(cursor, 2);
+            Long cursorPlayCount;
+            Long cursorId;
+            try {
+                cursorPlayCount = Long.valueOf(values[0]);
+                cursorId = Long.valueOf(values[1]);
+            } catch (NumberFormatException e) {
+                throw new IllegalArgumentException("无效的分页游标");
+            }
+            // 播放次数在翻页期间可能变化，个别歌手可能重复或跳过，列表浏览可以接受
+            wrapper.and(w -> w.lt(Singer::getPlayCount, cursorPlayCount)
+                    .or(o -> o.eq(Singer::getPlayCount, cursorPlayCount).lt(Singer::getId, cursorId)));
+        }
+        wrapper.orderByDesc(Singer::getPlayCount)
+                .orderByDesc(Singer::getId)
+                .last("LIMIT " + (size + 1));
+        
+        // 多查一条判断是否还有下一页
+        List<Singer> singers = singerMapper.selectList(wrapper);
+        String nextCursor = null;
+        if (singers.size() > size) {
+            singers = singers.subList(0, size.intValue());
+            Singer last = singers.get(singers.size() - 1);
+            nextCursor = CursorUtils.encode(last.getPlayCount() != null ? last.getPlayCount() : 0L, last.getId());
+        }
+        
+        if (!withTotal) {
+            return PageResult.ofCursor(singers, size, nextCursor, null);
+        }
+        PageCountService.PageCount count = pageCountService.countSingers(name);
+        PageResult<Singer> pageResult = PageResult.ofCursor(singers, size, nextCursor, count.getTotal());
+        pageResult.setTotalExact(count.isExact());
+        return pageResult;
     }
     
     @Override
     public Singer getSingerById(Long id) {
-        return singerMapper.selectById(id);
+        return singerCache.get(id, singerMapper::selectById);
     }
     
     @Override
     public List<Singer> searchSingers(String keyword, Integer limit) {
+        // 优先使用内存倒排索引，索引未就绪时回退到数据库查询
+        List<Singer> singers = songSearchIndex.searchSingers(keyword, limit);
+        if (singers != null) {
+            return singers;
+        }
+        
         LambdaQueryWrapper<Singer> wrapper = new LambdaQueryWrapper<>();
         wrapper.like(StringUtils.isNotBlank(keyword), Singer::getName, keyword)
                 .or()
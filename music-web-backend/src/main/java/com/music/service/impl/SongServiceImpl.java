@@ -4,15 +4,25 @@ import com.baomidou.mybatisplus.core.conditions.query.LambdaQueryWrapper;
 import com.baomidou.mybatisplus.core.metadata.IPage;
 import com.baomidou.mybatisplus.extension.plugins.pagination.Page;
 import com.music.common.result.PageResult;
+import com.music.common.util.CursorUtils;
+import com.music.dto.SuggestionDto;
 import com.music.entity.Song;
 import com.music.entity.Singer;
 import com.music.mapper.SongMapper;
 import com.music.mapper.SingerMapper;
+import com.music.service.HotSongLeaderboard;
+import com.music.service.PageCountService;
+import com.music.service.PlayCountAggregator;
+import com.music.service.SongMetadataCache;
+import com.music.service.SongSearchIndex;
 import com.music.service.SongService;
+import com.music.service.SongSuggestService;
+import com.music.service.TieredCacheManager;
 import org.apache.commons.lang3.StringUtils;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.stereotype.Service;
 
+import java.time.LocalDateTime;
 import java.util.List;
 
 /**
@@ -27,33 +37,114 @@ public class SongServiceImpl implements SongService {
     @Autowired
     private SingerMapper singerMapper;
     
+    @Autowired
+    private PlayCountAggregator playCountAggregator;
+    
+    @Autowired
+    private HotSongLeaderboard hotSongLeaderboard;
+    
+    @Autowired
+    private SongSearchIndex songSearchIndex;
+    
+    @Autowired
+    private SongSuggestService songSuggestService;
+    
+    @Autowired
+    private SongMetadataCache songMetadataCache;
+    
+    @Autowired
+    private TieredCacheManager tieredCacheManager;
+    
+    @Autowired
+    private PageCountService pageCountService;
+    
     @Override
     public PageResult<Song> getSongPage(Long current, Long size, String name, Long singerId, Long albumId) {
         Page<Song> page = new Page<>(current, size);
+        // 总数由PageCountService缓存提供，不再对关联查询执行COUNT
+        page.setSearchCount(false);
         IPage<Song> result = songMapper.getSongPageWithSinger(page, name, singerId, albumId);
+        List<Song> records = result.getRecords();
+        
+        PageResult<Song> pageResult;
+        if (records.size() < size && (!records.isEmpty() || current == 1)) {
+            // 分页插件按 LIMIT offset,size 查询，不满一页说明是最后一页，可以直接得到精确总数
+            pageResult = new PageResult<>(records, page.offset() + records.size(), current, size);
+            pageResult.setTotalExact(true);
+        } else {
+            PageCountService.PageCount count = pageCountService.countSongs(name, singerId, albumId);
+            pageResult = new PageResult<>(records, count.getTotal(), current, size);
+            pageResult.setTotalExact(count.isExact());
+        }
+        return pageResult;
+    }
+    
+    @Override
+    public PageResult<Song> getSongPageByCursor(String cursor, Long size, String name, Long singerId, Long albumId,
+                                                boolean withTotal) {
+        LocalDateTime cursorTime = null;
+        Long cursorId = null;
+        if (StringUtils.isNotBlank(cursor)) {
+            String[] values = CursorUtils.decode(cursor, 2);
+            try {
+                cursorTime = LocalDateTime.parse(values[0]);
+                cursorId = Long.valueOf(values[1]);
+            } catch (RuntimeException e) {
+                throw new IllegalArgumentException("无效的分页游标");
+            }
+        }
         
-        return new PageResult<>(result.getRecords(), result.getTotal(), current, size);
+        // 多查一条判断是否还有下一页
+        List<Song> songs = songMapper.getSongsAfterCursor(name, singerId, albumId, cursorTime, cursorId,
+                size.intValue() + 1);
+        String nextCursor = null;
+        if (songs.size() > size) {
+            songs = songs.subList(0, size.intValue());
+            Song last = songs.get(songs.size() - 1);
+            nextCursor = CursorUtils.encode(last.getCreateTime(), last.getId());
+        }
+        
+        if (!withTotal) {
+            return PageResult.ofCursor(songs, size, nextCursor, null);
+        }
+        PageCountService.PageCount count = pageCountService.countSongs(name, singerId, albumId);
+        PageResult<Song> pageResult = PageResult.ofCursor(songs, size, nextCursor, count.getTotal());
+        pageResult.setTotalExact(count.isExact());
+        return pageResult;
     }
     
     @Override
     public Song getSongById(Long id) {
-        return songMapper.getSongWithSingerById(id);
+        Song song = songMetadataCache.getSong(id);
+        if (song != null && song.getPlayCount() != null) {
+            // 叠加尚未刷盘的播放次数
+            song.setPlayCount(song.getPlayCount() + playCountAggregator.getPendingCount(id));
+        }
+        return song;
     }
     
     @Override
     public List<Song> searchSongs(String keyword, Integer limit) {
         if (keyword == null || keyword.trim().isEmpty()) {
             // 如果没有搜索关键词，返回热门歌曲
-            return songMapper.getHotSongsWithSinger(limit);
+            return getHotSongs(limit);
         }
         
-        // 使用真正的搜索功能
-        return songMapper.searchSongsWithSinger(keyword.trim(), limit);
+        // 优先使用内存倒排索引，索引未就绪时回退到数据库查询
+        List<Song> songs = songSearchIndex.searchSongs(keyword.trim(), limit);
+        return songs != null ? songs : songMapper.searchSongsWithSinger(keyword.trim(), limit);
+    }
+    
+    @Override
+    public List<SuggestionDto> suggest(String keyword, Integer limit) {
+        return songSuggestService.suggest(keyword, limit);
     }
     
     @Override
     public List<Song> getHotSongs(Integer limit) {
-        return songMapper.getHotSongsWithSinger(limit);
+        // 优先从Redis排行榜读取，Redis不可用时回退到数据库
+        List<Song> songs = hotSongLeaderboard.getHotSongs(limit);
+        return songs != null ? songs : songMapper.getHotSongsWithSinger(limit);
     }
     
     @Override
@@ -68,12 +159,19 @@ public class SongServiceImpl implements SongService {
     
     @Override
     public boolean playSong(Long id) {
-        Song song = songMapper.selectById(id);
-        if (song != null) {
-            song.setPlayCount(song.getPlayCount() + 1);
-            return songMapper.updateById(song) > 0;
+        if (id == null || id <= 0) {
+            return false;
         }
-        return false;
+
+        // 只统计曲库中的歌曲，任意ID不会进入计数表和热门排行榜
+        Boolean exists = songSearchIndex.containsSong(id);
+        if (exists == null ? songMetadataCache.getSong(id) == null : !exists) {
+            return false;
+        }
+
+        // 只在内存中累加，由PlayCountAggregator批量写回数据库
+        playCountAggregator.increment(id);
+        return true;
     }
     
     @Override
@@ -95,7 +193,13 @@ public class SongServiceImpl implements SongService {
     
     @Override
     public boolean saveSong(Song song) {
-        return songMapper.insert(song) > 0;
+        boolean saved = songMapper.insert(song) > 0;
+        if (saved) {
+            songMetadataCache.evict(song.getId());
+            songSearchIndex.addSong(song);
+            pageCountService.onSongInserted(song);
+        }
+        return saved;
     }
     
     @Override
@@ -157,6 +261,9 @@ public class SongServiceImpl implements SongService {
             singer.setAvatar(avatarUrl);
             
             singerMapper.insert(singer);
+            tieredCacheManager.invalidate(SingerServiceImpl.CACHE_NAME, singer.getId());
+            pageCountService.onSingerInserted(singer);
+            songSearchIndex.addSinger(singer);
         }
         
         return singer;
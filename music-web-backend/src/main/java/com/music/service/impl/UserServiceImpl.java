@@ -1,17 +1,22 @@
 package com.music.service.impl;
 
 import com.baomidou.mybatisplus.extension.service.impl.ServiceImpl;
+import com.music.common.cache.TieredCache;
 import com.music.common.result.Result;
 import com.music.entity.User;
 import com.music.mapper.UserMapper;
+import com.music.service.PasswordHasher;
+import com.music.service.TieredCacheManager;
 import com.music.service.UserService;
 import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.BeanUtils;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.stereotype.Service;
-import org.springframework.util.DigestUtils;
 import org.springframework.util.StringUtils;
 
+import javax.annotation.PostConstruct;
 import java.time.LocalDateTime;
+import java.util.concurrent.CompletableFuture;
 import java.util.regex.Pattern;
 
 /**
@@ -21,9 +26,19 @@ import java.util.regex.Pattern;
 @Service
 public class UserServiceImpl extends ServiceImpl<UserMapper, User> implements UserService {
     
+    private static final String CACHE_NAME = "user";
+    
     @Autowired
     private UserMapper userMapper;
     
+    @Autowired
+    private TieredCacheManager tieredCacheManager;
+    
+    @Autowired
+    private PasswordHasher passwordHasher;
+    
+    private TieredCache<User> userCache;
+    
     // 邮箱正则表达式
     private static final String EMAIL_PATTERN = 
         "^[a-zA-Z0-9_+&*-]+(?:\\.[a-zA-Z0-9_+&*-]+)*@" +
@@ -32,87 +47,102 @@ public class UserServiceImpl extends ServiceImpl<UserMapper, User> implements Us
     // 密码最小长度
     private static final int MIN_PASSWORD_LENGTH = 6;
     
+    @PostConstruct
+    public void initCache() {
+        userCache = tieredCacheManager.getCache(CACHE_NAME, User.class, user -> {
+            User copy = new User();
+            BeanUtils.copyProperties(user, copy);
+            return copy;
+        });
+    }
+    
     @Override
-    public Result<String> register(String username, String email, String password) {
+    public CompletableFuture<Result<String>> register(String username, String email, String password) {
         // 参数验证
         if (!StringUtils.hasText(username) || !StringUtils.hasText(email) || !StringUtils.hasText(password)) {
-            return Result.error("用户名、邮箱和密码不能为空");
+            return CompletableFuture.completedFuture(Result.error("用户名、邮箱和密码不能为空"));
         }
         
         // 用户名长度验证
         if (username.length() < 3 || username.length() > 20) {
-            return Result.error("用户名长度必须在3-20个字符之间");
+            return CompletableFuture.completedFuture(Result.error("用户名长度必须在3-20个字符之间"));
         }
         
         // 邮箱格式验证
         if (!Pattern.matches(EMAIL_PATTERN, email)) {
-            return Result.error("邮箱格式不正确");
+            return CompletableFuture.completedFuture(Result.error("邮箱格式不正确"));
         }
         
         // 密码长度验证
         if (password.length() < MIN_PASSWORD_LENGTH) {
-            return Result.error("密码长度不能少于" + MIN_PASSWORD_LENGTH + "位");
+            return CompletableFuture.completedFuture(Result.error("密码长度不能少于" + MIN_PASSWORD_LENGTH + "位"));
         }
         
         // 检查用户名是否已存在
         if (isUsernameExists(username)) {
-            return Result.error("用户名已存在");
+            return CompletableFuture.completedFuture(Result.error("用户名已存在"));
         }
         
         // 检查邮箱是否已存在
         if (isEmailExists(email)) {
-            return Result.error("邮箱已被注册");
+            return CompletableFuture.completedFuture(Result.error("邮箱已被注册"));
         }
         
-        try {
-            // 创建新用户
-            User user = new User();
-            user.setUsername(username);
-            user.setEmail(email);
-            user.setPassword(encryptPassword(password));
-            user.setNickname(username); // 默认昵称为用户名
-            user.setStatus(1); // 正常状态
-            user.setIsVip(false);
-            user.setCreateTime(LocalDateTime.now());
-            user.setUpdateTime(LocalDateTime.now());
-            
-            // 插入数据库
-            int result = userMapper.insert(user);
-            if (result > 0) {
-                log.info("用户注册成功: {}", username);
-                return Result.success("注册成功");
-            } else {
-                return Result.error("注册失败，请稍后重试");
+        // 密码哈希在密码哈希线程池中执行，线程池已满时由调用方返回繁忙提示
+        return passwordHasher.hash(password).thenApply(passwordHash -> {
+            try {
+                // 创建新用户
+                User user = new User();
+                user.setUsername(username);
+                user.setEmail(email);
+                user.setPassword(passwordHash);
+                user.setNickname(username); // 默认昵称为用户名
+                user.setStatus(1); // 正常状态
+                user.setIsVip(false);
+                user.setCreateTime(LocalDateTime.now());
+                user.setUpdateTime(LocalDateTime.now());
+                
+                // 插入数据库
+                int result = userMapper.insert(user);
+                if (result > 0) {
+                    log.info("用户注册成功: {}", username);
+                    return Result.success("注册成功");
+                } else {
+                    return Result.<String>error("注册失败，请稍后重试");
+                }
+            } catch (Exception e) {
+                log.error("用户注册异常: {}", e.getMessage(), e);
+                return Result.<String>error("注册失败，系统异常");
             }
-        } catch (Exception e) {
-            log.error("用户注册异常: {}", e.getMessage(), e);
-            return Result.error("注册失败，系统异常");
-        }
+        });
     }
     
     @Override
-    public Result<User> login(String usernameOrEmail, String password) {
+    public CompletableFuture<Result<User>> login(String usernameOrEmail, String password) {
         // 参数验证
         if (!StringUtils.hasText(usernameOrEmail) || !StringUtils.hasText(password)) {
-            return Result.error("用户名/邮箱和密码不能为空");
+            return CompletableFuture.completedFuture(Result.error("用户名/邮箱和密码不能为空"));
         }
         
-        try {
-            // 查询用户
-            User user = userMapper.selectByUsernameOrEmail(usernameOrEmail);
-            if (user == null) {
-                return Result.error("用户不存在");
-            }
-            
-            // 检查用户状态
-            if (user.getStatus() != 1) {
-                return Result.error("账户已被禁用，请联系管理员");
+        // 查询用户
+        User user = userMapper.selectByUsernameOrEmail(usernameOrEmail);
+        if (user == null) {
+            return CompletableFuture.completedFuture(Result.error("用户不存在"));
+        }
+        
+        // 检查用户状态
+        if (user.getStatus() != 1) {
+            return CompletableFuture.completedFuture(Result.error("账户已被禁用，请联系管理员"));
+        }
+        
+        // 验证密码（在密码哈希线程池中执行）
+        String storedHash = user.getPassword();
+        return passwordHasher.verify(password, storedHash).thenApply(matched -> {
+            if (!matched) {
+                return Result.<User>error("密码错误");
             }
-            
-            // 验证密码
-            String encryptedPassword = encryptPassword(password);
-            if (!encryptedPassword.equals(user.getPassword())) {
-                return Result.error("密码错误");
+            if (passwordHasher.needsRehash(storedHash)) {
+                rehashPassword(user.getId(), password);
             }
             
             // 清除密码信息，不返回给前端
@@ -120,11 +150,7 @@ public class UserServiceImpl extends ServiceImpl<UserMapper, User> implements Us
             
             log.info("用户登录成功: {}", user.getUsername());
             return Result.success("登录成功", user);
-            
-        } catch (Exception e) {
-            log.error("用户登录异常: {}", e.getMessage(), e);
-            return Result.error("登录失败，系统异常");
-        }
+        });
     }
     
     @Override
@@ -148,7 +174,14 @@ public class UserServiceImpl extends ServiceImpl<UserMapper, User> implements Us
         if (id == null || id <= 0) {
             return null;
         }
-        return userMapper.selectById(id);
+        // 缓存中不保存密码
+        return userCache.get(id, key -> {
+            User user = userMapper.selectById(key);
+            if (user != null) {
+                user.setPassword(null);
+            }
+            return user;
+        });
     }
     
     @Override
@@ -161,6 +194,7 @@ public class UserServiceImpl extends ServiceImpl<UserMapper, User> implements Us
             user.setUpdateTime(LocalDateTime.now());
             int result = userMapper.updateById(user);
             if (result > 0) {
+                userCache.evict(user.getId());
                 return Result.success("更新成功");
             } else {
                 return Result.error("更新失败");
@@ -188,10 +222,24 @@ public class UserServiceImpl extends ServiceImpl<UserMapper, User> implements Us
     }
     
     /**
-     * 密码加密
+     * 登录成功后将旧的MD5哈希（或cost过低的BCrypt哈希）升级为当前配置，失败时下次登录再试
      */
-    private String encryptPassword(String password) {
-        // 使用MD5加密，实际项目中建议使用更安全的加密方式如BCrypt
-        return DigestUtils.md5DigestAsHex((password + "music_salt").getBytes());
+    private void rehashPassword(Long userId, String password) {
+        passwordHasher.hash(password).whenComplete((hash, error) -> {
+            if (error != null) {
+                log.debug("密码重新哈希跳过，用户: {}, 原因: {}", userId, error.getMessage());
+                return;
+            }
+            try {
+                User update = new User();
+                update.setId(userId);
+                update.setPassword(hash);
+                userMapper.updateById(update);
+                passwordHasher.onRehashed();
+                log.info("用户密码哈希已升级: {}", userId);
+            } catch (Exception e) {
+                log.warn("用户密码哈希升级失败: {}, {}", userId, e.getMessage());
+            }
+        });
     }
 }
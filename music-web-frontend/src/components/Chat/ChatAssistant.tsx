@@ -260,6 +260,8 @@ const ChatAssistant: React.FC = () => {
   const [isLoading, setIsLoading] = useState(false);
   const [showScrollHint, setShowScrollHint] = useState(false);
   const messageListRef = useRef<HTMLDivElement>(null);
+  // 服务端分配的会话ID，后续消息携带以保持上下文
+  const sessionIdRef = useRef<string | undefined>(undefined);
 
   // 自动滚动到底部
   const scrollToBottom = () => {
@@ -328,8 +330,11 @@ const ChatAssistant: React.FC = () => {
       console.log('发送聊天消息:', messageContent);
       
       // 调用真实的AI API
-      const response = await chatApi.sendMessage(messageContent);
+      const response = await chatApi.sendMessage(messageContent, sessionIdRef.current);
       console.log('AI回复:', response);
+      if (response.sessionId) {
+        sessionIdRef.current = response.sessionId;
+      }
       
       const aiMessage: Message = {
         id: (Date.now() + 1).toString(),
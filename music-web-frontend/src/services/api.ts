@@ -30,6 +30,25 @@ const api = axios.create({
   withCredentials: true, // 支持携带cookies/session
 });
 
+// 登录令牌（JWT），保存在localStorage中
+const TOKEN_KEY = 'token';
+
+export const getAuthToken = () => localStorage.getItem(TOKEN_KEY);
+
+const authHeaders = (): Record<string, string> => {
+  const token = getAuthToken();
+  return token ? { Authorization: `Bearer ${token}` } : {};
+};
+
+// 请求拦截器：携带登录令牌
+api.interceptors.request.use((config) => {
+  const token = getAuthToken();
+  if (token) {
+    config.headers.Authorization = `Bearer ${token}`;
+  }
+  return config;
+});
+
 // 响应拦截器
 api.interceptors.response.use(
   (response) => {
@@ -38,6 +57,7 @@ api.interceptors.response.use(
       return response.data.data; // 直接返回data部分
     } else if (response.data.code === 401) {
       // 未登录，跳转到登录页面
+      localStorage.removeItem(TOKEN_KEY);
       window.location.href = '/login';
       throw new Error('请先登录');
     } else {
@@ -49,6 +69,7 @@ api.interceptors.response.use(
     
     // 处理HTTP状态码401（未授权）
     if (error.response && error.response.status === 401) {
+      localStorage.removeItem(TOKEN_KEY);
       window.location.href = '/login';
       throw new Error('请先登录');
     }
@@ -65,12 +86,19 @@ export const songApi = {
     size?: number;
     name?: string;
     singerId?: number;
+    // 游标分页：首页传空字符串，之后传上一页返回的nextCursor
+    cursor?: string;
+    withTotal?: boolean;
   }) => api.get('/songs/page', { params }),
 
   // 搜索歌曲
   searchSongs: (keyword: string, limit = 20) =>
     api.get('/songs/search', { params: { keyword, limit } }),
 
+  // 搜索联想（支持汉字、全拼、首字母）
+  suggest: (keyword: string, limit = 10) =>
+    api.get('/songs/suggest', { params: { keyword, limit } }),
+
   // 获取热门歌曲
   getHotSongs: (limit = 50) =>
     api.get('/songs/hot', { params: { limit } }),
@@ -109,6 +137,9 @@ export const singerApi = {
     current?: number;
     size?: number;
     name?: string;
+    // 游标分页：首页传空字符串，之后传上一页返回的nextCursor
+    cursor?: string;
+    withTotal?: boolean;
   }) => api.get('/singers/page', { params }),
 
   // 搜索歌手
@@ -132,6 +163,14 @@ export const commentApi = {
   getComments: (targetId: number, targetType: 'song' | 'playlist') =>
     api.get('/comments', { params: { targetId, targetType } }),
 
+  // 分页获取评论楼层（每层附带前几条回复）
+  getCommentThreads: (targetId: number, targetType: 'song' | 'playlist', current = 1, size = 20, replySize = 3) =>
+    api.get('/comments/threads', { params: { targetId, targetType, current, size, replySize } }),
+
+  // 分页获取楼层回复
+  getReplies: (commentId: number, current = 1, size = 20) =>
+    api.get(`/comments/${commentId}/replies`, { params: { current, size } }),
+
   // 添加评论
   addComment: (targetId: number, targetType: 'song' | 'playlist', content: string, parentId?: number) =>
     api.post('/comments', { targetId, targetType, content, parentId }),
@@ -157,9 +196,66 @@ export const chatApi = {
       timeout: 30000, // 30秒超时，AI调用需要更长时间
     }),
 
-  // 获取聊天历史
-  getChatHistory: () =>
-    api.get('/chat/history'),
+  // 流式发送聊天消息（SSE），逐段回调；通过signal中止时服务端同时取消上游请求
+  streamMessage: async (
+    message: string,
+    onToken: (content: string) => void,
+    signal?: AbortSignal,
+    sessionId?: string,
+    onSession?: (sessionId: string) => void,
+  ): Promise<void> => {
+    const response = await fetch(`${API_BASE_URL}/chat/stream`, {
+      method: 'POST',
+      headers: { 'Content-Type': 'application/json', Accept: 'text/event-stream', ...authHeaders() },
+      credentials: 'include',
+      body: JSON.stringify({ message, sessionId }),
+      signal,
+    });
+    if (!response.ok || !response.body) {
+      throw new Error(`聊天流请求失败: ${response.status}`);
+    }
+
+    const reader = response.body.getReader();
+    const decoder = new TextDecoder();
+    let buffer = '';
+    for (;;) {
+      const { done, value } = await reader.read();
+      if (done) {
+        return;
+      }
+      buffer += decoder.decode(value, { stream: true });
+      // 事件之间以空行分隔
+      let boundary = buffer.indexOf('\n\n');
+      while (boundary >= 0) {
+        const block = buffer.slice(0, boundary);
+        buffer = buffer.slice(boundary + 2);
+        boundary = buffer.indexOf('\n\n');
+
+        let event = 'message';
+        let data = '';
+        for (const line of block.split('\n')) {
+          if (line.startsWith('event:')) {
+            event = line.slice(6).trim();
+          } else if (line.startsWith('data:')) {
+            data += line.slice(5);
+          }
+        }
+        if (event === 'session') {
+          onSession?.(JSON.parse(data).sessionId);
+        } else if (event === 'token') {
+          onToken(JSON.parse(data).content);
+        } else if (event === 'error') {
+          throw new Error(JSON.parse(data).message);
+        } else if (event === 'done') {
+          return;
+        }
+      }
+    }
+  },
+
+  // 获取会话的聊天历史
+  getChatHistory: (sessionId: string) =>
+    api.get('/chat/history', { params: { sessionId } }),
 };
 
 // 数据初始化API（管理员用）
@@ -177,15 +273,21 @@ export const adminApi = {
 // 认证相关API
 export const authApi = {
   // 用户登录
-  login: (usernameOrEmail: string, password: string) => 
-    api.post('/auth/login', { usernameOrEmail, password }),
+  login: (usernameOrEmail: string, password: string) =>
+    api.post('/auth/login', { usernameOrEmail, password }).then((data: any) => {
+      if (data && data.token) {
+        localStorage.setItem(TOKEN_KEY, data.token);
+      }
+      return data;
+    }),
   
   // 用户注册
   register: (username: string, email: string, password: string) => 
     api.post('/auth/register', { username, email, password }),
   
   // 用户退出登录
-  logout: () => api.post('/auth/logout'),
+  logout: () =>
+    api.post('/auth/logout').finally(() => localStorage.removeItem(TOKEN_KEY)),
   
   // 获取当前用户信息
   getCurrentUser: () => api.get('/auth/current'),
@@ -50,6 +50,7 @@ export interface Comment {
   likeCount: number;
   isLiked: boolean;
   replies?: Comment[];
+  replyCount?: number;
   parentId?: string;
 }
 